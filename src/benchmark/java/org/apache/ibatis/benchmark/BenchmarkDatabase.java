@@ -0,0 +1,90 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+/**
+ * An in-memory HSQLDB database with a {@code users} table, and a configuration mapping it.
+ */
+final class BenchmarkDatabase {
+
+  static final String NAMESPACE = "benchmark";
+
+  private static final String MAPPER = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+      + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n"
+      + "<mapper namespace=\"" + NAMESPACE + "\">\n"
+      + "  <cache/>\n"
+      + "  <select id=\"selectUsers\" resultType=\"org.apache.ibatis.benchmark.User\" useCache=\"false\">\n"
+      + "    select id, name, email, age from users\n"
+      + "  </select>\n"
+      + "  <select id=\"selectMaps\" resultType=\"map\" useCache=\"false\">\n"
+      + "    select id, name, email, age from users\n"
+      + "  </select>\n"
+      + "  <select id=\"selectById\" resultType=\"org.apache.ibatis.benchmark.User\">\n"
+      + "    select id, name, email, age from users where id = #{id}\n"
+      + "  </select>\n"
+      + "</mapper>\n";
+
+  private BenchmarkDatabase() {
+    // Prevent Instantiation
+  }
+
+  static Configuration newConfiguration(String name, int rows) throws SQLException {
+    PooledDataSource dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:" + name, "sa", "");
+    populate(dataSource, rows);
+    Configuration configuration = new Configuration(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+    new XMLMapperBuilder(new ByteArrayInputStream(MAPPER.getBytes(StandardCharsets.UTF_8)), configuration,
+        NAMESPACE + ".xml", configuration.getSqlFragments()).parse();
+    return configuration;
+  }
+
+  private static void populate(DataSource dataSource, int rows) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("drop table users if exists");
+        statement.execute("create table users (id int primary key, name varchar(64), email varchar(128), age int)");
+      }
+      try (PreparedStatement ps = connection.prepareStatement("insert into users values (?, ?, ?, ?)")) {
+        for (int i = 1; i <= rows; i++) {
+          ps.setInt(1, i);
+          ps.setString(2, "user" + i);
+          ps.setString(3, "user" + i + "@example.com");
+          ps.setInt(4, 20 + i % 50);
+          ps.addBatch();
+        }
+        ps.executeBatch();
+      }
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+  }
+
+}
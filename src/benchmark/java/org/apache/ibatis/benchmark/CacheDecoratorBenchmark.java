@@ -0,0 +1,118 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Second level cache reads and writes through the decorator chain built by {@link CacheBuilder}, read-only
+ * (values shared) and read-write (values serialized).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheDecoratorBenchmark {
+
+  private static final int KEYS = 512;
+
+  @Param({"false", "true"})
+  public boolean readWrite;
+
+  private Cache cache;
+  private CacheKey[] keys;
+  private List<User> value;
+
+  @Setup
+  public void setup() {
+    cache = new CacheBuilder(BenchmarkDatabase.NAMESPACE)
+        .implementation(PerpetualCache.class)
+        .addDecorator(LruCache.class)
+        .size(2 * KEYS)
+        .readWrite(readWrite)
+        .build();
+    value = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      User user = new User();
+      user.setId(i);
+      user.setName("user" + i);
+      user.setEmail("user" + i + "@example.com");
+      user.setAge(20 + i);
+      value.add(user);
+    }
+    keys = new CacheKey[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      CacheKey key = new CacheKey();
+      key.update(BenchmarkDatabase.NAMESPACE + ".selectById");
+      key.update(i);
+      keys[i] = key;
+      cache.putObject(key, value);
+    }
+  }
+
+  @Benchmark
+  public Object get(Cursor cursor) {
+    return cache.getObject(keys[cursor.next()]);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object getContended(Cursor cursor) {
+    return cache.getObject(keys[cursor.next()]);
+  }
+
+  @Benchmark
+  public void put(Cursor cursor) {
+    cache.putObject(keys[cursor.next()], value);
+  }
+
+  /**
+   * Walks the keys, one cursor per thread.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int index;
+
+    int next() {
+      index = (index + 1) % KEYS;
+      return index;
+    }
+  }
+
+}
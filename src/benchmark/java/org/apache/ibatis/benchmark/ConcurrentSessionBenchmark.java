@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load test of many concurrent sessions sharing a small pool, each on its own thread. Virtual threads need
+ * Java 21, on older runtimes only the platform threads are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentSessionBenchmark {
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"1000", "10000"})
+  public int sessions;
+
+  @Param({"true", "false"})
+  public boolean errorContextEnabled;
+
+  private SqlSessionFactory sqlSessionFactory;
+  private ExecutorService executor;
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration configuration = BenchmarkDatabase.newConfiguration("sessions", 100);
+    // every select goes to the database
+    configuration.setCacheEnabled(false);
+    ErrorContext.setEnabled(errorContextEnabled);
+    PooledDataSource dataSource = (PooledDataSource) configuration.getEnvironment().getDataSource();
+    dataSource.setPoolMaximumActiveConnections(20);
+    dataSource.setPoolMaximumIdleConnections(20);
+    sqlSessionFactory = new DefaultSqlSessionFactory(configuration);
+    if ("virtual".equals(threads)) {
+      try {
+        executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException("Virtual threads are not available on Java " + System.getProperty("java.version"), e);
+      }
+    } else {
+      executor = Executors.newCachedThreadPool();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+    ((PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource()).forceCloseAll();
+    ErrorContext.setEnabled(true);
+  }
+
+  /**
+   * Runs one select in each of the sessions at once.
+   */
+  @Benchmark
+  public int selectConcurrently() throws InterruptedException, ExecutionException {
+    List<Future<User>> futures = new ArrayList<>(sessions);
+    for (int i = 0; i < sessions; i++) {
+      int id = i % 100 + 1;
+      futures.add(executor.submit(() -> selectById(id)));
+    }
+    int found = 0;
+    for (Future<User> future : futures) {
+      if (future.get() != null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  private User selectById(int id) {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      return session.selectOne(BenchmarkDatabase.NAMESPACE + ".selectById", id);
+    }
+  }
+
+}
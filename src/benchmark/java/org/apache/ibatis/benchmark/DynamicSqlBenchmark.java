@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of dynamic SQL: a where clause of optional conditions and an IN list of a varying size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicSqlBenchmark {
+
+  private static final String SCRIPT = "<script>"
+      + "select id, name, email, age from users"
+      + "<where>"
+      + "  <if test=\"name != null\">name like #{name}</if>"
+      + "  <if test=\"email != null\">and email = #{email}</if>"
+      + "  <if test=\"minAge != null\">and age &gt;= #{minAge}</if>"
+      + "  <if test=\"ids != null and ids.size() > 0\">"
+      + "    and id in <foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>"
+      + "  </if>"
+      + "</where>"
+      + "<choose>"
+      + "  <when test=\"orderBy != null\">order by ${orderBy}</when>"
+      + "  <otherwise>order by id</otherwise>"
+      + "</choose>"
+      + "</script>";
+
+  @Param({"0", "10", "100"})
+  public int ids;
+
+  private SqlSource sqlSource;
+  private Map<String, Object> parameter;
+
+  @Setup
+  public void setup() {
+    Configuration configuration = new Configuration();
+    sqlSource = new XMLLanguageDriver().createSqlSource(configuration, SCRIPT, Map.class);
+    parameter = new HashMap<>();
+    parameter.put("name", "user%");
+    parameter.put("email", null);
+    parameter.put("minAge", 30);
+    parameter.put("orderBy", null);
+    List<Integer> idList = new ArrayList<>();
+    for (int i = 0; i < ids; i++) {
+      idList.add(i);
+    }
+    parameter.put("ids", idList);
+  }
+
+  @Benchmark
+  public BoundSql getBoundSql() {
+    return sqlSource.getBoundSql(parameter);
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Property access through MetaObject, as done to read parameters and to set mapped properties.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetaObjectBenchmark {
+
+  private User user;
+  private Map<String, Object> map;
+  private MetaObject metaUser;
+  private MetaObject metaMap;
+
+  @Setup
+  public void setup() {
+    user = new User();
+    user.setId(1);
+    user.setName("user1");
+    user.setEmail("user1@example.com");
+    user.setAge(30);
+    map = new HashMap<>();
+    map.put("user", user);
+    map.put("limit", 10);
+    metaUser = SystemMetaObject.forObject(user);
+    metaMap = SystemMetaObject.forObject(map);
+  }
+
+  @Benchmark
+  public MetaObject newMetaObject() {
+    return SystemMetaObject.forObject(user);
+  }
+
+  @Benchmark
+  public Object getBeanProperty() {
+    return metaUser.getValue("name");
+  }
+
+  @Benchmark
+  public void setBeanProperty() {
+    metaUser.setValue("age", 31);
+  }
+
+  @Benchmark
+  public Object getMapEntry() {
+    return metaMap.getValue("limit");
+  }
+
+  @Benchmark
+  public Object getNestedProperty() {
+    return metaMap.getValue("user.email");
+  }
+
+}
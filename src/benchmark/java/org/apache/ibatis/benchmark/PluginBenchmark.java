@@ -0,0 +1,127 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the dynamic proxies of {@link Plugin}: the same session cache hit through a bare executor and through
+ * three no-op interceptors, plus a method none of them intercepts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PluginBenchmark {
+
+  private static final int INTERCEPTORS = 3;
+
+  private Executor executor;
+  private Executor wrappedExecutor;
+  private MappedStatement statement;
+
+  @Setup
+  public void setup() throws SQLException {
+    Configuration configuration = BenchmarkDatabase.newConfiguration("plugin", 10);
+    statement = configuration.getMappedStatement(BenchmarkDatabase.NAMESPACE + ".selectById");
+    executor = new SimpleExecutor(configuration, newTransaction(configuration));
+    Object target = new SimpleExecutor(configuration, newTransaction(configuration));
+    for (int i = 0; i < INTERCEPTORS; i++) {
+      target = Plugin.wrap(target, new NoOpInterceptor());
+    }
+    wrappedExecutor = (Executor) target;
+    // fill the session caches, every measured query is a hit
+    executor.query(statement, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    wrappedExecutor.query(statement, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.close(false);
+    wrappedExecutor.close(false);
+  }
+
+  @Benchmark
+  public List<Object> direct() throws SQLException {
+    return executor.query(statement, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+  }
+
+  @Benchmark
+  public List<Object> intercepted() throws SQLException {
+    return wrappedExecutor.query(statement, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+  }
+
+  @Benchmark
+  public boolean notIntercepted() {
+    return wrappedExecutor.isClosed();
+  }
+
+  private static Transaction newTransaction(Configuration configuration) {
+    Environment environment = configuration.getEnvironment();
+    return environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+  }
+
+  @Intercepts(@Signature(type = Executor.class, method = "query",
+      args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}))
+  public static class NoOpInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+      // no properties
+    }
+  }
+
+}
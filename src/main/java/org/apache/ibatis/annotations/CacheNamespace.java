@@ -45,6 +45,24 @@ public @interface CacheNamespace {
 
   boolean blocking() default false;
 
+  /**
+   * Milliseconds each entry lives before it expires, {@code 0} for no expiration.
+   * @since 3.5.2
+   */
+  long timeToLive() default 0;
+
+  /**
+   * Milliseconds an expired entry is still returned while it is being reloaded.
+   * @since 3.5.2
+   */
+  long staleGracePeriod() default 0;
+
+  /**
+   * Milliseconds before expiration from which reading an entry reloads it in the background.
+   * @since 3.5.2
+   */
+  long refreshAhead() default 0;
+
   /**
    * Property values for a implementation object.
    * @since 3.4.2
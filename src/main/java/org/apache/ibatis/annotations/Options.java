@@ -63,4 +63,36 @@ public @interface Options {
   String keyColumn() default "";
 
   String resultSets() default "";
+
+  /**
+   * Returns the comma separated tables read by a select or written by an insert, update or delete statement.
+   * Used to evict only the dependent entries of a second level cache.
+   *
+   * @since 3.5.2
+   * @see org.apache.ibatis.session.Configuration#isTableCacheInvalidationEnabled()
+   */
+  String tables() default "";
+
+  /**
+   * Returns the maximum number of elements of a collection parameter per execution.
+   * A larger collection is split and the statement executed once per chunk.
+   *
+   * @since 3.5.2
+   */
+  int chunkSize() default 0;
+
+  /**
+   * Returns the property of the parameter object holding the collection to split.
+   * Empty for a collection passed as the only parameter.
+   *
+   * @since 3.5.2
+   */
+  String chunkParameter() default "";
+
+  /**
+   * Returns whether the chunks of a select may be executed concurrently on separate connections.
+   *
+   * @since 3.5.2
+   */
+  boolean chunkParallel() default false;
 }
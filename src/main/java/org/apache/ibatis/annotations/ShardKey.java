@@ -0,0 +1,47 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the property of the parameter whose value chooses the shard a statement runs on when the data source is a
+ * {@link org.apache.ibatis.datasource.sharding.ShardedDataSource}.
+ * On a mapper interface it is the default for all of its statements; on a method it overrides that default.
+ *
+ * @since 3.5.2
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ShardKey {
+  /**
+   * The property of the parameter, e.g. {@code customerId} or {@code order.customerId}.
+   * A parameter of a simple type is the key itself.
+   */
+  String value();
+
+  /**
+   * The comma separated properties of the results, each optionally followed by {@code asc} or {@code desc},
+   * the results of all the shards are merged by when a select is given no key.
+   * Empty to concatenate them in shard order.
+   */
+  String orderBy() default "";
+}
@@ -34,8 +34,10 @@ import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SeekBounds;
 import org.apache.ibatis.session.SqlSession;
 
 /**
@@ -80,6 +82,8 @@ public class MapperMethod {
         if (method.returnsVoid() && method.hasResultHandler()) {
           executeWithResultHandler(sqlSession, args);
           result = null;
+        } else if (method.returnsPage()) {
+          result = executeForPage(sqlSession, args);
         } else if (method.returnsMany()) {
           /* 返回类型是 list */
           result = executeForMany(sqlSession, args);
@@ -177,6 +181,16 @@ public class MapperMethod {
     return result;
   }
 
+  private <E> Page<E> executeForPage(SqlSession sqlSession, Object[] args) {
+    RowBounds rowBounds = method.extractRowBounds(args);
+    if (!(rowBounds instanceof SeekBounds)) {
+      throw new BindingException("Mapper method '" + command.getName()
+          + "' returns a Page, it needs a SeekBounds argument.");
+    }
+    Object param = method.convertArgsToSqlCommandParam(args);
+    return sqlSession.selectPage(command.getName(), param, (SeekBounds) rowBounds);
+  }
+
   private <T> Cursor<T> executeForCursor(SqlSession sqlSession, Object[] args) {
     Cursor<T> result;
     Object param = method.convertArgsToSqlCommandParam(args);
@@ -327,6 +341,7 @@ public class MapperMethod {
     private final boolean returnsMany;
     private final boolean returnsVoid;
     private final boolean returnsCursor;
+    private final boolean returnsPage;
     private final boolean returnsOptional;
     private final Class<?> returnType;
     private final String mapKey;
@@ -347,6 +362,7 @@ public class MapperMethod {
       this.returnsVoid = void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      this.returnsPage = Page.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
       this.mapKey = getMapKey(method);
       this.returnsMap = this.mapKey != null;
@@ -405,6 +421,13 @@ public class MapperMethod {
       return returnsCursor;
     }
 
+    /**
+     * @since 3.5.2
+     */
+    public boolean returnsPage() {
+      return returnsPage;
+    }
+
     /**
      * return whether return type is {@code java.util.Optional}.
      * @return return {@code true}, if return type is {@code java.util.Optional}
@@ -21,6 +21,7 @@ import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ReadSource;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
@@ -63,6 +64,14 @@ public abstract class BaseBuilder {
     return value == null ? defaultValue : Integer.valueOf(value);
   }
 
+  protected Long longValueOf(String value, Long defaultValue) {
+    return value == null ? defaultValue : Long.valueOf(value);
+  }
+
+  protected Double doubleValueOf(String value, Double defaultValue) {
+    return value == null ? defaultValue : Double.valueOf(value);
+  }
+
   protected Set<String> stringSetValueOf(String value, String defaultValue) {
     value = value == null ? defaultValue : value;
     return new HashSet<>(Arrays.asList(value.split(",")));
@@ -90,6 +99,17 @@ public abstract class BaseBuilder {
     }
   }
 
+  protected ReadSource resolveReadSource(String alias) {
+    if (alias == null) {
+      return null;
+    }
+    try {
+      return ReadSource.valueOf(alias);
+    } catch (IllegalArgumentException e) {
+      throw new BuilderException("Error resolving ReadSource. Cause: " + e, e);
+    }
+  }
+
   protected ParameterMode resolveParameterMode(String alias) {
     if (alias == null) {
       return null;
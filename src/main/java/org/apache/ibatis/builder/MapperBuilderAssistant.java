@@ -29,12 +29,14 @@ import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.mapping.CacheBuilder;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ReadSource;
 import org.apache.ibatis.mapping.ResultFlag;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
@@ -67,6 +69,14 @@ public class MapperBuilderAssistant extends BaseBuilder {
    */
   private Cache currentCache;
   private boolean unresolvedCacheRef; // issue #676
+  /**
+   * mapper 中 select 默认在哪里执行，语句自己声明的 readFrom 优先
+   */
+  private ReadSource currentReadFrom;
+  /**
+   * mapper 中语句默认的分片键，语句自己声明的 shardKey 优先
+   */
+  private String currentShardKey;
 
   public MapperBuilderAssistant(Configuration configuration, String resource) {
     super(configuration);
@@ -90,6 +100,36 @@ public class MapperBuilderAssistant extends BaseBuilder {
     this.currentNamespace = currentNamespace;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public ReadSource getCurrentReadFrom() {
+    return currentReadFrom;
+  }
+
+  /**
+   * @param currentReadFrom where the selects of the mapper that do not declare it are executed
+   * @since 3.5.2
+   */
+  public void setCurrentReadFrom(ReadSource currentReadFrom) {
+    this.currentReadFrom = currentReadFrom;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public String getCurrentShardKey() {
+    return currentShardKey;
+  }
+
+  /**
+   * @param currentShardKey the shard key of the statements of the mapper that do not declare one
+   * @since 3.5.2
+   */
+  public void setCurrentShardKey(String currentShardKey) {
+    this.currentShardKey = currentShardKey;
+  }
+
   public String applyCurrentNamespace(String base, boolean isReference) {
     if (base == null) {
       return null;
@@ -139,6 +179,22 @@ public class MapperBuilderAssistant extends BaseBuilder {
       boolean readWrite,
       boolean blocking,
       Properties props) {
+    return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props, null, null, null);
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public Cache useNewCache(Class<? extends Cache> typeClass,
+      Class<? extends Cache> evictionClass,
+      Long flushInterval,
+      Integer size,
+      boolean readWrite,
+      boolean blocking,
+      Properties props,
+      Long timeToLive,
+      Long staleGracePeriod,
+      Long refreshAhead) {
     Cache cache = new CacheBuilder(currentNamespace)
         .implementation(valueOrDefault(typeClass, PerpetualCache.class))
         .addDecorator(valueOrDefault(evictionClass, LruCache.class))
@@ -147,6 +203,10 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .readWrite(readWrite)
         .blocking(blocking)
         .properties(props)
+        .tableIndexed(configuration.isTableCacheInvalidationEnabled())
+        .timeToLive(timeToLive)
+        .staleGracePeriod(staleGracePeriod)
+        .refreshAhead(refreshAhead)
         .build();
     configuration.addCache(cache);
     currentCache = cache;
@@ -273,6 +333,39 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String databaseId,
       LanguageDriver lang,
       String resultSets) {
+    return addMappedStatement(
+      id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+      parameterMap, parameterType, resultMap, resultType, resultSetType,
+      flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+      keyColumn, databaseId, lang, resultSets, new StatementOptions());
+  }
+
+  /**
+   * @param options the settings added since 3.5.2, those left unset keep the default of the mapper
+   * @since 3.5.2
+   */
+  public MappedStatement addMappedStatement(
+      String id,
+      SqlSource sqlSource,
+      StatementType statementType,
+      SqlCommandType sqlCommandType,
+      Integer fetchSize,
+      Integer timeout,
+      String parameterMap,
+      Class<?> parameterType,
+      String resultMap,
+      Class<?> resultType,
+      ResultSetType resultSetType,
+      boolean flushCache,
+      boolean useCache,
+      boolean resultOrdered,
+      KeyGenerator keyGenerator,
+      String keyProperty,
+      String keyColumn,
+      String databaseId,
+      LanguageDriver lang,
+      String resultSets,
+      StatementOptions options) {
 
     if (unresolvedCacheRef) {
       throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -280,6 +373,18 @@ public class MapperBuilderAssistant extends BaseBuilder {
 
     id = applyCurrentNamespace(id, false);
     boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
+    ReadSource readFrom = options.getReadFrom();
+    if (id.endsWith(SelectKeyGenerator.SELECT_KEY_SUFFIX)) {
+      // keys are read on the connection of the insert they belong to
+      readFrom = ReadSource.PRIMARY;
+    } else if (readFrom == null) {
+      readFrom = currentReadFrom;
+    }
+    String shardKey = options.getShardKey() == null ? currentShardKey : options.getShardKey();
+    String chunkParameter = options.getChunkParameter();
+    if (chunkParameter != null && (chunkParameter.indexOf('.') >= 0 || chunkParameter.indexOf('[') >= 0)) {
+      throw new BuilderException("The chunkParameter of statement '" + id + "' must be a top level property of the parameter object: " + chunkParameter);
+    }
 
     MappedStatement.Builder statementBuilder = new MappedStatement.Builder(configuration, id, sqlSource, sqlCommandType)
         .resource(resource)
@@ -297,6 +402,13 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .resultSetType(resultSetType)
         .flushCacheRequired(valueOrDefault(flushCache, !isSelect))
         .useCache(valueOrDefault(useCache, isSelect))
+        .tables(options.getTables())
+        .chunkSize(options.getChunkSize())
+        .chunkParameter(chunkParameter)
+        .chunkParallel(options.isChunkParallel())
+        .readFrom(readFrom)
+        .shardKey(shardKey)
+        .shardOrderBy(options.getShardOrderBy())
         .cache(currentCache);
 
     ParameterMap statementParameterMap = getStatementParameterMap(parameterMap, parameterType, id);
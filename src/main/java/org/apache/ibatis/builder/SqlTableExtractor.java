@@ -0,0 +1,138 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the tables a statement reads or writes by scanning its SQL text for the names that follow
+ * {@code FROM}, {@code JOIN}, {@code INTO} and {@code UPDATE}.
+ * <p>
+ * The result is meant for cache invalidation, so it errs on the side of reporting too many tables: a false
+ * positive only evicts more entries than necessary. When a table name cannot be known at build time
+ * (e.g. <code>${tableName}</code>) no tables are reported at all.
+ *
+ * @since 3.5.2
+ */
+public final class SqlTableExtractor {
+
+  private static final Pattern TOKEN = Pattern.compile(
+      "\\$\\{[^}]*}|#\\{[^}]*}|[`\"\\[]?[A-Za-z_][\\w$]*[`\"\\]]?(?:\\.[`\"\\[]?[A-Za-z_][\\w$]*[`\"\\]]?)*|[(),;]");
+
+  private static final Set<String> TABLE_KEYWORDS = new HashSet<>(Arrays.asList("from", "join", "into", "update"));
+
+  private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+      "where", "on", "using", "join", "inner", "left", "right", "full", "outer", "cross", "natural", "group", "order",
+      "having", "limit", "offset", "fetch", "union", "intersect", "except", "minus", "set", "values", "select",
+      "window", "for", "connect", "start", "returning", "when", "then"));
+
+  private SqlTableExtractor() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @param sql the SQL text, possibly still containing dynamic elements and placeholders
+   * @return the lower cased table names, or {@code null} if they cannot be determined
+   */
+  public static String[] extractTables(String sql) {
+    if (sql == null) {
+      return null;
+    }
+    Set<String> tables = new LinkedHashSet<>();
+    boolean expectTable = false;
+    boolean inTableList = false;
+    Matcher matcher = TOKEN.matcher(sql);
+    while (matcher.find()) {
+      String token = matcher.group();
+      if (token.startsWith("${")) {
+        if (expectTable) {
+          return null;
+        }
+        continue;
+      }
+      if (token.startsWith("#{")) {
+        expectTable = false;
+        inTableList = false;
+        continue;
+      }
+      char first = token.charAt(0);
+      if (first == ',') {
+        expectTable = inTableList;
+        continue;
+      }
+      if (first == '(' || first == ')' || first == ';') {
+        expectTable = false;
+        inTableList = false;
+        continue;
+      }
+      String word = token.toLowerCase(Locale.ENGLISH);
+      if (expectTable) {
+        expectTable = false;
+        if ("select".equals(word) || "lateral".equals(word) || "only".equals(word)) {
+          // sub queries declare their own tables
+          expectTable = !"select".equals(word);
+          continue;
+        }
+        tables.add(normalizeTableName(word));
+        inTableList = true;
+      } else if (TABLE_KEYWORDS.contains(word)) {
+        expectTable = true;
+        inTableList = false;
+      } else if (CLAUSE_KEYWORDS.contains(word)) {
+        inTableList = false;
+      }
+    }
+    return tables.isEmpty() ? null : tables.toArray(new String[0]);
+  }
+
+  /**
+   * Parses a comma separated list of table names as declared by the user.
+   */
+  public static String[] parseTables(String tables) {
+    if (tables == null || tables.trim().isEmpty()) {
+      return null;
+    }
+    Set<String> result = new LinkedHashSet<>();
+    for (String table : tables.split(",")) {
+      if (!table.trim().isEmpty()) {
+        result.add(normalizeTableName(table.trim().toLowerCase(Locale.ENGLISH)));
+      }
+    }
+    return result.isEmpty() ? null : result.toArray(new String[0]);
+  }
+
+  private static String normalizeTableName(String name) {
+    // schema qualified names are reduced to the table name, tables with the same name in two schemas are then
+    // treated as one, which can only cause extra evictions
+    int dot = name.lastIndexOf('.');
+    String table = dot < 0 ? name : name.substring(dot + 1);
+    StringBuilder sb = new StringBuilder(table.length());
+    for (int i = 0; i < table.length(); i++) {
+      char c = table.charAt(i);
+      if (c != '`' && c != '"' && c != '[' && c != ']') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder;
+
+import org.apache.ibatis.mapping.ReadSource;
+
+/**
+ * The settings of a mapped statement added since 3.5.2, passed together to
+ * {@link MapperBuilderAssistant#addMappedStatement}. Settings left unset keep the default of the mapper.
+ *
+ * @since 3.5.2
+ */
+public class StatementOptions {
+
+  private String[] tables;
+  private Integer chunkSize;
+  private String chunkParameter;
+  private boolean chunkParallel;
+  /** 读写分离：null 表示沿用 mapper 的默认值 */
+  private ReadSource readFrom;
+  /** 分库：null 表示沿用 mapper 的 shardKey */
+  private String shardKey;
+  private String shardOrderBy;
+
+  /**
+   * @param tables the tables the statement reads or writes, for the table level cache invalidation
+   */
+  public StatementOptions tables(String[] tables) {
+    this.tables = tables;
+    return this;
+  }
+
+  /**
+   * @param chunkSize the number of elements of the chunk parameter bound to each execution
+   */
+  public StatementOptions chunkSize(Integer chunkSize) {
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  /**
+   * @param chunkParameter the top level collection property of the parameter object split in chunks
+   */
+  public StatementOptions chunkParameter(String chunkParameter) {
+    this.chunkParameter = chunkParameter;
+    return this;
+  }
+
+  public StatementOptions chunkParallel(boolean chunkParallel) {
+    this.chunkParallel = chunkParallel;
+    return this;
+  }
+
+  /**
+   * @param readFrom where the select is executed when the data source has read replicas
+   */
+  public StatementOptions readFrom(ReadSource readFrom) {
+    this.readFrom = readFrom;
+    return this;
+  }
+
+  /**
+   * @param shardKey the property of the parameter choosing the shard when the data source is sharded
+   */
+  public StatementOptions shardKey(String shardKey) {
+    this.shardKey = shardKey;
+    return this;
+  }
+
+  /**
+   * @param shardOrderBy the properties the results of all the shards are merged by
+   */
+  public StatementOptions shardOrderBy(String shardOrderBy) {
+    this.shardOrderBy = shardOrderBy;
+    return this;
+  }
+
+  public String[] getTables() {
+    return tables;
+  }
+
+  public Integer getChunkSize() {
+    return chunkSize;
+  }
+
+  public String getChunkParameter() {
+    return chunkParameter;
+  }
+
+  public boolean isChunkParallel() {
+    return chunkParallel;
+  }
+
+  public ReadSource getReadFrom() {
+    return readFrom;
+  }
+
+  public String getShardKey() {
+    return shardKey;
+  }
+
+  public String getShardOrderBy() {
+    return shardOrderBy;
+  }
+
+}
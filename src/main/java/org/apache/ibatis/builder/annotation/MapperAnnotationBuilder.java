@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -49,6 +50,7 @@ import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Options.FlushCachePolicy;
 import org.apache.ibatis.annotations.Property;
+import org.apache.ibatis.annotations.ReadFrom;
 import org.apache.ibatis.annotations.Result;
 import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.ResultType;
@@ -56,6 +58,7 @@ import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.SelectKey;
 import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.annotations.ShardKey;
 import org.apache.ibatis.annotations.TypeDiscriminator;
 import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.UpdateProvider;
@@ -65,6 +68,8 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.CacheRefResolver;
 import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.SqlTableExtractor;
+import org.apache.ibatis.builder.StatementOptions;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -75,6 +80,7 @@ import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.FetchType;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ReadSource;
 import org.apache.ibatis.mapping.ResultFlag;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.mapping.ResultSetType;
@@ -85,6 +91,7 @@ import org.apache.ibatis.parsing.PropertyParser;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.JdbcType;
@@ -148,7 +155,9 @@ public class MapperAnnotationBuilder {
 
   private void parsePendingMethods() {
     Collection<MethodResolver> incompleteMethods = configuration.getIncompleteMethods();
-    synchronized (incompleteMethods) {
+    Lock lock = configuration.getIncompleteElementsLock();
+    lock.lock();
+    try {
       Iterator<MethodResolver> iter = incompleteMethods.iterator();
       while (iter.hasNext()) {
         try {
@@ -158,6 +167,8 @@ public class MapperAnnotationBuilder {
           // This method is still missing a resource
         }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -189,8 +200,12 @@ public class MapperAnnotationBuilder {
     if (cacheDomain != null) {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
+      Long timeToLive = cacheDomain.timeToLive() == 0 ? null : cacheDomain.timeToLive();
+      Long staleGracePeriod = cacheDomain.staleGracePeriod() == 0 ? null : cacheDomain.staleGracePeriod();
+      Long refreshAhead = cacheDomain.refreshAhead() == 0 ? null : cacheDomain.refreshAhead();
       Properties props = convertToProperties(cacheDomain.properties());
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props,
+          timeToLive, staleGracePeriod, refreshAhead);
     }
   }
 
@@ -319,7 +334,8 @@ public class MapperAnnotationBuilder {
         // first check for SelectKey annotation - that overrides everything else
         SelectKey selectKey = method.getAnnotation(SelectKey.class);
         if (selectKey != null) {
-          keyGenerator = handleSelectKeyAnnotation(selectKey, mappedStatementId, getParameterType(method), languageDriver);
+          keyGenerator = handleSelectKeyAnnotation(selectKey, mappedStatementId, getParameterType(method), languageDriver,
+              getShardKey(method));
           keyProperty = selectKey.keyProperty();
         } else if (options == null) {
           keyGenerator = configuration.isUseGeneratedKeys() ? Jdbc3KeyGenerator.INSTANCE : NoKeyGenerator.INSTANCE;
@@ -345,6 +361,11 @@ public class MapperAnnotationBuilder {
         resultSetType = options.resultSetType();
       }
 
+      String[] tables = options != null ? SqlTableExtractor.parseTables(options.tables()) : null;
+      if (tables == null && configuration.isTableCacheInvalidationEnabled()) {
+        tables = SqlTableExtractor.extractTables(getSqlFromAnnotations(method));
+      }
+
       String resultMapId = null;
       ResultMap resultMapAnnotation = method.getAnnotation(ResultMap.class);
       if (resultMapAnnotation != null) {
@@ -377,8 +398,39 @@ public class MapperAnnotationBuilder {
           null,
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          new StatementOptions()
+              .tables(tables)
+              .chunkSize(options != null && options.chunkSize() > 0 ? options.chunkSize() : null)
+              .chunkParameter(options != null ? nullOrEmpty(options.chunkParameter()) : null)
+              .chunkParallel(options != null && options.chunkParallel())
+              .readFrom(getReadFrom(method))
+              .shardKey(getShardKey(method))
+              .shardOrderBy(getShardOrderBy(method)));
+    }
+  }
+
+  private ReadSource getReadFrom(Method method) {
+    ReadFrom readFrom = method.getAnnotation(ReadFrom.class);
+    if (readFrom == null) {
+      readFrom = type.getAnnotation(ReadFrom.class);
     }
+    return readFrom == null ? null : readFrom.value();
+  }
+
+  private ShardKey getShardKeyAnnotation(Method method) {
+    ShardKey shardKey = method.getAnnotation(ShardKey.class);
+    return shardKey != null ? shardKey : type.getAnnotation(ShardKey.class);
+  }
+
+  private String getShardKey(Method method) {
+    ShardKey shardKey = getShardKeyAnnotation(method);
+    return shardKey == null ? null : nullOrEmpty(shardKey.value());
+  }
+
+  private String getShardOrderBy(Method method) {
+    ShardKey shardKey = getShardKeyAnnotation(method);
+    return shardKey == null ? null : nullOrEmpty(shardKey.orderBy());
   }
 
   private LanguageDriver getLanguageDriver(Method method) {
@@ -424,7 +476,8 @@ public class MapperAnnotationBuilder {
     } else if (resolvedReturnType instanceof ParameterizedType) {
       ParameterizedType parameterizedType = (ParameterizedType) resolvedReturnType;
       Class<?> rawType = (Class<?>) parameterizedType.getRawType();
-      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)) {
+      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)
+          || Page.class.isAssignableFrom(rawType)) {
         Type[] actualTypeArguments = parameterizedType.getActualTypeArguments();
         if (actualTypeArguments != null && actualTypeArguments.length == 1) {
           Type returnTypeParameter = actualTypeArguments[0];
@@ -484,6 +537,20 @@ public class MapperAnnotationBuilder {
     }
   }
 
+  private String getSqlFromAnnotations(Method method) {
+    Class<? extends Annotation> sqlAnnotationType = getSqlAnnotationType(method);
+    if (sqlAnnotationType == null) {
+      // sql providers build their sql at runtime, tables must be declared
+      return null;
+    }
+    try {
+      Annotation sqlAnnotation = method.getAnnotation(sqlAnnotationType);
+      return String.join(" ", (String[]) sqlAnnotation.getClass().getMethod("value").invoke(sqlAnnotation));
+    } catch (Exception e) {
+      throw new BuilderException("Could not find value method on SQL annotation.  Cause: " + e, e);
+    }
+  }
+
   private SqlSource buildSqlSourceFromStrings(String[] strings, Class<?> parameterTypeClass, LanguageDriver languageDriver) {
     final StringBuilder sql = new StringBuilder();
     for (String fragment : strings) {
@@ -632,7 +699,8 @@ public class MapperAnnotationBuilder {
     return args == null ? new Arg[0] : args.value();
   }
 
-  private KeyGenerator handleSelectKeyAnnotation(SelectKey selectKeyAnnotation, String baseStatementId, Class<?> parameterTypeClass, LanguageDriver languageDriver) {
+  private KeyGenerator handleSelectKeyAnnotation(SelectKey selectKeyAnnotation, String baseStatementId, Class<?> parameterTypeClass, LanguageDriver languageDriver,
+      String shardKey) {
     String id = baseStatementId + SelectKeyGenerator.SELECT_KEY_SUFFIX;
     Class<?> resultTypeClass = selectKeyAnnotation.resultType();
     StatementType statementType = selectKeyAnnotation.statementType();
@@ -655,7 +723,9 @@ public class MapperAnnotationBuilder {
 
     assistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType, fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass, resultSetTypeEnum,
         flushCache, useCache, false,
-        keyGenerator, keyProperty, keyColumn, null, languageDriver, null);
+        keyGenerator, keyProperty, keyColumn, null, languageDriver, null,
+        // the key is read on the shard of the statement it belongs to
+        new StatementOptions().shardKey(shardKey));
 
     id = assistant.applyCurrentNamespace(id, false);
 
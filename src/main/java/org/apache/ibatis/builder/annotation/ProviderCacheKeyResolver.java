@@ -0,0 +1,67 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.annotation;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interface that enables caching of the SQL generated by an SQL provider class.
+ *
+ * <p> When an SQL provider class implements this interface, the SQL source built from the SQL returned by the provider
+ * method is reused for every invocation that resolves the same cache key, without invoking the provider method and
+ * parsing its SQL again. The SQL provider class need to define the default constructor for creating a new instance.
+ *
+ * <p> Implement this interface only on providers whose SQL does not embed argument values
+ * (i.e. values are bound with <code>#{...}</code> placeholders).
+ *
+ * @since 3.5.2
+ */
+public interface ProviderCacheKeyResolver {
+
+  /**
+   * Resolve a key identifying the SQL that the provider method generates for the given arguments.
+   *
+   * <p> The default implementation assumes that the SQL depends only on the shape of the arguments: whether each
+   * argument is {@code null}, and the size of the arguments that are collections, maps or arrays.
+   * Providers whose SQL depends on the properties of an argument must override it.
+   *
+   * @param context a context for SQL provider
+   * @param arguments arguments passed to the provider method
+   * @return a key that has {@code equals} and {@code hashCode}, or {@code null} if the SQL must not be cached
+   */
+  default Object resolveCacheKey(ProviderContext context, Object[] arguments) {
+    List<Object> key = new ArrayList<>(arguments.length);
+    for (Object argument : arguments) {
+      if (argument == null) {
+        key.add(Boolean.FALSE);
+      } else if (argument instanceof Collection) {
+        key.add(((Collection<?>) argument).size());
+      } else if (argument instanceof Map) {
+        key.add(((Map<?, ?>) argument).size());
+      } else if (argument.getClass().isArray()) {
+        key.add(Array.getLength(argument));
+      } else {
+        key.add(Boolean.TRUE);
+      }
+    }
+    return key;
+  }
+
+}
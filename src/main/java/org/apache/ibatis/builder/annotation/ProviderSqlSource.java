@@ -21,6 +21,11 @@ import java.util.Map;
 
 import org.apache.ibatis.annotations.Lang;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.reflection.ParamNameResolver;
@@ -33,6 +38,8 @@ import org.apache.ibatis.session.Configuration;
  */
 public class ProviderSqlSource implements SqlSource {
 
+  private static final int SQL_SOURCE_CACHE_SIZE = 256;
+
   private final Configuration configuration;
   private final Class<?> providerType;
   private final LanguageDriver languageDriver;
@@ -41,6 +48,9 @@ public class ProviderSqlSource implements SqlSource {
   private Class<?>[] providerMethodParameterTypes;
   private ProviderContext providerContext;
   private Integer providerContextIndex;
+  private ProviderCacheKeyResolver cacheKeyResolver;
+  private ProviderContext cacheKeyContext;
+  private Cache sqlSourceCache;
 
   /**
    * @deprecated Please use the {@link #ProviderSqlSource(Configuration, Object, Class, Method)} instead of this.
@@ -102,6 +112,18 @@ public class ProviderSqlSource implements SqlSource {
         this.providerContextIndex = i;
       }
     }
+    if (ProviderCacheKeyResolver.class.isAssignableFrom(this.providerType)) {
+      try {
+        this.cacheKeyResolver = (ProviderCacheKeyResolver) this.providerType.getDeclaredConstructor().newInstance();
+      } catch (Exception e) {
+        throw new BuilderException("Error creating SqlSource for SqlProvider.  Cause: " + e, e);
+      }
+      this.cacheKeyContext = this.providerContext != null ? this.providerContext
+          : new ProviderContext(mapperType, mapperMethod, configuration.getDatabaseId());
+      LruCache lruCache = new LruCache(new PerpetualCache(this.providerType.getName() + "." + this.providerMethod.getName()));
+      lruCache.setSize(SQL_SOURCE_CACHE_SIZE);
+      this.sqlSourceCache = new SynchronizedCache(lruCache);
+    }
   }
 
   @Override
@@ -113,18 +135,18 @@ public class ProviderSqlSource implements SqlSource {
   private SqlSource createSqlSource(Object parameterObject) {
     try {
       int bindParameterCount = providerMethodParameterTypes.length - (providerContext == null ? 0 : 1);
-      String sql;
+      Object[] args;
       if (providerMethodParameterTypes.length == 0) {
-        sql = invokeProviderMethod();
+        args = new Object[0];
       } else if (bindParameterCount == 0) {
-        sql = invokeProviderMethod(providerContext);
+        args = new Object[] { providerContext };
       } else if (bindParameterCount == 1
            && (parameterObject == null || providerMethodParameterTypes[providerContextIndex == null || providerContextIndex == 1 ? 0 : 1].isAssignableFrom(parameterObject.getClass()))) {
-        sql = invokeProviderMethod(extractProviderMethodArguments(parameterObject));
+        args = extractProviderMethodArguments(parameterObject);
       } else if (parameterObject instanceof Map) {
         @SuppressWarnings("unchecked")
         Map<String, Object> params = (Map<String, Object>) parameterObject;
-        sql = invokeProviderMethod(extractProviderMethodArguments(params, providerMethodArgumentNames));
+        args = extractProviderMethodArguments(params, providerMethodArgumentNames);
       } else {
         throw new BuilderException("Error invoking SqlProvider method ("
                 + providerType.getName() + "." + providerMethod.getName()
@@ -133,7 +155,19 @@ public class ProviderSqlSource implements SqlSource {
                 + " using a specifying parameterObject. In this case, please specify a 'java.util.Map' object.");
       }
       Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-      return languageDriver.createSqlSource(configuration, sql, parameterType);
+      CacheKey cacheKey = createCacheKey(args, parameterType);
+      if (cacheKey != null) {
+        SqlSource cachedSqlSource = (SqlSource) sqlSourceCache.getObject(cacheKey);
+        if (cachedSqlSource != null) {
+          return cachedSqlSource;
+        }
+      }
+      String sql = invokeProviderMethod(args);
+      SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, parameterType);
+      if (cacheKey != null) {
+        sqlSourceCache.putObject(cacheKey, sqlSource);
+      }
+      return sqlSource;
     } catch (BuilderException e) {
       throw e;
     } catch (Exception e) {
@@ -143,6 +177,20 @@ public class ProviderSqlSource implements SqlSource {
     }
   }
 
+  private CacheKey createCacheKey(Object[] args, Class<?> parameterType) {
+    if (cacheKeyResolver == null) {
+      return null;
+    }
+    Object key = cacheKeyResolver.resolveCacheKey(cacheKeyContext, args);
+    if (key == null) {
+      return null;
+    }
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update(key);
+    cacheKey.update(parameterType);
+    return cacheKey;
+  }
+
   private Object[] extractProviderMethodArguments(Object parameterObject) {
     if (providerContext != null) {
       Object[] args = new Object[2];
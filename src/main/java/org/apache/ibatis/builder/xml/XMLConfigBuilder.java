@@ -23,6 +23,7 @@ import javax.sql.DataSource;
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.dialect.Dialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.io.Resources;
@@ -30,6 +31,7 @@ import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.metrics.MetricsRegistry;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.plugin.Interceptor;
@@ -354,6 +356,7 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setAutoMappingBehavior(AutoMappingBehavior.valueOf(props.getProperty("autoMappingBehavior", "PARTIAL")));
     configuration.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.valueOf(props.getProperty("autoMappingUnknownColumnBehavior", "NONE")));
     configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
+    configuration.setTableCacheInvalidationEnabled(booleanValueOf(props.getProperty("tableCacheInvalidationEnabled"), false));
     configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
     configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
     configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), false));
@@ -366,6 +369,20 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
     configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
+    configuration.setLocalCacheMaxEntries(integerValueOf(props.getProperty("localCacheMaxEntries"), null));
+    configuration.setLocalCacheMaxBytes(longValueOf(props.getProperty("localCacheMaxBytes"), null));
+    configuration.setDialect((Dialect) createInstance(props.getProperty("dialect")));
+    configuration.setRowBoundsPushdownEnabled(booleanValueOf(props.getProperty("rowBoundsPushdownEnabled"), false));
+    configuration.setMetricsRegistry((MetricsRegistry) createInstance(props.getProperty("metricsRegistry")));
+    configuration.setSlowQueryThreshold(longValueOf(props.getProperty("slowQueryThreshold"), null));
+    configuration.setSlowQuerySamplingRate(doubleValueOf(props.getProperty("slowQuerySamplingRate"), 1d));
+    configuration.setSlowQueryLogSize(integerValueOf(props.getProperty("slowQueryLogSize"), 100));
+    configuration.setRowMappingParallelism(integerValueOf(props.getProperty("rowMappingParallelism"), 0));
+    configuration.setRowMappingBlockSize(integerValueOf(props.getProperty("rowMappingBlockSize"), 1000));
+    configuration.setSelectAllParallelism(integerValueOf(props.getProperty("selectAllParallelism"), 4));
+    if (props.getProperty("metricsMBeanName") != null) {
+      configuration.setMetricsMBeanName(props.getProperty("metricsMBeanName"));
+    }
     configuration.setJdbcTypeForNull(JdbcType.valueOf(props.getProperty("jdbcTypeForNull", "OTHER")));
     configuration.setLazyLoadTriggerMethods(stringSetValueOf(props.getProperty("lazyLoadTriggerMethods"), "equals,clone,hashCode,toString"));
     configuration.setSafeResultHandlerEnabled(booleanValueOf(props.getProperty("safeResultHandlerEnabled"), true));
@@ -376,6 +393,8 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setReturnInstanceForEmptyRow(booleanValueOf(props.getProperty("returnInstanceForEmptyRow"), false));
     configuration.setLogPrefix(props.getProperty("logPrefix"));
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
+    configuration.setQueryCoalescingEnabled(booleanValueOf(props.getProperty("queryCoalescingEnabled"), false));
+    configuration.setQueryCoalescingTimeout(integerValueOf(props.getProperty("queryCoalescingTimeout"), null));
   }
 
   /**
@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
@@ -132,6 +133,10 @@ public class XMLMapperBuilder extends BaseBuilder {
         throw new BuilderException("Mapper's namespace cannot be empty");
       }
       builderAssistant.setCurrentNamespace(namespace);
+      /* 读写分离：<mapper readFrom="..."> 作为本文件中 select 的默认读取来源 */
+      builderAssistant.setCurrentReadFrom(resolveReadSource(context.getStringAttribute("readFrom")));
+      /* 分库：<mapper shardKey="..."> 作为本文件中语句的默认分片键 */
+      builderAssistant.setCurrentShardKey(context.getStringAttribute("shardKey"));
 
       /*
        * 解析cache-ref标签
@@ -186,7 +191,9 @@ public class XMLMapperBuilder extends BaseBuilder {
 
   private void parsePendingResultMaps() {
     Collection<ResultMapResolver> incompleteResultMaps = configuration.getIncompleteResultMaps();
-    synchronized (incompleteResultMaps) {
+    Lock lock = configuration.getIncompleteElementsLock();
+    lock.lock();
+    try {
       Iterator<ResultMapResolver> iter = incompleteResultMaps.iterator();
       while (iter.hasNext()) {
         try {
@@ -196,12 +203,16 @@ public class XMLMapperBuilder extends BaseBuilder {
           // ResultMap is still missing a resource...
         }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
   private void parsePendingCacheRefs() {
     Collection<CacheRefResolver> incompleteCacheRefs = configuration.getIncompleteCacheRefs();
-    synchronized (incompleteCacheRefs) {
+    Lock lock = configuration.getIncompleteElementsLock();
+    lock.lock();
+    try {
       Iterator<CacheRefResolver> iter = incompleteCacheRefs.iterator();
       while (iter.hasNext()) {
         try {
@@ -211,12 +222,16 @@ public class XMLMapperBuilder extends BaseBuilder {
           // Cache ref is still missing a resource...
         }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
   private void parsePendingStatements() {
     Collection<XMLStatementBuilder> incompleteStatements = configuration.getIncompleteStatements();
-    synchronized (incompleteStatements) {
+    Lock lock = configuration.getIncompleteElementsLock();
+    lock.lock();
+    try {
       Iterator<XMLStatementBuilder> iter = incompleteStatements.iterator();
       while (iter.hasNext()) {
         try {
@@ -226,6 +241,8 @@ public class XMLMapperBuilder extends BaseBuilder {
           // Statement is still missing a resource...
         }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -262,10 +279,16 @@ public class XMLMapperBuilder extends BaseBuilder {
       boolean readWrite = !context.getBooleanAttribute("readOnly", false);
       boolean blocking = context.getBooleanAttribute("blocking", false);
 
+      /* 缓存项各自的过期时间，过期后在宽限期内仍返回旧值并在后台刷新 */
+      Long timeToLive = context.getLongAttribute("timeToLive");
+      Long staleGracePeriod = context.getLongAttribute("staleGracePeriod");
+      Long refreshAhead = context.getLongAttribute("refreshAhead");
+
       /* 获取子节点属性值 */
       Properties props = context.getChildrenAsProperties();
 
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props,
+          timeToLive, staleGracePeriod, refreshAhead);
     }
   }
 
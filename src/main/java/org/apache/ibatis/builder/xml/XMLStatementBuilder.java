@@ -15,16 +15,22 @@
  */
 package org.apache.ibatis.builder.xml;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import org.apache.ibatis.builder.BaseBuilder;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.SqlTableExtractor;
+import org.apache.ibatis.builder.StatementOptions;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ReadSource;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
@@ -32,6 +38,9 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 /**
  * @author Clinton Begin
@@ -116,6 +125,16 @@ public class XMLStatementBuilder extends BaseBuilder {
 
     SqlSource sqlSource = langDriver.createSqlSource(configuration, context, parameterTypeClass);
 
+    /*
+     * 语句读写的表，用于二级缓存按表失效
+     * <update id="updateUser" tables="user"> ... </update>
+     * 未声明时如果开启了 tableCacheInvalidationEnabled，则从 sql 文本中推断
+     */
+    String[] tables = SqlTableExtractor.parseTables(context.getStringAttribute("tables"));
+    if (tables == null && configuration.isTableCacheInvalidationEnabled()) {
+      tables = SqlTableExtractor.extractTables(getSqlText(context.getNode()));
+    }
+
     /*
      * 获取 select|insert|update|delete 标签的属性，下面的属性命名并不是在四个标签中都存在的
      * 下面最常见的就是 resultType resultMap
@@ -133,10 +152,60 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyColumn = context.getStringAttribute("keyColumn");
     String resultSets = context.getStringAttribute("resultSets");
 
+    /*
+     * foreach 集合超过 chunkSize 时拆分成多次执行，chunkParameter 未声明时使用语句中唯一的 foreach 集合
+     * <select id="selectByIds" chunkSize="1000" chunkParallel="true"> ... </select>
+     */
+    Integer chunkSize = context.getIntAttribute("chunkSize");
+    String chunkParameter = context.getStringAttribute("chunkParameter");
+    boolean chunkParallel = context.getBooleanAttribute("chunkParallel", false);
+    if (chunkSize != null && chunkParameter == null) {
+      chunkParameter = getForEachCollection(id);
+    }
+    /* 读写分离：未声明时沿用 <mapper readFrom> 的值，再没有则写操作之前读从库 */
+    ReadSource readFrom = resolveReadSource(context.getStringAttribute("readFrom"));
+    /*
+     * 分库：shardKey 是参数对象中决定分片的属性，未声明时沿用 <mapper shardKey>
+     * <select id="selectOrders" shardKey="customerId" shardOrderBy="createdAt desc"> ... </select>
+     */
+    String shardKey = context.getStringAttribute("shardKey");
+    String shardOrderBy = context.getStringAttribute("shardOrderBy");
+
     builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered,
-        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets,
+        new StatementOptions().tables(tables).chunkSize(chunkSize).chunkParameter(chunkParameter)
+            .chunkParallel(chunkParallel).readFrom(readFrom).shardKey(shardKey).shardOrderBy(shardOrderBy));
+  }
+
+  private String getForEachCollection(String id) {
+    Set<String> collections = new HashSet<>();
+    NodeList forEachNodes = ((Element) context.getNode()).getElementsByTagName("foreach");
+    for (int i = 0; i < forEachNodes.getLength(); i++) {
+      collections.add(((Element) forEachNodes.item(i)).getAttribute("collection"));
+    }
+    if (collections.size() != 1) {
+      throw new BuilderException("Statement '" + id + "' declares a chunkSize but has " + collections.size()
+          + " foreach collections. Specify the one to split with chunkParameter.");
+    }
+    String collection = collections.iterator().next();
+    // the collections passed as the only parameter are resolved at runtime
+    return "list".equals(collection) || "collection".equals(collection) || "array".equals(collection) ? null : collection;
+  }
+
+  private String getSqlText(Node node) {
+    StringBuilder text = new StringBuilder();
+    NodeList children = node.getChildNodes();
+    for (int i = 0; i < children.getLength(); i++) {
+      Node child = children.item(i);
+      if (child.getNodeType() == Node.CDATA_SECTION_NODE || child.getNodeType() == Node.TEXT_NODE) {
+        text.append(child.getNodeValue()).append(' ');
+      } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+        text.append(getSqlText(child)).append(' ');
+      }
+    }
+    return text.toString();
   }
 
   private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
@@ -183,7 +252,9 @@ public class XMLStatementBuilder extends BaseBuilder {
     builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered,
-        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, null);
+        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, null,
+        // the key is read on the shard of the statement it belongs to
+        new StatementOptions().shardKey(context.getStringAttribute("shardKey")));
 
     id = builderAssistant.applyCurrentNamespace(id, false);
 
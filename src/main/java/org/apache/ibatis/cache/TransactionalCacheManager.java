@@ -18,6 +18,7 @@ package org.apache.ibatis.cache;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.ibatis.cache.decorators.RefreshingCache;
 import org.apache.ibatis.cache.decorators.TransactionalCache;
 
 /**
@@ -39,6 +40,27 @@ public class TransactionalCacheManager {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public void putObject(Cache cache, CacheKey key, Object value, String[] tables) {
+    getTransactionalCache(cache).putObject(key, value, tables);
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void putObject(Cache cache, CacheKey key, Object value, String[] tables, RefreshingCache.EntryLoader loader) {
+    getTransactionalCache(cache).putObject(key, value, tables, loader);
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void evictTables(Cache cache, String[] tables) {
+    getTransactionalCache(cache).evictTables(tables);
+  }
+
   public void commit() {
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.commit();
@@ -45,6 +45,13 @@ public class BlockingCache implements Cache {
     this.locks = new ConcurrentHashMap<>();
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public Cache getDelegate() {
+    return delegate;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Tells the {@link KeyTrackingCache}s above it which entries left the cache.
+ * <p>
+ * It decorates the base cache, below the eviction decorators, so entries evicted by {@link LruCache},
+ * {@link FifoCache}, {@link SoftCache} or {@link WeakCache} and caches cleared by {@link ScheduledCache} are seen
+ * as well as the ones removed explicitly.
+ *
+ * @since 3.5.2
+ */
+public class EvictionNotifyingCache implements Cache {
+
+  private final Cache delegate;
+  private final List<KeyTrackingCache<?>> trackers = new CopyOnWriteArrayList<>();
+
+  public EvictionNotifyingCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  public void addTracker(KeyTrackingCache<?> tracker) {
+    trackers.add(tracker);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Object value = delegate.removeObject(key);
+    for (KeyTrackingCache<?> tracker : trackers) {
+      tracker.untrack(key);
+    }
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    for (KeyTrackingCache<?> tracker : trackers) {
+      tracker.untrackAll();
+    }
+  }
+
+  @Override
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+}
@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Base of the decorators that keep some state per cached key, e.g. the tables an entry depends on or when it
+ * expires.
+ * <p>
+ * The state of a key is dropped as soon as the entry leaves the cache. Entries removed through this decorator are
+ * handled here; entries evicted or cleared further down the chain (e.g. by {@link LruCache} or
+ * {@link ScheduledCache}) are reported by the {@link EvictionNotifyingCache} the decorator is registered with.
+ *
+ * @param <T> state kept per key
+ * @since 3.5.2
+ */
+public abstract class KeyTrackingCache<T> implements Cache {
+
+  protected final Cache delegate;
+  private final ConcurrentMap<Object, T> trackedKeys = new ConcurrentHashMap<>();
+
+  protected KeyTrackingCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  public Cache getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    untrack(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    untrackAll();
+    delegate.clear();
+  }
+
+  @Override
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+  /**
+   * Returns the number of keys currently tracked.
+   */
+  public int getTrackedSize() {
+    return trackedKeys.size();
+  }
+
+  protected T getTracked(Object key) {
+    return trackedKeys.get(key);
+  }
+
+  /**
+   * Starts tracking the key, replacing the state it had.
+   */
+  protected void track(Object key, T state) {
+    T previous = trackedKeys.put(key, state);
+    if (previous != null && previous != state) {
+      onUntracked(key, previous);
+    }
+  }
+
+  /**
+   * Replaces the state of the key only if it is still tracked with the expected state.
+   */
+  protected boolean retrack(Object key, T expected, T state) {
+    if (!trackedKeys.replace(key, expected, state)) {
+      return false;
+    }
+    if (expected != state) {
+      onUntracked(key, expected);
+    }
+    return true;
+  }
+
+  /**
+   * Stops tracking the key only if it is still tracked with the expected state.
+   */
+  protected boolean untrack(Object key, T expected) {
+    if (!trackedKeys.remove(key, expected)) {
+      return false;
+    }
+    onUntracked(key, expected);
+    return true;
+  }
+
+  /**
+   * Called once the state of a key was dropped or replaced.
+   */
+  protected void onUntracked(Object key, T state) {
+  }
+
+  /**
+   * Called once the state of every key was dropped.
+   */
+  protected void onUntrackedAll() {
+  }
+
+  void untrack(Object key) {
+    T state = trackedKeys.remove(key);
+    if (state != null) {
+      onUntracked(key, state);
+    }
+  }
+
+  void untrackAll() {
+    trackedKeys.clear();
+    onUntrackedAll();
+  }
+
+  /**
+   * Looks for a decorator of the given type in a chain of decorators built by
+   * {@link org.apache.ibatis.mapping.CacheBuilder}.
+   *
+   * @return the decorator, or {@code null} if the chain has none
+   */
+  public static <C extends Cache> C find(Cache cache, Class<C> type) {
+    Cache current = cache;
+    while (current != null) {
+      if (type.isInstance(current)) {
+        return type.cast(current);
+      }
+      if (current instanceof BlockingCache) {
+        current = ((BlockingCache) current).getDelegate();
+      } else if (current instanceof KeyTrackingCache) {
+        current = ((KeyTrackingCache<?>) current).getDelegate();
+      } else {
+        current = null;
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,186 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Expires every entry on its own after a time to live, instead of clearing the whole cache at a fixed interval
+ * like {@link ScheduledCache} does.
+ * <p>
+ * An expired entry can still be served during a stale grace period while it is reloaded in the background, and
+ * with refresh ahead an entry that is read shortly before it expires is reloaded before anyone has to wait for it.
+ * Only one reload per entry runs at a time. Entries are reloaded by the {@link EntryLoader} registered for them
+ * (the statement that produced them); entries without a loader simply expire at the end of the grace period.
+ * Entries leave the tracking together with the cached values, including the ones evicted further down the chain.
+ *
+ * @since 3.5.2
+ */
+public class RefreshingCache extends KeyTrackingCache<RefreshingCache.Entry> {
+
+  private static final Log log = LogFactory.getLog(RefreshingCache.class);
+
+  private static final int MAX_PENDING_RELOADS = 1024;
+
+  private static final ExecutorService REFRESHER = newRefresher();
+
+  private long timeToLive;
+  private long staleGracePeriod;
+  private long refreshAhead;
+
+  public RefreshingCache(Cache delegate) {
+    super(delegate);
+    this.timeToLive = 60 * 60 * 1000; // 1 hour
+  }
+
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @param staleGracePeriod milliseconds an expired entry is still served while it is being reloaded
+   */
+  public void setStaleGracePeriod(long staleGracePeriod) {
+    this.staleGracePeriod = staleGracePeriod;
+  }
+
+  /**
+   * @param refreshAhead milliseconds before expiration from which a read triggers a reload
+   */
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+    if (value == null) {
+      // blocking caches are released with a null value, there is nothing to expire
+      return;
+    }
+    track(key, new Entry(System.currentTimeMillis() + timeToLive));
+  }
+
+  /**
+   * Registers how the entry stored for the key can be reloaded. Does nothing if there is no such entry.
+   */
+  public void setLoader(Object key, EntryLoader loader) {
+    Entry entry = getTracked(key);
+    if (entry != null) {
+      entry.loader = loader;
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value == null) {
+      return null;
+    }
+    Entry entry = getTracked(key);
+    long now = System.currentTimeMillis();
+    if (entry == null || now >= entry.expiresAt + staleGracePeriod) {
+      // entries without an expiration were reloaded after a write had already evicted them
+      if (entry == null || untrack(key, entry)) {
+        delegate.removeObject(key);
+      }
+      return null;
+    }
+    if (now >= entry.expiresAt || (refreshAhead > 0 && now >= entry.expiresAt - refreshAhead)) {
+      refresh(key, entry);
+    }
+    return value;
+  }
+
+  private void refresh(Object key, Entry entry) {
+    EntryLoader loader = entry.loader;
+    if (loader == null || !entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      REFRESHER.execute(() -> reload(key, entry, loader));
+    } catch (RejectedExecutionException e) {
+      // too many reloads pending, the next read tries again
+      entry.refreshing.set(false);
+    }
+  }
+
+  private void reload(Object key, Entry entry, EntryLoader loader) {
+    try {
+      Object value = loader.load();
+      if (value == null) {
+        entry.loader = null;
+        return;
+      }
+      // an entry removed or replaced in the meantime (e.g. by a write) must not be brought back: if that happens
+      // while the value is stored, the value is left without an expiration and the next read drops it
+      if (getTracked(key) == entry) {
+        delegate.putObject(key, value);
+        entry.expiresAt = System.currentTimeMillis() + timeToLive;
+      }
+    } catch (Exception e) {
+      log.warn("Could not reload entry of cache " + getId() + ", it will expire.  Cause: " + e);
+    } finally {
+      entry.refreshing.set(false);
+    }
+  }
+
+  private static ExecutorService newRefresher() {
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    AtomicInteger count = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(MAX_PENDING_RELOADS), runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-cache-refresh-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Reloads the value of one cache entry.
+   */
+  @FunctionalInterface
+  public interface EntryLoader {
+    /**
+     * @return the new value, or {@code null} if the entry can no longer be reloaded
+     */
+    Object load() throws Exception;
+  }
+
+  static class Entry {
+
+    private volatile long expiresAt;
+    private volatile EntryLoader loader;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(long expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
@@ -0,0 +1,135 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Indexes cache entries by the tables their statement reads, so that a write only evicts
+ * the entries that depend on the tables it modified instead of clearing the whole cache.
+ * <p>
+ * Entries depend on every table until {@link #setTables(Object, String[])} narrows them down. Keys leave the
+ * index together with their entries, including the ones evicted further down the chain.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.session.Configuration#isTableCacheInvalidationEnabled()
+ */
+public class TableIndexedCache extends KeyTrackingCache<String[]> {
+
+  private static final String[] ALL_TABLES = new String[0];
+
+  private final ConcurrentMap<String, Set<Object>> keysByTable = new ConcurrentHashMap<>();
+  private final Set<Object> untrackedKeys = ConcurrentHashMap.newKeySet();
+
+  public TableIndexedCache(Cache delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+    if (value == null) {
+      // blocking caches are released with a null value, there is nothing to index
+      return;
+    }
+    untrackedKeys.add(key);
+    track(key, ALL_TABLES);
+  }
+
+  /**
+   * Narrows the tables the entry stored for the key depends on. Does nothing if there is no such entry.
+   *
+   * @param tables tables the value was read from, {@code null} if unknown
+   */
+  public void setTables(Object key, String[] tables) {
+    if (tables == null) {
+      return;
+    }
+    for (String table : tables) {
+      keysByTable.computeIfAbsent(table, k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+    if (!retrack(key, ALL_TABLES, tables)) {
+      // evicted in the meantime
+      unindex(key, tables);
+    }
+  }
+
+  /**
+   * Removes every entry that depends on one of the given tables.
+   */
+  public void evictTables(Collection<String> tables) {
+    Set<Object> keys = new HashSet<>(untrackedKeys);
+    for (String table : tables) {
+      Set<Object> tableKeys = keysByTable.get(table);
+      if (tableKeys != null) {
+        keys.addAll(tableKeys);
+      }
+    }
+    for (Object key : keys) {
+      removeObject(key);
+    }
+  }
+
+  /**
+   * Returns whether the entry stored for the key depends on one of the given tables.
+   */
+  public boolean dependsOn(Object key, Collection<String> tables) {
+    String[] keyTables = getTracked(key);
+    if (keyTables == null) {
+      return false;
+    }
+    if (keyTables == ALL_TABLES) {
+      return true;
+    }
+    for (String table : keyTables) {
+      if (tables.contains(table)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected void onUntracked(Object key, String[] tables) {
+    if (tables == ALL_TABLES) {
+      untrackedKeys.remove(key);
+    } else {
+      unindex(key, tables);
+    }
+  }
+
+  @Override
+  protected void onUntrackedAll() {
+    keysByTable.clear();
+    untrackedKeys.clear();
+  }
+
+  private void unindex(Object key, String[] tables) {
+    for (String table : tables) {
+      Set<Object> tableKeys = keysByTable.get(table);
+      if (tableKeys != null) {
+        tableKeys.remove(key);
+      }
+    }
+  }
+
+}
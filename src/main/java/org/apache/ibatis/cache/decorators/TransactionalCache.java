@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -41,15 +43,25 @@ public class TransactionalCache implements Cache {
   private static final Log log = LogFactory.getLog(TransactionalCache.class);
 
   private final Cache delegate;
+  private final TableIndexedCache tableIndex;
+  private final RefreshingCache refreshingCache;
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
   private final Set<Object> entriesMissedInCache;
+  private final Map<Object, String[]> tablesOfEntriesToAdd;
+  private final Set<String> tablesToEvictOnCommit;
+  private final Map<Object, RefreshingCache.EntryLoader> loadersOfEntriesToAdd;
 
   public TransactionalCache(Cache delegate) {
     this.delegate = delegate;
+    this.tableIndex = KeyTrackingCache.find(delegate, TableIndexedCache.class);
+    this.refreshingCache = KeyTrackingCache.find(delegate, RefreshingCache.class);
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.tablesOfEntriesToAdd = new HashMap<>();
+    this.tablesToEvictOnCommit = new HashSet<>();
+    this.loadersOfEntriesToAdd = new HashMap<>();
   }
 
   @Override
@@ -72,6 +84,9 @@ public class TransactionalCache implements Cache {
     // issue #146
     if (clearOnCommit) {
       return null;
+    } else if (object != null && !tablesToEvictOnCommit.isEmpty()
+        && tableIndex.dependsOn(key, tablesToEvictOnCommit)) {
+      return null;
     } else {
       return object;
     }
@@ -84,7 +99,27 @@ public class TransactionalCache implements Cache {
 
   @Override
   public void putObject(Object key, Object object) {
+    putObject(key, object, null);
+  }
+
+  /**
+   * @param tables tables the object was read from, {@code null} if unknown
+   * @since 3.5.2
+   */
+  public void putObject(Object key, Object object, String[] tables) {
+    putObject(key, object, tables, null);
+  }
+
+  /**
+   * @param loader reloads the object once it expires, only kept if the cache refreshes its entries
+   * @since 3.5.2
+   */
+  public void putObject(Object key, Object object, String[] tables, RefreshingCache.EntryLoader loader) {
     entriesToAddOnCommit.put(key, object);
+    tablesOfEntriesToAdd.put(key, tables);
+    if (refreshingCache != null && loader != null) {
+      loadersOfEntriesToAdd.put(key, loader);
+    }
   }
 
   @Override
@@ -96,11 +131,38 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    tablesOfEntriesToAdd.clear();
+    loadersOfEntriesToAdd.clear();
+  }
+
+  /**
+   * Evicts on commit only the entries depending on the given tables.
+   * Falls back to {@link #clear()} when the cache does not index its entries by table.
+   *
+   * @since 3.5.2
+   */
+  public void evictTables(String[] tables) {
+    if (tableIndex == null) {
+      clear();
+      return;
+    }
+    Collections.addAll(tablesToEvictOnCommit, tables);
+    Iterator<Map.Entry<Object, String[]>> pending = tablesOfEntriesToAdd.entrySet().iterator();
+    while (pending.hasNext()) {
+      Map.Entry<Object, String[]> entry = pending.next();
+      if (entry.getValue() == null || containsAny(tablesToEvictOnCommit, entry.getValue())) {
+        entriesToAddOnCommit.remove(entry.getKey());
+        loadersOfEntriesToAdd.remove(entry.getKey());
+        pending.remove();
+      }
+    }
   }
 
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+    } else if (!tablesToEvictOnCommit.isEmpty()) {
+      tableIndex.evictTables(tablesToEvictOnCommit);
     }
     flushPendingEntries();
     reset();
@@ -115,11 +177,21 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    tablesOfEntriesToAdd.clear();
+    tablesToEvictOnCommit.clear();
+    loadersOfEntriesToAdd.clear();
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
       delegate.putObject(entry.getKey(), entry.getValue());
+      if (tableIndex != null) {
+        tableIndex.setTables(entry.getKey(), tablesOfEntriesToAdd.get(entry.getKey()));
+      }
+      RefreshingCache.EntryLoader loader = loadersOfEntriesToAdd.get(entry.getKey());
+      if (loader != null) {
+        refreshingCache.setLoader(entry.getKey(), loader);
+      }
     }
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
@@ -128,6 +200,15 @@ public class TransactionalCache implements Cache {
     }
   }
 
+  private static boolean containsAny(Set<String> tables, String[] candidates) {
+    for (String candidate : candidates) {
+      if (tables.contains(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void unlockMissedEntries() {
     for (Object entry : entriesMissedInCache) {
       try {
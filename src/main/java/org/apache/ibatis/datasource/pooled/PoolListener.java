@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives the events of a {@link PooledDataSource}, e.g. to feed a metrics library.
+ * <p>
+ * Listeners are called by the threads using the pool, outside of its lock, and must return quickly.
+ * Times are in milliseconds.
+ *
+ * @since 3.5.2
+ * @see PooledDataSource#addPoolListener(PoolListener)
+ */
+public interface PoolListener {
+
+  /**
+   * A physical connection was opened.
+   *
+   * @param creationTime the time it took to open it
+   */
+  default void connectionCreated(long creationTime) {
+  }
+
+  /**
+   * A connection was checked out.
+   *
+   * @param waitTime the time the caller waited for it, including the time to open a new connection if needed
+   */
+  default void connectionCheckedOut(long waitTime) {
+  }
+
+  /**
+   * A connection was returned to the pool.
+   *
+   * @param holdTime the time it was checked out for
+   */
+  default void connectionReturned(long holdTime) {
+  }
+
+  /**
+   * A connection has been checked out for longer than the leak detection threshold. Reported once per checkout.
+   *
+   * @param holdTime the time it has been checked out for so far
+   * @param checkoutTrace where it was checked out
+   */
+  default void leakSuspected(long holdTime, Throwable checkoutTrace) {
+  }
+
+}
@@ -0,0 +1,169 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.metrics.Histogram;
+
+/**
+ * Wait, hold and creation time histograms, in milliseconds, of a {@link PooledDataSource}, next to the gauges and counters of its
+ * {@link PoolState}. Always recorded, the cost is a few atomic increments per checkout.
+ *
+ * @since 3.5.2
+ * @see PooledDataSource#getPoolMetrics()
+ */
+public class PoolMetrics implements PoolListener, PoolMetricsMXBean {
+
+  private final PooledDataSource dataSource;
+  private final Histogram waitTime = new Histogram();
+  private final Histogram holdTime = new Histogram();
+  private final Histogram creationTime = new Histogram();
+  private final LongAdder leakSuspectedCount = new LongAdder();
+
+  PoolMetrics(PooledDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public void connectionCreated(long creationTime) {
+    this.creationTime.record(creationTime);
+  }
+
+  @Override
+  public void connectionCheckedOut(long waitTime) {
+    this.waitTime.record(waitTime);
+  }
+
+  @Override
+  public void connectionReturned(long holdTime) {
+    this.holdTime.record(holdTime);
+  }
+
+  @Override
+  public void leakSuspected(long holdTime, Throwable checkoutTrace) {
+    leakSuspectedCount.increment();
+  }
+
+  public Histogram getWaitTime() {
+    return waitTime;
+  }
+
+  public Histogram getHoldTime() {
+    return holdTime;
+  }
+
+  public Histogram getCreationTime() {
+    return creationTime;
+  }
+
+  @Override
+  public int getMaximumActiveConnections() {
+    return dataSource.getPoolMaximumActiveConnections();
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return dataSource.getPoolState().getActiveConnectionCount();
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return dataSource.getPoolState().getIdleConnectionCount();
+  }
+
+  @Override
+  public int getPendingConnectionCount() {
+    return dataSource.getPoolState().getPendingConnectionCount();
+  }
+
+  @Override
+  public long getRequestCount() {
+    return dataSource.getPoolState().getRequestCount();
+  }
+
+  @Override
+  public long getHadToWaitCount() {
+    return dataSource.getPoolState().getHadToWaitCount();
+  }
+
+  @Override
+  public long getBadConnectionCount() {
+    return dataSource.getPoolState().getBadConnectionCount();
+  }
+
+  @Override
+  public long getClaimedOverdueConnectionCount() {
+    return dataSource.getPoolState().getClaimedOverdueConnectionCount();
+  }
+
+  @Override
+  public long getLeakSuspectedCount() {
+    return leakSuspectedCount.sum();
+  }
+
+  @Override
+  public long getCreatedConnectionCount() {
+    return creationTime.getCount();
+  }
+
+  @Override
+  public long getWaitTimeMean() {
+    return waitTime.getMean();
+  }
+
+  @Override
+  public long getWaitTime99thPercentile() {
+    return waitTime.getPercentile(99);
+  }
+
+  @Override
+  public long getWaitTimeMax() {
+    return waitTime.getMax();
+  }
+
+  @Override
+  public long getHoldTimeMean() {
+    return holdTime.getMean();
+  }
+
+  @Override
+  public long getHoldTime99thPercentile() {
+    return holdTime.getPercentile(99);
+  }
+
+  @Override
+  public long getHoldTimeMax() {
+    return holdTime.getMax();
+  }
+
+  @Override
+  public long getCreationTimeMean() {
+    return creationTime.getMean();
+  }
+
+  @Override
+  public long getCreationTimeMax() {
+    return creationTime.getMax();
+  }
+
+  @Override
+  public String toString() {
+    return "waitTime[" + waitTime + "], holdTime[" + holdTime + "], creationTime[" + creationTime
+        + "], leakSuspected=" + getLeakSuspectedCount();
+  }
+
+}
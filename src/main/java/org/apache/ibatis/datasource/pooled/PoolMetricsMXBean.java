@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * The metrics of a {@link PooledDataSource} as exposed through JMX. Times are in milliseconds.
+ *
+ * @since 3.5.2
+ * @see PooledDataSource#setPoolMBeanName(String)
+ */
+public interface PoolMetricsMXBean {
+
+  int getMaximumActiveConnections();
+
+  int getActiveConnectionCount();
+
+  int getIdleConnectionCount();
+
+  int getPendingConnectionCount();
+
+  long getRequestCount();
+
+  long getHadToWaitCount();
+
+  long getBadConnectionCount();
+
+  long getClaimedOverdueConnectionCount();
+
+  long getLeakSuspectedCount();
+
+  long getCreatedConnectionCount();
+
+  long getWaitTimeMean();
+
+  long getWaitTime99thPercentile();
+
+  long getWaitTimeMax();
+
+  long getHoldTimeMean();
+
+  long getHoldTime99thPercentile();
+
+  long getHoldTimeMax();
+
+  long getCreationTimeMean();
+
+  long getCreationTimeMax();
+
+}
@@ -31,6 +31,13 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String GET_AUTO_COMMIT = "getAutoCommit";
+  private static final String SET_AUTO_COMMIT = "setAutoCommit";
+  private static final String GET_TRANSACTION_ISOLATION = "getTransactionIsolation";
+  private static final String SET_TRANSACTION_ISOLATION = "setTransactionIsolation";
+  private static final String IS_READ_ONLY = "isReadOnly";
+  private static final String SET_READ_ONLY = "setReadOnly";
+  private static final Object NOT_A_STATE_METHOD = new Object();
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
   private final int hashCode;
@@ -56,6 +63,17 @@ class PooledConnection implements InvocationHandler {
 
   private long lastUsedTimestamp;
 
+  /**
+   * 后台最后一次检查连接有效的时间戳
+   */
+  private long lastValidatedTimestamp;
+
+  /**
+   * 开启泄漏检测时记录获取连接的位置，超过阈值后只报告一次
+   */
+  private Throwable checkoutTrace;
+  private boolean leakReported;
+
   private int connectionTypeCode;
 
   /**
@@ -63,6 +81,20 @@ class PooledConnection implements InvocationHandler {
    */
   private boolean valid;
 
+  /**
+   * 真实连接的 autoCommit、隔离级别和只读状态的本地副本，null 表示还不知道；
+   * 通过代理连接读取时直接返回副本，设置的值没有变化时也不访问数据库。用 SQL 语句修改这些状态会让副本失效
+   */
+  private Boolean autoCommit;
+  private Integer transactionIsolation;
+  private Boolean readOnly;
+
+  /**
+   * 第一次被修改之前的隔离级别和只读状态，归还连接时如果被改过就恢复，避免影响下一个使用者
+   */
+  private Integer initialTransactionIsolation;
+  private Boolean initialReadOnly;
+
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
    *
@@ -176,6 +208,85 @@ class PooledConnection implements InvocationHandler {
     this.lastUsedTimestamp = lastUsedTimestamp;
   }
 
+  /**
+   * Getter for the time that the connection was last validated by the pool maintenance.
+   *
+   * @return the timestamp, 0 if it never was
+   * @since 3.5.2
+   */
+  public long getLastValidatedTimestamp() {
+    return lastValidatedTimestamp;
+  }
+
+  /**
+   * Setter for the time that the connection was last validated by the pool maintenance.
+   *
+   * @param lastValidatedTimestamp - the timestamp
+   * @since 3.5.2
+   */
+  public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+    this.lastValidatedTimestamp = lastValidatedTimestamp;
+  }
+
+  /**
+   * Takes over the known state of the real connection from the previous wrapper of the same connection.
+   */
+  void copyStateFrom(PooledConnection previous) {
+    this.autoCommit = previous.autoCommit;
+    this.transactionIsolation = previous.transactionIsolation;
+    this.readOnly = previous.readOnly;
+    this.initialTransactionIsolation = previous.initialTransactionIsolation;
+    this.initialReadOnly = previous.initialReadOnly;
+  }
+
+  /**
+   * @return the auto commit mode of the real connection, only asked to the driver the first time
+   */
+  boolean isAutoCommit() throws SQLException {
+    if (autoCommit == null) {
+      autoCommit = realConnection.getAutoCommit();
+    }
+    return autoCommit;
+  }
+
+  /**
+   * Restores the transaction isolation and the read only mode if they were changed since the connection was created.
+   */
+  void resetState() throws SQLException {
+    if (initialTransactionIsolation != null && !initialTransactionIsolation.equals(transactionIsolation)) {
+      transactionIsolation = null;
+      realConnection.setTransactionIsolation(initialTransactionIsolation);
+      transactionIsolation = initialTransactionIsolation;
+    }
+    if (initialReadOnly != null && !initialReadOnly.equals(readOnly)) {
+      readOnly = null;
+      realConnection.setReadOnly(initialReadOnly);
+      readOnly = initialReadOnly;
+    }
+  }
+
+  Throwable getCheckoutTrace() {
+    return checkoutTrace;
+  }
+
+  void setCheckoutTrace(Throwable checkoutTrace) {
+    this.checkoutTrace = checkoutTrace;
+    this.leakReported = false;
+  }
+
+  /**
+   * Marks the current checkout as reported as a possible leak.
+   *
+   * @return false if it already was
+   */
+  boolean markLeakReported() {
+    if (leakReported) {
+      return false;
+    }
+    leakReported = true;
+    return true;
+  }
+
   /**
    * Getter for the time since this connection was last used.
    *
@@ -269,6 +380,12 @@ class PooledConnection implements InvocationHandler {
         // issue #579 toString() should never fail
         // throw an SQLException instead of a Runtime
         checkConnection();
+        if (args == null || args.length == 1) {
+          Object result = invokeStateMethod(methodName, args);
+          if (result != NOT_A_STATE_METHOD) {
+            return result;
+          }
+        }
       }
       /* 真正调用代理对象的相关方法 */
       return method.invoke(realConnection, args);
@@ -278,6 +395,60 @@ class PooledConnection implements InvocationHandler {
 
   }
 
+  /**
+   * Serves the state accessors of the connection from the local copy of its state.
+   *
+   * @return the result of the method, {@link #NOT_A_STATE_METHOD} if it is not one of them
+   */
+  private Object invokeStateMethod(String methodName, Object[] args) throws SQLException {
+    switch (methodName) {
+      case GET_AUTO_COMMIT:
+        return isAutoCommit();
+      case SET_AUTO_COMMIT:
+        boolean desiredAutoCommit = (Boolean) args[0];
+        if (autoCommit == null || autoCommit != desiredAutoCommit) {
+          autoCommit = null;
+          realConnection.setAutoCommit(desiredAutoCommit);
+          autoCommit = desiredAutoCommit;
+        }
+        return null;
+      case GET_TRANSACTION_ISOLATION:
+        if (transactionIsolation == null) {
+          transactionIsolation = realConnection.getTransactionIsolation();
+        }
+        return transactionIsolation;
+      case SET_TRANSACTION_ISOLATION:
+        int desiredIsolation = (Integer) args[0];
+        if (initialTransactionIsolation == null) {
+          initialTransactionIsolation = (Integer) invokeStateMethod(GET_TRANSACTION_ISOLATION, null);
+        }
+        if (transactionIsolation == null || transactionIsolation != desiredIsolation) {
+          transactionIsolation = null;
+          realConnection.setTransactionIsolation(desiredIsolation);
+          transactionIsolation = desiredIsolation;
+        }
+        return null;
+      case IS_READ_ONLY:
+        if (readOnly == null) {
+          readOnly = realConnection.isReadOnly();
+        }
+        return readOnly;
+      case SET_READ_ONLY:
+        boolean desiredReadOnly = (Boolean) args[0];
+        if (initialReadOnly == null) {
+          initialReadOnly = (Boolean) invokeStateMethod(IS_READ_ONLY, null);
+        }
+        if (readOnly == null || readOnly != desiredReadOnly) {
+          readOnly = null;
+          realConnection.setReadOnly(desiredReadOnly);
+          readOnly = desiredReadOnly;
+        }
+        return null;
+      default:
+        return NOT_A_STATE_METHOD;
+    }
+  }
+
   private void checkConnection() throws SQLException {
     if (!valid) {
       throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
@@ -16,18 +16,39 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
+import org.apache.ibatis.datasource.DataSourceException;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.jfr.JfrEvents;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -79,8 +100,56 @@ public class PooledDataSource implements DataSource {
 
   protected int poolPingConnectionsNotUsedFor;
 
+  /**
+   * 后台维护线程的执行间隔（毫秒），大于 0 时空闲连接在后台检查，获取连接时不再 ping
+   */
+  protected int poolMaintenanceInterval;
+
+  /**
+   * 空闲超过这个时间（毫秒）的连接会被后台维护线程检查，同时也保持连接活跃
+   */
+  protected int poolKeepAliveTime = 30000;
+
+  /**
+   * 连接的最长存活时间（毫秒），超过后空闲时被关闭，0 表示不限制
+   */
+  protected int poolMaximumLifetime;
+
+  /**
+   * 后台检查一个连接的超时时间（毫秒）
+   */
+  protected int poolValidationTimeout = 5000;
+
+  /**
+   * 最少保留的空闲连接个数，不足时在后台并行创建
+   */
+  protected int poolMinimumIdle;
+
+  /**
+   * 超过 poolMinimumIdle 的空闲连接在空闲这么久（毫秒）之后由后台维护线程逐步关闭
+   */
+  protected int poolIdleTimeout = 600000;
+
+  /**
+   * 连接被占用超过这个时间（毫秒）就报告可能的泄漏，同时给出获取连接的堆栈，0 表示不检测
+   */
+  protected int poolLeakDetectionThreshold;
+
+  private final PoolMetrics metrics = new PoolMetrics(this);
+
+  private final List<PoolListener> listeners = new CopyOnWriteArrayList<>();
+
+  private ObjectName objectName;
+
   private int expectedConnectionTypeCode;
 
+  /**
+   * 每次 forceCloseAll 都会加一，后台检查期间被关闭的连接不能再放回空闲集合
+   */
+  private int poolGeneration;
+
+  private ScheduledFuture<?> maintenanceTask;
+
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
   }
@@ -272,6 +341,121 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Runs a background maintenance every this many milliseconds, which validates idle connections and closes the ones
+   * past their maximum lifetime. When enabled, connections are no longer pinged when they are checked out.
+   *
+   * @param milliseconds the interval, 0 to disable the maintenance
+   * @since 3.5.2
+   */
+  public void setPoolMaintenanceInterval(int milliseconds) {
+    this.poolMaintenanceInterval = milliseconds;
+    scheduleMaintenance();
+  }
+
+  /**
+   * The background maintenance validates the connections that have been idle for this many milliseconds,
+   * which also keeps them from being closed by the database or the network for inactivity.
+   *
+   * @param milliseconds the idle time
+   * @since 3.5.2
+   */
+  public void setPoolKeepAliveTime(int milliseconds) {
+    this.poolKeepAliveTime = milliseconds;
+  }
+
+  /**
+   * Connections older than this many milliseconds are closed instead of being used again.
+   *
+   * @param milliseconds the maximum lifetime, 0 for no limit
+   * @since 3.5.2
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+  }
+
+  /**
+   * The time the background maintenance waits for a connection to be validated.
+   *
+   * @param milliseconds the timeout
+   * @since 3.5.2
+   */
+  public void setPoolValidationTimeout(int milliseconds) {
+    this.poolValidationTimeout = milliseconds;
+  }
+
+  /**
+   * The pool keeps at least this many idle connections, creating the missing ones in the background.
+   *
+   * @param poolMinimumIdle the minimum number of idle connections
+   * @see #prefill()
+   * @since 3.5.2
+   */
+  public void setPoolMinimumIdle(int poolMinimumIdle) {
+    this.poolMinimumIdle = poolMinimumIdle;
+  }
+
+  /**
+   * Idle connections above the minimum are closed by the background maintenance after being idle for
+   * this many milliseconds, a few at each run.
+   *
+   * @param milliseconds the idle timeout, 0 to keep them open
+   * @since 3.5.2
+   */
+  public void setPoolIdleTimeout(int milliseconds) {
+    this.poolIdleTimeout = milliseconds;
+  }
+
+  /**
+   * Reports the connections checked out for longer than this many milliseconds, with the stack trace of their
+   * checkout. Still checked out connections are found by the background maintenance, the other ones when they are
+   * returned. Capturing the stack trace makes checkouts slower, so this is meant to be enabled while investigating.
+   *
+   * @param milliseconds the threshold, 0 to disable leak detection
+   * @since 3.5.2
+   */
+  public void setPoolLeakDetectionThreshold(int milliseconds) {
+    this.poolLeakDetectionThreshold = milliseconds;
+  }
+
+  /**
+   * Registers the {@link PoolMetrics} of this pool as a platform MBean named
+   * {@code org.apache.ibatis:type=PooledDataSource,name=<name>}.
+   *
+   * @param name the name of the pool, {@code null} to unregister it
+   * @since 3.5.2
+   */
+  public synchronized void setPoolMBeanName(String name) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (objectName != null && server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+      objectName = null;
+      if (name != null) {
+        ObjectName newName = new ObjectName("org.apache.ibatis:type=PooledDataSource,name=" + ObjectName.quote(name));
+        server.registerMBean(metrics, newName);
+        objectName = newName;
+      }
+    } catch (JMException e) {
+      throw new DataSourceException("Error registering the MBean of the pool " + name + ".  Cause: " + e, e);
+    }
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void addPoolListener(PoolListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void removePoolListener(PoolListener listener) {
+    listeners.remove(listener);
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -339,11 +523,143 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolMaintenanceInterval() {
+    return poolMaintenanceInterval;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolKeepAliveTime() {
+    return poolKeepAliveTime;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolValidationTimeout() {
+    return poolValidationTimeout;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolMinimumIdle() {
+    return poolMinimumIdle;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolIdleTimeout() {
+    return poolIdleTimeout;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolLeakDetectionThreshold() {
+    return poolLeakDetectionThreshold;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public String getPoolMBeanName() {
+    return objectName == null ? null : ObjectName.unquote(objectName.getKeyProperty("name"));
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public PoolMetrics getPoolMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Creates, in parallel and in the background, the connections missing to reach the minimum number of idle
+   * connections. Does not wait for them to be created.
+   *
+   * @since 3.5.2
+   */
+  public void prefill() {
+    int missing;
+    int generation;
+    state.lock.lock();
+    try {
+      generation = poolGeneration;
+      int idle = state.idleConnections.size() + state.pendingConnectionCount;
+      missing = Math.min(poolMinimumIdle, poolMaximumIdleConnections) - idle;
+      missing = Math.min(missing, poolMaximumActiveConnections - idle - state.activeConnections.size());
+      if (missing <= 0) {
+        return;
+      }
+      state.pendingConnectionCount += missing;
+    } finally {
+      state.lock.unlock();
+    }
+    for (int i = 0; i < missing; i++) {
+      try {
+        MaintenanceHolder.CREATOR.execute(() -> addIdleConnection(generation));
+      } catch (RejectedExecutionException e) {
+        state.lock.lock();
+        try {
+          state.pendingConnectionCount -= missing - i;
+        } finally {
+          state.lock.unlock();
+        }
+        break;
+      }
+    }
+  }
+
+  private void addIdleConnection(int generation) {
+    PooledConnection conn = null;
+    try {
+      long start = System.currentTimeMillis();
+      conn = new PooledConnection(dataSource.getConnection(), this);
+      long creationTime = System.currentTimeMillis() - start;
+      fire(listener -> listener.connectionCreated(creationTime));
+      if (log.isDebugEnabled()) {
+        log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+      }
+    } catch (Exception e) {
+      log.warn("Could not create an idle connection.  Cause: " + e);
+    }
+    state.lock.lock();
+    try {
+      state.pendingConnectionCount--;
+      state.connectionAvailable.signalAll();
+      if (conn != null && generation == poolGeneration && state.idleConnections.size() < poolMaximumIdleConnections
+          && state.idleConnections.size() + state.activeConnections.size() + state.pendingConnectionCount < poolMaximumActiveConnections) {
+        state.idleConnections.add(conn);
+        return;
+      }
+    } finally {
+      state.lock.unlock();
+    }
+    if (conn != null) {
+      closeConnection(conn);
+    }
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
-    synchronized (state) {
+    state.lock.lock();
+    try {
+      poolGeneration++;
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
         try {
@@ -351,7 +667,7 @@ public class PooledDataSource implements DataSource {
           conn.invalidate();
 
           Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
+          if (!conn.isAutoCommit()) {
             realConn.rollback();
           }
           realConn.close();
@@ -365,7 +681,7 @@ public class PooledDataSource implements DataSource {
           conn.invalidate();
 
           Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
+          if (!conn.isAutoCommit()) {
             realConn.rollback();
           }
           realConn.close();
@@ -373,6 +689,8 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+    } finally {
+      state.lock.unlock();
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -391,24 +709,43 @@ public class PooledDataSource implements DataSource {
    * 归还连接
    */
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    long holdTime = conn.getCheckoutTime();
+    fire(listener -> listener.connectionReturned(holdTime));
+    if (poolLeakDetectionThreshold > 0 && holdTime > poolLeakDetectionThreshold) {
+      Throwable trace;
+      state.lock.lock();
+      try {
+        trace = conn.markLeakReported() ? conn.getCheckoutTrace() : null;
+      } finally {
+        state.lock.unlock();
+      }
+      if (trace != null) {
+        reportLeak(conn, holdTime, trace);
+      }
+    }
     /* 保证多线程获取连接安全 */
-    synchronized (state) {
+    state.lock.lock();
+    try {
       /* 从活跃连接队列中删除当前归还的连接 */
       state.activeConnections.remove(conn);
 
       /* ping 操作检查连接是否有效 */
       if (conn.isValid()) {
         /* 归还连接需要满足1：空闲连接集合不大于配置阈值；2：归还的连接属于当前 this 的连接 */
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode
+            && !isPastLifetime(conn)) {
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
-          if (!conn.getRealConnection().getAutoCommit()) {
+          if (!conn.isAutoCommit()) {
             conn.getRealConnection().rollback();
           }
+          /* 隔离级别或者只读状态被改过才恢复，没有改过不访问数据库 */
+          conn.resetState();
 
           /*
            * 不解：为什么这里归还的 PooledConnection 类型 conn 不能直接复用，而是新建一个 PooledConnection 对象？
            */
           PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.copyStateFrom(conn);
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
@@ -421,11 +758,11 @@ public class PooledDataSource implements DataSource {
           /**
            * 如果有线程归还了连接，则通知其余正在等待的线程 {@link #popConnection}
            */
-          state.notifyAll();
+          state.connectionAvailable.signalAll();
         } else {
           /* 进入这里说明空闲连接队列已满 或者 归还的连接不是当前 this 的连接 */
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
-          if (!conn.getRealConnection().getAutoCommit()) {
+          if (!conn.isAutoCommit()) {
             conn.getRealConnection().rollback();
           }
           conn.getRealConnection().close();
@@ -441,6 +778,8 @@ public class PooledDataSource implements DataSource {
         }
         state.badConnectionCount++;
       }
+    } finally {
+      state.lock.unlock();
     }
   }
 
@@ -456,33 +795,69 @@ public class PooledDataSource implements DataSource {
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
+    Object checkoutEvent = JfrEvents.beginCheckout();
     int localBadConnectionCount = 0;
+    boolean reserved = false;
 
     while (conn == null) {
+      /* 上一轮已经占好了名额，在锁外创建物理连接，避免创建期间阻塞其它线程 */
+      PooledConnection created = null;
+      boolean fromIdle = false;
+      if (reserved) {
+        reserved = false;
+        try {
+          long start = System.currentTimeMillis();
+          created = new PooledConnection(dataSource.getConnection(), this);
+          long creationTime = System.currentTimeMillis() - start;
+          fire(listener -> listener.connectionCreated(creationTime));
+        } catch (SQLException | RuntimeException e) {
+          state.lock.lock();
+          try {
+            state.pendingConnectionCount--;
+            state.connectionAvailable.signalAll();
+          } finally {
+            state.lock.unlock();
+          }
+          throw e;
+        }
+      }
       /* 保证多线程获取连接安全 */
-      synchronized (state) {
-        /* 如果有空闲的连接，则直接获取，然后从集合中删除 */
-        if (!state.idleConnections.isEmpty()) {
-          conn = state.idleConnections.remove(0);
+      state.lock.lock();
+      try {
+        if (created != null) {
+          state.pendingConnectionCount--;
+          conn = created;
+          if (log.isDebugEnabled()) {
+            log.debug("Created connection " + conn.getRealHashCode() + ".");
+          }
+        /* 如果有空闲的连接，则直接获取，然后从集合中删除；开启后台维护时优先取最近归还的连接，多余的连接才能空闲下来被回收 */
+        } else if (!state.idleConnections.isEmpty()) {
+          conn = state.idleConnections.remove(poolMaintenanceInterval > 0 ? state.idleConnections.size() - 1 : 0);
+          fromIdle = true;
+          if (isPastLifetime(conn)) {
+            closeConnection(conn);
+            conn = null;
+            continue;
+          }
           if (log.isDebugEnabled()) {
             log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
           }
         } else {
           /* 查看活动状态的 PooledConnection 池 activeConnections 是否已满 */
-          if (state.activeConnections.size() < poolMaximumActiveConnections) {
-            /* 如果没有满，则创建一个新的 PooledConnection 对象，然后放到 activeConnections 池中 */
-            conn = new PooledConnection(dataSource.getConnection(), this);
-            if (log.isDebugEnabled()) {
-              log.debug("Created connection " + conn.getRealHashCode() + ".");
-            }
+          if (state.activeConnections.size() + state.pendingConnectionCount < poolMaximumActiveConnections) {
+            /* 如果没有满，则占一个名额，下一轮在锁外创建一个新的 PooledConnection 对象，然后放到 activeConnections 池中 */
+            state.pendingConnectionCount++;
+            reserved = true;
+            continue;
           } else {
             /* 逻辑进入这里：说明没有空闲连接，同时 activeConnections 集合已经达到了最大连接个数 */
 
             /* 获取最先进入 activeConnections 池中的PooledConnection对象，因为底层是数组，所以索引为0的则是最先进入的 */
-            PooledConnection oldestActiveConnection = state.activeConnections.get(0);
+            /* 名额可能都被正在创建的连接占用，这时 activeConnections 为空，只能等待 */
+            PooledConnection oldestActiveConnection = state.activeConnections.isEmpty() ? null : state.activeConnections.get(0);
 
             /* 获取最近的一次心跳距离当前时间间隔 */
-            long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+            long longestCheckoutTime = oldestActiveConnection == null ? 0 : oldestActiveConnection.getCheckoutTime();
 
             if (longestCheckoutTime > poolMaximumCheckoutTime) {
               /* 如果已经过期，从activeConnections池中移除此对象，然后创建一个新的PooledConnection对象，添加到activeConnections中 */
@@ -502,7 +877,7 @@ public class PooledDataSource implements DataSource {
                *   所以这里超时很可能是用户正在执行一个事务操作，但是一直没有响应，所以肯定还没有手动提交
                *   所以回滚事务
                */
-              if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+              if (!oldestActiveConnection.isAutoCommit()) {
                 try {
                   oldestActiveConnection.getRealConnection().rollback();
                 } catch (SQLException e) {
@@ -525,6 +900,7 @@ public class PooledDataSource implements DataSource {
                *
                */
               conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+              conn.copyStateFrom(oldestActiveConnection);
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
               /* 标记当前连接已失效，这里仅仅是将老的连接置为无效，但是上面的 conn 对象还是有效的 */
@@ -548,7 +924,11 @@ public class PooledDataSource implements DataSource {
                 /**
                  * 沉睡一定时间，如果在此期间有线程归还了连接，则会被唤醒 {@link #pushConnection}
                  */
-                state.wait(poolTimeToWait);
+                if (poolTimeToWait > 0) {
+                  state.connectionAvailable.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } else {
+                  state.connectionAvailable.await();
+                }
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
               } catch (InterruptedException e) {
                 break;
@@ -565,13 +945,15 @@ public class PooledDataSource implements DataSource {
            * 但是这里可以再次进行ping操作，如果能ping通，说明这个曾经超时的连接又恢复正常，可以继续复用
            */
           if (conn.isValid()) {
-            if (!conn.getRealConnection().getAutoCommit()) {
+            /* 空闲连接在归还或者检查时已经回滚过了 */
+            if (!fromIdle && !conn.isAutoCommit()) {
               conn.getRealConnection().rollback();
             }
             conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
             /* 更新最后检测时间 */
             conn.setCheckoutTimestamp(System.currentTimeMillis());
             conn.setLastUsedTimestamp(System.currentTimeMillis());
+            conn.setCheckoutTrace(poolLeakDetectionThreshold > 0 ? new Throwable("Checkout of connection " + conn.getRealHashCode()) : null);
 
             /* 这个连接添加到活跃集合中 */
             state.activeConnections.add(conn);
@@ -595,6 +977,8 @@ public class PooledDataSource implements DataSource {
             }
           }
         }
+      } finally {
+        state.lock.unlock();
       }
     }
 
@@ -610,6 +994,12 @@ public class PooledDataSource implements DataSource {
       throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
     }
 
+    long waitTime = System.currentTimeMillis() - t;
+    fire(listener -> listener.connectionCheckedOut(waitTime));
+    JfrEvents.commitCheckout(checkoutEvent, dataSource.getUrl(), countedWait, localBadConnectionCount);
+    if (poolMinimumIdle > 0) {
+      prefill();
+    }
     return conn;
   }
 
@@ -637,8 +1027,8 @@ public class PooledDataSource implements DataSource {
      * true：连接没有关闭    false：连接已关闭
      */
     if (result) {
-      /* 如果没有开启 ping 操作，那么只要连接没有关闭，就认为是有效的 */
-      if (poolPingEnabled) {
+      /* 如果没有开启 ping 操作，那么只要连接没有关闭，就认为是有效的；开启后台维护时由后台线程检查 */
+      if (poolPingEnabled && poolMaintenanceInterval <= 0) {
         if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
           try {
             if (log.isDebugEnabled()) {
@@ -648,7 +1038,7 @@ public class PooledDataSource implements DataSource {
             try (Statement statement = realConn.createStatement()) {
               statement.executeQuery(poolPingQuery).close();
             }
-            if (!realConn.getAutoCommit()) {
+            if (!conn.isAutoCommit()) {
               realConn.rollback();
             }
             result = true;
@@ -673,6 +1063,212 @@ public class PooledDataSource implements DataSource {
     return result;
   }
 
+  private boolean isPastLifetime(PooledConnection conn) {
+    return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime;
+  }
+
+  private void closeConnection(PooledConnection conn) {
+    conn.invalidate();
+    try {
+      Connection realConn = conn.getRealConnection();
+      if (!conn.isAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Closed connection " + conn.getRealHashCode() + ".");
+    }
+  }
+
+  private void reportLeak(PooledConnection conn, long holdTime, Throwable checkoutTrace) {
+    StringBuilder message = new StringBuilder("Connection ").append(conn.getRealHashCode())
+        .append(" has been checked out for ").append(holdTime).append(" milliseconds, it may have leaked. Checked out at:");
+    for (StackTraceElement element : checkoutTrace.getStackTrace()) {
+      message.append("\n\tat ").append(element);
+    }
+    log.warn(message.toString());
+    fire(listener -> listener.leakSuspected(holdTime, checkoutTrace));
+  }
+
+  private void fire(Consumer<PoolListener> event) {
+    event.accept(metrics);
+    for (PoolListener listener : listeners) {
+      try {
+        event.accept(listener);
+      } catch (RuntimeException e) {
+        log.warn("Pool listener " + listener + " failed.  Cause: " + e);
+      }
+    }
+  }
+
+  private synchronized void scheduleMaintenance() {
+    if (maintenanceTask != null) {
+      maintenanceTask.cancel(false);
+      maintenanceTask = null;
+    }
+    if (poolMaintenanceInterval > 0) {
+      MaintenanceTask task = new MaintenanceTask(this);
+      maintenanceTask = MaintenanceHolder.EXECUTOR.scheduleWithFixedDelay(task,
+          poolMaintenanceInterval, poolMaintenanceInterval, TimeUnit.MILLISECONDS);
+      task.future = maintenanceTask;
+    }
+  }
+
+  /**
+   * Validates the connections idle for longer than the keep alive time and closes the ones past their lifetime.
+   * Connections are taken out of the pool while they are validated, so that no one checks them out meanwhile.
+   */
+  protected void maintain() {
+    List<PooledConnection> expired = new ArrayList<>();
+    List<PooledConnection> stale = new ArrayList<>();
+    List<PooledConnection> leaked = new ArrayList<>();
+    int generation;
+    state.lock.lock();
+    try {
+      generation = poolGeneration;
+      if (poolLeakDetectionThreshold > 0) {
+        for (PooledConnection conn : state.activeConnections) {
+          if (conn.getCheckoutTime() > poolLeakDetectionThreshold && conn.getCheckoutTrace() != null && conn.markLeakReported()) {
+            leaked.add(conn);
+          }
+        }
+      }
+      // shrink gradually, a quarter of the surplus at a time, so that a new burst still finds connections
+      int surplus = state.idleConnections.size() - poolMinimumIdle;
+      int shrink = poolIdleTimeout > 0 && surplus > 0 ? (surplus + 3) / 4 : 0;
+      for (Iterator<PooledConnection> iterator = state.idleConnections.iterator(); iterator.hasNext();) {
+        PooledConnection conn = iterator.next();
+        if (isPastLifetime(conn)) {
+          iterator.remove();
+          expired.add(conn);
+        } else if (shrink > 0 && conn.getTimeElapsedSinceLastUse() >= poolIdleTimeout) {
+          iterator.remove();
+          expired.add(conn);
+          shrink--;
+        } else if (System.currentTimeMillis() - Math.max(conn.getLastUsedTimestamp(), conn.getLastValidatedTimestamp()) >= poolKeepAliveTime) {
+          iterator.remove();
+          stale.add(conn);
+        }
+      }
+    } finally {
+      state.lock.unlock();
+    }
+    for (PooledConnection conn : leaked) {
+      reportLeak(conn, conn.getCheckoutTime(), conn.getCheckoutTrace());
+    }
+    for (PooledConnection conn : expired) {
+      closeConnection(conn);
+    }
+    for (PooledConnection conn : stale) {
+      boolean valid = validateConnection(conn);
+      state.lock.lock();
+      try {
+        if (valid && generation == poolGeneration && state.idleConnections.size() < poolMaximumIdleConnections) {
+          conn.setLastValidatedTimestamp(System.currentTimeMillis());
+          state.idleConnections.add(conn);
+          state.connectionAvailable.signalAll();
+          continue;
+        }
+        if (!valid) {
+          state.badConnectionCount++;
+        }
+      } finally {
+        state.lock.unlock();
+      }
+      closeConnection(conn);
+    }
+    prefill();
+  }
+
+  /**
+   * Checks a connection with the ping query if enabled, otherwise with {@link Connection#isValid(int)}.
+   */
+  private boolean validateConnection(PooledConnection conn) {
+    Connection realConn = conn.getRealConnection();
+    try {
+      if (poolPingEnabled) {
+        try (Statement statement = realConn.createStatement()) {
+          statement.setQueryTimeout(Math.max(1, (poolValidationTimeout + 999) / 1000));
+          statement.executeQuery(poolPingQuery).close();
+        }
+        if (!conn.isAutoCommit()) {
+          realConn.rollback();
+        }
+        return true;
+      }
+      try {
+        return realConn.isValid(Math.max(1, (poolValidationTimeout + 999) / 1000));
+      } catch (SQLFeatureNotSupportedException | AbstractMethodError e) {
+        return !realConn.isClosed();
+      }
+    } catch (Exception e) {
+      log.warn("Validation of connection " + conn.getRealHashCode() + " failed: " + e.getMessage());
+      return false;
+    }
+  }
+
+  private static class MaintenanceTask implements Runnable {
+
+    // the task must not keep an unused data source from being garbage collected
+    private final WeakReference<PooledDataSource> dataSource;
+    private volatile ScheduledFuture<?> future;
+
+    MaintenanceTask(PooledDataSource dataSource) {
+      this.dataSource = new WeakReference<>(dataSource);
+    }
+
+    @Override
+    public void run() {
+      PooledDataSource pool = dataSource.get();
+      if (pool == null) {
+        if (future != null) {
+          future.cancel(false);
+        }
+        return;
+      }
+      try {
+        pool.maintain();
+      } catch (Exception e) {
+        log.warn("Maintenance of the connection pool failed: " + e);
+      }
+    }
+  }
+
+  private static class MaintenanceHolder {
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR = newExecutor();
+
+    // connections are created in parallel, the handshake of each one mostly waits on the network
+    private static final ExecutorService CREATOR = newCreator();
+
+    private static ScheduledThreadPoolExecutor newExecutor() {
+      AtomicInteger count = new AtomicInteger();
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-pool-maintenance-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+
+    private static ExecutorService newCreator() {
+      int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+      AtomicInteger count = new AtomicInteger();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "mybatis-pool-creator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
   /**
    * Unwraps a pooled connection to get to the 'real' connection
    *
@@ -0,0 +1,236 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A data source made of a primary database and read replicas of it.
+ * <p>
+ * {@link #getConnection()} always returns a connection to the primary. {@link #getReplicaConnection()} returns one
+ * to the healthy replica with the fewest connections checked out, and is what
+ * {@link org.apache.ibatis.transaction.jdbc.JdbcTransaction} uses for the selects an executor routes to a replica.
+ * A replica that fails to hand out a connection is ejected for {@link #getEjectionTime()} milliseconds;
+ * while no replica is healthy the transaction reads on its primary connection.
+ *
+ * @since 3.5.2
+ * @see ReadWriteDataSourceFactory
+ * @see org.apache.ibatis.mapping.ReadSource
+ */
+public class ReadWriteDataSource implements DataSource {
+
+  private static final Log log = LogFactory.getLog(ReadWriteDataSource.class);
+
+  /** 主库，写操作和写之后的读都走这里 */
+  private final DataSource primary;
+  /** 从库 */
+  private final List<Replica> replicas;
+  /** 从库取连接失败后被摘除的时长（毫秒） */
+  private volatile long ejectionTime = 30000;
+  /** 连接数相同时轮询的起点 */
+  private final AtomicInteger nextReplica = new AtomicInteger();
+
+  public ReadWriteDataSource(DataSource primary, List<? extends DataSource> replicas) {
+    if (primary == null) {
+      throw new IllegalArgumentException("The primary data source cannot be null");
+    }
+    this.primary = primary;
+    List<Replica> list = new ArrayList<>(replicas.size());
+    for (DataSource replica : replicas) {
+      list.add(new Replica(replica));
+    }
+    this.replicas = Collections.unmodifiableList(list);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return primary.getConnection(username, password);
+  }
+
+  /**
+   * Returns a connection to the healthy replica with the fewest connections checked out.
+   *
+   * @return the connection, or {@code null} when no replica is healthy. Callers then read from the primary,
+   *     on the connection they already hold so they do not wait on their own locks.
+   */
+  public Connection getReplicaConnection() throws SQLException {
+    int size = replicas.size();
+    if (size > 0) {
+      int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+      // every replica is tried at most once, the least busy healthy one first
+      boolean[] tried = new boolean[size];
+      for (int attempt = 0; attempt < size; attempt++) {
+        long now = System.currentTimeMillis();
+        int chosen = -1;
+        for (int i = 0; i < size; i++) {
+          int index = (start + i) % size;
+          Replica replica = replicas.get(index);
+          if (!tried[index] && replica.isHealthy(now)
+              && (chosen < 0 || replica.outstanding.get() < replicas.get(chosen).outstanding.get())) {
+            chosen = index;
+          }
+        }
+        if (chosen < 0) {
+          break;
+        }
+        tried[chosen] = true;
+        Replica replica = replicas.get(chosen);
+        try {
+          return replica.getConnection();
+        } catch (SQLException e) {
+          replica.ejectedUntil = System.currentTimeMillis() + ejectionTime;
+          if (log.isDebugEnabled()) {
+            log.debug("Ejecting replica " + chosen + " for " + ejectionTime + " ms. Cause: " + e);
+          }
+        }
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("No healthy replica, reading from the primary.");
+    }
+    return null;
+  }
+
+  public DataSource getPrimary() {
+    return primary;
+  }
+
+  public List<DataSource> getReplicas() {
+    List<DataSource> list = new ArrayList<>(replicas.size());
+    for (Replica replica : replicas) {
+      list.add(replica.dataSource);
+    }
+    return list;
+  }
+
+  public long getEjectionTime() {
+    return ejectionTime;
+  }
+
+  public void setEjectionTime(long milliseconds) {
+    this.ejectionTime = milliseconds;
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return primary.getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    primary.setLogWriter(out);
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    primary.setLoginTimeout(seconds);
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return primary.getLoginTimeout();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    throw new SQLException(getClass().getName() + " is not a wrapper.");
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() {
+    return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+  }
+
+  private static class Replica {
+
+    private final DataSource dataSource;
+    /** 已取出还没关闭的连接数 */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    /** 摘除截止时间，0 表示健康 */
+    private volatile long ejectedUntil;
+
+    Replica(DataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    boolean isHealthy(long now) {
+      return ejectedUntil <= now;
+    }
+
+    Connection getConnection() throws SQLException {
+      Connection connection = dataSource.getConnection();
+      ejectedUntil = 0;
+      outstanding.incrementAndGet();
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] {Connection.class}, new CountedConnection(connection, outstanding));
+    }
+  }
+
+  /**
+   * Gives the replica its slot back when the connection is closed.
+   */
+  private static class CountedConnection implements InvocationHandler {
+
+    private final Connection connection;
+    private final AtomicInteger outstanding;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    CountedConnection(Connection connection, AtomicInteger outstanding) {
+      this.connection = connection;
+      this.outstanding = outstanding;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+        outstanding.decrementAndGet();
+      }
+      try {
+        return method.invoke(connection, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+  }
+
+}
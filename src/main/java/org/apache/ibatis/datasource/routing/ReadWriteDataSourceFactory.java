@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceException;
+import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+
+/**
+ * Builds a {@link ReadWriteDataSource} out of {@code POOLED} data sources.
+ * <p>
+ * Every property is the one of a {@code POOLED} data source and applies to the primary and the replicas, except:
+ * <ul>
+ *   <li>{@code replicaUrls}: comma separated urls of the replicas, one pool each</li>
+ *   <li>{@code replica.*}: overrides the property named after the prefix for the replicas only, e.g. {@code replica.username}</li>
+ *   <li>{@code ejectionTime}: milliseconds a replica that failed to connect is left out, 30000 by default</li>
+ * </ul>
+ *
+ * @since 3.5.2
+ */
+public class ReadWriteDataSourceFactory implements DataSourceFactory {
+
+  private static final String REPLICA_URLS_PROPERTY = "replicaUrls";
+  private static final String EJECTION_TIME_PROPERTY = "ejectionTime";
+  private static final String REPLICA_PROPERTY_PREFIX = "replica.";
+
+  private ReadWriteDataSource dataSource;
+
+  @Override
+  public void setProperties(Properties properties) {
+    Properties primaryProperties = new Properties();
+    Properties replicaOverrides = new Properties();
+    String replicaUrls = null;
+    String ejectionTime = null;
+    for (String name : properties.stringPropertyNames()) {
+      String value = properties.getProperty(name);
+      if (REPLICA_URLS_PROPERTY.equals(name)) {
+        replicaUrls = value;
+      } else if (EJECTION_TIME_PROPERTY.equals(name)) {
+        ejectionTime = value;
+      } else if (name.startsWith(REPLICA_PROPERTY_PREFIX)) {
+        replicaOverrides.setProperty(name.substring(REPLICA_PROPERTY_PREFIX.length()), value);
+      } else {
+        primaryProperties.setProperty(name, value);
+      }
+    }
+
+    List<DataSource> replicas = new ArrayList<>();
+    if (replicaUrls != null) {
+      for (String url : replicaUrls.split(",")) {
+        url = url.trim();
+        if (url.isEmpty()) {
+          continue;
+        }
+        Properties replicaProperties = new Properties();
+        replicaProperties.putAll(primaryProperties);
+        replicaProperties.putAll(replicaOverrides);
+        replicaProperties.setProperty("url", url);
+        replicas.add(newPooledDataSource(replicaProperties));
+      }
+    }
+    dataSource = new ReadWriteDataSource(newPooledDataSource(primaryProperties), replicas);
+    if (ejectionTime != null) {
+      try {
+        dataSource.setEjectionTime(Long.parseLong(ejectionTime.trim()));
+      } catch (NumberFormatException e) {
+        throw new DataSourceException("Invalid " + EJECTION_TIME_PROPERTY + ": " + ejectionTime, e);
+      }
+    }
+  }
+
+  @Override
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  private DataSource newPooledDataSource(Properties properties) {
+    PooledDataSourceFactory factory = new PooledDataSourceFactory();
+    factory.setProperties(properties);
+    return factory.getDataSource();
+  }
+
+}
@@ -0,0 +1,34 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.sharding;
+
+/**
+ * Maps the value of a shard key to the index of the shard holding its rows.
+ * Implementations must be thread safe and give the same shard for the same key every time.
+ *
+ * @since 3.5.2
+ * @see ShardedDataSource#setShardStrategy(ShardStrategy)
+ */
+public interface ShardStrategy {
+
+  /**
+   * @param shardKey the value of the shard key, never {@code null}
+   * @param shardCount the number of shards
+   * @return the index of the shard, from {@code 0} to {@code shardCount - 1}
+   */
+  int getShard(Object shardKey, int shardCount);
+
+}
@@ -0,0 +1,147 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.sharding;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * A data source made of several databases with the same schema, each holding the rows of some shard keys.
+ * <p>
+ * Statements declaring a {@link org.apache.ibatis.mapping.MappedStatement#getShardKey() shard key} run on the shard
+ * the {@link ShardStrategy} maps its value to, on the connection the
+ * {@link org.apache.ibatis.transaction.jdbc.JdbcTransaction} of the session holds for that shard. Selects given no
+ * key run on every shard and their results are merged. The other statements, and {@link #getConnection()},
+ * use the first shard.
+ * <p>
+ * A session writing to several shards commits them one after the other; there is no two-phase commit.
+ *
+ * @since 3.5.2
+ * @see ShardedDataSourceFactory
+ */
+public class ShardedDataSource implements DataSource {
+
+  /** 各个分片，下标就是分片号 */
+  private final List<DataSource> shards;
+  /** 分片键到分片号的映射 */
+  private volatile ShardStrategy shardStrategy = new ModuloShardStrategy();
+
+  public ShardedDataSource(List<? extends DataSource> shards) {
+    if (shards == null || shards.isEmpty()) {
+      throw new IllegalArgumentException("A sharded data source needs at least one shard");
+    }
+    this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return shards.get(0).getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return shards.get(0).getConnection(username, password);
+  }
+
+  /**
+   * Returns a connection to the shard at the given index.
+   */
+  public Connection getConnection(int shard) throws SQLException {
+    return getShard(shard).getConnection();
+  }
+
+  /**
+   * Returns the index of the shard holding the rows of the given key.
+   */
+  public int getShardIndex(Object shardKey) {
+    int shard = shardStrategy.getShard(shardKey, shards.size());
+    if (shard < 0 || shard >= shards.size()) {
+      throw new IllegalStateException(shardStrategy.getClass().getName() + " mapped the key " + shardKey
+          + " to shard " + shard + " but there are " + shards.size() + " shards");
+    }
+    return shard;
+  }
+
+  public DataSource getShard(int shard) {
+    return shards.get(shard);
+  }
+
+  public int getShardCount() {
+    return shards.size();
+  }
+
+  public List<DataSource> getShards() {
+    return shards;
+  }
+
+  public ShardStrategy getShardStrategy() {
+    return shardStrategy;
+  }
+
+  public void setShardStrategy(ShardStrategy shardStrategy) {
+    if (shardStrategy == null) {
+      throw new IllegalArgumentException("The shard strategy cannot be null");
+    }
+    this.shardStrategy = shardStrategy;
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return shards.get(0).getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    for (DataSource shard : shards) {
+      shard.setLogWriter(out);
+    }
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    for (DataSource shard : shards) {
+      shard.setLoginTimeout(seconds);
+    }
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return shards.get(0).getLoginTimeout();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    throw new SQLException(getClass().getName() + " is not a wrapper.");
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() {
+    return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+  }
+
+}
@@ -0,0 +1,111 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceException;
+import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Builds a {@link ShardedDataSource} out of {@code POOLED} data sources.
+ * <p>
+ * Every property is the one of a {@code POOLED} data source and applies to all the shards, except:
+ * <ul>
+ *   <li>{@code shardUrls}: comma separated urls of the shards, in shard order, one pool each</li>
+ *   <li>{@code shard.N.*}: overrides the property named after the prefix for the shard at index N only,
+ *   e.g. {@code shard.3.username}</li>
+ *   <li>{@code shardStrategy}: class name of the {@link ShardStrategy}, {@link ModuloShardStrategy} by default</li>
+ * </ul>
+ *
+ * @since 3.5.2
+ */
+public class ShardedDataSourceFactory implements DataSourceFactory {
+
+  private static final String SHARD_URLS_PROPERTY = "shardUrls";
+  private static final String SHARD_STRATEGY_PROPERTY = "shardStrategy";
+  private static final String SHARD_PROPERTY_PREFIX = "shard.";
+
+  private ShardedDataSource dataSource;
+
+  @Override
+  public void setProperties(Properties properties) {
+    Properties commonProperties = new Properties();
+    String shardUrls = null;
+    String shardStrategy = null;
+    for (String name : properties.stringPropertyNames()) {
+      String value = properties.getProperty(name);
+      if (SHARD_URLS_PROPERTY.equals(name)) {
+        shardUrls = value;
+      } else if (SHARD_STRATEGY_PROPERTY.equals(name)) {
+        shardStrategy = value;
+      } else if (!name.startsWith(SHARD_PROPERTY_PREFIX)) {
+        commonProperties.setProperty(name, value);
+      }
+    }
+    if (shardUrls == null) {
+      throw new DataSourceException("The " + SHARD_URLS_PROPERTY + " property is required");
+    }
+
+    List<DataSource> shards = new ArrayList<>();
+    for (String url : shardUrls.split(",")) {
+      url = url.trim();
+      if (url.isEmpty()) {
+        continue;
+      }
+      Properties shardProperties = new Properties();
+      shardProperties.putAll(commonProperties);
+      shardProperties.setProperty("url", url);
+      String prefix = SHARD_PROPERTY_PREFIX + shards.size() + ".";
+      for (String name : properties.stringPropertyNames()) {
+        if (name.startsWith(prefix)) {
+          shardProperties.setProperty(name.substring(prefix.length()), properties.getProperty(name));
+        }
+      }
+      shards.add(newPooledDataSource(shardProperties));
+    }
+    dataSource = new ShardedDataSource(shards);
+    if (shardStrategy != null) {
+      dataSource.setShardStrategy(newShardStrategy(shardStrategy.trim()));
+    }
+  }
+
+  @Override
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  private DataSource newPooledDataSource(Properties properties) {
+    PooledDataSourceFactory factory = new PooledDataSourceFactory();
+    factory.setProperties(properties);
+    return factory.getDataSource();
+  }
+
+  private ShardStrategy newShardStrategy(String className) {
+    try {
+      return (ShardStrategy) Resources.classForName(className).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new DataSourceException("Error creating the shard strategy " + className + ". Cause: " + e, e);
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Counts the rows selected by the SQL of another source, using the dialect of the configuration.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.mapping.MappedStatement#getCountStatement()
+ */
+public class CountSqlSource implements SqlSource {
+
+  private final Configuration configuration;
+  private final SqlSource sqlSource;
+
+  public CountSqlSource(Configuration configuration, SqlSource sqlSource) {
+    this.configuration = configuration;
+    this.sqlSource = sqlSource;
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    return boundSql.withSql(configuration.getDialect().getCountSql(boundSql.getSql()), boundSql.getParameterMappings());
+  }
+
+}
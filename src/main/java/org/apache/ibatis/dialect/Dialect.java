@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+import org.apache.ibatis.session.PageToken;
+import org.apache.ibatis.session.SeekKey;
+
+/**
+ * Rewrites the SQL of a statement so that the database pages its results.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.session.Configuration#getDialect()
+ */
+public interface Dialect {
+
+  /**
+   * Returns an SQL selecting at most {@code limit} rows of the given SQL, after skipping {@code offset} rows, or
+   * {@code null} when the SQL cannot be limited, e.g. because it already limits or locks its rows. The offset and the
+   * limit are not written in the SQL, so that every page of a statement has the same SQL: the dialect adds placeholders
+   * and, for each of them in order, the value to bind to it to {@code parameters}.
+   *
+   * @param sql the SQL of the statement
+   * @param offset number of rows to skip, may be {@code 0}
+   * @param limit maximum number of rows to return
+   * @param parameters receives the values of the placeholders added to the SQL
+   * @return the limited SQL, or {@code null}
+   */
+  String getLimitSql(String sql, long offset, int limit, List<Object> parameters);
+
+  /**
+   * Returns whether {@link #getLimitSql(String, long, int, List)} can skip rows. When it cannot, the offset of a
+   * {@link org.apache.ibatis.session.RowBounds} is added to its limit and the rows before the offset are skipped
+   * while reading the results, e.g. to avoid selecting a row number column next to the columns of the statement.
+   *
+   * @return {@code true} by default
+   */
+  default boolean supportsOffset() {
+    return true;
+  }
+
+  /**
+   * Returns an SQL counting the rows the given SQL selects.
+   *
+   * @param sql the SQL of the statement
+   * @return the counting SQL
+   */
+  default String getCountSql(String sql) {
+    return "SELECT COUNT(*) FROM (" + SqlClauses.stripTerminator(sql) + ") count_";
+  }
+
+  /**
+   * Returns an SQL selecting the first {@code limit} rows of the given SQL, ordered by the keys, that come after the
+   * values of the keys of a previous page. Like the limit, these values are bound to the placeholders it adds.
+   *
+   * <p> The default implementation wraps the SQL in a derived table, compares the keys one by one
+   * (<code>k1 &gt; ? OR (k1 = ? AND k2 &gt; ?) ...</code>) so that ascending and descending keys can be mixed,
+   * orders by the keys and limits the result with {@link #getLimitSql(String, long, int, List)}.
+   *
+   * @param sql the SQL of the statement
+   * @param keys the keys ordering the rows
+   * @param after the values of the keys of the last row of the previous page, {@code null} for the first page
+   * @param limit maximum number of rows to return
+   * @param parameters receives, for each placeholder added to the SQL in order, the value to bind to it
+   * @return the SQL selecting the page
+   */
+  default String getSeekSql(String sql, List<SeekKey> keys, PageToken after, int limit, List<Object> parameters) {
+    StringBuilder seekSql = new StringBuilder("SELECT * FROM (").append(SqlClauses.stripTerminator(sql)).append(") seek_");
+    if (after != null) {
+      seekSql.append(" WHERE ");
+      for (int i = 0; i < keys.size(); i++) {
+        seekSql.append(i == 0 ? "(" : " OR (");
+        for (int j = 0; j < i; j++) {
+          seekSql.append(keys.get(j).getColumn()).append(" = ? AND ");
+          parameters.add(after.getValue(j));
+        }
+        seekSql.append(keys.get(i).getColumn()).append(keys.get(i).isDescending() ? " < ?)" : " > ?)");
+        parameters.add(after.getValue(i));
+      }
+    }
+    seekSql.append(" ORDER BY ");
+    for (int i = 0; i < keys.size(); i++) {
+      seekSql.append(i == 0 ? "" : ", ").append(keys.get(i));
+    }
+    return getLimitSql(seekSql.toString(), 0, limit, parameters);
+  }
+
+}
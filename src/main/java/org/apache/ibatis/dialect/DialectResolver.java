@@ -0,0 +1,78 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Picks the dialect of a database from its product name and version.
+ *
+ * @since 3.5.2
+ */
+public final class DialectResolver {
+
+  private DialectResolver() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Returns the dialect of the database of the data source, a {@link LimitOffsetDialect} if it cannot be told.
+   */
+  public static Dialect resolve(DataSource dataSource) {
+    if (dataSource == null) {
+      return new LimitOffsetDialect();
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      return resolve(metaData.getDatabaseProductName(), metaData.getDatabaseMajorVersion());
+    } catch (SQLException | RuntimeException e) {
+      LogHolder.log.warn("Could not get the database product name from the dataSource, using LIMIT ... OFFSET ...  Cause: " + e);
+      return new LimitOffsetDialect();
+    }
+  }
+
+  /**
+   * Returns the dialect of a database.
+   *
+   * @param productName the name returned by {@link DatabaseMetaData#getDatabaseProductName()}
+   * @param majorVersion the version returned by {@link DatabaseMetaData#getDatabaseMajorVersion()}
+   */
+  public static Dialect resolve(String productName, int majorVersion) {
+    String name = productName == null ? "" : productName.toLowerCase(Locale.ENGLISH);
+    if (name.contains("oracle")) {
+      return majorVersion >= 12 ? new OffsetFetchDialect() : new OracleDialect();
+    } else if (name.contains("sql server")) {
+      return new SqlServerDialect();
+    } else if (name.contains("db2") || name.contains("derby")) {
+      return new OffsetFetchDialect();
+    }
+    // HSQLDB, H2, MySQL, MariaDB, PostgreSQL, SQLite, ...
+    return new LimitOffsetDialect();
+  }
+
+  private static class LogHolder {
+    private static final Log log = LogFactory.getLog(DialectResolver.class);
+  }
+
+}
@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+/**
+ * Pages with <code>LIMIT ? OFFSET ?</code>, understood by HSQLDB, H2, MySQL, MariaDB, PostgreSQL and SQLite.
+ *
+ * @since 3.5.2
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  @Override
+  public String getLimitSql(String sql, long offset, int limit, List<Object> parameters) {
+    String limitable = SqlClauses.limitable(sql);
+    if (limitable == null) {
+      return null;
+    }
+    StringBuilder limitSql = new StringBuilder(limitable.length() + 16).append(limitable).append(" LIMIT ?");
+    parameters.add(limit);
+    if (offset > 0) {
+      limitSql.append(" OFFSET ?");
+      parameters.add(offset);
+    }
+    return limitSql.toString();
+  }
+
+}
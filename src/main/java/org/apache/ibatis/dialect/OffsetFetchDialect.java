@@ -0,0 +1,39 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+/**
+ * Pages with the standard <code>OFFSET ? ROWS FETCH NEXT ? ROWS ONLY</code>, understood by Oracle 12c, SQL Server 2012,
+ * DB2 and Derby and later versions. SQL Server only accepts it after an <code>ORDER BY</code>.
+ *
+ * @since 3.5.2
+ */
+public class OffsetFetchDialect implements Dialect {
+
+  @Override
+  public String getLimitSql(String sql, long offset, int limit, List<Object> parameters) {
+    String limitable = SqlClauses.limitable(sql);
+    if (limitable == null) {
+      return null;
+    }
+    parameters.add(offset);
+    parameters.add(limit);
+    return limitable + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+  }
+
+}
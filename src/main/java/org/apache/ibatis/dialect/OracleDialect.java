@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+/**
+ * Pages with <code>ROWNUM</code>, understood by every Oracle version. Selecting the rows after an offset would need
+ * an additional row number column, so only the limit is applied by the database and the rows before the offset are
+ * skipped while reading the results.
+ *
+ * @since 3.5.2
+ * @see OffsetFetchDialect
+ */
+public class OracleDialect implements Dialect {
+
+  @Override
+  public String getLimitSql(String sql, long offset, int limit, List<Object> parameters) {
+    // a derived table cannot lock its rows either
+    String limitable = SqlClauses.limitable(sql);
+    if (limitable == null) {
+      return null;
+    }
+    parameters.add(offset + limit);
+    return "SELECT * FROM (" + limitable + ") WHERE ROWNUM <= ?";
+  }
+
+  @Override
+  public boolean supportsOffset() {
+    return false;
+  }
+
+}
@@ -0,0 +1,136 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the clauses of the outermost query of an SQL, outside of quotes, comments and parentheses.
+ *
+ * @since 3.5.2
+ */
+final class SqlClauses {
+
+  /** 最外层查询中出现这些词时说明语句已经自己限制了行数或者锁定了行，不能再在末尾追加分页子句 */
+  private static final String[] LIMITING_WORDS = { "FOR", "LIMIT", "OFFSET", "FETCH", "TOP", "LOCK" };
+
+  private SqlClauses() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Removes the <code>;</code> terminating the SQL, if any, and the whitespaces around it.
+   */
+  static String stripTerminator(String sql) {
+    int end = sql.length();
+    while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+      end--;
+    }
+    return sql.substring(0, end);
+  }
+
+  /**
+   * Returns the SQL without its terminator when a clause limiting its rows can be appended to it, {@code null} when it
+   * is not a single statement, already limits or locks its rows, or ends in a line comment.
+   */
+  static String limitable(String sql) {
+    String limitable = stripTerminator(sql);
+    for (int i : outermostTokens(limitable)) {
+      char c = limitable.charAt(i);
+      if (c == ';' || c == '-' && limitable.indexOf('\n', i) < 0) {
+        return null;
+      }
+      for (String word : LIMITING_WORDS) {
+        if (isWord(limitable, i, word)) {
+          return null;
+        }
+      }
+    }
+    return limitable;
+  }
+
+  /**
+   * Returns the position of the <code>ORDER BY</code> clause of the outermost query, {@code -1} if there is none.
+   */
+  static int findOrderBy(String sql) {
+    int found = -1;
+    for (int i : outermostTokens(sql)) {
+      if (isWord(sql, i, "ORDER")) {
+        int j = i + 5;
+        while (j < sql.length() && Character.isWhitespace(sql.charAt(j))) {
+          j++;
+        }
+        if (j > i + 5 && isWord(sql, j, "BY")) {
+          found = i;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the positions of the words, of the <code>;</code> and of the line comments of the outermost query.
+   */
+  private static List<Integer> outermostTokens(String sql) {
+    List<Integer> tokens = new ArrayList<>();
+    int depth = 0;
+    int i = 0;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        int end = sql.indexOf(c, i + 1);
+        i = end < 0 ? sql.length() : end + 1;
+      } else if (c == '-' && sql.startsWith("--", i)) {
+        if (depth == 0) {
+          tokens.add(i);
+        }
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? sql.length() : end + 1;
+      } else if (c == '/' && sql.startsWith("/*", i)) {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? sql.length() : end + 2;
+      } else if (Character.isLetter(c)) {
+        if (depth == 0) {
+          tokens.add(i);
+        }
+        while (i < sql.length() && isWordPart(sql.charAt(i))) {
+          i++;
+        }
+      } else {
+        if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (c == ';' && depth == 0) {
+          tokens.add(i);
+        }
+        i++;
+      }
+    }
+    return tokens;
+  }
+
+  private static boolean isWord(String sql, int i, String word) {
+    int end = i + word.length();
+    return sql.regionMatches(true, i, word, 0, word.length()) && (end == sql.length() || !isWordPart(sql.charAt(end)));
+  }
+
+  private static boolean isWordPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+
+}
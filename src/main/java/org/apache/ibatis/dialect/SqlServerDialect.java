@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+/**
+ * Pages with <code>OFFSET ? ROWS FETCH NEXT ? ROWS ONLY</code>, adding the <code>ORDER BY</code> SQL Server requires
+ * before it to statements that are not ordered. SQL Server 2012 or later.
+ *
+ * @since 3.5.2
+ */
+public class SqlServerDialect extends OffsetFetchDialect {
+
+  @Override
+  public String getLimitSql(String sql, long offset, int limit, List<Object> parameters) {
+    String limitable = SqlClauses.limitable(sql);
+    if (limitable == null) {
+      return null;
+    }
+    return super.getLimitSql(SqlClauses.findOrderBy(limitable) < 0 ? limitable + " ORDER BY (SELECT NULL)" : limitable,
+        offset, limit, parameters);
+  }
+
+  @Override
+  public String getCountSql(String sql) {
+    // a derived table cannot be ordered without TOP or OFFSET
+    String countedSql = SqlClauses.stripTerminator(sql);
+    int orderBy = SqlClauses.findOrderBy(countedSql);
+    return super.getCountSql(orderBy < 0 ? countedSql : countedSql.substring(0, orderBy));
+  }
+
+}
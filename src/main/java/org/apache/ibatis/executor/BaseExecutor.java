@@ -20,12 +20,14 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.datasource.sharding.ShardedDataSource;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -34,15 +36,19 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ReadSource;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.metrics.MetricsRegistry.CacheTier;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SeekBounds;
 import org.apache.ibatis.transaction.Transaction;
-import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
  * @author Clinton Begin
@@ -66,18 +72,31 @@ public abstract class BaseExecutor implements Executor {
   /**
    * 本地一级缓存
    */
-  protected PerpetualCache localCache;
+  protected LocalCache localCache;
   protected PerpetualCache localOutputParameterCache;
   protected Configuration configuration;
 
   protected int queryStack;
   private boolean closed;
+  /**
+   * 当前事务中是否执行过更新，执行过更新的 session 不能和其他 session 共享查询结果
+   */
+  private boolean dirty;
+  /**
+   * 本 session 自上次提交或回滚以来是否执行过更新，执行过之后查询都走主库，避免从库延迟读不到自己刚写的数据
+   */
+  private boolean wrote;
+  /**
+   * 当前语句所在的分片，null 表示不分片；嵌套查询没有自己的分片键时沿用
+   */
+  private Integer currentShard;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
     this.deferredLoads = new ConcurrentLinkedQueue<>();
-    this.localCache = new PerpetualCache("LocalCache");
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
+    this.localCache = new LocalCache("LocalCache", configuration, valueOrZero(configuration.getLocalCacheMaxEntries()),
+        valueOrZero(configuration.getLocalCacheMaxBytes()), localOutputParameterCache);
     this.closed = false;
     this.configuration = configuration;
     this.wrapper = this;
@@ -124,8 +143,44 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
+    List<Object> chunks = StatementChunker.split(configuration, ms, parameter);
+    if (chunks != null) {
+      int updateCount = 0;
+      boolean batched = false;
+      for (Object chunk : chunks) {
+        int chunkCount = update(ms, chunk);
+        if (chunkCount == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+          // the counts of a batch are only known once it is flushed
+          batched = true;
+        } else {
+          updateCount += chunkCount;
+        }
+      }
+      return batched ? BatchExecutor.BATCH_UPDATE_RETURN_VALUE : updateCount;
+    }
+    Integer shard = null;
+    ShardedDataSource shardedDataSource = ShardRouter.getShardedDataSource(configuration, ms);
+    if (shardedDataSource != null) {
+      Object shardKey = ShardRouter.getShardKey(configuration, ms, parameter);
+      if (shardKey == null) {
+        throw new ExecutorException("Statement '" + ms.getId() + "' is sharded by '" + ms.getShardKey()
+            + "' but its parameter has no value for it.");
+      }
+      shard = shardedDataSource.getShardIndex(shardKey);
+    }
     clearLocalCache();
-    return doUpdate(ms, parameter);
+    dirty = true;
+    wrote = true;
+    if (shard == null) {
+      return doUpdate(ms, parameter);
+    }
+    Integer previousShard = currentShard;
+    currentShard = shard;
+    try {
+      return doUpdate(ms, parameter);
+    } finally {
+      currentShard = previousShard;
+    }
   }
 
   @Override
@@ -154,6 +209,10 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
+    List<Object> chunks = StatementChunker.split(configuration, ms, parameter);
+    if (chunks != null) {
+      return queryChunks(ms, chunks, rowBounds, resultHandler);
+    }
     if (queryStack == 0 && ms.isFlushCacheRequired()) {
       clearLocalCache();
     }
@@ -163,7 +222,10 @@ public abstract class BaseExecutor implements Executor {
       /*
        * 进行缓存key查找，如果有则直接返回
        */
-      list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;
+      list = resultHandler == null ? (List<E>) lookupLocalCache(key) : null;
+      if (resultHandler == null && configuration.getMetricsRegistry() != null) {
+        configuration.getMetricsRegistry().recordCacheAccess(ms, CacheTier.LOCAL, list != null);
+      }
       if (list != null) {
         handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
       } else {
@@ -179,6 +241,7 @@ public abstract class BaseExecutor implements Executor {
       }
       // issue #601
       deferredLoads.clear();
+      localCache.unpinAll();
       /**
        * 如果缓存级别是 STATEMENT 则不进行 session 一级缓存，而是直接清空
        * {@link LocalCacheScope}
@@ -194,7 +257,22 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
-    return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    ShardedDataSource shardedDataSource = ShardRouter.getShardedDataSource(configuration, ms);
+    if (shardedDataSource == null) {
+      return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    }
+    Object shardKey = ShardRouter.getShardKey(configuration, ms, parameter);
+    if (shardKey == null) {
+      throw new ExecutorException("A cursor cannot read all the shards. Statement '" + ms.getId()
+          + "' needs a value for its shard key '" + ms.getShardKey() + "'.");
+    }
+    Integer previousShard = currentShard;
+    currentShard = shardedDataSource.getShardIndex(shardKey);
+    try {
+      return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    } finally {
+      currentShard = previousShard;
+    }
   }
 
   @Override
@@ -207,6 +285,8 @@ public abstract class BaseExecutor implements Executor {
       deferredLoad.load();
     } else {
       deferredLoads.add(new DeferredLoad(resultObject, property, key, localCache, configuration, targetType));
+      // the deferred load reads the entry once the outermost query finishes
+      localCache.pin(key);
     }
   }
 
@@ -225,31 +305,23 @@ public abstract class BaseExecutor implements Executor {
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
+    if (rowBounds instanceof SeekBounds) {
+      SeekBounds seekBounds = (SeekBounds) rowBounds;
+      cacheKey.update(seekBounds.getKeys().toString());
+      cacheKey.update(seekBounds.getAfter());
+    }
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
-    TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
-    for (ParameterMapping parameterMapping : parameterMappings) {
-      if (parameterMapping.getMode() != ParameterMode.OUT) {
-        Object value;
-        String propertyName = parameterMapping.getProperty();
-        if (boundSql.hasAdditionalParameter(propertyName)) {
-          value = boundSql.getAdditionalParameter(propertyName);
-        } else if (parameterObject == null) {
-          value = null;
-        } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-          value = parameterObject;
-        } else {
-          MetaObject metaObject = configuration.newMetaObject(parameterObject);
-          value = metaObject.getValue(propertyName);
-        }
-        cacheKey.update(value);
-      }
-    }
+    Class<?> parameterType = parameterObject == null ? null : parameterObject.getClass();
+    ms.getParameterBinder(parameterType, boundSql.getParameterMappings()).updateCacheKey(cacheKey, boundSql, parameterObject);
     if (configuration.getEnvironment() != null) {
       // issue #176
       cacheKey.update(configuration.getEnvironment().getId());
     }
+    if (currentShard != null) {
+      // 没有分片键的嵌套查询在外层语句的分片上执行，不同分片上的结果不能共用缓存
+      cacheKey.update(currentShard);
+    }
     return cacheKey;
   }
 
@@ -258,6 +330,26 @@ public abstract class BaseExecutor implements Executor {
     return localCache.getObject(key) != null;
   }
 
+  @Override
+  public LocalCacheStatistics getLocalCacheStatistics() {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    return localCache.getStatistics();
+  }
+
+  private Object lookupLocalCache(CacheKey key) {
+    return localCache.lookup(key);
+  }
+
+  private static int valueOrZero(Integer value) {
+    return value == null ? 0 : value;
+  }
+
+  private static long valueOrZero(Long value) {
+    return value == null ? 0 : value;
+  }
+
   @Override
   public void commit(boolean required) throws SQLException {
     if (closed) {
@@ -268,6 +360,8 @@ public abstract class BaseExecutor implements Executor {
     if (required) {
       transaction.commit();
     }
+    dirty = false;
+    wrote = false;
   }
 
   @Override
@@ -280,6 +374,8 @@ public abstract class BaseExecutor implements Executor {
         if (required) {
           transaction.rollback();
         }
+        dirty = false;
+        wrote = false;
       }
     }
   }
@@ -344,11 +440,28 @@ public abstract class BaseExecutor implements Executor {
 
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
     List<E> list;
+    ShardedDataSource shardedDataSource = ShardRouter.getShardedDataSource(configuration, ms);
+    Object shardKey = shardedDataSource == null ? null : ShardRouter.getShardKey(configuration, ms, parameter);
+    Integer previousShard = currentShard;
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
     try {
-      /* 这里进入真实的执行器 */
-      list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      if (shardedDataSource != null && shardKey == null) {
+        /* 参数中没有分片键，在所有分片上执行再合并 */
+        list = queryShards(shardedDataSource, ms, parameter, rowBounds, resultHandler, boundSql);
+      } else {
+        if (shardedDataSource != null) {
+          currentShard = shardedDataSource.getShardIndex(shardKey);
+        }
+        /* 这里进入真实的执行器 */
+        if (isCoalescingAllowed(ms, resultHandler)) {
+          list = configuration.getQueryCoalescer().query(coalescingKey(ms, key),
+              configuration.getQueryCoalescingTimeout(), () -> doQuery(ms, parameter, rowBounds, resultHandler, boundSql));
+        } else {
+          list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+      }
     } finally {
+      currentShard = previousShard;
       localCache.removeObject(key);
     }
     /* 将结果写入本地缓存 */
@@ -359,6 +472,116 @@ public abstract class BaseExecutor implements Executor {
     return list;
   }
 
+  /**
+   * 集合参数超过 chunkSize 的语句按块分别执行，结果按块的顺序拼接，RowBounds 作用于拼接后的结果
+   */
+  private <E> List<E> queryChunks(MappedStatement ms, List<Object> chunks, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
+    boolean limited = rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT;
+    if (limited && resultHandler != null) {
+      throw new ExecutorException("RowBounds cannot be applied to a chunked statement with a ResultHandler: " + ms.getId());
+    }
+    List<E> list;
+    if (isParallelChunkingAllowed(ms, resultHandler)) {
+      list = StatementChunker.queryInParallel(configuration, ms, chunks);
+    } else {
+      list = new ArrayList<>();
+      for (Object chunk : chunks) {
+        list.addAll(query(ms, chunk, RowBounds.DEFAULT, resultHandler));
+      }
+    }
+    if (!limited) {
+      return list;
+    }
+    int from = Math.min(rowBounds.getOffset(), list.size());
+    int to = (int) Math.min((long) from + rowBounds.getLimit(), list.size());
+    return new ArrayList<>(list.subList(from, to));
+  }
+
+  /**
+   * 没有分片键的 select 在每个分片上执行，结果按 shardOrderBy 或分页的 seek key 合并，RowBounds 作用于合并后的结果
+   */
+  private <E> List<E> queryShards(ShardedDataSource dataSource, MappedStatement ms, Object parameter, RowBounds rowBounds,
+      ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+    boolean limited = rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT;
+    if (limited && resultHandler != null) {
+      throw new ExecutorException("RowBounds cannot be applied to a select reading all the shards with a ResultHandler: " + ms.getId());
+    }
+    RowBounds shardBounds = ShardRouter.getShardBounds(rowBounds);
+    List<List<E>> results;
+    if (isParallelScatterAllowed(dataSource, ms, resultHandler)) {
+      results = ShardRouter.queryInParallel(configuration, dataSource, ms, parameter, shardBounds, boundSql);
+    } else {
+      results = new ArrayList<>(dataSource.getShardCount());
+      for (int shard = 0; shard < dataSource.getShardCount(); shard++) {
+        currentShard = shard;
+        results.add(doQuery(ms, parameter, shardBounds, resultHandler, boundSql));
+      }
+    }
+    return ShardRouter.merge(configuration, ms, results, rowBounds);
+  }
+
+  /**
+   * Runs a select on the given shard only, for the selects read from all the shards in parallel.
+   */
+  <E> List<E> queryShard(int shard, MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    currentShard = shard;
+    return doQuery(ms, parameter, rowBounds, Executor.NO_RESULT_HANDLER, boundSql);
+  }
+
+  /**
+   * 并行读分片使用各自的连接，看不到当前事务中未提交的修改
+   */
+  private boolean isParallelScatterAllowed(ShardedDataSource dataSource, MappedStatement ms, ResultHandler resultHandler) {
+    return dataSource.getShardCount() > 1 && !dirty && resultHandler == null
+        && ms.getStatementType() != StatementType.CALLABLE;
+  }
+
+  /**
+   * 并行执行的块使用各自的连接，看不到当前事务中未提交的修改
+   */
+  private boolean isParallelChunkingAllowed(MappedStatement ms, ResultHandler resultHandler) {
+    return ms.isChunkParallel() && !dirty && resultHandler == null && configuration.getEnvironment() != null
+        && ms.getSqlCommandType() == SqlCommandType.SELECT && ms.getStatementType() != StatementType.CALLABLE;
+  }
+
+  /**
+   * 只有顶层的、没有嵌套查询和输出参数的普通 select 才能和其他 session 共享同一次数据库执行。
+   * 事务中的 select（例如 SELECT ... FOR UPDATE）要在自己的连接上执行，才能看到、锁住事务中的行
+   */
+  private boolean isCoalescingAllowed(MappedStatement ms, ResultHandler resultHandler) {
+    if (!configuration.isQueryCoalescingEnabled() || dirty || !transaction.isAutoCommit() || queryStack != 1
+        || resultHandler != null
+        || ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE
+        || ms.isFlushCacheRequired()) {
+      return false;
+    }
+    for (ResultMap resultMap : ms.getResultMaps()) {
+      if (resultMap.hasNestedQueries()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 共享执行时由第一个 session 在自己的连接上执行，读主库和读从库的查询不能共享同一次执行
+   */
+  private CacheKey coalescingKey(MappedStatement ms, CacheKey key) {
+    if (!readsFromReplica(ms)) {
+      return key;
+    }
+    try {
+      CacheKey replicaKey = key.clone();
+      replicaKey.update(ReadSource.REPLICA);
+      return replicaKey;
+    } catch (CloneNotSupportedException e) {
+      throw new ExecutorException("Could not clone the cache key of statement '" + ms.getId() + "'.", e);
+    }
+  }
+
   protected Connection getConnection(Log statementLog) throws SQLException {
     Connection connection = transaction.getConnection();
     if (statementLog.isDebugEnabled()) {
@@ -368,6 +591,50 @@ public abstract class BaseExecutor implements Executor {
     }
   }
 
+  /**
+   * Gets the connection to run the statement on: the one of the transaction to the {@link #getCurrentShard() current
+   * shard} if any, the replica one for the selects {@link #readsFromReplica(MappedStatement) routed} to a replica,
+   * the main one otherwise.
+   */
+  protected Connection getConnection(MappedStatement ms) throws SQLException {
+    Connection connection;
+    if (currentShard != null) {
+      connection = transaction.getShardConnection(currentShard);
+    } else if (readsFromReplica(ms)) {
+      connection = transaction.getReplicaConnection();
+    } else {
+      return getConnection(ms.getStatementLog());
+    }
+    if (ms.getStatementLog().isDebugEnabled()) {
+      return ConnectionLogger.newInstance(connection, ms.getStatementLog(), queryStack);
+    } else {
+      return connection;
+    }
+  }
+
+  /**
+   * Returns the shard the statement being executed runs on, {@code null} when the statement is not sharded.
+   * Nested selects without a shard key of their own run on the shard of the statement they belong to.
+   */
+  protected Integer getCurrentShard() {
+    return currentShard;
+  }
+
+  /**
+   * Selects declaring a {@link ReadSource} read from it. The others read from a replica only when the transaction is
+   * in {@link Transaction#isAutoCommit() autocommit} mode and has not written since it last committed or rolled back.
+   */
+  protected boolean readsFromReplica(MappedStatement ms) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      return false;
+    }
+    ReadSource readFrom = ms.getReadFrom();
+    if (readFrom != null) {
+      return readFrom == ReadSource.REPLICA;
+    }
+    return !wrote && transaction.isAutoCommit();
+  }
+
   @Override
   public void setExecutorWrapper(Executor wrapper) {
     this.wrapper = wrapper;
@@ -16,18 +16,31 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.KeyTrackingCache;
+import org.apache.ibatis.cache.decorators.RefreshingCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.jfr.JfrEvents;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.metrics.MetricsRegistry;
+import org.apache.ibatis.metrics.MetricsRegistry.CacheTier;
+import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -46,6 +59,8 @@ import org.apache.ibatis.transaction.Transaction;
 @SuppressWarnings("all")
 public class CachingExecutor implements Executor {
 
+  private static final String REPLAYED_PARAMETER_PREFIX = "__replayed_";
+
   /**
    * 缓存执行器只是对基本三大执行器进行了一个封装，而 delegate 就是原始的对象
    */
@@ -119,10 +134,17 @@ public class CachingExecutor implements Executor {
         ensureNoOutParams(ms, boundSql);
         /* 从缓存中获取数据 */
         List<E> list = (List<E>) tcm.getObject(cache, key);
+        MetricsRegistry metricsRegistry = ms.getConfiguration().getMetricsRegistry();
+        if (metricsRegistry != null) {
+          metricsRegistry.recordCacheAccess(ms, CacheTier.SECOND_LEVEL, list != null);
+        }
+        if (JfrEvents.isCacheAccessEnabled()) {
+          JfrEvents.cacheAccess(cache.getId(), ms.getId(), list != null);
+        }
         /* 为空执行一次，将结果保存到缓存中 */
         if (list == null) {
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          tcm.putObject(cache, key, list, ms.getTables(), newEntryLoader(cache, ms, parameterObject, rowBounds, key, boundSql)); // issue #578 and #116
         }
         return list;
       }
@@ -182,10 +204,76 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
+  @Override
+  public LocalCacheStatistics getLocalCacheStatistics() {
+    return delegate.getLocalCacheStatistics();
+  }
+
+  /**
+   * 缓存项过期后由后台线程重新执行原语句来刷新，使用独立的事务和执行器，不经过二级缓存；
+   * 只保留最终的 sql 和绑定的参数值（分片语句还有分片键），不持有调用方的参数对象。
+   * 缓存不刷新或语句按块执行时不创建
+   */
+  private RefreshingCache.EntryLoader newEntryLoader(Cache cache, MappedStatement ms, Object parameterObject, RowBounds rowBounds, CacheKey key, BoundSql boundSql) {
+    if (ms.getChunkSize() != null || KeyTrackingCache.find(cache, RefreshingCache.class) == null) {
+      return null;
+    }
+    Configuration configuration = ms.getConfiguration();
+    Class<?> parameterType = parameterObject == null ? null : parameterObject.getClass();
+    Iterator<Object> values = ms.getParameterBinder(parameterType, boundSql.getParameterMappings())
+        .getValues(boundSql, parameterObject).iterator();
+    List<ParameterMapping> parameterMappings = new ArrayList<>();
+    Map<String, Object> parameter = new HashMap<>();
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        continue;
+      }
+      String property = REPLAYED_PARAMETER_PREFIX + parameterMappings.size();
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, parameterMapping.getTypeHandler())
+          .javaType(parameterMapping.getJavaType())
+          .jdbcType(parameterMapping.getJdbcType())
+          .numericScale(parameterMapping.getNumericScale())
+          .jdbcTypeName(parameterMapping.getJdbcTypeName())
+          .build());
+      parameter.put(property, values.next());
+    }
+    if (ms.getShardKey() != null) {
+      Object shardKey = ShardRouter.getShardKey(configuration, ms, parameterObject);
+      if (shardKey != null) {
+        configuration.newMetaObject(parameter).setValue(ms.getShardKey(), shardKey);
+      }
+    }
+    String sql = boundSql.getSql();
+    return () -> {
+      Environment environment = configuration.getEnvironment();
+      if (environment == null) {
+        return null;
+      }
+      Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+      Executor executor = new SimpleExecutor(configuration, tx);
+      for (Interceptor interceptor : configuration.getInterceptors()) {
+        executor = (Executor) interceptor.plugin(executor);
+      }
+      try {
+        BoundSql replayedSql = new BoundSql(configuration, sql, parameterMappings, parameter);
+        return executor.query(ms, parameter, rowBounds, Executor.NO_RESULT_HANDLER, key, replayedSql);
+      } finally {
+        executor.close(false);
+      }
+    };
+  }
+
+  /**
+   * 写语句如果知道自己修改了哪些表，只清除依赖这些表的缓存项，否则清空整个缓存
+   */
   private void flushCacheIfRequired(MappedStatement ms) {
     Cache cache = ms.getCache();
     if (cache != null && ms.isFlushCacheRequired()) {
-      tcm.clear(cache);
+      if (ms.getTables() != null && ms.getSqlCommandType() != SqlCommandType.SELECT) {
+        tcm.evictTables(cache, ms.getTables());
+      } else {
+        tcm.clear(cache);
+      }
     }
   }
 
@@ -16,12 +16,29 @@
 package org.apache.ibatis.executor;
 
 /**
+ * Describes what the current thread is doing, to add it to the message of an error.
+ * <p>
+ * The context is only bound to the thread while an operation runs, it is removed by {@link #reset()}, so that
+ * short lived (e.g. virtual) threads do not keep one each. It can also be disabled altogether: the calls then
+ * do nothing and an error only reports its message and its cause. This switch is global to the class loader, and
+ * so to every configuration: it is set with the {@value #ENABLED_PROPERTY} system property or {@link #setEnabled}.
+ *
  * @author Clinton Begin
  */
 public class ErrorContext {
 
   private static final String LINE_SEPARATOR = System.getProperty("line.separator","\n");
   private static final ThreadLocal<ErrorContext> LOCAL = new ThreadLocal<>();
+  private static final ErrorContext DISABLED = new DisabledErrorContext();
+
+  /**
+   * The system property that disables the context of every thread when {@code false}.
+   *
+   * @since 3.5.2
+   */
+  public static final String ENABLED_PROPERTY = "org.apache.ibatis.errorContext.enabled";
+
+  private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
 
   private ErrorContext stored;
   private String resource;
@@ -35,6 +52,9 @@ public class ErrorContext {
   }
 
   public static ErrorContext instance() {
+    if (!enabled) {
+      return DISABLED;
+    }
     ErrorContext context = LOCAL.get();
     if (context == null) {
       context = new ErrorContext();
@@ -43,17 +63,39 @@ public class ErrorContext {
     return context;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enables or disables the context of every thread, for every configuration. Overrides the
+   * {@value #ENABLED_PROPERTY} system property and is meant to be called once, before any statement runs.
+   *
+   * @since 3.5.2
+   */
+  public static void setEnabled(boolean enabled) {
+    ErrorContext.enabled = enabled;
+    if (!enabled) {
+      LOCAL.remove();
+    }
+  }
+
   public ErrorContext store() {
     ErrorContext newContext = new ErrorContext();
     newContext.stored = this;
     LOCAL.set(newContext);
-    return LOCAL.get();
+    return newContext;
   }
 
   public ErrorContext recall() {
     if (stored != null) {
-      LOCAL.set(stored);
+      ErrorContext previous = stored;
+      LOCAL.set(previous);
       stored = null;
+      return previous;
     }
     return LOCAL.get();
   }
@@ -148,4 +190,55 @@ public class ErrorContext {
     return description.toString();
   }
 
+  /**
+   * Ignores the context, only the message and the cause of an error are kept, in a context of their own.
+   */
+  private static final class DisabledErrorContext extends ErrorContext {
+
+    @Override
+    public ErrorContext store() {
+      return this;
+    }
+
+    @Override
+    public ErrorContext recall() {
+      return this;
+    }
+
+    @Override
+    public ErrorContext resource(String resource) {
+      return this;
+    }
+
+    @Override
+    public ErrorContext activity(String activity) {
+      return this;
+    }
+
+    @Override
+    public ErrorContext object(String object) {
+      return this;
+    }
+
+    @Override
+    public ErrorContext message(String message) {
+      return new ErrorContext().message(message);
+    }
+
+    @Override
+    public ErrorContext sql(String sql) {
+      return this;
+    }
+
+    @Override
+    public ErrorContext cause(Throwable cause) {
+      return new ErrorContext().cause(cause);
+    }
+
+    @Override
+    public ErrorContext reset() {
+      return this;
+    }
+  }
+
 }
@@ -66,6 +66,15 @@ public interface Executor {
 
   void clearLocalCache();
 
+  /**
+   * Executors without a local cache of their own report {@link LocalCacheStatistics#EMPTY}.
+   *
+   * @since 3.5.2
+   */
+  default LocalCacheStatistics getLocalCacheStatistics() {
+    return LocalCacheStatistics.EMPTY;
+  }
+
   void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType);
 
   Transaction getTransaction();
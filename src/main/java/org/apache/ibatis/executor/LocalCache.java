@@ -0,0 +1,226 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+
+import java.lang.reflect.Array;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The session (first level) cache, optionally bounded by a number of entries and by an estimate of the memory
+ * its results use. The least recently used entries are evicted first, except those of queries still being
+ * executed and those a deferred load still has to read.
+ * <p>
+ * The memory estimate is shallow: it samples the first row of each result and does not follow nested objects.
+ *
+ * @since 3.5.2
+ * @see Configuration#getLocalCacheMaxEntries()
+ * @see Configuration#getLocalCacheMaxBytes()
+ */
+public class LocalCache extends PerpetualCache {
+
+  private static final long ENTRY_OVERHEAD = 64;
+  private static final long REFERENCE_SIZE = 8;
+  private static final long OBJECT_HEADER_SIZE = 16;
+
+  private final Configuration configuration;
+  private final Cache dependentCache;
+  private final int maxEntries;
+  private final long maxBytes;
+  private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<Object> pinnedKeys = new HashSet<>();
+  private long estimatedBytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param maxEntries maximum number of entries, {@code 0} for no limit
+   * @param maxBytes maximum estimated size of the cached results, {@code 0} for no limit
+   * @param dependentCache cache whose entry for an evicted key is evicted as well
+   */
+  LocalCache(String id, Configuration configuration, int maxEntries, long maxBytes, Cache dependentCache) {
+    super(id);
+    this.configuration = configuration;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.dependentCache = dependentCache;
+  }
+
+  @Override
+  public int getSize() {
+    return entries.size();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long bytes = maxBytes > 0 && value != EXECUTION_PLACEHOLDER ? estimateEntry(value) : 0;
+    Entry previous = entries.put(key, new Entry(value, bytes));
+    if (previous != null) {
+      estimatedBytes -= previous.bytes;
+    }
+    estimatedBytes += bytes;
+    evictIfNeeded();
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Entry entry = entries.get(key);
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Same as {@link #getObject(Object)}, counting the lookup as a hit or a miss.
+   */
+  Object lookup(Object key) {
+    Object value = getObject(key);
+    if (value == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Entry entry = entries.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    estimatedBytes -= entry.bytes;
+    return entry.value;
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    pinnedKeys.clear();
+    estimatedBytes = 0;
+  }
+
+  /**
+   * Keeps the entry of the key from being evicted until {@link #unpinAll()}.
+   */
+  void pin(Object key) {
+    pinnedKeys.add(key);
+  }
+
+  void unpinAll() {
+    pinnedKeys.clear();
+    evictIfNeeded();
+  }
+
+  LocalCacheStatistics getStatistics() {
+    return new LocalCacheStatistics(entries.size(), estimatedBytes, hits, misses, evictions);
+  }
+
+  private void evictIfNeeded() {
+    if (!isFull()) {
+      return;
+    }
+    Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+    while (isFull() && iterator.hasNext()) {
+      Map.Entry<Object, Entry> eldest = iterator.next();
+      if (eldest.getValue().value == EXECUTION_PLACEHOLDER || pinnedKeys.contains(eldest.getKey())) {
+        continue;
+      }
+      iterator.remove();
+      estimatedBytes -= eldest.getValue().bytes;
+      evictions++;
+      if (dependentCache != null) {
+        dependentCache.removeObject(eldest.getKey());
+      }
+    }
+  }
+
+  private boolean isFull() {
+    return (maxEntries > 0 && entries.size() > maxEntries) || (maxBytes > 0 && estimatedBytes > maxBytes);
+  }
+
+  private long estimateEntry(Object value) {
+    if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      long rowSize = list.isEmpty() ? 0 : REFERENCE_SIZE + estimateRow(list.get(0));
+      return ENTRY_OVERHEAD + list.size() * rowSize;
+    }
+    return ENTRY_OVERHEAD + estimateRow(value);
+  }
+
+  private long estimateRow(Object row) {
+    long size = estimateValue(row);
+    if (size > 0) {
+      return size;
+    }
+    MetaObject metaRow = configuration.newMetaObject(row);
+    // reading the properties of a lazy loading proxy would trigger the load
+    boolean readValues = !(row instanceof WriteReplaceInterface);
+    size = OBJECT_HEADER_SIZE;
+    for (String name : metaRow.getGetterNames()) {
+      long propertySize = readValues ? estimateValue(metaRow.getValue(name)) : 0;
+      size += REFERENCE_SIZE + (propertySize > 0 ? propertySize : OBJECT_HEADER_SIZE);
+    }
+    return size;
+  }
+
+  /**
+   * @return the size of a leaf value, {@code 0} for objects that have properties of their own
+   */
+  private static long estimateValue(Object value) {
+    if (value == null) {
+      return REFERENCE_SIZE;
+    } else if (value instanceof CharSequence) {
+      return 40 + 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return OBJECT_HEADER_SIZE + ((byte[]) value).length;
+    } else if (value instanceof Number || value instanceof Boolean || value instanceof Character
+        || value instanceof Date || value instanceof Temporal || value instanceof Enum) {
+      return 24;
+    } else if (value instanceof Collection) {
+      return OBJECT_HEADER_SIZE + REFERENCE_SIZE * ((Collection<?>) value).size();
+    } else if (value.getClass().isArray()) {
+      return OBJECT_HEADER_SIZE + REFERENCE_SIZE * Array.getLength(value);
+    }
+    return 0;
+  }
+
+  private static class Entry {
+
+    private final Object value;
+    private final long bytes;
+
+    Entry(Object value, long bytes) {
+      this.value = value;
+      this.bytes = bytes;
+    }
+  }
+
+}
@@ -0,0 +1,80 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+/**
+ * A snapshot of the counters of a session (first level) cache.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.session.SqlSession#getLocalCacheStatistics()
+ */
+public final class LocalCacheStatistics {
+
+  /**
+   * Statistics of a cache that never held anything.
+   */
+  public static final LocalCacheStatistics EMPTY = new LocalCacheStatistics(0, 0, 0, 0, 0);
+
+  private final int size;
+  private final long estimatedBytes;
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+
+  public LocalCacheStatistics(int size, long estimatedBytes, long hitCount, long missCount, long evictionCount) {
+    this.size = size;
+    this.estimatedBytes = estimatedBytes;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+  }
+
+  /**
+   * @return the number of entries currently cached
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the estimated memory used by the cached results, {@code 0} unless a byte limit is configured
+   */
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the number of entries removed to stay within the configured limits
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public String toString() {
+    return "LocalCacheStatistics{size=" + size + ", estimatedBytes=" + estimatedBytes + ", hits=" + hitCount
+        + ", misses=" + missCount + ", evictions=" + evictionCount + "}";
+  }
+
+}
@@ -0,0 +1,147 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.SerializedCache.CustomObjectInputStream;
+
+/**
+ * Lets concurrent executions of the same query share a single database round trip.
+ * <p>
+ * The first thread that runs a query for a {@link CacheKey} becomes the leader and executes it.
+ * Threads that ask for the same key while the leader is running wait for it and receive a deep copy of its result,
+ * serialized like the read-write second level caches do, so no result object is shared between sessions.
+ * If the leader fails, does not finish within the configured timeout, or returns objects that are not
+ * {@link Serializable}, each waiting thread runs the query itself.
+ * An in-flight entry is removed as soon as its leader finishes, so nothing is kept per key afterwards.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.session.Configuration#isQueryCoalescingEnabled()
+ */
+public class QueryCoalescer {
+
+  private final ConcurrentHashMap<CacheKey, InFlightQuery> inFlightQueries = new ConcurrentHashMap<>();
+
+  /**
+   * @param key the cache key of the query
+   * @param timeout milliseconds to wait for an in-flight execution, {@code null} or {@code 0} to wait until it finishes
+   * @param query the database execution
+   */
+  public <E> List<E> query(CacheKey key, Integer timeout, Query<E> query) throws SQLException {
+    InFlightQuery flight = new InFlightQuery();
+    InFlightQuery leader = inFlightQueries.putIfAbsent(key, flight);
+    if (leader == null) {
+      try {
+        List<E> list = query.execute();
+        flight.complete(list);
+        return list;
+      } finally {
+        flight.release();
+        inFlightQueries.remove(key, flight);
+      }
+    }
+    List<E> shared = leader.await(timeout);
+    return shared != null ? shared : query.execute();
+  }
+
+  /**
+   * @return the number of queries currently being executed by a leader
+   */
+  public int getInFlightCount() {
+    return inFlightQueries.size();
+  }
+
+  @FunctionalInterface
+  public interface Query<E> {
+    List<E> execute() throws SQLException;
+  }
+
+  private static class InFlightQuery {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final AtomicInteger followers = new AtomicInteger();
+    private volatile byte[] result;
+
+    void complete(List<?> list) {
+      // the leader hands its own list to its caller, followers read their own copy of this snapshot
+      if (followers.get() > 0) {
+        result = serialize(list);
+      }
+    }
+
+    void release() {
+      latch.countDown();
+    }
+
+    @SuppressWarnings("unchecked")
+    <E> List<E> await(Integer timeout) {
+      followers.incrementAndGet();
+      try {
+        if (timeout == null || timeout <= 0) {
+          latch.await();
+        } else if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+          return null;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      byte[] bytes = result;
+      return bytes == null ? null : (List<E>) deserialize(bytes);
+    }
+
+    private static byte[] serialize(List<?> list) {
+      for (Object object : list) {
+        if (object != null && !(object instanceof Serializable)) {
+          return null;
+        }
+      }
+      try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+           ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+        oos.writeObject(new ArrayList<>(list));
+        oos.flush();
+        return bos.toByteArray();
+      } catch (IOException e) {
+        // e.g. a serializable object holding a value that is not, the followers run the query themselves
+        return null;
+      }
+    }
+
+    private static Object deserialize(byte[] bytes) {
+      try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
+           ObjectInputStream ois = new CustomObjectInputStream(bis)) {
+        return ois.readObject();
+      } catch (IOException | ClassNotFoundException e) {
+        return null;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,231 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.datasource.sharding.ShardedDataSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SeekBounds;
+import org.apache.ibatis.session.SeekKey;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Resolves the shard of a statement from its parameter, and runs and merges the selects given no shard key
+ * on every shard of a {@link ShardedDataSource}.
+ *
+ * @since 3.5.2
+ * @see MappedStatement#getShardKey()
+ */
+final class ShardRouter {
+
+  private ShardRouter() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @return the data source of the environment if the statement is sharded and the data source is, {@code null} otherwise
+   */
+  static ShardedDataSource getShardedDataSource(Configuration configuration, MappedStatement ms) {
+    Environment environment = configuration.getEnvironment();
+    if (ms.getShardKey() == null || environment == null || !(environment.getDataSource() instanceof ShardedDataSource)) {
+      return null;
+    }
+    return (ShardedDataSource) environment.getDataSource();
+  }
+
+  /**
+   * @return the value of the shard key in the parameter, {@code null} if it has none
+   */
+  static Object getShardKey(Configuration configuration, MappedStatement ms, Object parameter) {
+    if (parameter == null) {
+      return null;
+    }
+    // a parameter of a simple type is the key itself
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+      return parameter;
+    }
+    MetaObject metaParameter = configuration.newMetaObject(parameter);
+    String property = ms.getShardKey();
+    return metaParameter.hasGetter(property) ? metaParameter.getValue(property) : null;
+  }
+
+  /**
+   * Each shard has to return the rows up to the end of the requested ones, the offset is applied after the merge.
+   */
+  static RowBounds getShardBounds(RowBounds rowBounds) {
+    if (rowBounds instanceof SeekBounds || rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT) {
+      return rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET ? rowBounds : RowBounds.DEFAULT;
+    }
+    long limit = (long) rowBounds.getOffset() + rowBounds.getLimit();
+    return new RowBounds(RowBounds.NO_ROW_OFFSET, (int) Math.min(limit, RowBounds.NO_ROW_LIMIT));
+  }
+
+  /**
+   * Runs a select on every shard, each on its own connection.
+   */
+  static <E> List<List<E>> queryInParallel(Configuration configuration, ShardedDataSource dataSource, MappedStatement ms,
+      Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    List<Future<List<E>>> futures = new ArrayList<>(dataSource.getShardCount());
+    for (int i = 0; i < dataSource.getShardCount(); i++) {
+      final int shard = i;
+      futures.add(configuration.getParallelQueryExecutor().submit(
+          () -> queryOnNewConnection(configuration, dataSource, shard, ms, parameter, rowBounds, boundSql)));
+    }
+    List<List<E>> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<List<E>> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      cancel(futures);
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for the shards of " + ms.getId() + ".  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      cancel(futures);
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error querying a shard of " + ms.getId() + ".  Cause: " + cause, cause);
+    }
+    return results;
+  }
+
+  private static <E> List<E> queryOnNewConnection(Configuration configuration, ShardedDataSource dataSource, int shard,
+      MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    Environment environment = configuration.getEnvironment();
+    Transaction tx = environment.getTransactionFactory().newTransaction(dataSource, null, false);
+    // the plugins already saw the query being scattered
+    SimpleExecutor executor = new SimpleExecutor(configuration, tx);
+    try {
+      return executor.queryShard(shard, ms, parameter, rowBounds, boundSql);
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  private static void cancel(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * Merges the results of the shards, by the seek keys or the shard order of the statement if any and in shard order
+   * otherwise, and applies the row bounds. The counts of a count statement are added up.
+   */
+  @SuppressWarnings("unchecked")
+  static <E> List<E> merge(Configuration configuration, MappedStatement ms, List<List<E>> results, RowBounds rowBounds) {
+    if (ms.isCount()) {
+      // the total of a count statement is the sum of the counts of the shards
+      long total = 0;
+      for (List<E> result : results) {
+        for (E count : result) {
+          total += count == null ? 0 : ((Number) count).longValue();
+        }
+      }
+      List<E> list = new ArrayList<>(1);
+      list.add((E) Long.valueOf(total));
+      return list;
+    }
+    List<E> list = new ArrayList<>();
+    for (List<E> result : results) {
+      list.addAll(result);
+    }
+    Comparator<Object> comparator = getComparator(configuration, ms, rowBounds);
+    if (comparator != null) {
+      // the results of each shard are already sorted, the merge sort only has to interleave these runs
+      list.sort(comparator);
+    }
+    if (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT) {
+      return list;
+    }
+    int from = Math.min(rowBounds.getOffset(), list.size());
+    int to = (int) Math.min((long) from + rowBounds.getLimit(), list.size());
+    return new ArrayList<>(list.subList(from, to));
+  }
+
+  private static Comparator<Object> getComparator(Configuration configuration, MappedStatement ms, RowBounds rowBounds) {
+    List<String> properties = new ArrayList<>();
+    List<Boolean> descending = new ArrayList<>();
+    if (rowBounds instanceof SeekBounds) {
+      for (SeekKey key : ((SeekBounds) rowBounds).getKeys()) {
+        properties.add(key.getProperty());
+        descending.add(key.isDescending());
+      }
+    } else if (ms.getShardOrderBy() != null) {
+      for (String item : ms.getShardOrderBy().split(",")) {
+        String[] words = item.trim().split("\\s+");
+        if (words[0].isEmpty()) {
+          continue;
+        }
+        properties.add(words[0]);
+        descending.add(words.length > 1 && "desc".equals(words[1].toLowerCase(Locale.ENGLISH)));
+      }
+    }
+    if (properties.isEmpty()) {
+      return null;
+    }
+    return (left, right) -> {
+      for (int i = 0; i < properties.size(); i++) {
+        int result = compare(valueOf(configuration, left, properties.get(i)), valueOf(configuration, right, properties.get(i)), ms);
+        if (result != 0) {
+          return descending.get(i) ? -result : result;
+        }
+      }
+      return 0;
+    };
+  }
+
+  private static Object valueOf(Configuration configuration, Object row, String property) {
+    if (row == null) {
+      return null;
+    }
+    // a row of a simple type is the value itself
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(row.getClass())) {
+      return row;
+    }
+    return configuration.newMetaObject(row).getValue(property);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static int compare(Object left, Object right, MappedStatement ms) {
+    // nulls first in ascending order
+    if (left == null || right == null) {
+      return left == null ? (right == null ? 0 : -1) : 1;
+    }
+    if (!(left instanceof Comparable)) {
+      throw new ExecutorException("Cannot merge the shards of " + ms.getId() + " by values of type "
+          + left.getClass().getName() + ", they are not Comparable.");
+    }
+    return ((Comparable) left).compareTo(right);
+  }
+
+}
@@ -0,0 +1,211 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Splits the parameter of a statement declaring a chunk size into one parameter per chunk of its collection,
+ * so that an oversized <code>IN</code> list is executed as several statements.
+ *
+ * @since 3.5.2
+ * @see MappedStatement#getChunkSize()
+ */
+final class StatementChunker {
+
+  private static final String[] WRAPPED_COLLECTION_NAMES = {"list", "collection", "array"};
+
+  private StatementChunker() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @return the parameter of each chunk, or {@code null} if the statement does not need to be split
+   */
+  static List<Object> split(Configuration configuration, MappedStatement ms, Object parameter) {
+    Integer chunkSize = ms.getChunkSize();
+    if (chunkSize == null || chunkSize <= 0 || parameter == null) {
+      return null;
+    }
+    String property = resolveProperty(ms.getChunkParameter(), parameter);
+    if (property == null) {
+      return null;
+    }
+    MetaObject metaParameter = configuration.newMetaObject(parameter);
+    Object collection = metaParameter.getValue(property);
+    int size = sizeOf(collection);
+    if (size <= chunkSize) {
+      return null;
+    }
+    List<Object> chunks = new ArrayList<>();
+    for (int from = 0; from < size; from += chunkSize) {
+      Object chunk = slice(collection, from, Math.min(from + chunkSize, size));
+      chunks.add(copyWith(configuration, parameter, metaParameter, property, collection, chunk));
+    }
+    return chunks;
+  }
+
+  /**
+   * Runs a select once per chunk, each on its own connection, and concatenates the results in chunk order.
+   */
+  static <E> List<E> queryInParallel(Configuration configuration, MappedStatement ms, List<Object> chunks) throws SQLException {
+    List<Future<List<E>>> futures = new ArrayList<>(chunks.size());
+    for (Object chunk : chunks) {
+      futures.add(configuration.getParallelQueryExecutor().submit(() -> queryOnNewConnection(configuration, ms, chunk)));
+    }
+    List<E> list = new ArrayList<>();
+    try {
+      for (Future<List<E>> future : futures) {
+        list.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      cancel(futures);
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for the chunks of " + ms.getId() + ".  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      cancel(futures);
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error executing a chunk of " + ms.getId() + ".  Cause: " + cause, cause);
+    }
+    return list;
+  }
+
+  private static <E> List<E> queryOnNewConnection(Configuration configuration, MappedStatement ms, Object parameter) throws SQLException {
+    Environment environment = configuration.getEnvironment();
+    Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    Executor executor = configuration.newExecutor(tx, ExecutorType.SIMPLE);
+    try {
+      return executor.query(ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  private static void cancel(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  private static String resolveProperty(String chunkParameter, Object parameter) {
+    if (chunkParameter != null) {
+      return chunkParameter;
+    }
+    // a collection passed as the only parameter is wrapped by the session
+    if (parameter instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) parameter;
+      for (String name : WRAPPED_COLLECTION_NAMES) {
+        if (map.containsKey(name)) {
+          return name;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static int sizeOf(Object collection) {
+    if (collection instanceof Collection) {
+      return ((Collection<?>) collection).size();
+    } else if (collection != null && collection.getClass().isArray()) {
+      return Array.getLength(collection);
+    }
+    return 0;
+  }
+
+  private static Object slice(Object collection, int from, int to) {
+    if (collection.getClass().isArray()) {
+      Object array = Array.newInstance(collection.getClass().getComponentType(), to - from);
+      System.arraycopy(collection, from, array, 0, to - from);
+      return array;
+    }
+    if (collection instanceof List) {
+      return new ArrayList<>(((List<?>) collection).subList(from, to));
+    }
+    Collection<Object> slice = collection instanceof Set ? new LinkedHashSet<>() : new ArrayList<>();
+    Iterator<?> iterator = ((Collection<?>) collection).iterator();
+    for (int i = 0; i < to && iterator.hasNext(); i++) {
+      Object element = iterator.next();
+      if (i >= from) {
+        slice.add(element);
+      }
+    }
+    return slice;
+  }
+
+  /**
+   * Copies the parameter with the chunk in place of the collection, under every name the collection is known by
+   * (e.g. both "collection" and "list", or a {@code @Param} name and its "paramN" alias).
+   */
+  @SuppressWarnings("unchecked")
+  private static Object copyWith(Configuration configuration, Object parameter, MetaObject metaParameter, String property,
+      Object collection, Object chunk) {
+    if (parameter instanceof Map) {
+      Map<Object, Object> copy;
+      try {
+        copy = (Map<Object, Object>) configuration.getObjectFactory().create(parameter.getClass());
+      } catch (ReflectionException e) {
+        copy = new HashMap<>();
+      }
+      for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) parameter).entrySet()) {
+        copy.put(entry.getKey(), entry.getValue() == collection ? chunk : entry.getValue());
+      }
+      copy.put(property, chunk);
+      return copy;
+    }
+    Object copy;
+    try {
+      copy = configuration.getObjectFactory().create(parameter.getClass());
+    } catch (ReflectionException e) {
+      throw new ExecutorException("Cannot split the parameter of type " + parameter.getClass().getName()
+          + " into chunks, it must have a default constructor.  Cause: " + e, e);
+    }
+    MetaObject metaCopy = configuration.newMetaObject(copy);
+    for (String name : metaParameter.getGetterNames()) {
+      if (metaCopy.hasSetter(name)) {
+        Object value = metaParameter.getValue(name);
+        metaCopy.setValue(name, value == collection ? chunk : value);
+      }
+    }
+    metaCopy.setValue(property, chunk);
+    return copy;
+  }
+
+}
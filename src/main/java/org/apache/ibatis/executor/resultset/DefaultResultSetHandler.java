@@ -20,13 +20,21 @@ import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.annotations.AutomapConstructor;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
@@ -58,6 +66,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.UnorderedResultHandler;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
@@ -98,6 +107,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
+  /**
+   * 并行映射时读取列值的地方：映射第一行时记录读了哪些列，映射块时取读线程预先读好的值；null 时直接读 ResultSet
+   */
+  private RowBlockReader rowBlockReader;
+
   private static class PendingRelation {
     public MetaObject metaObject;
     public ResultMapping propertyMapping;
@@ -349,6 +363,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
+    if (isRowMappingInParallel(rsw, resultMap, parentMapping)) {
+      handleRowValuesInParallel(rsw, resultMap, resultHandler, rowBounds, resultContext);
+      return;
+    }
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
@@ -388,6 +406,126 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  //
+  // HANDLE ROWS FOR SIMPLE RESULTMAP IN PARALLEL
+  //
+
+  private boolean isRowMappingInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultMapping parentMapping) {
+    return configuration.getRowMappingParallelism() > 0 && parentMapping == null
+        && !resultMap.hasNestedQueries() && resultMap.getDiscriminator() == null;
+  }
+
+  private void handleRowValuesInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds,
+      DefaultResultContext<Object> resultContext) throws SQLException {
+    final int blockSize = Math.max(1, configuration.getRowMappingBlockSize());
+    final int parallelism = configuration.getRowMappingParallelism();
+    final ResultSet resultSet = rsw.getResultSet();
+    if (!shouldProcessMoreRows(resultContext, rowBounds) || resultSet.isClosed() || !resultSet.next()) {
+      return;
+    }
+    final RowBlockReader reader = new RowBlockReader(rsw);
+    // the first row is mapped here, recording the columns its mapping reads, which are read ahead for the next rows
+    final Object firstRowValue;
+    rowBlockReader = reader;
+    try {
+      firstRowValue = getRowValue(rsw, resultMap, null);
+    } finally {
+      rowBlockReader = null;
+      reader.endRecording();
+    }
+    callResultHandler(resultHandler, resultContext, firstRowValue);
+    int remaining = rowBounds.getLimit() - 1;
+    if (resultContext.isStopped() || remaining == 0) {
+      return;
+    }
+    List<Object[]> rows = reader.read(Math.min(blockSize, remaining));
+    remaining -= rows.size();
+    if (reader.isExhausted() || remaining == 0) {
+      // a single block is not worth handing off
+      deliverBlock(resultHandler, resultContext, mapBlock(reader, rows, resultMap));
+      return;
+    }
+    ExecutorService executorService = configuration.getRowMappingExecutor();
+    CompletionService<List<Object>> completionService = resultHandler instanceof UnorderedResultHandler
+        ? new ExecutorCompletionService<>(executorService) : null;
+    Deque<Future<List<Object>>> inFlight = new ArrayDeque<>(parallelism);
+    try {
+      while (!rows.isEmpty()) {
+        final List<Object[]> block = rows;
+        Callable<List<Object>> task = () -> newBlockHandler().mapBlock(reader, block, resultMap);
+        inFlight.add(completionService == null ? executorService.submit(task) : completionService.submit(task));
+        if (inFlight.size() >= parallelism) {
+          deliverBlock(resultHandler, resultContext, takeBlock(inFlight, completionService));
+          if (resultContext.isStopped()) {
+            return;
+          }
+        }
+        rows = reader.read(Math.min(blockSize, remaining));
+        remaining -= rows.size();
+      }
+      while (!inFlight.isEmpty() && !resultContext.isStopped()) {
+        deliverBlock(resultHandler, resultContext, takeBlock(inFlight, completionService));
+      }
+    } finally {
+      for (Future<?> future : inFlight) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private DefaultResultSetHandler newBlockHandler() {
+    // the mapping state of a handler is not thread safe, so each block gets its own
+    return new DefaultResultSetHandler(executor, mappedStatement, parameterHandler, null, boundSql, rowBounds);
+  }
+
+  private List<Object> mapBlock(RowBlockReader reader, List<Object[]> rows, ResultMap resultMap) throws SQLException {
+    ResultSetWrapper blockRsw = reader.wrap(rows);
+    ResultSet resultSet = blockRsw.getResultSet();
+    List<Object> rowValues = new ArrayList<>(rows.size());
+    rowBlockReader = reader;
+    try {
+      while (resultSet.next()) {
+        rowValues.add(getRowValue(blockRsw, resultMap, null));
+      }
+    } finally {
+      rowBlockReader = null;
+    }
+    return rowValues;
+  }
+
+  private List<Object> takeBlock(Deque<Future<List<Object>>> inFlight, CompletionService<List<Object>> completionService) throws SQLException {
+    try {
+      Future<List<Object>> future;
+      if (completionService == null) {
+        future = inFlight.poll();
+      } else {
+        future = completionService.take();
+        inFlight.remove(future);
+      }
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while mapping the rows of " + mappedStatement.getId() + ".  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error mapping a block of rows of " + mappedStatement.getId() + ".  Cause: " + cause, cause);
+    }
+  }
+
+  private void deliverBlock(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, List<Object> rowValues) {
+    for (Object rowValue : rowValues) {
+      if (resultContext.isStopped()) {
+        break;
+      }
+      callResultHandler(resultHandler, resultContext, rowValue);
+    }
+  }
+
   //
   // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
   //
@@ -469,7 +607,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      return typeHandler.getResult(rs, column);
+      return getColumnValue(rs, typeHandler, column);
     }
   }
 
@@ -518,7 +656,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     boolean foundValues = false;
     if (!autoMapping.isEmpty()) {
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = getColumnValue(rsw.getResultSet(), mapping.typeHandler, mapping.column);
         if (value != null) {
           foundValues = true;
         }
@@ -635,7 +773,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getColumnValue(rsw.getResultSet(), typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -668,7 +806,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       Class<?> parameterType = constructor.getParameterTypes()[i];
       String columnName = rsw.getColumnNames().get(i);
       TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+      Object value = getColumnValue(rsw.getResultSet(), typeHandler, columnName);
       constructorArgTypes.add(parameterType);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
@@ -713,7 +851,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getColumnValue(rsw.getResultSet(), typeHandler, columnName);
+  }
+
+  private Object getColumnValue(ResultSet rs, TypeHandler<?> typeHandler, String column) throws SQLException {
+    return rowBlockReader == null ? typeHandler.getResult(rs, column) : rowBlockReader.getResult(rs, typeHandler, column);
   }
 
   //
@@ -62,6 +62,17 @@ public class ResultSetWrapper {
     }
   }
 
+  /**
+   * A wrapper of another result set with the same columns, sharing the column metadata of the given wrapper.
+   */
+  ResultSetWrapper(ResultSetWrapper wrapper, ResultSet rs) {
+    this.typeHandlerRegistry = wrapper.typeHandlerRegistry;
+    this.resultSet = rs;
+    this.columnNames.addAll(wrapper.columnNames);
+    this.classNames.addAll(wrapper.classNames);
+    this.jdbcTypes.addAll(wrapper.jdbcTypes);
+  }
+
   public ResultSet getResultSet() {
     return resultSet;
   }
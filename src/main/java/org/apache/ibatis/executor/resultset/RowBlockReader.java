@@ -0,0 +1,247 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Reads the column values of a result set in blocks of rows, so that the result objects of each block can be built
+ * by another thread.
+ * <p>
+ * The columns are read on the thread reading the result set, through the type handlers the mapping uses, so the
+ * values are the ones the rows mapped one by one get. The reads the mapping of the first row makes are recorded, in
+ * order, and made again for each of the next rows. The mapping of a block gets these values back through
+ * {@link #getResult(ResultSet, TypeHandler, String)}, in the same order, from a read only {@link ResultSet} view of the
+ * block that has no getters of its own.
+ *
+ * @since 3.5.2
+ */
+final class RowBlockReader {
+
+  private final ResultSetWrapper rsw;
+  private final ResultSetMetaData metaData;
+  /** 映射第一行时依次读取的列及其 TypeHandler，之后每一行都按这个顺序预先读取 */
+  private final List<TypeHandler<?>> typeHandlers = new ArrayList<>();
+  private final List<String> columns = new ArrayList<>();
+  private boolean recorded;
+  private boolean exhausted;
+
+  RowBlockReader(ResultSetWrapper rsw) throws SQLException {
+    this.rsw = rsw;
+    ResultSetMetaData source = rsw.getResultSet().getMetaData();
+    int columnCount = source.getColumnCount();
+    String[][] columns = new String[columnCount][];
+    int[] columnTypes = new int[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      columns[i] = new String[] { source.getColumnLabel(i + 1), source.getColumnName(i + 1),
+          source.getColumnClassName(i + 1), source.getColumnTypeName(i + 1), source.getTableName(i + 1) };
+      columnTypes[i] = source.getColumnType(i + 1);
+    }
+    // the blocks are mapped by other threads, possibly after the result set is closed
+    this.metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+        new Class<?>[] { ResultSetMetaData.class }, new BlockMetaData(columns, columnTypes));
+  }
+
+  /**
+   * Reads a column for the mapping of a row. Until {@link #endRecording()} the column is read from the given result
+   * set, which is the one being read, and the read is recorded. Afterwards the given result set is a block and the value
+   * read ahead for its current row is returned.
+   */
+  Object getResult(ResultSet rs, TypeHandler<?> typeHandler, String column) throws SQLException {
+    if (!recorded) {
+      typeHandlers.add(typeHandler);
+      columns.add(column);
+      return typeHandler.getResult(rs, column);
+    }
+    return ((BlockResultSet) Proxy.getInvocationHandler(rs)).nextValue(typeHandler, column);
+  }
+
+  /**
+   * Ends the recording of the reads made by the mapping of the first row.
+   */
+  void endRecording() {
+    recorded = true;
+  }
+
+  /**
+   * Reads the next rows of the result set, at most <code>maxRows</code>, making the recorded reads for each of them.
+   *
+   * @return the rows read, empty once the result set is exhausted
+   */
+  List<Object[]> read(int maxRows) throws SQLException {
+    if (exhausted || maxRows <= 0) {
+      return Collections.emptyList();
+    }
+    ResultSet rs = rsw.getResultSet();
+    List<Object[]> rows = new ArrayList<>(maxRows);
+    while (rows.size() < maxRows) {
+      if (rs.isClosed() || !rs.next()) {
+        exhausted = true;
+        break;
+      }
+      Object[] row = new Object[typeHandlers.size()];
+      for (int i = 0; i < row.length; i++) {
+        row[i] = typeHandlers.get(i).getResult(rs, columns.get(i));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  boolean isExhausted() {
+    return exhausted;
+  }
+
+  /**
+   * @return a wrapper of a read only result set over the given rows, with the columns of the read result set
+   */
+  ResultSetWrapper wrap(List<Object[]> rows) {
+    ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+        new Class<?>[] { ResultSet.class }, new BlockResultSet(rows));
+    return new ResultSetWrapper(rsw, rs);
+  }
+
+  private static final class BlockMetaData implements InvocationHandler {
+
+    private final String[][] columns;
+    private final int[] columnTypes;
+
+    private BlockMetaData(String[][] columns, int[] columnTypes) {
+      this.columns = columns;
+      this.columnTypes = columnTypes;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      switch (name) {
+        case "getColumnCount":
+          return columns.length;
+        case "getColumnLabel":
+          return column(args)[0];
+        case "getColumnName":
+          return column(args)[1];
+        case "getColumnClassName":
+          return column(args)[2];
+        case "getColumnTypeName":
+          return column(args)[3];
+        case "getTableName":
+          return column(args)[4];
+        case "getColumnType":
+          column(args);
+          return columnTypes[(Integer) args[0] - 1];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "RowBlockMetaData[" + columns.length + " columns]";
+        default:
+          throw new SQLFeatureNotSupportedException("ResultSetMetaData." + name
+              + " is not supported on a block of rows mapped in parallel. Disable rowMappingParallelism for this result set.");
+      }
+    }
+
+    private String[] column(Object[] args) throws SQLException {
+      int index = (Integer) args[0];
+      if (index < 1 || index > columns.length) {
+        throw new SQLException("Invalid column index " + index + ".");
+      }
+      return columns[index - 1];
+    }
+  }
+
+  private final class BlockResultSet implements InvocationHandler {
+
+    private final List<Object[]> rows;
+    private int current = -1;
+    /** 当前行已经取过的预读值个数 */
+    private int read;
+
+    private BlockResultSet(List<Object[]> rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      switch (name) {
+        case "next":
+          read = 0;
+          return ++current < rows.size();
+        case "getMetaData":
+          return metaData;
+        case "getRow":
+          return current >= 0 && current < rows.size() ? current + 1 : 0;
+        case "isClosed":
+          return false;
+        case "close":
+          return null;
+        case "getType":
+          return ResultSet.TYPE_FORWARD_ONLY;
+        case "getConcurrency":
+          return ResultSet.CONCUR_READ_ONLY;
+        case "getWarnings":
+          return null;
+        case "clearWarnings":
+          return null;
+        case "isWrapperFor":
+          return ((Class<?>) args[0]).isInstance(proxy);
+        case "unwrap":
+          if (((Class<?>) args[0]).isInstance(proxy)) {
+            return proxy;
+          }
+          throw new SQLException("The rows of a block do not wrap a " + args[0]);
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "RowBlock[" + rows.size() + " rows]";
+        default:
+          throw new SQLFeatureNotSupportedException("ResultSet." + name
+              + " is not supported on a block of rows mapped in parallel, the columns are read through the type handlers"
+              + " of the result map. Disable rowMappingParallelism for this result set.");
+      }
+    }
+
+    private Object nextValue(TypeHandler<?> typeHandler, String column) throws SQLException {
+      if (current < 0 || current >= rows.size()) {
+        throw new SQLException("The result set has no current row.");
+      }
+      Object[] row = rows.get(current);
+      // the mapping of a row reads the same columns in the same order as the one of the first row
+      if (read >= row.length || !Objects.equals(column, columns.get(read)) || typeHandler.getClass() != typeHandlers.get(read).getClass()) {
+        throw new SQLException("Column '" + column + "' was not read ahead for a block of rows mapped in parallel,"
+            + " the mapping of the first row read the columns in another order. Disable rowMappingParallelism for this result set.");
+      }
+      return row[read++];
+    }
+  }
+
+}
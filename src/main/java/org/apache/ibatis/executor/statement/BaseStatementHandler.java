@@ -18,19 +18,29 @@ package org.apache.ibatis.executor.statement;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.ibatis.dialect.Dialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.jfr.JfrEvents;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.metrics.MetricsRegistry;
+import org.apache.ibatis.metrics.SlowQueryLog;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SeekBounds;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
@@ -38,6 +48,9 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public abstract class BaseStatementHandler implements StatementHandler {
 
+  private static final String SEEK_PARAMETER_PREFIX = "__seek_";
+  private static final String LIMIT_PARAMETER_PREFIX = "__limit_";
+
   protected final Configuration configuration;
   protected final ObjectFactory objectFactory;
   protected final TypeHandlerRegistry typeHandlerRegistry;
@@ -59,13 +72,31 @@ public abstract class BaseStatementHandler implements StatementHandler {
   protected final MappedStatement mappedStatement;
   protected final RowBounds rowBounds;
 
+  /**
+   * 记录执行耗时的 MetricsRegistry，为空表示不记录
+   */
+  protected final MetricsRegistry metricsRegistry;
+
+  /**
+   * 记录慢查询的 SlowQueryLog，为空表示不记录
+   */
+  protected final SlowQueryLog slowQueryLog;
+
   protected BoundSql boundSql;
 
+  /**
+   * 开启 JFR 事件时记录的预编译耗时和当前执行的事件
+   */
+  private long prepareTime;
+  private Object queryEvent;
+
   protected BaseStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
     this.configuration = mappedStatement.getConfiguration();
     this.executor = executor;
     this.mappedStatement = mappedStatement;
     this.rowBounds = rowBounds;
+    this.metricsRegistry = configuration.getMetricsRegistry();
+    this.slowQueryLog = configuration.getSlowQueryLog();
 
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.objectFactory = configuration.getObjectFactory();
@@ -74,11 +105,119 @@ public abstract class BaseStatementHandler implements StatementHandler {
       generateKeys(parameterObject);
       boundSql = mappedStatement.getBoundSql(parameterObject);
     }
+    RowBounds resultRowBounds = rowBounds;
+    if (rowBounds instanceof SeekBounds) {
+      boundSql = applySeekBounds(boundSql, (SeekBounds) rowBounds);
+    } else if (isRowBoundsPushedDown(rowBounds)) {
+      Dialect dialect = configuration.getDialect();
+      List<Object> parameters = new ArrayList<>();
+      if (dialect.supportsOffset()) {
+        String sql = dialect.getLimitSql(boundSql.getSql(), rowBounds.getOffset(), rowBounds.getLimit(), parameters);
+        if (sql != null) {
+          // the database skips and limits the rows, the result set must be read entirely
+          boundSql = bindAdditionalParameters(boundSql, sql, LIMIT_PARAMETER_PREFIX, parameters);
+          resultRowBounds = RowBounds.DEFAULT;
+        }
+      } else {
+        // the database only limits the rows, the rows before the offset are still skipped while reading them
+        String sql = dialect.getLimitSql(boundSql.getSql(), 0, (int) Math.min(Integer.MAX_VALUE,
+            (long) rowBounds.getOffset() + rowBounds.getLimit()), parameters);
+        if (sql != null) {
+          boundSql = bindAdditionalParameters(boundSql, sql, LIMIT_PARAMETER_PREFIX, parameters);
+        }
+      }
+    }
 
     this.boundSql = boundSql;
 
     this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
-    this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, rowBounds, parameterHandler, resultHandler, boundSql);
+    this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, resultRowBounds, parameterHandler, resultHandler, boundSql);
+  }
+
+  /**
+   * Starts timing an execution, for the metrics registry, the slow query log and the flight recorder.
+   *
+   * @return the time to measure the execution from, 0 if it is not measured
+   */
+  protected long startTimer() {
+    queryEvent = JfrEvents.beginQuery();
+    return readTimer();
+  }
+
+  /**
+   * @return the current time, 0 if the execution is not measured
+   */
+  protected long readTimer() {
+    return metricsRegistry == null && slowQueryLog == null && queryEvent == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records an execution timed with {@link #startTimer()}: executed on the database from start to executed,
+   * then fetching its results until now. Called whether the execution succeeded or not, a failed one is captured by
+   * the slow query log and the flight recorder as failed but is left out of the metrics.
+   *
+   * @param executed the time the statement was executed, 0 if it failed before
+   * @param rows the rows returned or updated, negative if unknown
+   * @param failed whether the statement or the fetching of its results threw an exception
+   */
+  protected void recordExecution(long start, long executed, long rows, boolean failed) {
+    if (metricsRegistry == null && slowQueryLog == null && queryEvent == null) {
+      return;
+    }
+    long end = System.nanoTime();
+    long executionEnd = executed == 0 ? end : executed;
+    if (metricsRegistry != null && !failed) {
+      metricsRegistry.recordExecution(mappedStatement, executionEnd - start, end - executionEnd, rows);
+    }
+    if (slowQueryLog != null && slowQueryLog.isSlow(end - start)) {
+      slowQueryLog.capture(mappedStatement, boundSql, end - start, rows, failed);
+    }
+    JfrEvents.commitQuery(queryEvent, mappedStatement.getId(), boundSql.getSql(), prepareTime, executionEnd - start,
+        end - executionEnd, rows, failed);
+    queryEvent = null;
+  }
+
+  /**
+   * Rows can only be limited by the database when each row maps to one result object. The offset and the limit are
+   * bound as parameters, so that every page has the same SQL, which only a prepared statement binds.
+   */
+  private boolean isRowBoundsPushedDown(RowBounds rowBounds) {
+    return configuration.isRowBoundsPushdownEnabled()
+        && rowBounds != null
+        && (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT)
+        && mappedStatement.getSqlCommandType() == SqlCommandType.SELECT
+        && mappedStatement.getStatementType() == StatementType.PREPARED
+        && !mappedStatement.hasNestedResultMaps()
+        && mappedStatement.getResultSets() == null;
+  }
+
+  private BoundSql applySeekBounds(BoundSql boundSql, SeekBounds seekBounds) {
+    if (mappedStatement.getStatementType() != StatementType.PREPARED) {
+      // the seek values are bound as parameters, which only a prepared statement binds
+      throw new ExecutorException("Seek bounds can only be applied to a prepared statement, "
+          + mappedStatement.getId() + " is " + mappedStatement.getStatementType() + ".");
+    }
+    List<Object> parameters = new ArrayList<>();
+    String sql = configuration.getDialect().getSeekSql(boundSql.getSql(), seekBounds.getKeys(), seekBounds.getAfter(),
+        seekBounds.getLimit(), parameters);
+    if (sql == null) {
+      throw new ExecutorException("The dialect cannot limit the rows of " + mappedStatement.getId() + " paged with seek bounds.");
+    }
+    return bindAdditionalParameters(boundSql, sql, SEEK_PARAMETER_PREFIX, parameters);
+  }
+
+  /**
+   * Returns a copy of the bound SQL with the given SQL, whose last placeholders are bound to the given values.
+   */
+  private BoundSql bindAdditionalParameters(BoundSql boundSql, String sql, String prefix, List<Object> values) {
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    BoundSql boundSqlWithValues = boundSql.withSql(sql, parameterMappings);
+    for (int i = 0; i < values.size(); i++) {
+      String property = prefix + i;
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, Object.class).build());
+      boundSqlWithValues.setAdditionalParameter(property, values.get(i));
+    }
+    return boundSqlWithValues;
   }
 
   @Override
@@ -95,10 +234,12 @@ public abstract class BaseStatementHandler implements StatementHandler {
   public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
     ErrorContext.instance().sql(boundSql.getSql());
     Statement statement = null;
+    long start = JfrEvents.isQueryEnabled() ? System.nanoTime() : 0;
     try {
       statement = instantiateStatement(connection);
       setStatementTimeout(statement, transactionTimeout);
       setFetchSize(statement);
+      prepareTime = start == 0 ? 0 : System.nanoTime() - start;
       return statement;
     } catch (SQLException e) {
       closeStatement(statement);
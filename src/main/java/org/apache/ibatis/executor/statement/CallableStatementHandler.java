@@ -47,13 +47,23 @@ public class CallableStatementHandler extends BaseStatementHandler {
   @Override
   public int update(Statement statement) throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
-    cs.execute();
-    int rows = cs.getUpdateCount();
-    Object parameterObject = boundSql.getParameterObject();
-    KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
-    keyGenerator.processAfter(executor, mappedStatement, cs, parameterObject);
-    resultSetHandler.handleOutputParameters(cs);
-    return rows;
+    long start = startTimer();
+    long executed = 0;
+    int rows = -1;
+    boolean failed = true;
+    try {
+      cs.execute();
+      executed = readTimer();
+      rows = cs.getUpdateCount();
+      Object parameterObject = boundSql.getParameterObject();
+      KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
+      keyGenerator.processAfter(executor, mappedStatement, cs, parameterObject);
+      resultSetHandler.handleOutputParameters(cs);
+      failed = false;
+      return rows;
+    } finally {
+      recordExecution(start, executed, rows, failed);
+    }
   }
 
   @Override
@@ -65,19 +75,38 @@ public class CallableStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
-    cs.execute();
-    List<E> resultList = resultSetHandler.handleResultSets(cs);
-    resultSetHandler.handleOutputParameters(cs);
-    return resultList;
+    long start = startTimer();
+    long executed = 0;
+    List<E> resultList = null;
+    boolean failed = true;
+    try {
+      cs.execute();
+      executed = readTimer();
+      resultList = resultSetHandler.handleResultSets(cs);
+      resultSetHandler.handleOutputParameters(cs);
+      failed = false;
+      return resultList;
+    } finally {
+      recordExecution(start, executed, resultList == null || resultHandler != null ? -1 : resultList.size(), failed);
+    }
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
-    cs.execute();
-    Cursor<E> resultList = resultSetHandler.handleCursorResultSets(cs);
-    resultSetHandler.handleOutputParameters(cs);
-    return resultList;
+    long start = startTimer();
+    long executed = 0;
+    boolean failed = true;
+    try {
+      cs.execute();
+      executed = readTimer();
+      Cursor<E> resultList = resultSetHandler.handleCursorResultSets(cs);
+      resultSetHandler.handleOutputParameters(cs);
+      failed = false;
+      return resultList;
+    } finally {
+      recordExecution(start, executed, -1, failed);
+    }
   }
 
   @Override
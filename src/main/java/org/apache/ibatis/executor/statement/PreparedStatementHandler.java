@@ -45,12 +45,22 @@ public class PreparedStatementHandler extends BaseStatementHandler {
   @Override
   public int update(Statement statement) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
-    ps.execute();
-    int rows = ps.getUpdateCount();
-    Object parameterObject = boundSql.getParameterObject();
-    KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
-    keyGenerator.processAfter(executor, mappedStatement, ps, parameterObject);
-    return rows;
+    long start = startTimer();
+    long executed = 0;
+    int rows = -1;
+    boolean failed = true;
+    try {
+      ps.execute();
+      executed = readTimer();
+      rows = ps.getUpdateCount();
+      Object parameterObject = boundSql.getParameterObject();
+      KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
+      keyGenerator.processAfter(executor, mappedStatement, ps, parameterObject);
+      failed = false;
+      return rows;
+    } finally {
+      recordExecution(start, executed, rows, failed);
+    }
   }
 
   @Override
@@ -62,16 +72,34 @@ public class PreparedStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
-    ps.execute();
-    /* 处理结果集 */
-    return resultSetHandler.handleResultSets(ps);
+    long start = startTimer();
+    long executed = 0;
+    List<E> list = null;
+    try {
+      ps.execute();
+      executed = readTimer();
+      /* 处理结果集 */
+      list = resultSetHandler.handleResultSets(ps);
+      return list;
+    } finally {
+      recordExecution(start, executed, list == null || resultHandler != null ? -1 : list.size(), list == null);
+    }
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
-    ps.execute();
-    return resultSetHandler.handleCursorResultSets(ps);
+    long start = startTimer();
+    long executed = 0;
+    Cursor<E> cursor = null;
+    try {
+      ps.execute();
+      executed = readTimer();
+      cursor = resultSetHandler.handleCursorResultSets(ps);
+      return cursor;
+    } finally {
+      recordExecution(start, executed, -1, cursor == null);
+    }
   }
 
   @Override
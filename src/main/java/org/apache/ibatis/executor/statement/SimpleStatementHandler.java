@@ -46,20 +46,28 @@ public class SimpleStatementHandler extends BaseStatementHandler {
     String sql = boundSql.getSql();
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
-    int rows;
-    if (keyGenerator instanceof Jdbc3KeyGenerator) {
-      statement.execute(sql, Statement.RETURN_GENERATED_KEYS);
-      rows = statement.getUpdateCount();
-      keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
-    } else if (keyGenerator instanceof SelectKeyGenerator) {
-      statement.execute(sql);
-      rows = statement.getUpdateCount();
-      keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
-    } else {
-      statement.execute(sql);
-      rows = statement.getUpdateCount();
+    long start = startTimer();
+    int rows = -1;
+    boolean failed = true;
+    try {
+      if (keyGenerator instanceof Jdbc3KeyGenerator) {
+        statement.execute(sql, Statement.RETURN_GENERATED_KEYS);
+        rows = statement.getUpdateCount();
+        keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
+      } else if (keyGenerator instanceof SelectKeyGenerator) {
+        statement.execute(sql);
+        rows = statement.getUpdateCount();
+        keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
+      } else {
+        statement.execute(sql);
+        rows = statement.getUpdateCount();
+      }
+      failed = false;
+      return rows;
+    } finally {
+      // the generated keys are read with the execution
+      recordExecution(start, 0, rows, failed);
     }
-    return rows;
   }
 
   @Override
@@ -71,15 +79,33 @@ public class SimpleStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     String sql = boundSql.getSql();
-    statement.execute(sql);
-    return resultSetHandler.handleResultSets(statement);
+    long start = startTimer();
+    long executed = 0;
+    List<E> list = null;
+    try {
+      statement.execute(sql);
+      executed = readTimer();
+      list = resultSetHandler.handleResultSets(statement);
+      return list;
+    } finally {
+      recordExecution(start, executed, list == null || resultHandler != null ? -1 : list.size(), list == null);
+    }
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
     String sql = boundSql.getSql();
-    statement.execute(sql);
-    return resultSetHandler.handleCursorResultSets(statement);
+    long start = startTimer();
+    long executed = 0;
+    Cursor<E> cursor = null;
+    try {
+      statement.execute(sql);
+      executed = readTimer();
+      cursor = resultSetHandler.handleCursorResultSets(statement);
+      return cursor;
+    } finally {
+      recordExecution(start, executed, -1, cursor == null);
+    }
   }
 
   @Override
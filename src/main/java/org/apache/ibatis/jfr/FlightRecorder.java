@@ -0,0 +1,169 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.apache.ibatis.lang.UsesJava11;
+
+/**
+ * Emits the events through {@code jdk.jfr}. Only loaded by {@link JfrEvents} once the flight recorder is known to
+ * be available.
+ */
+@UsesJava11
+class FlightRecorder extends JfrEvents.Recorder {
+
+  private static final EventType QUERY = EventType.getEventType(QueryEvent.class);
+  private static final EventType CHECKOUT = EventType.getEventType(CheckoutEvent.class);
+  private static final EventType CACHE_ACCESS = EventType.getEventType(CacheAccessEvent.class);
+
+  @Override
+  boolean isQueryEnabled() {
+    return QUERY.isEnabled();
+  }
+
+  @Override
+  Object beginQuery() {
+    if (!QUERY.isEnabled()) {
+      return null;
+    }
+    QueryEvent event = new QueryEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  void commitQuery(Object event, String statementId, String sql, long prepareTime, long executeTime, long mapTime,
+      long rows, boolean failed) {
+    QueryEvent query = (QueryEvent) event;
+    query.end();
+    if (query.shouldCommit()) {
+      query.statementId = statementId;
+      query.sqlHash = sql == null ? 0 : sql.hashCode();
+      query.prepareTime = prepareTime;
+      query.executeTime = executeTime;
+      query.mapTime = mapTime;
+      query.rows = rows;
+      query.failed = failed;
+      query.commit();
+    }
+  }
+
+  @Override
+  Object beginCheckout() {
+    if (!CHECKOUT.isEnabled()) {
+      return null;
+    }
+    CheckoutEvent event = new CheckoutEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  void commitCheckout(Object event, String url, boolean hadToWait, int badConnections) {
+    CheckoutEvent checkout = (CheckoutEvent) event;
+    checkout.end();
+    if (checkout.shouldCommit()) {
+      checkout.url = url;
+      checkout.hadToWait = hadToWait;
+      checkout.badConnections = badConnections;
+      checkout.commit();
+    }
+  }
+
+  @Override
+  boolean isCacheAccessEnabled() {
+    return CACHE_ACCESS.isEnabled();
+  }
+
+  @Override
+  void cacheAccess(String cacheId, String statementId, boolean hit) {
+    CacheAccessEvent event = new CacheAccessEvent();
+    if (event.shouldCommit()) {
+      event.cacheId = cacheId;
+      event.statementId = statementId;
+      event.hit = hit;
+      event.commit();
+    }
+  }
+
+  @Name("org.apache.ibatis.Query")
+  @Label("MyBatis Statement")
+  @Description("Execution of a mapped statement and mapping of its results")
+  @Category("MyBatis")
+  @StackTrace(false)
+  @UsesJava11
+  static class QueryEvent extends Event {
+    @Label("Statement Id")
+    String statementId;
+    @Label("SQL Hash")
+    int sqlHash;
+    @Label("Prepare Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long prepareTime;
+    @Label("Execute Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long executeTime;
+    @Label("Map Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long mapTime;
+    @Label("Rows")
+    @Description("Rows returned or updated, -1 if unknown")
+    long rows;
+    @Label("Failed")
+    @Description("Whether the statement or the mapping of its results threw an exception")
+    boolean failed;
+  }
+
+  @Name("org.apache.ibatis.ConnectionCheckout")
+  @Label("MyBatis Connection Checkout")
+  @Description("Wait for a connection of a PooledDataSource")
+  @Category("MyBatis")
+  @UsesJava11
+  static class CheckoutEvent extends Event {
+    @Label("URL")
+    String url;
+    @Label("Had To Wait")
+    @Description("Whether every connection was in use")
+    boolean hadToWait;
+    @Label("Bad Connections")
+    @Description("Invalid connections discarded during the checkout")
+    int badConnections;
+  }
+
+  @Name("org.apache.ibatis.CacheAccess")
+  @Label("MyBatis Cache Access")
+  @Description("Lookup of the results of a statement in the second level cache")
+  @Category("MyBatis")
+  @StackTrace(false)
+  @UsesJava11
+  static class CacheAccessEvent extends Event {
+    @Label("Cache Id")
+    String cacheId;
+    @Label("Statement Id")
+    String statementId;
+    @Label("Hit")
+    boolean hit;
+  }
+
+}
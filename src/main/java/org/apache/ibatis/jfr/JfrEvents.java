@@ -0,0 +1,140 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jfr;
+
+/**
+ * Emits the Java Flight Recorder events of MyBatis, so that statements, pool checkouts and cache accesses show up
+ * next to the GC and lock events of the same recording:
+ * <ul>
+ *   <li>{@code org.apache.ibatis.Query}: statement id, SQL hash, prepare, execute and map times, rows and whether it
+ *   failed</li>
+ *   <li>{@code org.apache.ibatis.ConnectionCheckout}: the wait for a connection of a {@code PooledDataSource}</li>
+ *   <li>{@code org.apache.ibatis.CacheAccess}: hit or miss of a statement in the second level cache</li>
+ * </ul>
+ * <p>
+ * On a JVM without {@code jdk.jfr} nothing is emitted and the {@code jdk.jfr} classes are never loaded. Otherwise an
+ * event is only built when a recording enables it, so the cost of a disabled event is a check of a flag.
+ * Events that span a time are returned by a {@code begin} method and must be passed back to the matching
+ * {@code commit} method, which ignores {@code null}.
+ *
+ * @since 3.5.2
+ */
+public final class JfrEvents {
+
+  private static final Recorder RECORDER = newRecorder();
+
+  private JfrEvents() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @return whether statement events are recorded
+   */
+  public static boolean isQueryEnabled() {
+    return RECORDER.isQueryEnabled();
+  }
+
+  /**
+   * Starts the event of a statement execution, which then spans its execution and the mapping of its results.
+   *
+   * @return the event, {@code null} if statement events are not recorded
+   */
+  public static Object beginQuery() {
+    return RECORDER.beginQuery();
+  }
+
+  /**
+   * @param prepareTime nanoseconds spent preparing the statement
+   * @param executeTime nanoseconds spent executing it on the database
+   * @param mapTime nanoseconds spent fetching and mapping its results
+   * @param rows rows returned or updated, negative if unknown
+   * @param failed whether the statement or the mapping of its results threw an exception
+   */
+  public static void commitQuery(Object event, String statementId, String sql, long prepareTime, long executeTime,
+      long mapTime, long rows, boolean failed) {
+    if (event != null) {
+      RECORDER.commitQuery(event, statementId, sql, prepareTime, executeTime, mapTime, rows, failed);
+    }
+  }
+
+  /**
+   * Starts the event of a connection checkout, which spans the time the caller waits for the connection.
+   *
+   * @return the event, {@code null} if checkout events are not recorded
+   */
+  public static Object beginCheckout() {
+    return RECORDER.beginCheckout();
+  }
+
+  public static void commitCheckout(Object event, String url, boolean hadToWait, int badConnections) {
+    if (event != null) {
+      RECORDER.commitCheckout(event, url, hadToWait, badConnections);
+    }
+  }
+
+  /**
+   * @return whether cache access events are recorded
+   */
+  public static boolean isCacheAccessEnabled() {
+    return RECORDER.isCacheAccessEnabled();
+  }
+
+  public static void cacheAccess(String cacheId, String statementId, boolean hit) {
+    RECORDER.cacheAccess(cacheId, statementId, hit);
+  }
+
+  private static Recorder newRecorder() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (Recorder) Class.forName("org.apache.ibatis.jfr.FlightRecorder").getDeclaredConstructor().newInstance();
+    } catch (Exception | LinkageError e) {
+      return new Recorder();
+    }
+  }
+
+  /**
+   * Records nothing, used when the JVM has no flight recorder.
+   */
+  static class Recorder {
+
+    boolean isQueryEnabled() {
+      return false;
+    }
+
+    Object beginQuery() {
+      return null;
+    }
+
+    void commitQuery(Object event, String statementId, String sql, long prepareTime, long executeTime, long mapTime,
+        long rows, boolean failed) {
+    }
+
+    Object beginCheckout() {
+      return null;
+    }
+
+    void commitCheckout(Object event, String url, boolean hadToWait, int badConnections) {
+    }
+
+    boolean isCacheAccessEnabled() {
+      return false;
+    }
+
+    void cacheAccess(String cacheId, String statementId, boolean hit) {
+    }
+  }
+
+}
@@ -60,6 +60,27 @@ public class BoundSql {
     this.metaParameters = configuration.newMetaObject(additionalParameters);
   }
 
+  private BoundSql(BoundSql boundSql, String sql, List<ParameterMapping> parameterMappings) {
+    this.sql = sql;
+    this.parameterMappings = parameterMappings;
+    this.parameterObject = boundSql.parameterObject;
+    this.additionalParameters = new HashMap<>(boundSql.additionalParameters);
+    this.metaParameters = MetaObject.forObject(additionalParameters, boundSql.metaParameters.getObjectFactory(),
+        boundSql.metaParameters.getObjectWrapperFactory(), boundSql.metaParameters.getReflectorFactory());
+  }
+
+  /**
+   * Returns a bound SQL running another SQL with the same parameter object and additional parameters,
+   * e.g. the SQL rewritten by a {@link org.apache.ibatis.dialect.Dialect}.
+   * The returned bound SQL starts with a copy of the additional parameters: a parameter set on it afterwards
+   * is not visible to this one, and the other way round.
+   *
+   * @since 3.5.2
+   */
+  public BoundSql withSql(String sql, List<ParameterMapping> parameterMappings) {
+    return new BoundSql(this, sql, parameterMappings);
+  }
+
   public String getSql() {
     return sql;
   }
@@ -72,6 +93,13 @@ public class BoundSql {
     return parameterObject;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public boolean hasAdditionalParameters() {
+    return !additionalParameters.isEmpty();
+  }
+
   public boolean hasAdditionalParameter(String name) {
     String paramName = new PropertyTokenizer(name).getName();
     return additionalParameters.containsKey(paramName);
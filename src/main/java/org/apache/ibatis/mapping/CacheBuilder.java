@@ -25,11 +25,14 @@ import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.EvictionNotifyingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.RefreshingCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TableIndexedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -46,6 +49,10 @@ public class CacheBuilder {
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private boolean tableIndexed;
+  private Long timeToLive;
+  private Long staleGracePeriod;
+  private Long refreshAhead;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -84,6 +91,38 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public CacheBuilder tableIndexed(boolean tableIndexed) {
+    this.tableIndexed = tableIndexed;
+    return this;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public CacheBuilder staleGracePeriod(Long staleGracePeriod) {
+    this.staleGracePeriod = staleGracePeriod;
+    return this;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public CacheBuilder refreshAhead(Long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -95,17 +134,34 @@ public class CacheBuilder {
     setCacheProperties(cache);
     // issue #352, do not apply decorators to custom caches
     if (PerpetualCache.class.equals(cache.getClass())) {
+      EvictionNotifyingCache evictions = null;
+      if (tableIndexed || timeToLive != null) {
+        evictions = new EvictionNotifyingCache(cache);
+        cache = evictions;
+      }
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
       }
-      cache = setStandardDecorators(cache);
+      cache = setStandardDecorators(cache, evictions);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
     return cache;
   }
 
+  private RefreshingCache newRefreshingCache(Cache cache) {
+    RefreshingCache refreshingCache = new RefreshingCache(cache);
+    refreshingCache.setTimeToLive(timeToLive);
+    if (staleGracePeriod != null) {
+      refreshingCache.setStaleGracePeriod(staleGracePeriod);
+    }
+    if (refreshAhead != null) {
+      refreshingCache.setRefreshAhead(refreshAhead);
+    }
+    return refreshingCache;
+  }
+
   private void setDefaultImplementations() {
     if (implementation == null) {
       implementation = PerpetualCache.class;
@@ -115,7 +171,7 @@ public class CacheBuilder {
     }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, EvictionNotifyingCache evictions) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
@@ -130,6 +186,16 @@ public class CacheBuilder {
       }
       cache = new LoggingCache(cache);
       cache = new SynchronizedCache(cache);
+      if (timeToLive != null) {
+        RefreshingCache refreshingCache = newRefreshingCache(cache);
+        evictions.addTracker(refreshingCache);
+        cache = refreshingCache;
+      }
+      if (tableIndexed) {
+        TableIndexedCache tableIndex = new TableIndexedCache(cache);
+        evictions.addTracker(tableIndex);
+        cache = tableIndex;
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
       }
@@ -18,14 +18,18 @@ package org.apache.ibatis.mapping;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.dialect.CountSqlSource;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.defaults.ParameterBinder;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -42,6 +46,13 @@ import org.apache.ibatis.session.Configuration;
  */
 public final class MappedStatement {
 
+  /**
+   * @since 3.5.2
+   */
+  public static final String COUNT_SUFFIX = "!count";
+
+  private static final int MAX_BINDER_SHAPES = 16;
+
   /** demo/demo1/UserMapper.xml */
   private String resource;
   private Configuration configuration;
@@ -72,6 +83,38 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  /**
+   * select 语句读取的表，insert|update|delete 语句写入的表，null 表示未知
+   */
+  private String[] tables;
+  private Integer chunkSize;
+  private String chunkParameter;
+  private boolean chunkParallel;
+  /**
+   * 有只读副本时 select 在哪里执行，null 表示按默认规则：会话写过之后在主库，否则在副本
+   */
+  private ReadSource readFrom;
+  /**
+   * 分库时参数对象中决定分片的属性，null 表示不分片；参数中没有这个值时 select 在所有分片上执行再合并
+   */
+  private String shardKey;
+  /**
+   * 合并各分片结果时的排序，例如 "createdAt desc, id"，写的是结果对象的属性
+   */
+  private String shardOrderBy;
+  /**
+   * 按参数类型缓存已编译的参数绑定器，每个类型最多 {@link #MAX_BINDER_SHAPES} 种 ParameterMapping 形状（属性、模式、TypeHandler），
+   * 动态 sql 每次生成新的 List，但通常只有少数几种形状，超出时淘汰最早的
+   */
+  private final Map<Class<?>, ParameterBinder[]> parameterBinders = new ConcurrentHashMap<>();
+  /**
+   * 统计这个查询结果行数的语句，第一次使用时创建
+   */
+  private volatile MappedStatement countStatement;
+  /**
+   * 是否是 {@link #getCountStatement()} 生成的统计行数的语句，读所有分片时各分片的结果相加
+   */
+  private boolean count;
 
   MappedStatement() {
     // constructor disabled
@@ -190,6 +233,62 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * @since 3.5.2
+     */
+    public Builder tables(String[] tables) {
+      mappedStatement.tables = tables;
+      return this;
+    }
+
+    /**
+     * @since 3.5.2
+     */
+    public Builder chunkSize(Integer chunkSize) {
+      mappedStatement.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * @since 3.5.2
+     */
+    public Builder chunkParameter(String chunkParameter) {
+      mappedStatement.chunkParameter = chunkParameter;
+      return this;
+    }
+
+    /**
+     * @since 3.5.2
+     */
+    public Builder chunkParallel(boolean chunkParallel) {
+      mappedStatement.chunkParallel = chunkParallel;
+      return this;
+    }
+
+    /**
+     * @since 3.5.2
+     */
+    public Builder readFrom(ReadSource readFrom) {
+      mappedStatement.readFrom = readFrom;
+      return this;
+    }
+
+    /**
+     * @since 3.5.2
+     */
+    public Builder shardKey(String shardKey) {
+      mappedStatement.shardKey = shardKey;
+      return this;
+    }
+
+    /**
+     * @since 3.5.2
+     */
+    public Builder shardOrderBy(String shardOrderBy) {
+      mappedStatement.shardOrderBy = shardOrderBy;
+      return this;
+    }
+
     /**
      * @deprecated Use {@link #resultSets}
      */
@@ -301,6 +400,76 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Returns the tables read by a select or written by an insert, update or delete statement,
+   * or {@code null} if they are unknown.
+   *
+   * @since 3.5.2
+   */
+  public String[] getTables() {
+    return tables;
+  }
+
+  /**
+   * Returns the maximum number of elements of the chunked collection per execution,
+   * or {@code null} if the statement is always executed once.
+   *
+   * @since 3.5.2
+   */
+  public Integer getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Returns the parameter property holding the collection to split, or {@code null} for a collection
+   * passed as the only parameter.
+   *
+   * @since 3.5.2
+   */
+  public String getChunkParameter() {
+    return chunkParameter;
+  }
+
+  /**
+   * Returns whether the chunks of a select may be executed concurrently on separate connections.
+   *
+   * @since 3.5.2
+   */
+  public boolean isChunkParallel() {
+    return chunkParallel;
+  }
+
+  /**
+   * Returns where this select is executed when the data source has read replicas, or {@code null} to read from a
+   * replica only in autocommit sessions that have not written since they last committed or rolled back.
+   *
+   * @since 3.5.2
+   */
+  public ReadSource getReadFrom() {
+    return readFrom;
+  }
+
+  /**
+   * Returns the property of the parameter object whose value chooses the shard the statement runs on
+   * when the data source is sharded, or {@code null} if the statement is not sharded.
+   *
+   * @since 3.5.2
+   */
+  public String getShardKey() {
+    return shardKey;
+  }
+
+  /**
+   * Returns the comma separated properties, each optionally followed by {@code asc} or {@code desc},
+   * the results of all the shards are merged by when the parameter has no shard key, or {@code null}
+   * to concatenate them in shard order.
+   *
+   * @since 3.5.2
+   */
+  public String getShardOrderBy() {
+    return shardOrderBy;
+  }
+
   /**
    * @deprecated Use {@link #getResultSets()}
    */
@@ -333,6 +502,81 @@ public final class MappedStatement {
     return boundSql;
   }
 
+  /**
+   * Returns a {@link ParameterBinder} for the parameter type and mappings.
+   * Binders are compiled once per parameter type and shape of the mappings, see
+   * {@link ParameterBinder#isCompiledFor(Class, List)}, and the last {@value #MAX_BINDER_SHAPES} shapes of each
+   * parameter type are reused.
+   *
+   * @since 3.5.2
+   */
+  public ParameterBinder getParameterBinder(Class<?> parameterType, List<ParameterMapping> parameterMappings) {
+    Class<?> key = parameterType == null ? void.class : parameterType;
+    ParameterBinder[] binders = parameterBinders.get(key);
+    if (binders != null) {
+      for (ParameterBinder binder : binders) {
+        if (binder.isCompiledFor(parameterType, parameterMappings)) {
+          return binder;
+        }
+      }
+    }
+    ParameterBinder binder = ParameterBinder.compile(configuration, parameterType, parameterMappings);
+    parameterBinders.compute(key, (k, current) -> {
+      if (current == null) {
+        return new ParameterBinder[] { binder };
+      }
+      int kept = Math.min(current.length, MAX_BINDER_SHAPES - 1);
+      ParameterBinder[] updated = new ParameterBinder[kept + 1];
+      // the newest shape first, the oldest one falls off the end
+      updated[0] = binder;
+      System.arraycopy(current, 0, updated, 1, kept);
+      return updated;
+    });
+    return binder;
+  }
+
+  /**
+   * Returns whether this statement was created by {@link #getCountStatement()} to count the rows of another one.
+   *
+   * @since 3.5.2
+   */
+  public boolean isCount() {
+    return count;
+  }
+
+  /**
+   * Returns a statement counting the rows this select returns, with the same parameters.
+   * It shares the cache of this statement, its id ends with {@link #COUNT_SUFFIX} and it is {@link #isCount() marked}
+   * as a count.
+   *
+   * @since 3.5.2
+   */
+  public MappedStatement getCountStatement() {
+    MappedStatement current = countStatement;
+    if (current == null) {
+      String countId = id + COUNT_SUFFIX;
+      List<ResultMap> countResultMaps = new ArrayList<>();
+      countResultMaps.add(new ResultMap.Builder(configuration, countId + "-Inline", Long.class, new ArrayList<>()).build());
+      current = new Builder(configuration, countId, new CountSqlSource(configuration, sqlSource), SqlCommandType.SELECT)
+          .resource(resource)
+          .statementType(statementType)
+          .timeout(timeout)
+          .parameterMap(parameterMap)
+          .resultMaps(countResultMaps)
+          .cache(cache)
+          .useCache(useCache)
+          .tables(tables)
+          .readFrom(readFrom)
+          .shardKey(shardKey)
+          .databaseId(databaseId)
+          .lang(lang)
+          .build();
+      current.count = true;
+      countStatement = current;
+    }
+    return current;
+  }
+
   private static String[] delimitedStringToArray(String in) {
     if (in == null || in.trim().length() == 0) {
       return null;
@@ -0,0 +1,33 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+/**
+ * Where a select is executed when the data source has read replicas.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.datasource.routing.ReadWriteDataSource
+ */
+public enum ReadSource {
+  /**
+   * Always on the primary, e.g. for reads that must see the latest writes of other sessions.
+   */
+  PRIMARY,
+  /**
+   * On a replica even inside a transaction or after the session has written, for reads that tolerate replication lag.
+   */
+  REPLICA
+}
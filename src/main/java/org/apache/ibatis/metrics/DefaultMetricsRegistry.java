@@ -0,0 +1,69 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Keeps the {@link StatementMetrics} of every statement in memory.
+ *
+ * @since 3.5.2
+ * @see JmxMetricsExporter
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+
+  private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+
+  @Override
+  public void recordExecution(MappedStatement ms, long executionTime, long fetchTime, long rows) {
+    metricsOf(ms).recordExecution(executionTime, fetchTime, rows);
+  }
+
+  @Override
+  public void recordCacheAccess(MappedStatement ms, CacheTier tier, boolean hit) {
+    metricsOf(ms).recordCacheAccess(tier, hit);
+  }
+
+  /**
+   * @return the metrics of the statement, {@code null} if it has not been executed yet
+   */
+  public StatementMetrics getStatementMetrics(String statementId) {
+    return statements.get(statementId);
+  }
+
+  public Collection<StatementMetrics> getStatementMetrics() {
+    return Collections.unmodifiableCollection(statements.values());
+  }
+
+  public void reset() {
+    statements.clear();
+  }
+
+  private StatementMetrics metricsOf(MappedStatement ms) {
+    // get first, computeIfAbsent locks the bin even when the key is present
+    StatementMetrics metrics = statements.get(ms.getId());
+    if (metrics == null) {
+      metrics = statements.computeIfAbsent(ms.getId(), StatementMetrics::new);
+    }
+    return metrics;
+  }
+
+}
@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram with power of two buckets: bucket {@code i} counts the values between {@code 2^(i-1)} and
+ * {@code 2^i - 1}, bucket 0 the zeros. Percentiles are approximated by the upper bound of their bucket.
+ * <p>
+ * Every bucket is a striped {@link LongAdder}, so that threads recording the same statement do not contend, and is
+ * only allocated once a value falls into it.
+ *
+ * @since 3.5.2
+ */
+public class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long value) {
+    long positive = Math.max(0, value);
+    int index = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(positive));
+    LongAdder bucket = buckets.get(index);
+    if (bucket == null) {
+      buckets.compareAndSet(index, null, new LongAdder());
+      bucket = buckets.get(index);
+    }
+    bucket.increment();
+    count.increment();
+    total.add(positive);
+    long current = max.get();
+    while (positive > current && !max.compareAndSet(current, positive)) {
+      current = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotal() {
+    return total.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public long getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : total.sum() / n;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the upper bound of the bucket holding the percentile, at most the maximum recorded value
+   */
+  public long getPercentile(double percentile) {
+    long[] counts = getBucketCounts();
+    long n = 0;
+    for (long bucketCount : counts) {
+      n += bucketCount;
+    }
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return i == BUCKETS - 1 ? getMax() : Math.min((1L << i) - 1, getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * @return a copy of the count of each bucket
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      LongAdder bucket = buckets.get(i);
+      counts[i] = bucket == null ? 0 : bucket.sum();
+    }
+    return counts;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50) + ", p99=" + getPercentile(99)
+        + ", max=" + getMax();
+  }
+
+}
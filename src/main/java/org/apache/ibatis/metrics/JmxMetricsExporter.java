@@ -0,0 +1,118 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Exposes the {@link DefaultMetricsRegistry} of a configuration as a platform MBean named
+ * {@code org.apache.ibatis:type=Metrics,name=<name>}. The registry is looked up on every call, so the exporter
+ * reports nothing while another kind of registry is configured.
+ *
+ * @since 3.5.2
+ * @see Configuration#setMetricsMBeanName(String)
+ */
+public class JmxMetricsExporter implements MetricsRegistryMXBean {
+
+  private final Configuration configuration;
+  private ObjectName objectName;
+
+  public JmxMetricsExporter(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  public synchronized void register(String name) throws JMException {
+    unregister();
+    ObjectName newName = new ObjectName("org.apache.ibatis:type=Metrics,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+    objectName = newName;
+  }
+
+  public synchronized void unregister() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    if (objectName != null && server.isRegistered(objectName)) {
+      server.unregisterMBean(objectName);
+    }
+    objectName = null;
+  }
+
+  @Override
+  public List<String> getStatementIds() {
+    List<String> ids = new ArrayList<>();
+    DefaultMetricsRegistry registry = getRegistry();
+    if (registry != null) {
+      for (StatementMetrics metrics : registry.getStatementMetrics()) {
+        ids.add(metrics.getId());
+      }
+      Collections.sort(ids);
+    }
+    return ids;
+  }
+
+  @Override
+  public StatementMetricsSnapshot getStatementMetrics(String statementId) {
+    DefaultMetricsRegistry registry = getRegistry();
+    StatementMetrics metrics = registry == null ? null : registry.getStatementMetrics(statementId);
+    return metrics == null ? null : metrics.snapshot();
+  }
+
+  @Override
+  public List<StatementMetricsSnapshot> getSlowestStatements(int limit) {
+    List<StatementMetricsSnapshot> snapshots = new ArrayList<>();
+    DefaultMetricsRegistry registry = getRegistry();
+    if (registry != null) {
+      for (StatementMetrics metrics : registry.getStatementMetrics()) {
+        snapshots.add(metrics.snapshot());
+      }
+    }
+    snapshots.sort(Comparator.comparingLong(StatementMetricsSnapshot::getTotalTime).reversed());
+    return snapshots.size() > limit ? new ArrayList<>(snapshots.subList(0, Math.max(0, limit))) : snapshots;
+  }
+
+  @Override
+  public List<SlowQuery> getSlowQueries() {
+    SlowQueryLog slowQueryLog = configuration.getSlowQueryLog();
+    return slowQueryLog == null ? Collections.emptyList() : slowQueryLog.getSlowQueries();
+  }
+
+  @Override
+  public void reset() {
+    DefaultMetricsRegistry registry = getRegistry();
+    if (registry != null) {
+      registry.reset();
+    }
+    SlowQueryLog slowQueryLog = configuration.getSlowQueryLog();
+    if (slowQueryLog != null) {
+      slowQueryLog.clear();
+    }
+  }
+
+  private DefaultMetricsRegistry getRegistry() {
+    MetricsRegistry registry = configuration.getMetricsRegistry();
+    return registry instanceof DefaultMetricsRegistry ? (DefaultMetricsRegistry) registry : null;
+  }
+
+}
@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Receives the execution times, row counts and cache accesses of every statement, directly from the executors and
+ * statement handlers, without the cost of an {@link org.apache.ibatis.plugin.Interceptor}.
+ * <p>
+ * Implementations are called by every thread executing statements and must be thread safe and fast.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.session.Configuration#setMetricsRegistry(MetricsRegistry)
+ * @see DefaultMetricsRegistry
+ */
+public interface MetricsRegistry {
+
+  /**
+   * A statement was executed.
+   *
+   * @param ms the statement
+   * @param executionTime nanoseconds spent executing the statement on the database
+   * @param fetchTime nanoseconds spent fetching and mapping its results, or its generated keys
+   * @param rows number of rows returned or updated, negative if unknown (e.g. for cursors)
+   */
+  void recordExecution(MappedStatement ms, long executionTime, long fetchTime, long rows);
+
+  /**
+   * A statement looked up its results in a cache.
+   *
+   * @param ms the statement
+   * @param tier the cache looked up
+   * @param hit whether the results were found
+   */
+  void recordCacheAccess(MappedStatement ms, CacheTier tier, boolean hit);
+
+  enum CacheTier {
+    /**
+     * The session (first level) cache.
+     */
+    LOCAL,
+    /**
+     * The cache of the mapper namespace.
+     */
+    SECOND_LEVEL
+  }
+
+}
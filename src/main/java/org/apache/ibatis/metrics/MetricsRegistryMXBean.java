@@ -0,0 +1,50 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.List;
+
+/**
+ * The statement metrics of a {@link DefaultMetricsRegistry} and the {@link SlowQueryLog} as exposed through JMX.
+ *
+ * @since 3.5.2
+ * @see JmxMetricsExporter
+ */
+public interface MetricsRegistryMXBean {
+
+  List<String> getStatementIds();
+
+  /**
+   * @return the metrics of the statement, {@code null} if it has not been executed yet
+   */
+  StatementMetricsSnapshot getStatementMetrics(String statementId);
+
+  /**
+   * @return the statements that spent the most time executing and fetching results, slowest first
+   */
+  List<StatementMetricsSnapshot> getSlowestStatements(int limit);
+
+  /**
+   * @return the executions captured by the slow query log, most recent first
+   */
+  List<SlowQuery> getSlowQueries();
+
+  /**
+   * Clears the statement metrics and the slow query log.
+   */
+  void reset();
+
+}
@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.List;
+
+/**
+ * An execution captured by the {@link SlowQueryLog}.
+ *
+ * @since 3.5.2
+ */
+public class SlowQuery {
+
+  private final long timestamp;
+  private final String statementId;
+  private final String sql;
+  private final List<String> parameters;
+  private final long elapsedTime;
+  private final long rows;
+  private final String thread;
+  private final boolean failed;
+
+  public SlowQuery(long timestamp, String statementId, String sql, List<String> parameters, long elapsedTime, long rows,
+      String thread, boolean failed) {
+    this.timestamp = timestamp;
+    this.statementId = statementId;
+    this.sql = sql;
+    this.parameters = parameters;
+    this.elapsedTime = elapsedTime;
+    this.rows = rows;
+    this.thread = thread;
+    this.failed = failed;
+  }
+
+  /**
+   * @return when the execution ended, in milliseconds since the epoch
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getStatementId() {
+    return statementId;
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * @return the bound parameter values in their order, as strings
+   */
+  public List<String> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * @return the microseconds spent executing the statement and fetching its results
+   */
+  public long getElapsedTime() {
+    return elapsedTime;
+  }
+
+  /**
+   * @return the rows returned or updated, negative if unknown
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  public String getThread() {
+    return thread;
+  }
+
+  /**
+   * @return whether the statement or the fetching of its results threw an exception, e.g. because it timed out
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+
+  @Override
+  public String toString() {
+    return statementId + (failed ? " failed after " : " took ") + elapsedTime + " us, rows: " + rows + ", thread: " + thread
+        + "\n  SQL: " + sql
+        + "\n  Parameters: " + parameters;
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Keeps the last executions that took longer than a threshold, with their SQL and bound parameters, in a fixed size
+ * ring buffer. Unlike the JDBC logging proxies nothing is formatted for the executions under the threshold.
+ * When many executions are slow, only a sample of them can be captured.
+ *
+ * @since 3.5.2
+ * @see Configuration#getSlowQueryLog()
+ */
+public class SlowQueryLog {
+
+  private static final int MAX_PARAMETER_LENGTH = 200;
+
+  private final long thresholdNanos;
+  private final double samplingRate;
+  private final AtomicReferenceArray<SlowQuery> entries;
+  private final AtomicLong next = new AtomicLong();
+
+  /**
+   * @param threshold milliseconds from which an execution is slow
+   * @param samplingRate fraction of the slow executions that are captured, between 0 and 1
+   * @param size number of executions kept
+   */
+  public SlowQueryLog(long threshold, double samplingRate, int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("The size of the slow query log must be positive, was " + size);
+    }
+    this.thresholdNanos = threshold * 1000000;
+    this.samplingRate = samplingRate;
+    this.entries = new AtomicReferenceArray<>(size);
+  }
+
+  /**
+   * @return whether an execution that took this many nanoseconds is captured
+   */
+  public boolean isSlow(long elapsedNanos) {
+    return elapsedNanos >= thresholdNanos
+        && (samplingRate >= 1 || ThreadLocalRandom.current().nextDouble() < samplingRate);
+  }
+
+  /**
+   * Captures an execution, reading its parameter values from the bound SQL.
+   *
+   * @param failed whether the execution threw an exception
+   */
+  public void capture(MappedStatement ms, BoundSql boundSql, long elapsedNanos, long rows, boolean failed) {
+    Object parameterObject = boundSql.getParameterObject();
+    List<String> parameters = new ArrayList<>();
+    if (boundSql.getParameterMappings() != null) {
+      Class<?> parameterType = parameterObject == null ? null : parameterObject.getClass();
+      for (Object value : ms.getParameterBinder(parameterType, boundSql.getParameterMappings()).getValues(boundSql, parameterObject)) {
+        parameters.add(format(value));
+      }
+    }
+    add(new SlowQuery(System.currentTimeMillis(), ms.getId(), boundSql.getSql(), Collections.unmodifiableList(parameters),
+        elapsedNanos / 1000, rows, Thread.currentThread().getName(), failed));
+  }
+
+  public void add(SlowQuery query) {
+    entries.set((int) (next.getAndIncrement() % entries.length()), query);
+  }
+
+  /**
+   * @return the captured executions, most recent first
+   */
+  public List<SlowQuery> getSlowQueries() {
+    List<SlowQuery> queries = new ArrayList<>(entries.length());
+    long last = next.get();
+    for (long i = last - 1; i >= 0 && i >= last - entries.length(); i--) {
+      SlowQuery query = entries.get((int) (i % entries.length()));
+      if (query != null) {
+        queries.add(query);
+      }
+    }
+    return queries;
+  }
+
+  public void clear() {
+    for (int i = 0; i < entries.length(); i++) {
+      entries.set(i, null);
+    }
+  }
+
+  private static String format(Object value) {
+    if (value instanceof byte[]) {
+      return "<" + ((byte[]) value).length + " bytes>";
+    }
+    String string = String.valueOf(value);
+    return string.length() > MAX_PARAMETER_LENGTH ? string.substring(0, MAX_PARAMETER_LENGTH) + "..." : string;
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one statement. Times are in nanoseconds.
+ *
+ * @since 3.5.2
+ */
+public class StatementMetrics {
+
+  private final String id;
+  private final Histogram executionTime = new Histogram();
+  private final Histogram fetchTime = new Histogram();
+  private final Histogram rows = new Histogram();
+  private final LongAdder localCacheHits = new LongAdder();
+  private final LongAdder localCacheMisses = new LongAdder();
+  private final LongAdder secondLevelCacheHits = new LongAdder();
+  private final LongAdder secondLevelCacheMisses = new LongAdder();
+
+  public StatementMetrics(String id) {
+    this.id = id;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Time spent executing the statement on the database.
+   */
+  public Histogram getExecutionTime() {
+    return executionTime;
+  }
+
+  /**
+   * Time spent fetching and mapping the results.
+   */
+  public Histogram getFetchTime() {
+    return fetchTime;
+  }
+
+  /**
+   * Rows returned or updated by each execution.
+   */
+  public Histogram getRows() {
+    return rows;
+  }
+
+  public long getLocalCacheHits() {
+    return localCacheHits.sum();
+  }
+
+  public long getLocalCacheMisses() {
+    return localCacheMisses.sum();
+  }
+
+  public long getSecondLevelCacheHits() {
+    return secondLevelCacheHits.sum();
+  }
+
+  public long getSecondLevelCacheMisses() {
+    return secondLevelCacheMisses.sum();
+  }
+
+  void recordExecution(long executionTime, long fetchTime, long rows) {
+    this.executionTime.record(executionTime);
+    this.fetchTime.record(fetchTime);
+    if (rows >= 0) {
+      this.rows.record(rows);
+    }
+  }
+
+  void recordCacheAccess(MetricsRegistry.CacheTier tier, boolean hit) {
+    if (tier == MetricsRegistry.CacheTier.LOCAL) {
+      (hit ? localCacheHits : localCacheMisses).increment();
+    } else {
+      (hit ? secondLevelCacheHits : secondLevelCacheMisses).increment();
+    }
+  }
+
+  public StatementMetricsSnapshot snapshot() {
+    return new StatementMetricsSnapshot(this);
+  }
+
+  @Override
+  public String toString() {
+    return id + ": executionTime[" + executionTime + "], fetchTime[" + fetchTime + "], rows[" + rows
+        + "], localCache[hits=" + getLocalCacheHits() + ", misses=" + getLocalCacheMisses()
+        + "], secondLevelCache[hits=" + getSecondLevelCacheHits() + ", misses=" + getSecondLevelCacheMisses() + "]";
+  }
+
+}
@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+/**
+ * A point in time copy of the {@link StatementMetrics} of one statement, as exposed through JMX.
+ * Times are in microseconds.
+ *
+ * @since 3.5.2
+ */
+public class StatementMetricsSnapshot {
+
+  private final String id;
+  private final long executionCount;
+  private final long totalTime;
+  private final long executionTimeMean;
+  private final long executionTime99thPercentile;
+  private final long executionTimeMax;
+  private final long fetchTimeMean;
+  private final long fetchTime99thPercentile;
+  private final long rowsMean;
+  private final long rowsMax;
+  private final long localCacheHits;
+  private final long localCacheMisses;
+  private final long secondLevelCacheHits;
+  private final long secondLevelCacheMisses;
+
+  StatementMetricsSnapshot(StatementMetrics metrics) {
+    Histogram executionTime = metrics.getExecutionTime();
+    Histogram fetchTime = metrics.getFetchTime();
+    this.id = metrics.getId();
+    this.executionCount = executionTime.getCount();
+    this.totalTime = micros(executionTime.getTotal() + fetchTime.getTotal());
+    this.executionTimeMean = micros(executionTime.getMean());
+    this.executionTime99thPercentile = micros(executionTime.getPercentile(99));
+    this.executionTimeMax = micros(executionTime.getMax());
+    this.fetchTimeMean = micros(fetchTime.getMean());
+    this.fetchTime99thPercentile = micros(fetchTime.getPercentile(99));
+    this.rowsMean = metrics.getRows().getMean();
+    this.rowsMax = metrics.getRows().getMax();
+    this.localCacheHits = metrics.getLocalCacheHits();
+    this.localCacheMisses = metrics.getLocalCacheMisses();
+    this.secondLevelCacheHits = metrics.getSecondLevelCacheHits();
+    this.secondLevelCacheMisses = metrics.getSecondLevelCacheMisses();
+  }
+
+  private static long micros(long nanos) {
+    return nanos / 1000;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public long getExecutionCount() {
+    return executionCount;
+  }
+
+  /**
+   * @return the time spent executing the statement and fetching its results, over all executions
+   */
+  public long getTotalTime() {
+    return totalTime;
+  }
+
+  public long getExecutionTimeMean() {
+    return executionTimeMean;
+  }
+
+  public long getExecutionTime99thPercentile() {
+    return executionTime99thPercentile;
+  }
+
+  public long getExecutionTimeMax() {
+    return executionTimeMax;
+  }
+
+  public long getFetchTimeMean() {
+    return fetchTimeMean;
+  }
+
+  public long getFetchTime99thPercentile() {
+    return fetchTime99thPercentile;
+  }
+
+  public long getRowsMean() {
+    return rowsMean;
+  }
+
+  public long getRowsMax() {
+    return rowsMax;
+  }
+
+  public long getLocalCacheHits() {
+    return localCacheHits;
+  }
+
+  public long getLocalCacheMisses() {
+    return localCacheMisses;
+  }
+
+  public long getSecondLevelCacheHits() {
+    return secondLevelCacheHits;
+  }
+
+  public long getSecondLevelCacheMisses() {
+    return secondLevelCacheMisses;
+  }
+
+}
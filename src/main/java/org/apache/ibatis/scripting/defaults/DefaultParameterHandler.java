@@ -16,7 +16,6 @@
 package org.apache.ibatis.scripting.defaults;
 
 import java.sql.PreparedStatement;
-import java.sql.SQLException;
 import java.util.List;
 
 import org.apache.ibatis.executor.ErrorContext;
@@ -24,12 +23,7 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
-import org.apache.ibatis.mapping.ParameterMode;
-import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
-import org.apache.ibatis.type.JdbcType;
-import org.apache.ibatis.type.TypeException;
-import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
@@ -74,39 +68,13 @@ public class DefaultParameterHandler implements ParameterHandler {
      */
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
 
-    /* 如果有参数，说明本次操作的 sql 语句有类似 #{name} 的符号 */
+    /*
+     * 如果有参数，说明本次操作的 sql 语句有类似 #{name} 的符号
+     * 取值方式和 TypeHandler 在 ParameterBinder 中按参数类型解析一次，静态 sql 会复用同一个绑定器
+     */
     if (parameterMappings != null) {
-      for (int i = 0; i < parameterMappings.size(); i++) {
-        ParameterMapping parameterMapping = parameterMappings.get(i);
-        if (parameterMapping.getMode() != ParameterMode.OUT) {
-          Object value;
-          String propertyName = parameterMapping.getProperty();
-          if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
-            value = boundSql.getAdditionalParameter(propertyName);
-          } else if (parameterObject == null) {
-
-            System.out.println("============================= 去除警告线 ===============================");
-
-            value = null;
-          } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-            value = parameterObject;
-          } else {
-            MetaObject metaObject = configuration.newMetaObject(parameterObject);
-            value = metaObject.getValue(propertyName);
-          }
-          TypeHandler typeHandler = parameterMapping.getTypeHandler();
-          JdbcType jdbcType = parameterMapping.getJdbcType();
-          if (value == null && jdbcType == null) {
-            jdbcType = configuration.getJdbcTypeForNull();
-          }
-          try {
-            /* 通过 handler 给 PreparedStatement 设置参数 */
-            typeHandler.setParameter(ps, i + 1, value, jdbcType);
-          } catch (TypeException | SQLException e) {
-            throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
-          }
-        }
-      }
+      Class<?> parameterType = parameterObject == null ? null : parameterObject.getClass();
+      mappedStatement.getParameterBinder(parameterType, parameterMappings).setParameters(ps, boundSql, parameterObject);
     }
   }
 
@@ -0,0 +1,261 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeException;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A parameter binder compiled for one list of {@link ParameterMapping}s and one parameter type.
+ * <p>
+ * Property accessors and type handlers are resolved once when the binder is compiled, so binding a statement
+ * only reads the values and hands them to the type handlers. Values that cannot be resolved up front
+ * (nested properties, custom object wrappers, ...) still go through {@link MetaObject}, created at most once per call.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.mapping.MappedStatement#getParameterBinder(Class, List)
+ */
+public final class ParameterBinder {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private enum AccessorType {
+    /** OUT 参数，不需要绑定 */
+    NONE,
+    /** 参数对象为 null */
+    NULL,
+    /** 参数对象本身有 TypeHandler，直接使用参数对象 */
+    SELF,
+    /** 参数对象是 Map，直接通过 key 取值 */
+    MAP_KEY,
+    /** 参数对象是 JavaBean，直接调用 getter */
+    GETTER,
+    /** 其他情况，通过 MetaObject 取值 */
+    META_OBJECT
+  }
+
+  private final Configuration configuration;
+  private final Class<?> parameterType;
+  private final List<ParameterMapping> parameterMappings;
+  private final String[] propertyNames;
+  private final String[] additionalParameterNames;
+  private final ParameterMode[] modes;
+  private final TypeHandler<?>[] typeHandlers;
+  private final AccessorType[] accessorTypes;
+  private final Invoker[] getters;
+  private final boolean metaObjectRequired;
+
+  private ParameterBinder(Configuration configuration, Class<?> parameterType, List<ParameterMapping> parameterMappings) {
+    this.configuration = configuration;
+    this.parameterType = parameterType;
+    this.parameterMappings = parameterMappings;
+    int size = parameterMappings.size();
+    this.propertyNames = new String[size];
+    this.additionalParameterNames = new String[size];
+    this.modes = new ParameterMode[size];
+    this.typeHandlers = new TypeHandler<?>[size];
+    this.accessorTypes = new AccessorType[size];
+    this.getters = new Invoker[size];
+
+    boolean self = parameterType != null && configuration.getTypeHandlerRegistry().hasTypeHandler(parameterType);
+    boolean wrapped = parameterType != null
+        && (ObjectWrapper.class.isAssignableFrom(parameterType)
+        || !(configuration.getObjectWrapperFactory() instanceof DefaultObjectWrapperFactory));
+    MetaClass metaClass = null;
+    boolean needsMetaObject = false;
+    for (int i = 0; i < size; i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      String propertyName = parameterMapping.getProperty();
+      propertyNames[i] = propertyName;
+      additionalParameterNames[i] = new PropertyTokenizer(propertyName).getName();
+      modes[i] = parameterMapping.getMode();
+      typeHandlers[i] = parameterMapping.getTypeHandler();
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        accessorTypes[i] = AccessorType.NONE;
+      } else if (parameterType == null) {
+        accessorTypes[i] = AccessorType.NULL;
+      } else if (self) {
+        accessorTypes[i] = AccessorType.SELF;
+      } else if (wrapped || !isSimpleProperty(propertyName) || Collection.class.isAssignableFrom(parameterType)) {
+        accessorTypes[i] = AccessorType.META_OBJECT;
+        needsMetaObject = true;
+      } else if (Map.class.isAssignableFrom(parameterType)) {
+        accessorTypes[i] = AccessorType.MAP_KEY;
+      } else {
+        if (metaClass == null) {
+          metaClass = MetaClass.forClass(parameterType, configuration.getReflectorFactory());
+        }
+        if (metaClass.hasGetter(propertyName)) {
+          accessorTypes[i] = AccessorType.GETTER;
+          getters[i] = metaClass.getGetInvoker(propertyName);
+        } else {
+          // let MetaObject report the missing getter in the usual way
+          accessorTypes[i] = AccessorType.META_OBJECT;
+          needsMetaObject = true;
+        }
+      }
+    }
+    this.metaObjectRequired = needsMetaObject;
+  }
+
+  /**
+   * Compiles a binder for the given parameter mappings.
+   *
+   * @param configuration the configuration
+   * @param parameterType type of the parameter object, or {@code null} if the parameter object is {@code null}
+   * @param parameterMappings the parameter mappings of a {@link BoundSql}
+   * @return a new binder
+   */
+  public static ParameterBinder compile(Configuration configuration, Class<?> parameterType, List<ParameterMapping> parameterMappings) {
+    return new ParameterBinder(configuration, parameterType, parameterMappings);
+  }
+
+  /**
+   * Returns whether this binder was compiled for the given parameter type and mappings of the same shape: the same
+   * property, mode and type handler at every position. Static statements return the same list on every call, dynamic
+   * ones build a new list each time, usually of one of a few shapes.
+   */
+  public boolean isCompiledFor(Class<?> parameterType, List<ParameterMapping> parameterMappings) {
+    if (this.parameterType != parameterType) {
+      return false;
+    }
+    if (this.parameterMappings == parameterMappings) {
+      return true;
+    }
+    if (parameterMappings.size() != propertyNames.length) {
+      return false;
+    }
+    for (int i = 0; i < propertyNames.length; i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      if (modes[i] != parameterMapping.getMode() || typeHandlers[i] != parameterMapping.getTypeHandler()
+          || !propertyNames[i].equals(parameterMapping.getProperty())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void setParameters(PreparedStatement ps, BoundSql boundSql, Object parameterObject) {
+    MetaObject metaObject = metaObjectRequired ? configuration.newMetaObject(parameterObject) : null;
+    boolean hasAdditionalParameters = boundSql.hasAdditionalParameters();
+    for (int i = 0; i < accessorTypes.length; i++) {
+      if (accessorTypes[i] == AccessorType.NONE) {
+        continue;
+      }
+      // the mappings of the call may be another list of the same shape, with their own jdbc types
+      ParameterMapping parameterMapping = boundSql.getParameterMappings().get(i);
+      Object value = getValue(i, boundSql, hasAdditionalParameters, parameterObject, metaObject);
+      @SuppressWarnings("unchecked")
+      TypeHandler<Object> typeHandler = (TypeHandler<Object>) typeHandlers[i];
+      JdbcType jdbcType = parameterMapping.getJdbcType();
+      if (value == null && jdbcType == null) {
+        jdbcType = configuration.getJdbcTypeForNull();
+      }
+      try {
+        typeHandler.setParameter(ps, i + 1, value, jdbcType);
+      } catch (TypeException | SQLException e) {
+        throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
+      }
+    }
+  }
+
+  /**
+   * Adds the value of every non OUT parameter to the cache key, in the same order they would be bound.
+   */
+  public void updateCacheKey(CacheKey cacheKey, BoundSql boundSql, Object parameterObject) {
+    MetaObject metaObject = metaObjectRequired ? configuration.newMetaObject(parameterObject) : null;
+    boolean hasAdditionalParameters = boundSql.hasAdditionalParameters();
+    for (int i = 0; i < accessorTypes.length; i++) {
+      if (accessorTypes[i] != AccessorType.NONE) {
+        cacheKey.update(getValue(i, boundSql, hasAdditionalParameters, parameterObject, metaObject));
+      }
+    }
+  }
+
+  /**
+   * Returns the value of every non OUT parameter, in the order they are bound.
+   */
+  public List<Object> getValues(BoundSql boundSql, Object parameterObject) {
+    MetaObject metaObject = metaObjectRequired ? configuration.newMetaObject(parameterObject) : null;
+    boolean hasAdditionalParameters = boundSql.hasAdditionalParameters();
+    List<Object> values = new ArrayList<>(accessorTypes.length);
+    for (int i = 0; i < accessorTypes.length; i++) {
+      if (accessorTypes[i] != AccessorType.NONE) {
+        values.add(getValue(i, boundSql, hasAdditionalParameters, parameterObject, metaObject));
+      }
+    }
+    return values;
+  }
+
+  private Object getValue(int i, BoundSql boundSql, boolean hasAdditionalParameters, Object parameterObject, MetaObject metaObject) {
+    // issue #448 ask first for additional params
+    if (hasAdditionalParameters && boundSql.hasAdditionalParameter(additionalParameterNames[i])) {
+      return boundSql.getAdditionalParameter(propertyNames[i]);
+    }
+    switch (accessorTypes[i]) {
+      case SELF:
+        return parameterObject;
+      case MAP_KEY:
+        return ((Map<?, ?>) parameterObject).get(propertyNames[i]);
+      case GETTER:
+        return invokeGetter(i, parameterObject);
+      case META_OBJECT:
+        return metaObject.getValue(propertyNames[i]);
+      default:
+        return null;
+    }
+  }
+
+  private Object invokeGetter(int i, Object parameterObject) {
+    try {
+      try {
+        return getters[i].invoke(parameterObject, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + propertyNames[i] + "' from " + parameterType + ".  Cause: " + t.toString(), t);
+    }
+  }
+
+  private static boolean isSimpleProperty(String propertyName) {
+    return propertyName.indexOf('.') < 0 && propertyName.indexOf('[') < 0;
+  }
+
+}
@@ -15,10 +15,16 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.ArrayTypeHandler;
 
 /**
  * @author Clinton Begin
@@ -34,9 +40,30 @@ public class ForEachSqlNode implements SqlNode {
   private final String separator;
   private final String item;
   private final String index;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
+  private final boolean arrayBound;
+  private final IntUnaryOperator padding;
   private final Configuration configuration;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, false);
+  }
+
+  /**
+   * @param arrayBound whether the collection is bound as one JDBC array parameter instead of one parameter per element
+   * @since 3.5.2
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator, boolean arrayBound) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, arrayBound, null);
+  }
+
+  /**
+   * @param padding returns for a number of elements the number of items to write, repeating the last element;
+   *     {@code null} to write every element once
+   * @since 3.5.2
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator, boolean arrayBound, IntUnaryOperator padding) {
     this.evaluator = new ExpressionEvaluator();
     this.collectionExpression = collectionExpression;
     this.contents = contents;
@@ -45,6 +72,10 @@ public class ForEachSqlNode implements SqlNode {
     this.separator = separator;
     this.index = index;
     this.item = item;
+    this.itemPattern = item == null ? null : Pattern.compile("^\\s*" + item + "(?![^.,:\\s])");
+    this.indexPattern = index == null ? null : Pattern.compile("^\\s*" + index + "(?![^.,:\\s])");
+    this.arrayBound = arrayBound;
+    this.padding = padding;
     this.configuration = configuration;
   }
 
@@ -52,43 +83,78 @@ public class ForEachSqlNode implements SqlNode {
   public boolean apply(DynamicContext context) {
     Map<String, Object> bindings = context.getBindings();
     final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
+    if (arrayBound) {
+      applyArray(context, iterable);
+      return true;
+    }
     if (!iterable.iterator().hasNext()) {
       return true;
     }
     boolean first = true;
     applyOpen(context);
     int i = 0;
+    Object last = null;
     for (Object o : iterable) {
-      DynamicContext oldContext = context;
-      if (first || separator == null) {
-        context = new PrefixedContext(context, "");
-      } else {
-        context = new PrefixedContext(context, separator);
-      }
-      int uniqueNumber = context.getUniqueNumber();
-      // Issue #709
-      if (o instanceof Map.Entry) {
-        @SuppressWarnings("unchecked")
-        Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
-        applyIndex(context, mapEntry.getKey(), uniqueNumber);
-        applyItem(context, mapEntry.getValue(), uniqueNumber);
-      } else {
-        applyIndex(context, i, uniqueNumber);
-        applyItem(context, o, uniqueNumber);
-      }
-      contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
-      if (first) {
-        first = !((PrefixedContext) context).isPrefixApplied();
-      }
-      context = oldContext;
+      first = applyElement(context, o, i, first);
+      last = o;
       i++;
     }
+    if (padding != null) {
+      // 重复最后一个元素，让不同长度的集合生成相同的 SQL，从而复用预编译语句
+      for (int size = padding.applyAsInt(i); i < size; i++) {
+        first = applyElement(context, last, i - 1, first);
+      }
+    }
     applyClose(context);
     context.getBindings().remove(item);
     context.getBindings().remove(index);
     return true;
   }
 
+  private boolean applyElement(DynamicContext context, Object o, int i, boolean first) {
+    DynamicContext elementContext;
+    if (first || separator == null) {
+      elementContext = new PrefixedContext(context, "");
+    } else {
+      elementContext = new PrefixedContext(context, separator);
+    }
+    int uniqueNumber = elementContext.getUniqueNumber();
+    // Issue #709
+    if (o instanceof Map.Entry) {
+      @SuppressWarnings("unchecked")
+      Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
+      applyIndex(elementContext, mapEntry.getKey(), uniqueNumber);
+      applyItem(elementContext, mapEntry.getValue(), uniqueNumber);
+    } else {
+      applyIndex(elementContext, i, uniqueNumber);
+      applyItem(elementContext, o, uniqueNumber);
+    }
+    contents.apply(new FilteredDynamicContext(configuration, elementContext, index, item, itemPattern, indexPattern, uniqueNumber));
+    return first && !((PrefixedContext) elementContext).isPrefixApplied();
+  }
+
+  /**
+   * 整个集合作为一个 JDBC 数组参数绑定，只生成一个占位符，不再为每个元素绑定变量和解析 #{}
+   */
+  private void applyArray(DynamicContext context, Iterable<?> iterable) {
+    List<Object> elements = new ArrayList<>();
+    Class<?> elementType = null;
+    for (Object o : iterable) {
+      Object element = o instanceof Map.Entry ? ((Map.Entry<?, ?>) o).getValue() : o;
+      if (element != null) {
+        elementType = elementType == null || elementType == element.getClass() ? element.getClass() : Object.class;
+      }
+      elements.add(element);
+    }
+    // a typed array lets ArrayTypeHandler resolve the SQL type of the elements
+    Object[] array = (Object[]) Array.newInstance(elementType == null ? Object.class : elementType, elements.size());
+    String name = itemizeItem(item == null ? "array" : item, context.getUniqueNumber());
+    context.bind(name, elements.toArray(array));
+    applyOpen(context);
+    context.appendSql("#{" + name + ",typeHandler=" + ArrayTypeHandler.class.getName() + "}");
+    applyClose(context);
+  }
+
   private void applyIndex(DynamicContext context, Object o, int i) {
     if (index != null) {
       context.bind(index, o);
@@ -124,13 +190,18 @@ public class ForEachSqlNode implements SqlNode {
     private final int index;
     private final String itemIndex;
     private final String item;
+    private final Pattern itemPattern;
+    private final Pattern itemIndexPattern;
 
-    public FilteredDynamicContext(Configuration configuration,DynamicContext delegate, String itemIndex, String item, int i) {
+    public FilteredDynamicContext(Configuration configuration, DynamicContext delegate, String itemIndex, String item,
+        Pattern itemPattern, Pattern itemIndexPattern, int i) {
       super(configuration, null);
       this.delegate = delegate;
       this.index = i;
       this.itemIndex = itemIndex;
       this.item = item;
+      this.itemPattern = itemPattern;
+      this.itemIndexPattern = itemIndexPattern;
     }
 
     @Override
@@ -151,9 +222,9 @@ public class ForEachSqlNode implements SqlNode {
     @Override
     public void appendSql(String sql) {
       GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
-        String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
+        String newContent = itemPattern == null ? content : itemPattern.matcher(content).replaceFirst(itemizeItem(item, index));
         if (itemIndex != null && newContent.equals(content)) {
-          newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
+          newContent = itemIndexPattern.matcher(content).replaceFirst(itemizeItem(itemIndex, index));
         }
         return "#{" + newContent + "}";
       });
@@ -34,6 +34,8 @@ public class TrimSqlNode implements SqlNode {
   private final String suffix;
   private final List<String> prefixesToOverride;
   private final List<String> suffixesToOverride;
+  private final int[] trimmedPrefixLengths;
+  private final String[] trimmedSuffixes;
   private final Configuration configuration;
 
   public TrimSqlNode(Configuration configuration, SqlNode contents, String prefix, String prefixesToOverride, String suffix, String suffixesToOverride) {
@@ -46,6 +48,14 @@ public class TrimSqlNode implements SqlNode {
     this.prefixesToOverride = prefixesToOverride;
     this.suffix = suffix;
     this.suffixesToOverride = suffixesToOverride;
+    this.trimmedPrefixLengths = new int[prefixesToOverride == null ? 0 : prefixesToOverride.size()];
+    for (int i = 0; i < trimmedPrefixLengths.length; i++) {
+      trimmedPrefixLengths[i] = prefixesToOverride.get(i).trim().length();
+    }
+    this.trimmedSuffixes = new String[suffixesToOverride == null ? 0 : suffixesToOverride.size()];
+    for (int i = 0; i < trimmedSuffixes.length; i++) {
+      trimmedSuffixes[i] = suffixesToOverride.get(i).trim();
+    }
     this.configuration = configuration;
   }
 
@@ -69,28 +79,45 @@ public class TrimSqlNode implements SqlNode {
     return Collections.emptyList();
   }
 
+  /**
+   * Trims the fragment in place: overrides are matched ignoring case, without copying or upper-casing the SQL.
+   * A context nested in another trim node writes directly to the buffer of the enclosing one.
+   */
   private class FilteredDynamicContext extends DynamicContext {
-    private DynamicContext delegate;
-    private boolean prefixApplied;
-    private boolean suffixApplied;
-    private StringBuilder sqlBuffer;
+    private final DynamicContext delegate;
+    private final StringBuilder sqlBuffer;
+    private final boolean sharedBuffer;
+    private final int start;
 
     public FilteredDynamicContext(DynamicContext delegate) {
       super(configuration, null);
       this.delegate = delegate;
-      this.prefixApplied = false;
-      this.suffixApplied = false;
-      this.sqlBuffer = new StringBuilder();
+      // appending to an enclosing trim context only appends to its buffer
+      this.sharedBuffer = delegate instanceof TrimSqlNode.FilteredDynamicContext;
+      this.sqlBuffer = sharedBuffer ? ((TrimSqlNode.FilteredDynamicContext) delegate).sqlBuffer : new StringBuilder();
+      this.start = sqlBuffer.length();
     }
 
     public void applyAll() {
-      sqlBuffer = new StringBuilder(sqlBuffer.toString().trim());
-      String trimmedUppercaseSql = sqlBuffer.toString().toUpperCase(Locale.ENGLISH);
-      if (trimmedUppercaseSql.length() > 0) {
-        applyPrefix(sqlBuffer, trimmedUppercaseSql);
-        applySuffix(sqlBuffer, trimmedUppercaseSql);
+      int from = start;
+      int to = sqlBuffer.length();
+      while (from < to && sqlBuffer.charAt(from) <= ' ') {
+        from++;
+      }
+      while (to > from && sqlBuffer.charAt(to - 1) <= ' ') {
+        to--;
+      }
+      sqlBuffer.setLength(to);
+      sqlBuffer.delete(start, from);
+      if (sqlBuffer.length() > start) {
+        // overrides are matched against the trimmed fragment, before the prefix is applied
+        int suffixToRemove = matchSuffix();
+        applyPrefix();
+        applySuffix(suffixToRemove);
+      }
+      if (!sharedBuffer) {
+        delegate.appendSql(sqlBuffer.toString());
       }
-      delegate.appendSql(sqlBuffer.toString());
     }
 
     @Override
@@ -118,42 +145,49 @@ public class TrimSqlNode implements SqlNode {
       return delegate.getSql();
     }
 
-    private void applyPrefix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!prefixApplied) {
-        prefixApplied = true;
-        if (prefixesToOverride != null) {
-          for (String toRemove : prefixesToOverride) {
-            if (trimmedUppercaseSql.startsWith(toRemove)) {
-              sql.delete(0, toRemove.trim().length());
-              break;
-            }
-          }
-        }
-        if (prefix != null) {
-          sql.insert(0, " ");
-          sql.insert(0, prefix);
+    private void applyPrefix() {
+      for (int i = 0; i < trimmedPrefixLengths.length; i++) {
+        String toRemove = prefixesToOverride.get(i);
+        if (sqlBuffer.length() - start >= toRemove.length()
+            && regionMatches(start, toRemove, toRemove.length())) {
+          sqlBuffer.delete(start, start + trimmedPrefixLengths[i]);
+          break;
         }
       }
+      if (prefix != null) {
+        sqlBuffer.insert(start, ' ');
+        sqlBuffer.insert(start, prefix);
+      }
     }
 
-    private void applySuffix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!suffixApplied) {
-        suffixApplied = true;
-        if (suffixesToOverride != null) {
-          for (String toRemove : suffixesToOverride) {
-            if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
-              int start = sql.length() - toRemove.trim().length();
-              int end = sql.length();
-              sql.delete(start, end);
-              break;
-            }
-          }
+    private int matchSuffix() {
+      for (String toRemove : trimmedSuffixes) {
+        // the fragment is trimmed, it can only end with the override without its surrounding whitespace
+        int suffixStart = sqlBuffer.length() - toRemove.length();
+        if (suffixStart >= start && regionMatches(suffixStart, toRemove, toRemove.length())) {
+          return toRemove.length();
         }
-        if (suffix != null) {
-          sql.append(" ");
-          sql.append(suffix);
+      }
+      return 0;
+    }
+
+    private void applySuffix(int suffixToRemove) {
+      sqlBuffer.setLength(sqlBuffer.length() - suffixToRemove);
+      if (suffix != null) {
+        sqlBuffer.append(' ');
+        sqlBuffer.append(suffix);
+      }
+    }
+
+    private boolean regionMatches(int offset, String other, int length) {
+      for (int i = 0; i < length; i++) {
+        char c1 = sqlBuffer.charAt(offset + i);
+        char c2 = other.charAt(i);
+        if (c1 != c2 && Character.toUpperCase(c1) != Character.toUpperCase(c2)) {
+          return false;
         }
       }
+      return true;
     }
 
   }
@@ -16,9 +16,12 @@
 package org.apache.ibatis.scripting.xmltags;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
@@ -176,9 +179,72 @@ public class XMLScriptBuilder extends BaseBuilder {
       String open = nodeToHandle.getStringAttribute("open");
       String close = nodeToHandle.getStringAttribute("close");
       String separator = nodeToHandle.getStringAttribute("separator");
-      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator);
+      boolean arrayBound = isArrayMode(nodeToHandle.getStringAttribute("mode"));
+      if (arrayBound) {
+        validateArrayBody(nodeToHandle, item);
+      }
+      IntUnaryOperator padding = parsePadding(nodeToHandle.getStringAttribute("padding"));
+      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator, arrayBound, padding);
       targetContents.add(forEachSqlNode);
     }
+
+    private boolean isArrayMode(String mode) {
+      if (mode == null || "items".equalsIgnoreCase(mode)) {
+        return false;
+      } else if ("array".equalsIgnoreCase(mode)) {
+        return true;
+      }
+      throw new BuilderException("Unknown foreach mode '" + mode + "'. Expected 'items' or 'array'.");
+    }
+
+    /**
+     * 数组模式下不解析 foreach 的内容，只允许内容为空或者就是 #{item}，否则像 #{item.id} 这样的写法会被静默忽略
+     */
+    private void validateArrayBody(XNode nodeToHandle, String item) {
+      String hint = ". The whole collection is bound as one parameter, remove the body or leave only #{"
+          + (item == null ? "item" : item) + "}.";
+      StringBuilder body = new StringBuilder();
+      NodeList children = nodeToHandle.getNode().getChildNodes();
+      for (int i = 0; i < children.getLength(); i++) {
+        Node child = children.item(i);
+        if (child.getNodeType() == Node.CDATA_SECTION_NODE || child.getNodeType() == Node.TEXT_NODE) {
+          body.append(child.getNodeValue());
+        } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+          throw new BuilderException("A foreach in array mode cannot contain <" + child.getNodeName() + ">" + hint);
+        }
+      }
+      String text = body.toString().trim();
+      if (text.isEmpty() || (item != null && text.matches("#\\{\\s*" + Pattern.quote(item) + "\\s*}"))) {
+        return;
+      }
+      throw new BuilderException("A foreach in array mode ignores its body '" + text + "'" + hint);
+    }
+
+    /**
+     * padding 为 pow2 时补齐到下一个 2 的幂，为逗号分隔的数字时补齐到不小于元素个数的最小值，超过最大值时不补齐
+     */
+    private IntUnaryOperator parsePadding(String padding) {
+      if (padding == null || padding.trim().isEmpty()) {
+        return null;
+      }
+      if ("pow2".equalsIgnoreCase(padding.trim())) {
+        return size -> size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+      }
+      int[] buckets;
+      try {
+        buckets = Arrays.stream(padding.split(",")).map(String::trim).mapToInt(Integer::parseInt).sorted().toArray();
+      } catch (NumberFormatException e) {
+        throw new BuilderException("Invalid foreach padding '" + padding + "'. Expected 'pow2' or a comma separated list of sizes.", e);
+      }
+      return size -> {
+        for (int bucket : buckets) {
+          if (bucket >= size) {
+            return bucket;
+          }
+        }
+        return size;
+      };
+    }
   }
 
   private class IfHandler implements NodeHandler {
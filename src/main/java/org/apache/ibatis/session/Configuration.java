@@ -25,8 +25,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 
+import javax.management.JMException;
+
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.CacheRefResolver;
 import org.apache.ibatis.builder.IncompleteElementException;
@@ -42,10 +52,19 @@ import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+import org.apache.ibatis.datasource.routing.ReadWriteDataSourceFactory;
+import org.apache.ibatis.datasource.sharding.ShardedDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.DialectResolver;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.dialect.OffsetFetchDialect;
+import org.apache.ibatis.dialect.OracleDialect;
+import org.apache.ibatis.dialect.SqlServerDialect;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.QueryCoalescer;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -73,6 +92,10 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.apache.ibatis.metrics.DefaultMetricsRegistry;
+import org.apache.ibatis.metrics.JmxMetricsExporter;
+import org.apache.ibatis.metrics.MetricsRegistry;
+import org.apache.ibatis.metrics.SlowQueryLog;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.InterceptorChain;
@@ -149,6 +172,11 @@ public class Configuration {
    * 该全局地开启或关闭配置文件中的所有映射器已经配置的任何缓存
    */
   protected boolean cacheEnabled = true;
+  /**
+   * 二级缓存是否按表失效。开启后缓存项按 select 读取的表建立索引，insert|update|delete 提交时只清除依赖所修改表的缓存项，
+   * 而不是清空整个 namespace 的缓存。语句的表可以通过 tables 属性声明，未声明时从 sql 中推断
+   */
+  protected boolean tableCacheInvalidationEnabled;
   /**
    * 指定当结果集中值为 null 的时候是否调用映射对象的 setter（map 对象时为 put）方法，这在依赖于 Map.keySet() 或 null 值初始化的时候比较有用。
    * 注意基本类型（int、boolean 等）是不能设置成 null 的
@@ -217,6 +245,72 @@ public class Configuration {
    * FAILING: 映射失败 (抛出 SqlSessionException)
    */
   protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
+  /**
+   * 是否合并并发的相同查询。开启后，不同 session 同时执行 CacheKey 相同的 select 时只会访问一次数据库，其他线程等待并共享结果
+   */
+  protected boolean queryCoalescingEnabled;
+  /**
+   * 等待正在执行的相同查询的最长毫秒数，超时后自己查询数据库。未设置表示一直等待
+   */
+  protected Integer queryCoalescingTimeout;
+  /**
+   * 一级缓存最多保存的查询结果个数，超出后按 LRU 淘汰。未设置表示不限制
+   */
+  protected Integer localCacheMaxEntries;
+  /**
+   * 一级缓存中查询结果的估算总字节数上限，超出后按 LRU 淘汰。未设置表示不限制
+   */
+  protected Long localCacheMaxBytes;
+  /**
+   * 分页时改写 SQL 使用的数据库方言，例如 {@link SeekBounds} 的 keyset 分页。未显式设置时在设置 environment 时根据数据库产品名称选择
+   */
+  protected Dialect dialect = new LimitOffsetDialect();
+  /**
+   * dialect 是否是显式设置的，显式设置后更换 environment 不再重新选择
+   */
+  protected boolean dialectExplicit;
+  /**
+   * 是否把 RowBounds 改写成数据库分页（LIMIT/OFFSET 等），而不是在内存中跳过和截断结果
+   */
+  protected boolean rowBoundsPushdownEnabled;
+  /**
+   * 记录每个 MappedStatement 的执行耗时、行数和缓存命中，未设置表示不记录
+   */
+  protected MetricsRegistry metricsRegistry;
+  /**
+   * 通过 JMX 暴露 {@link DefaultMetricsRegistry} 的 MBean 名称
+   */
+  protected String metricsMBeanName;
+  private JmxMetricsExporter metricsExporter;
+  /**
+   * 执行时间超过这个阈值（毫秒）的语句会连同 SQL 和参数记录到 {@link SlowQueryLog}，未设置表示不记录
+   */
+  protected Long slowQueryThreshold;
+  /**
+   * 慢查询中被记录的比例，0 到 1 之间
+   */
+  protected double slowQuerySamplingRate = 1;
+  /**
+   * {@link SlowQueryLog} 最多保留的慢查询个数
+   */
+  protected int slowQueryLogSize = 100;
+  private volatile SlowQueryLog slowQueryLog;
+  /**
+   * 并行映射结果行时最多同时映射的块数，0 表示不并行；列值仍由读线程通过 TypeHandler 读取，只并行创建结果对象；只对没有嵌套查询、嵌套结果和鉴别器的 resultMap 生效
+   */
+  protected int rowMappingParallelism;
+  /**
+   * 并行映射时每块的行数，结果集不足一块时仍在当前线程映射
+   */
+  protected int rowMappingBlockSize = 1000;
+  /**
+   * 并行映射结果行使用的线程池，未设置时使用 ForkJoinPool.commonPool()
+   */
+  protected volatile ExecutorService rowMappingExecutor;
+  /**
+   * {@link SqlSession#selectAll} 最多同时执行的查询数，每个查询占用一个连接
+   */
+  protected int selectAllParallelism = 4;
 
   /**
    * 这个变量用于保存用户注入的属性值 key-value
@@ -280,6 +374,16 @@ public class Configuration {
    */
   protected final InterceptorChain interceptorChain = new InterceptorChain();
 
+  /**
+   * 所有 session 共享的查询合并器 {@link #queryCoalescingEnabled}
+   */
+  protected final QueryCoalescer queryCoalescer = new QueryCoalescer();
+
+  /**
+   * 并行执行语句（例如 chunkParallel 的分块查询）使用的线程池，未设置时第一次使用时创建
+   */
+  protected volatile ExecutorService parallelQueryExecutor;
+
   /**
    * java-jdbc 类型转换器
    * 全局都是用的一个对象，里面封装了默认的转换器和用户自定义的转换器
@@ -320,6 +424,11 @@ public class Configuration {
   protected final Collection<ResultMapResolver> incompleteResultMaps = new LinkedList<>();
   protected final Collection<MethodResolver> incompleteMethods = new LinkedList<>();
 
+  /**
+   * 解析以上未完成元素时持有的锁，代替 synchronized：buildAllStatements 可能在第一次执行语句时才被调用，虚拟线程不能被钉住
+   */
+  protected final ReentrantLock incompleteElementsLock = new ReentrantLock();
+
   /*
    * A map holds cache-ref relationship. The key is the namespace that
    * references a cache bound to another namespace and the value is the
@@ -329,7 +438,7 @@ public class Configuration {
 
   public Configuration(Environment environment) {
     this();
-    this.environment = environment;
+    setEnvironment(environment);
   }
 
   /**
@@ -341,10 +450,12 @@ public class Configuration {
     typeAliasRegistry.registerAlias("JDBC", JdbcTransactionFactory.class);
     typeAliasRegistry.registerAlias("MANAGED", ManagedTransactionFactory.class);
 
-    /* DataSource 三种类型 */
+    /* DataSource 类型，READ_WRITE 是一主多从的读写分离数据源，SHARDED 是分库数据源 */
     typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
     typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
+    typeAliasRegistry.registerAlias("READ_WRITE", ReadWriteDataSourceFactory.class);
+    typeAliasRegistry.registerAlias("SHARDED", ShardedDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
@@ -354,6 +465,13 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
+    typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+    typeAliasRegistry.registerAlias("OFFSET_FETCH", OffsetFetchDialect.class);
+    typeAliasRegistry.registerAlias("ORACLE_ROWNUM", OracleDialect.class);
+    typeAliasRegistry.registerAlias("SQL_SERVER", SqlServerDialect.class);
+
+    typeAliasRegistry.registerAlias("DEFAULT_METRICS", DefaultMetricsRegistry.class);
+
     typeAliasRegistry.registerAlias("XML", XMLLanguageDriver.class);
     typeAliasRegistry.registerAlias("RAW", RawLanguageDriver.class);
 
@@ -480,6 +598,9 @@ public class Configuration {
 
   public void setEnvironment(Environment environment) {
     this.environment = environment;
+    if (!dialectExplicit) {
+      this.dialect = resolveDialect();
+    }
   }
 
   public AutoMappingBehavior getAutoMappingBehavior() {
@@ -504,6 +625,77 @@ public class Configuration {
     this.autoMappingUnknownColumnBehavior = autoMappingUnknownColumnBehavior;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public boolean isQueryCoalescingEnabled() {
+    return queryCoalescingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setQueryCoalescingEnabled(boolean queryCoalescingEnabled) {
+    this.queryCoalescingEnabled = queryCoalescingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public Integer getQueryCoalescingTimeout() {
+    return queryCoalescingTimeout;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setQueryCoalescingTimeout(Integer queryCoalescingTimeout) {
+    this.queryCoalescingTimeout = queryCoalescingTimeout;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public QueryCoalescer getQueryCoalescer() {
+    return queryCoalescer;
+  }
+
+  /**
+   * Returns the thread pool running statements executed concurrently on separate connections.
+   * The default pool uses daemon threads and runs a task in the calling thread when all its threads are busy.
+   *
+   * @since 3.5.2
+   */
+  public ExecutorService getParallelQueryExecutor() {
+    ExecutorService executor = parallelQueryExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        if (parallelQueryExecutor == null) {
+          parallelQueryExecutor = newParallelQueryExecutor();
+        }
+        executor = parallelQueryExecutor;
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setParallelQueryExecutor(ExecutorService parallelQueryExecutor) {
+    this.parallelQueryExecutor = parallelQueryExecutor;
+  }
+
+  private static ExecutorService newParallelQueryExecutor() {
+    AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor(0, Math.max(4, Runtime.getRuntime().availableProcessors() * 2),
+        60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-parallel-query-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
   public boolean isLazyLoadingEnabled() {
     return lazyLoadingEnabled;
   }
@@ -571,6 +763,20 @@ public class Configuration {
     this.cacheEnabled = cacheEnabled;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public boolean isTableCacheInvalidationEnabled() {
+    return tableCacheInvalidationEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setTableCacheInvalidationEnabled(boolean tableCacheInvalidationEnabled) {
+    this.tableCacheInvalidationEnabled = tableCacheInvalidationEnabled;
+  }
+
   public Integer getDefaultStatementTimeout() {
     return defaultStatementTimeout;
   }
@@ -609,6 +815,253 @@ public class Configuration {
     this.localCacheScope = localCacheScope;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public Integer getLocalCacheMaxEntries() {
+    return localCacheMaxEntries;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setLocalCacheMaxEntries(Integer localCacheMaxEntries) {
+    this.localCacheMaxEntries = localCacheMaxEntries;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public Long getLocalCacheMaxBytes() {
+    return localCacheMaxBytes;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setLocalCacheMaxBytes(Long localCacheMaxBytes) {
+    this.localCacheMaxBytes = localCacheMaxBytes;
+  }
+
+  /**
+   * Returns the dialect used to page statements. If none was set, it is resolved from the database of the environment
+   * when the environment is set.
+   *
+   * @since 3.5.2
+   */
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  /**
+   * Sets the dialect used to page statements, or resolves it again from the database of the environment when
+   * {@code null}.
+   *
+   * @since 3.5.2
+   */
+  public void setDialect(Dialect dialect) {
+    this.dialectExplicit = dialect != null;
+    this.dialect = dialect != null ? dialect : resolveDialect();
+  }
+
+  private Dialect resolveDialect() {
+    return DialectResolver.resolve(environment == null ? null : environment.getDataSource());
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isRowBoundsPushdownEnabled() {
+    return rowBoundsPushdownEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setRowBoundsPushdownEnabled(boolean rowBoundsPushdownEnabled) {
+    this.rowBoundsPushdownEnabled = rowBoundsPushdownEnabled;
+  }
+
+  /**
+   * @return the registry receiving the metrics of every statement, {@code null} if they are not recorded
+   * @since 3.5.2
+   */
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public String getMetricsMBeanName() {
+    return metricsMBeanName;
+  }
+
+  /**
+   * Exposes the statement metrics through JMX, when the metrics registry is a {@link DefaultMetricsRegistry}.
+   *
+   * @param metricsMBeanName the name of the MBean, {@code null} to unregister it
+   * @see JmxMetricsExporter
+   * @since 3.5.2
+   */
+  public synchronized void setMetricsMBeanName(String metricsMBeanName) {
+    try {
+      if (metricsExporter == null) {
+        metricsExporter = new JmxMetricsExporter(this);
+      }
+      if (metricsMBeanName == null) {
+        metricsExporter.unregister();
+      } else {
+        metricsExporter.register(metricsMBeanName);
+      }
+    } catch (JMException e) {
+      throw new IllegalArgumentException("Could not register the metrics MBean " + metricsMBeanName + ".  Cause: " + e, e);
+    }
+    this.metricsMBeanName = metricsMBeanName;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public Long getSlowQueryThreshold() {
+    return slowQueryThreshold;
+  }
+
+  /**
+   * Executions that take this many milliseconds or more are captured by the {@link #getSlowQueryLog() slow query log}.
+   *
+   * @param slowQueryThreshold the threshold, {@code null} to capture nothing
+   * @since 3.5.2
+   */
+  public void setSlowQueryThreshold(Long slowQueryThreshold) {
+    this.slowQueryThreshold = slowQueryThreshold;
+    this.slowQueryLog = null;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public double getSlowQuerySamplingRate() {
+    return slowQuerySamplingRate;
+  }
+
+  /**
+   * @param slowQuerySamplingRate fraction of the slow executions that are captured, between 0 and 1
+   * @since 3.5.2
+   */
+  public void setSlowQuerySamplingRate(double slowQuerySamplingRate) {
+    this.slowQuerySamplingRate = slowQuerySamplingRate;
+    this.slowQueryLog = null;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getSlowQueryLogSize() {
+    return slowQueryLogSize;
+  }
+
+  /**
+   * @param slowQueryLogSize number of slow executions kept
+   * @since 3.5.2
+   */
+  public void setSlowQueryLogSize(int slowQueryLogSize) {
+    this.slowQueryLogSize = slowQueryLogSize;
+    this.slowQueryLog = null;
+  }
+
+  /**
+   * @return the last slow executions, {@code null} if no slow query threshold is set
+   * @since 3.5.2
+   */
+  public SlowQueryLog getSlowQueryLog() {
+    if (slowQueryThreshold == null) {
+      return null;
+    }
+    SlowQueryLog current = slowQueryLog;
+    if (current == null) {
+      synchronized (this) {
+        if (slowQueryLog == null) {
+          slowQueryLog = new SlowQueryLog(slowQueryThreshold, slowQuerySamplingRate, slowQueryLogSize);
+        }
+        current = slowQueryLog;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getRowMappingParallelism() {
+    return rowMappingParallelism;
+  }
+
+  /**
+   * Sets how many blocks of rows may be mapped concurrently while the next ones are read, {@code 0} to map every row
+   * on the thread reading the result set.
+   *
+   * @since 3.5.2
+   */
+  public void setRowMappingParallelism(int rowMappingParallelism) {
+    this.rowMappingParallelism = rowMappingParallelism;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getRowMappingBlockSize() {
+    return rowMappingBlockSize;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setRowMappingBlockSize(int rowMappingBlockSize) {
+    this.rowMappingBlockSize = rowMappingBlockSize;
+  }
+
+  /**
+   * Returns the pool mapping the blocks of rows, the common fork-join pool unless one was set.
+   *
+   * @since 3.5.2
+   */
+  public ExecutorService getRowMappingExecutor() {
+    ExecutorService executor = rowMappingExecutor;
+    return executor != null ? executor : ForkJoinPool.commonPool();
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setRowMappingExecutor(ExecutorService rowMappingExecutor) {
+    this.rowMappingExecutor = rowMappingExecutor;
+  }
+
+  /**
+   * Returns how many selects of a {@link SqlSession#selectAll} call may run at the same time, each on its own
+   * connection.
+   *
+   * @since 3.5.2
+   */
+  public int getSelectAllParallelism() {
+    return selectAllParallelism;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setSelectAllParallelism(int selectAllParallelism) {
+    this.selectAllParallelism = selectAllParallelism;
+  }
+
   public JdbcType getJdbcTypeForNull() {
     return jdbcTypeForNull;
   }
@@ -921,6 +1374,15 @@ public class Configuration {
     return incompleteMethods;
   }
 
+  /**
+   * Lock to hold while resolving the incomplete statements, cache refs, result maps and methods.
+   *
+   * @since 3.5.2
+   */
+  public Lock getIncompleteElementsLock() {
+    return incompleteElementsLock;
+  }
+
   public MappedStatement getMappedStatement(String id) {
     return this.getMappedStatement(id, true);
   }
@@ -983,24 +1445,33 @@ public class Configuration {
   protected void buildAllStatements() {
     parsePendingResultMaps();
     if (!incompleteCacheRefs.isEmpty()) {
-      synchronized (incompleteCacheRefs) {
+      incompleteElementsLock.lock();
+      try {
         incompleteCacheRefs.removeIf(x -> x.resolveCacheRef() != null);
+      } finally {
+        incompleteElementsLock.unlock();
       }
     }
     if (!incompleteStatements.isEmpty()) {
-      synchronized (incompleteStatements) {
+      incompleteElementsLock.lock();
+      try {
         incompleteStatements.removeIf(x -> {
           x.parseStatementNode();
           return true;
         });
+      } finally {
+        incompleteElementsLock.unlock();
       }
     }
     if (!incompleteMethods.isEmpty()) {
-      synchronized (incompleteMethods) {
+      incompleteElementsLock.lock();
+      try {
         incompleteMethods.removeIf(x -> {
           x.resolve();
           return true;
         });
+      } finally {
+        incompleteElementsLock.unlock();
       }
     }
   }
@@ -1009,7 +1480,8 @@ public class Configuration {
     if (incompleteResultMaps.isEmpty()) {
       return;
     }
-    synchronized (incompleteResultMaps) {
+    incompleteElementsLock.lock();
+    try {
       boolean resolved;
       IncompleteElementException ex = null;
       do {
@@ -1029,6 +1501,8 @@ public class Configuration {
         // At least one result map is unresolvable.
         throw ex;
       }
+    } finally {
+      incompleteElementsLock.unlock();
     }
   }
 
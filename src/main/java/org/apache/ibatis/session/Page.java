@@ -0,0 +1,52 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+
+/**
+ * A page of results read with {@link SeekBounds}.
+ *
+ * @param <E> the type of the results
+ * @since 3.5.2
+ */
+public class Page<E> {
+
+  private final List<E> items;
+  private final PageToken nextPageToken;
+
+  public Page(List<E> items, PageToken nextPageToken) {
+    this.items = items;
+    this.nextPageToken = nextPageToken;
+  }
+
+  public List<E> getItems() {
+    return items;
+  }
+
+  /**
+   * Returns the token of the next page, {@code null} if this page is the last one. A full page always has a
+   * next token, so the next page may be empty.
+   */
+  public PageToken getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public boolean hasNext() {
+    return nextPageToken != null;
+  }
+
+}
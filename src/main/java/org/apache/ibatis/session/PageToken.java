@@ -0,0 +1,195 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The values of the seek keys of the last row of a page, from which the next page starts.
+ * <p>
+ * A token can be passed to a client as a string with {@link #encode()} and read back with {@link #decode(String)}.
+ * Only strings, numbers, booleans, dates and UUIDs can be encoded, so decoding a token never instantiates any other
+ * class.
+ *
+ * @since 3.5.2
+ * @see SeekBounds
+ */
+public final class PageToken {
+
+  private final Object[] values;
+
+  public PageToken(Object... values) {
+    this.values = values.clone();
+  }
+
+  public Object[] getValues() {
+    return values.clone();
+  }
+
+  public Object getValue(int index) {
+    return values[index];
+  }
+
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns the token as an URL safe string.
+   */
+  public String encode() {
+    StringBuilder text = new StringBuilder();
+    for (Object value : values) {
+      char type = typeOf(value);
+      String string = type == 'N' ? "" : toString(type, value);
+      text.append(type).append(string.length()).append(':').append(string);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Reads a token returned by {@link #encode()}.
+   *
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public static PageToken decode(String token) {
+    try {
+      String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      List<Object> values = new ArrayList<>();
+      int position = 0;
+      while (position < text.length()) {
+        char type = text.charAt(position);
+        int colon = text.indexOf(':', position);
+        int length = Integer.parseInt(text.substring(position + 1, colon));
+        String string = text.substring(colon + 1, colon + 1 + length);
+        values.add(type == 'N' ? null : fromString(type, string));
+        position = colon + 1 + length;
+      }
+      return new PageToken(values.toArray());
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid page token '" + token + "'.  Cause: " + e, e);
+    }
+  }
+
+  private static char typeOf(Object value) {
+    if (value == null) {
+      return 'N';
+    } else if (value instanceof String) {
+      return 'S';
+    } else if (value instanceof Integer) {
+      return 'I';
+    } else if (value instanceof Long) {
+      return 'J';
+    } else if (value instanceof Short) {
+      return 'H';
+    } else if (value instanceof BigDecimal) {
+      return 'D';
+    } else if (value instanceof BigInteger) {
+      return 'G';
+    } else if (value instanceof Double) {
+      return 'F';
+    } else if (value instanceof Boolean) {
+      return 'Z';
+    } else if (value instanceof Timestamp) {
+      return 'T';
+    } else if (value instanceof java.sql.Date) {
+      return 'd';
+    } else if (value instanceof Date) {
+      return 'U';
+    } else if (value instanceof LocalDate) {
+      return 'l';
+    } else if (value instanceof LocalDateTime) {
+      return 't';
+    } else if (value instanceof OffsetDateTime) {
+      return 'o';
+    } else if (value instanceof UUID) {
+      return 'u';
+    }
+    throw new IllegalArgumentException("Cannot encode a page token value of type " + value.getClass().getName() + ".");
+  }
+
+  private static String toString(char type, Object value) {
+    if (type == 'U') {
+      return String.valueOf(((Date) value).getTime());
+    }
+    return value.toString();
+  }
+
+  private static Object fromString(char type, String string) {
+    switch (type) {
+      case 'S':
+        return string;
+      case 'I':
+        return Integer.valueOf(string);
+      case 'J':
+        return Long.valueOf(string);
+      case 'H':
+        return Short.valueOf(string);
+      case 'D':
+        return new BigDecimal(string);
+      case 'G':
+        return new BigInteger(string);
+      case 'F':
+        return Double.valueOf(string);
+      case 'Z':
+        return Boolean.valueOf(string);
+      case 'T':
+        return Timestamp.valueOf(string);
+      case 'd':
+        return java.sql.Date.valueOf(string);
+      case 'U':
+        return new Date(Long.parseLong(string));
+      case 'l':
+        return LocalDate.parse(string);
+      case 't':
+        return LocalDateTime.parse(string);
+      case 'o':
+        return OffsetDateTime.parse(string);
+      case 'u':
+        return UUID.fromString(string);
+      default:
+        throw new IllegalArgumentException("Unknown value type '" + type + "'");
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof PageToken && Arrays.equals(values, ((PageToken) o).values);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public String toString() {
+    return "PageToken" + Arrays.toString(values);
+  }
+
+}
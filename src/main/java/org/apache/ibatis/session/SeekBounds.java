@@ -0,0 +1,81 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset ("seek") pagination: selects the rows that come after the last row of the previous page in the order of
+ * the seek keys, instead of skipping an offset. The database can then start reading right at the page, however deep
+ * it is.
+ * <p>
+ * The statement is wrapped as <code>SELECT * FROM (statement) WHERE (keys) &gt; (last values) ORDER BY keys</code>
+ * and limited by the {@link org.apache.ibatis.dialect.Dialect} of the configuration, so the keys are column labels of
+ * the statement results, the statement must not be ordered itself, and the keys must identify a row
+ * (e.g. end with the primary key) and not be {@code null}.
+ *
+ * @since 3.5.2
+ * @see SqlSession#selectPage(String, Object, SeekBounds)
+ */
+public class SeekBounds extends RowBounds {
+
+  private final List<SeekKey> keys;
+  private final PageToken after;
+
+  /**
+   * Bounds of the first page.
+   */
+  public SeekBounds(int limit, SeekKey... keys) {
+    this(limit, null, keys);
+  }
+
+  /**
+   * @param after the token of the page to read, {@code null} for the first page
+   */
+  public SeekBounds(int limit, PageToken after, SeekKey... keys) {
+    super(NO_ROW_OFFSET, limit);
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The limit of seek bounds must be positive.");
+    }
+    if (keys == null || keys.length == 0) {
+      throw new IllegalArgumentException("Seek bounds need at least one key.");
+    }
+    if (after != null && after.size() != keys.length) {
+      throw new IllegalArgumentException("The page token has " + after.size() + " values but there are "
+          + keys.length + " seek keys.");
+    }
+    this.keys = Collections.unmodifiableList(Arrays.asList(keys.clone()));
+    this.after = after;
+  }
+
+  /**
+   * Returns the same bounds for the page the token points to.
+   */
+  public SeekBounds after(PageToken token) {
+    return new SeekBounds(getLimit(), token, keys.toArray(new SeekKey[0]));
+  }
+
+  public List<SeekKey> getKeys() {
+    return keys;
+  }
+
+  public PageToken getAfter() {
+    return after;
+  }
+
+}
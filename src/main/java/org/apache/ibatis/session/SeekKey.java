@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.regex.Pattern;
+
+/**
+ * A column that orders the rows of a {@link SeekBounds} page.
+ *
+ * @since 3.5.2
+ */
+public final class SeekKey {
+
+  /**
+   * The column is written into the SQL as it is, so only plain identifiers are accepted.
+   */
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+  private final String column;
+  private final String property;
+  private final boolean descending;
+
+  private SeekKey(String column, String property, boolean descending) {
+    if (column == null || column.isEmpty()) {
+      throw new IllegalArgumentException("The column of a seek key must not be empty.");
+    }
+    if (!IDENTIFIER.matcher(column).matches()) {
+      throw new IllegalArgumentException("The column '" + column + "' of a seek key is not a plain identifier.");
+    }
+    this.column = column;
+    this.property = property == null ? column : property;
+    this.descending = descending;
+  }
+
+  /**
+   * @param column the column label in the results of the statement, a plain identifier like {@code user_id}
+   */
+  public static SeekKey asc(String column) {
+    return new SeekKey(column, null, false);
+  }
+
+  /**
+   * @param column the column label in the results of the statement
+   * @param property the property of the result objects holding the value of the column
+   */
+  public static SeekKey asc(String column, String property) {
+    return new SeekKey(column, property, false);
+  }
+
+  public static SeekKey desc(String column) {
+    return new SeekKey(column, null, true);
+  }
+
+  public static SeekKey desc(String column, String property) {
+    return new SeekKey(column, property, true);
+  }
+
+  public String getColumn() {
+    return column;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public String toString() {
+    return column + (descending ? " DESC" : " ASC");
+  }
+
+}
@@ -0,0 +1,55 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * A select run with {@link SqlSession#selectAll(java.util.Map)}.
+ *
+ * @since 3.5.2
+ */
+public class SelectRequest {
+
+  private final String statement;
+  private final Object parameter;
+  private final RowBounds rowBounds;
+
+  public SelectRequest(String statement) {
+    this(statement, null, RowBounds.DEFAULT);
+  }
+
+  public SelectRequest(String statement, Object parameter) {
+    this(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  public SelectRequest(String statement, Object parameter, RowBounds rowBounds) {
+    this.statement = statement;
+    this.parameter = parameter;
+    this.rowBounds = rowBounds;
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public Object getParameter() {
+    return parameter;
+  }
+
+  public RowBounds getRowBounds() {
+    return rowBounds;
+  }
+
+}
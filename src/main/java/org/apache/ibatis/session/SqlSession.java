@@ -17,11 +17,13 @@ package org.apache.ibatis.session;
 
 import java.io.Closeable;
 import java.sql.Connection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.LocalCacheStatistics;
 
 /**
  * The primary Java interface for working with MyBatis.
@@ -96,6 +98,49 @@ public interface SqlSession extends Closeable {
    */
   <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Retrieve a page of mapped objects from the statement key and parameter, using keyset pagination.
+   * @param <E> the returned page element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param seekBounds Keys ordering the objects, size of the page and token of the previous page
+   * @return Page of mapped objects, with the token of the next page
+   * @since 3.5.2
+   */
+  <E> Page<E> selectPage(String statement, Object parameter, SeekBounds seekBounds);
+
+  /**
+   * Count the rows a select statement returns for the parameter, e.g. the total of a paged select.
+   * The database counts the rows with the SQL of the {@link org.apache.ibatis.dialect.Dialect} of the configuration.
+   * @param statement Unique identifier matching the select statement to count.
+   * @param parameter A parameter object to pass to the statement.
+   * @return the number of rows
+   * @since 3.5.2
+   */
+  long selectCount(String statement, Object parameter);
+
+  /**
+   * Run independent selects concurrently, each on its own connection, at most
+   * {@link Configuration#getSelectAllParallelism()} at a time.
+   * Each select has its own local cache and shares the second level caches with the other sessions, it does not see
+   * nor fill the local cache of this session. When this session has uncommitted changes, the selects are run one after
+   * the other by this session instead, so that they see the changes.
+   * The default implementation runs the selects one after the other with {@link #selectList(String, Object, RowBounds)},
+   * for the sessions that cannot open connections of their own.
+   * @param <K> the type of the keys naming the selects
+   * @param requests the selects, keyed by a name of the caller's choice
+   * @return the list of mapped objects of each select, keyed by the name of the select, in the order of the requests
+   * @since 3.5.2
+   */
+  default <K> Map<K, List<?>> selectAll(Map<K, SelectRequest> requests) {
+    Map<K, List<?>> results = new LinkedHashMap<>();
+    for (Map.Entry<K, SelectRequest> entry : requests.entrySet()) {
+      SelectRequest request = entry.getValue();
+      results.put(entry.getKey(), selectList(request.getStatement(), request.getParameter(), request.getRowBounds()));
+    }
+    return results;
+  }
+
   /**
    * The selectMap is a special case in that it is designed to convert a list
    * of results into a Map based on one of the properties in the resulting
@@ -281,6 +326,15 @@ public interface SqlSession extends Closeable {
    */
   void clearCache();
 
+  /**
+   * Retrieves the hit, miss and eviction counters of the local session cache.
+   * @return a snapshot of the counters, {@link LocalCacheStatistics#EMPTY} for sessions without a local cache
+   * @since 3.5.2
+   */
+  default LocalCacheStatistics getLocalCacheStatistics() {
+    return LocalCacheStatistics.EMPTY;
+  }
+
   /**
    * Retrieves current configuration.
    * @return Configuration
@@ -27,6 +27,7 @@ import java.util.Properties;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.LocalCacheStatistics;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
 /**
@@ -211,6 +212,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectList(statement, parameter, rowBounds);
   }
 
+  @Override
+  public <E> Page<E> selectPage(String statement, Object parameter, SeekBounds seekBounds) {
+    return sqlSessionProxy.selectPage(statement, parameter, seekBounds);
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    return sqlSessionProxy.selectCount(statement, parameter);
+  }
+
+  @Override
+  public <K> Map<K, List<?>> selectAll(Map<K, SelectRequest> requests) {
+    return sqlSessionProxy.selectAll(requests);
+  }
+
   @Override
   public void select(String statement, ResultHandler handler) {
     sqlSessionProxy.select(statement, handler);
@@ -279,6 +295,15 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     sqlSession.clearCache();
   }
 
+  @Override
+  public LocalCacheStatistics getLocalCacheStatistics() {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      throw new SqlSessionException("Error:  Cannot get the cache statistics.  No managed session is started.");
+    }
+    return sqlSession.getLocalCacheStatistics();
+  }
+
   @Override
   public void commit() {
     final SqlSession sqlSession = localSqlSession.get();
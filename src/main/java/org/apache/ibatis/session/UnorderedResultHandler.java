@@ -0,0 +1,26 @@
+/**
+ *    Copyright 2009-2018 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * A {@link ResultHandler} that accepts the rows in any order.
+ * When the rows are mapped in parallel (see {@link Configuration#getRowMappingParallelism()}) it receives each block
+ * of rows as soon as it is mapped instead of in the order of the result set. It is still called by one thread at a time.
+ *
+ * @since 3.5.2
+ */
+public interface UnorderedResultHandler<T> extends ResultHandler<T> {
+}
@@ -21,6 +21,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,12 +32,19 @@ import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.LocalCacheStatistics;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.PageToken;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SeekBounds;
+import org.apache.ibatis.session.SeekKey;
+import org.apache.ibatis.session.SelectRequest;
 import org.apache.ibatis.session.SqlSession;
 
 /**
@@ -171,6 +179,79 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public <E> Page<E> selectPage(String statement, Object parameter, SeekBounds seekBounds) {
+    List<E> items = selectList(statement, parameter, seekBounds);
+    if (items.size() < seekBounds.getLimit()) {
+      return new Page<>(items, null);
+    }
+    try {
+      return new Page<>(items, readPageToken(items.get(items.size() - 1), seekBounds.getKeys()));
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error reading the page token of " + statement + ".  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    try {
+      MappedStatement ms = configuration.getMappedStatement(statement);
+      List<Long> list = executor.query(ms.getCountStatement(), wrapCollection(parameter), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      return list.isEmpty() || list.get(0) == null ? 0 : list.get(0);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  @Override
+  public <K> Map<K, List<?>> selectAll(Map<K, SelectRequest> requests) {
+    int parallelism = Math.min(configuration.getSelectAllParallelism(), requests.size());
+    if (parallelism <= 1 || isCommitOrRollbackRequired(false)) {
+      // other connections would not see the uncommitted changes of this session
+      return SqlSession.super.selectAll(requests);
+    }
+    Map<K, List<?>> results = new LinkedHashMap<>();
+    try {
+      List<SelectRequest> wrapped = new ArrayList<>(requests.size());
+      for (SelectRequest request : requests.values()) {
+        wrapped.add(new SelectRequest(request.getStatement(), wrapCollection(request.getParameter()), request.getRowBounds()));
+      }
+      List<List<?>> lists = ParallelSelects.query(configuration, wrapped, parallelism);
+      int i = 0;
+      for (K key : requests.keySet()) {
+        results.put(key, lists.get(i++));
+      }
+      return results;
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  private PageToken readPageToken(Object lastItem, List<SeekKey> keys) {
+    Object[] values = new Object[keys.size()];
+    MetaObject metaItem = configuration.newMetaObject(lastItem);
+    for (int i = 0; i < values.length; i++) {
+      String property = keys.get(i).getProperty();
+      if (lastItem instanceof Map && !((Map<?, ?>) lastItem).containsKey(property)) {
+        // column labels of map results are in the case the driver returns them
+        for (Object key : ((Map<?, ?>) lastItem).keySet()) {
+          if (key instanceof String && property.equalsIgnoreCase((String) key)) {
+            property = (String) key;
+            break;
+          }
+        }
+      }
+      values[i] = metaItem.getValue(property);
+    }
+    return new PageToken(values);
+  }
+
   @Override
   public void select(String statement, Object parameter, ResultHandler handler) {
     select(statement, parameter, RowBounds.DEFAULT, handler);
@@ -324,6 +405,11 @@ public class DefaultSqlSession implements SqlSession {
     executor.clearLocalCache();
   }
 
+  @Override
+  public LocalCacheStatistics getLocalCacheStatistics() {
+    return executor.getLocalCacheStatistics();
+  }
+
   private <T> void registerCursor(Cursor<T> cursor) {
     if (cursorList == null) {
       cursorList = new ArrayList<>();
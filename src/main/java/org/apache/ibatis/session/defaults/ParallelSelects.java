@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SelectRequest;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Runs the selects of {@link DefaultSqlSession#selectAll} concurrently, each on a new connection.
+ *
+ * @since 3.5.2
+ */
+final class ParallelSelects {
+
+  private ParallelSelects() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Runs the selects, at most <code>parallelism</code> at a time.
+   *
+   * @return the results of the selects, in the order of the requests
+   */
+  static List<List<?>> query(Configuration configuration, List<SelectRequest> requests, int parallelism) throws SQLException {
+    List<List<?>> results = new ArrayList<>(requests.size());
+    List<Future<List<?>>> futures = new ArrayList<>(requests.size());
+    CompletionService<List<?>> completionService = new ExecutorCompletionService<>(configuration.getParallelQueryExecutor());
+    int running = 0;
+    try {
+      for (SelectRequest request : requests) {
+        if (running == parallelism) {
+          completionService.take().get();
+          running--;
+        }
+        futures.add(completionService.submit(() -> queryOnNewConnection(configuration, request)));
+        running++;
+      }
+      for (Future<List<?>> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      cancel(futures);
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for the selects.  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      cancel(futures);
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error executing a select.  Cause: " + cause, cause);
+    }
+    return results;
+  }
+
+  private static List<?> queryOnNewConnection(Configuration configuration, SelectRequest request) throws SQLException {
+    MappedStatement ms = configuration.getMappedStatement(request.getStatement());
+    Environment environment = configuration.getEnvironment();
+    Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    // wrapped by a CachingExecutor when the cache is enabled, so the second level caches are shared
+    Executor executor = configuration.newExecutor(tx, ExecutorType.SIMPLE);
+    // the pool runs the select on the calling thread when all its threads are busy, whose context must be kept
+    ErrorContext.instance().store();
+    try {
+      return executor.query(ms, request.getParameter(), request.getRowBounds(), Executor.NO_RESULT_HANDLER);
+    } finally {
+      executor.close(false);
+      ErrorContext.instance().recall();
+    }
+  }
+
+  private static void cancel(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+}
@@ -86,6 +86,40 @@ public interface Transaction {
    */
   Connection getConnection() throws SQLException;
 
+  /**
+   * Retrieve the connection selects routed to a read replica run on.
+   * Transactions that know nothing about replicas return the connection of {@link #getConnection()}.
+   * @return DataBase connection for reads
+   * @throws SQLException
+   * @since 3.5.2
+   */
+  default Connection getReplicaConnection() throws SQLException {
+    return getConnection();
+  }
+
+  /**
+   * Tells whether the transaction commits each statement on its own. Selects are only routed to a read replica by
+   * default outside of a transaction, where they cannot miss changes the transaction has not committed yet.
+   * Transactions that do not know return {@code false}.
+   * @return whether the transaction is in autocommit mode
+   * @since 3.5.2
+   */
+  default boolean isAutoCommit() {
+    return false;
+  }
+
+  /**
+   * Retrieve the connection statements routed to a shard run on.
+   * Transactions that know nothing about shards return the connection of {@link #getConnection()}.
+   * @param shard the index of the shard
+   * @return DataBase connection to the shard
+   * @throws SQLException
+   * @since 3.5.2
+   */
+  default Connection getShardConnection(int shard) throws SQLException {
+    return getConnection();
+  }
+
   /**
    * Commit inner database connection.
    * @throws SQLException
@@ -19,6 +19,8 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import javax.sql.DataSource;
 
+import org.apache.ibatis.datasource.routing.ReadWriteDataSource;
+import org.apache.ibatis.datasource.sharding.ShardedDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.session.TransactionIsolationLevel;
@@ -30,6 +32,11 @@ import org.apache.ibatis.transaction.TransactionException;
  * It relies on the connection retrieved from the dataSource to manage the scope of the transaction.
  * Delays connection retrieval until getConnection() is called.
  * Ignores commit or rollback requests when autocommit is on.
+ * The autocommit mode of the connection is tracked once it is known, so it must not be changed directly on the connection.
+ * When the dataSource is a {@link ReadWriteDataSource}, selects routed to a replica run on a second, autocommit connection
+ * that is opened on first use and closed together with the main one; they run on the main one while no replica is healthy.
+ * When the dataSource is a {@link ShardedDataSource}, the main connection is the one to the first shard and the other
+ * shards get their own connection, opened on first use and committed, rolled back and closed one after the other.
  *
  * @author Clinton Begin
  *
@@ -41,17 +48,35 @@ public class JdbcTransaction implements Transaction {
 
   /** 数据库连接 */
   protected Connection connection;
+  /** 从库连接，只用于读，数据源是 ReadWriteDataSource 时第一次读从库才打开 */
+  protected Connection replicaConnection;
+  /** 分片连接，下标是分片号，0 号分片就是 connection；数据源是 ShardedDataSource 时第一次用到才打开 */
+  protected Connection[] shardConnections;
   /** 数据源 */
   protected DataSource dataSource;
   /** 隔离级别 */
   protected TransactionIsolationLevel level;
   /** 是否自动提交 */
   protected boolean autoCommit;
+  /** 连接当前的自动提交状态，null 表示还不知道；commit、rollback 和 close 时不用再向数据库查询 */
+  private Boolean connectionAutoCommit;
+  /** 关闭时不把自动提交恢复为 true，连接池归还连接时会回滚，下一个使用者按需设置 */
+  private boolean skipSetAutoCommitOnClose;
 
   public JdbcTransaction(DataSource ds, TransactionIsolationLevel desiredLevel, boolean desiredAutoCommit) {
+    this(ds, desiredLevel, desiredAutoCommit, false);
+  }
+
+  /**
+   * @param skipSetAutoCommitOnClose whether to leave the autocommit mode as it is on close, which saves a round trip
+   *     when the data source rolls back the connections it gets back, like the POOLED one does
+   * @since 3.5.2
+   */
+  public JdbcTransaction(DataSource ds, TransactionIsolationLevel desiredLevel, boolean desiredAutoCommit, boolean skipSetAutoCommitOnClose) {
     dataSource = ds;
     level = desiredLevel;
     autoCommit = desiredAutoCommit;
+    this.skipSetAutoCommitOnClose = skipSetAutoCommitOnClose;
   }
 
   public JdbcTransaction(Connection connection) {
@@ -66,17 +91,57 @@ public class JdbcTransaction implements Transaction {
     return connection;
   }
 
+  @Override
+  public Connection getReplicaConnection() throws SQLException {
+    if (!(dataSource instanceof ReadWriteDataSource)) {
+      return getConnection();
+    }
+    if (replicaConnection == null) {
+      openReplicaConnection();
+    }
+    return replicaConnection != null ? replicaConnection : getConnection();
+  }
+
+  @Override
+  public boolean isAutoCommit() {
+    return autoCommit;
+  }
+
+  @Override
+  public Connection getShardConnection(int shard) throws SQLException {
+    if (shard == 0 || !(dataSource instanceof ShardedDataSource)) {
+      return getConnection();
+    }
+    if (shardConnections == null) {
+      shardConnections = new Connection[((ShardedDataSource) dataSource).getShardCount()];
+    }
+    if (shardConnections[shard] == null) {
+      openShardConnection(shard);
+    }
+    return shardConnections[shard];
+  }
+
   /**
    * 调用connection.commit()来实现
    */
   @Override
   public void commit() throws SQLException {
-    if (connection != null && !connection.getAutoCommit()) {
+    if (connection != null && !isConnectionAutoCommit()) {
       if (log.isDebugEnabled()) {
         log.debug("Committing JDBC Connection [" + connection + "]");
       }
       connection.commit();
     }
+    if (shardConnections != null && !autoCommit) {
+      for (Connection shardConnection : shardConnections) {
+        if (shardConnection != null) {
+          if (log.isDebugEnabled()) {
+            log.debug("Committing JDBC shard Connection [" + shardConnection + "]");
+          }
+          shardConnection.commit();
+        }
+      }
+    }
   }
 
   /**
@@ -84,12 +149,22 @@ public class JdbcTransaction implements Transaction {
    */
   @Override
   public void rollback() throws SQLException {
-    if (connection != null && !connection.getAutoCommit()) {
+    if (connection != null && !isConnectionAutoCommit()) {
       if (log.isDebugEnabled()) {
         log.debug("Rolling back JDBC Connection [" + connection + "]");
       }
       connection.rollback();
     }
+    if (shardConnections != null && !autoCommit) {
+      for (Connection shardConnection : shardConnections) {
+        if (shardConnection != null) {
+          if (log.isDebugEnabled()) {
+            log.debug("Rolling back JDBC shard Connection [" + shardConnection + "]");
+          }
+          shardConnection.rollback();
+        }
+      }
+    }
   }
 
   /**
@@ -97,8 +172,27 @@ public class JdbcTransaction implements Transaction {
    */
   @Override
   public void close() throws SQLException {
+    if (shardConnections != null) {
+      Connection[] shards = shardConnections;
+      shardConnections = null;
+      for (Connection shardConnection : shards) {
+        if (shardConnection != null) {
+          closeShardConnection(shardConnection);
+        }
+      }
+    }
+    if (replicaConnection != null) {
+      if (log.isDebugEnabled()) {
+        log.debug("Closing JDBC replica Connection [" + replicaConnection + "]");
+      }
+      Connection replica = replicaConnection;
+      replicaConnection = null;
+      replica.close();
+    }
     if (connection != null) {
-      resetAutoCommit();
+      if (!skipSetAutoCommitOnClose) {
+        resetAutoCommit();
+      }
       if (log.isDebugEnabled()) {
         log.debug("Closing JDBC Connection [" + connection + "]");
       }
@@ -109,11 +203,13 @@ public class JdbcTransaction implements Transaction {
   protected void setDesiredAutoCommit(boolean desiredAutoCommit) {
     try {
       /* 事务提交状态不一致 */
-      if (connection.getAutoCommit() != desiredAutoCommit) {
+      if (isConnectionAutoCommit() != desiredAutoCommit) {
         if (log.isDebugEnabled()) {
           log.debug("Setting autocommit to " + desiredAutoCommit + " on JDBC Connection [" + connection + "]");
         }
+        connectionAutoCommit = null;
         connection.setAutoCommit(desiredAutoCommit);
+        connectionAutoCommit = desiredAutoCommit;
       }
     } catch (SQLException e) {
       // Only a very poorly implemented driver would fail here,
@@ -126,7 +222,7 @@ public class JdbcTransaction implements Transaction {
 
   protected void resetAutoCommit() {
     try {
-      if (!connection.getAutoCommit()) {
+      if (!isConnectionAutoCommit()) {
         // MyBatis does not call commit/rollback on a connection if just selects were performed.
         // Some databases start transactions with select statements
         // and they mandate a commit/rollback before closing the connection.
@@ -135,7 +231,9 @@ public class JdbcTransaction implements Transaction {
         if (log.isDebugEnabled()) {
           log.debug("Resetting autocommit to true on JDBC Connection [" + connection + "]");
         }
+        connectionAutoCommit = null;
         connection.setAutoCommit(true);
+        connectionAutoCommit = true;
       }
     } catch (SQLException e) {
       if (log.isDebugEnabled()) {
@@ -145,6 +243,13 @@ public class JdbcTransaction implements Transaction {
     }
   }
 
+  private boolean isConnectionAutoCommit() throws SQLException {
+    if (connectionAutoCommit == null) {
+      connectionAutoCommit = connection.getAutoCommit();
+    }
+    return connectionAutoCommit;
+  }
+
   protected void openConnection() throws SQLException {
     if (log.isDebugEnabled()) {
       log.debug("Opening JDBC Connection");
@@ -156,6 +261,64 @@ public class JdbcTransaction implements Transaction {
     setDesiredAutoCommit(autoCommit);
   }
 
+  protected void openReplicaConnection() throws SQLException {
+    if (log.isDebugEnabled()) {
+      log.debug("Opening JDBC replica Connection");
+    }
+    Connection replica = ((ReadWriteDataSource) dataSource).getReplicaConnection();
+    if (replica == null) {
+      return;
+    }
+    try {
+      if (level != null) {
+        replica.setTransactionIsolation(level.getLevel());
+      }
+      // reads on a replica are never committed, so they must not hold a transaction open
+      if (!replica.getAutoCommit()) {
+        replica.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      replica.close();
+      throw e;
+    }
+    replicaConnection = replica;
+  }
+
+  protected void openShardConnection(int shard) throws SQLException {
+    if (log.isDebugEnabled()) {
+      log.debug("Opening JDBC Connection to shard " + shard);
+    }
+    Connection shardConnection = ((ShardedDataSource) dataSource).getConnection(shard);
+    try {
+      if (level != null) {
+        shardConnection.setTransactionIsolation(level.getLevel());
+      }
+      if (shardConnection.getAutoCommit() != autoCommit) {
+        shardConnection.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      shardConnection.close();
+      throw e;
+    }
+    shardConnections[shard] = shardConnection;
+  }
+
+  private void closeShardConnection(Connection shardConnection) throws SQLException {
+    if (!skipSetAutoCommitOnClose && !autoCommit) {
+      try {
+        shardConnection.setAutoCommit(true);
+      } catch (SQLException e) {
+        if (log.isDebugEnabled()) {
+          log.debug("Error resetting autocommit to true before closing the shard connection.  Cause: " + e);
+        }
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Closing JDBC shard Connection [" + shardConnection + "]");
+    }
+    shardConnection.close();
+  }
+
   @Override
   public Integer getTimeout() throws SQLException {
     return null;
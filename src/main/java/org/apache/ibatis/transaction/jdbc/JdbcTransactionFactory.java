@@ -33,8 +33,16 @@ import org.apache.ibatis.transaction.TransactionFactory;
  */
 public class JdbcTransactionFactory implements TransactionFactory {
 
+  private boolean skipSetAutoCommitOnClose;
+
   @Override
   public void setProperties(Properties props) {
+    if (props != null) {
+      String skipSetAutoCommitOnCloseProperty = props.getProperty("skipSetAutoCommitOnClose");
+      if (skipSetAutoCommitOnCloseProperty != null) {
+        skipSetAutoCommitOnClose = Boolean.valueOf(skipSetAutoCommitOnCloseProperty);
+      }
+    }
   }
 
   @Override
@@ -44,6 +52,6 @@ public class JdbcTransactionFactory implements TransactionFactory {
 
   @Override
   public Transaction newTransaction(DataSource ds, TransactionIsolationLevel level, boolean autoCommit) {
-    return new JdbcTransaction(ds, level, autoCommit);
+    return new JdbcTransaction(ds, level, autoCommit, skipSetAutoCommitOnClose);
   }
 }
@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_refresh;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.decorators.KeyTrackingCache;
+import org.apache.ibatis.cache.decorators.RefreshingCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheRefreshTest {
+
+  private static final long TIME_TO_LIVE = 300;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_refresh/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void resetDatabaseAndCaches() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_refresh/CreateDB.sql");
+    sqlSessionFactory.getConfiguration().getCache(ExpiringMapper.class.getName()).clear();
+    sqlSessionFactory.getConfiguration().getCache(RefreshingMapper.class.getName()).clear();
+  }
+
+  @Test
+  void shouldExpireEntriesAfterTheirTimeToLive() throws Exception {
+    assertThat(userName(ExpiringMapper.class, 1)).isEqualTo("User1");
+    updateBehindMyBatis("update users set name = 'Changed' where id = 1");
+    assertThat(userName(ExpiringMapper.class, 1)).isEqualTo("User1");
+    Thread.sleep(TIME_TO_LIVE + 100);
+    assertThat(userName(ExpiringMapper.class, 1)).isEqualTo("Changed");
+  }
+
+  @Test
+  void shouldServeStaleEntriesWhileReloadingThem() throws Exception {
+    assertThat(userName(RefreshingMapper.class, 1)).isEqualTo("User1");
+    updateBehindMyBatis("update users set name = 'Changed' where id = 1");
+    Thread.sleep(TIME_TO_LIVE + 100);
+    assertThat(userName(RefreshingMapper.class, 1)).isEqualTo("User1");
+    assertThat(awaitValue(() -> userName(RefreshingMapper.class, 1), "Changed")).isTrue();
+  }
+
+  @Test
+  void shouldReloadWithTheValuesTheEntryWasBuiltFrom() throws Exception {
+    UserId userId = new UserId(1);
+    assertThat(userNameOf(RefreshingMapper.class, userId)).isEqualTo("User1");
+    userId.setId(2);
+    updateBehindMyBatis("update users set name = 'Changed' where id = 1");
+    Thread.sleep(TIME_TO_LIVE + 100);
+    UserId sameKey = new UserId(1);
+    assertThat(userNameOf(RefreshingMapper.class, sameKey)).isEqualTo("User1");
+    assertThat(awaitValue(() -> userNameOf(RefreshingMapper.class, sameKey), "Changed")).isTrue();
+  }
+
+  @Test
+  void shouldReloadStatementsWithGeneratedParameters() throws Exception {
+    List<Integer> ids = Arrays.asList(1, 3);
+    assertThat(userNames(RefreshingMapper.class, ids)).containsExactly("User1", "User3");
+    updateBehindMyBatis("update users set name = 'Changed' where id = 3");
+    Thread.sleep(TIME_TO_LIVE + 100);
+    userNames(RefreshingMapper.class, ids);
+    assertThat(awaitValue(() -> userNames(RefreshingMapper.class, ids),
+        Arrays.asList("User1", "Changed"))).isTrue();
+  }
+
+  @Test
+  void shouldNotKeepTheParameterObjectAlive() throws Exception {
+    UserId userId = new UserId(1);
+    WeakReference<UserId> reference = new WeakReference<>(userId);
+    assertThat(userNameOf(RefreshingMapper.class, userId)).isEqualTo("User1");
+    userId = null;
+    for (int i = 0; i < 10 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertThat(reference.get()).isNull();
+  }
+
+  @Test
+  void shouldForgetKeysEvictedByTheCache() {
+    for (int id = 1; id <= 4; id++) {
+      userName(ExpiringMapper.class, id);
+    }
+    RefreshingCache refreshingCache = KeyTrackingCache.find(
+        sqlSessionFactory.getConfiguration().getCache(ExpiringMapper.class.getName()), RefreshingCache.class);
+    assertThat(refreshingCache.getTrackedSize()).isEqualTo(2);
+  }
+
+  private String userName(Class<? extends ExpiringMapper> type, int id) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(type).getUserName(id);
+    }
+  }
+
+  private String userNameOf(Class<? extends ExpiringMapper> type, UserId userId) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(type).getUserNameOf(userId);
+    }
+  }
+
+  private List<String> userNames(Class<? extends ExpiringMapper> type, List<Integer> ids) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(type).getUserNames(ids);
+    }
+  }
+
+  private static boolean awaitValue(Supplier<Object> read, Object expected) throws InterruptedException {
+    for (int i = 0; i < 50; i++) {
+      if (expected.equals(read.get())) {
+        return true;
+      }
+      Thread.sleep(100);
+    }
+    return false;
+  }
+
+  private void updateBehindMyBatis(String sql) throws Exception {
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.executeUpdate(sql);
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.connection_state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionStateTest {
+
+  private CountingDataSource counting;
+  private PooledDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    counting = new CountingDataSource("jdbc:hsqldb:mem:connection_state");
+    dataSource = new PooledDataSource(counting);
+    // a pool created around a data source only accepts its connections back once it has been reset
+    dataSource.forceCloseAll();
+    BaseDataTest.runScript(dataSource, "org/apache/ibatis/submitted/connection_state/CreateDB.sql");
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldMakeNoStateRoundTripsInAShortTransaction() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(true);
+    runTransaction(sqlSessionFactory);
+    counting.resetCalls();
+
+    runTransaction(sqlSessionFactory);
+
+    assertThat(counting.getStateCalls()).isZero();
+  }
+
+  @Test
+  void shouldNotAskTheDriverForTheAutoCommitMode() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(false);
+    runTransaction(sqlSessionFactory);
+    counting.resetCalls();
+
+    runTransaction(sqlSessionFactory);
+
+    assertThat(counting.getCalls("getAutoCommit")).isZero();
+    // set to false when opened and back to true when closed
+    assertThat(counting.getCalls("setAutoCommit")).isEqualTo(2);
+  }
+
+  @Test
+  void shouldSkipSettersCalledWithTheCurrentValue() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      // only the first read asks the driver
+      boolean autoCommit = connection.getAutoCommit();
+      boolean readOnly = connection.isReadOnly();
+      int isolation = connection.getTransactionIsolation();
+      counting.resetCalls();
+      connection.setAutoCommit(autoCommit);
+      connection.setReadOnly(readOnly);
+      connection.setTransactionIsolation(isolation);
+      assertThat(connection.getAutoCommit()).isEqualTo(autoCommit);
+      assertThat(counting.getStateCalls()).isZero();
+
+      connection.setReadOnly(true);
+      assertThat(counting.getCalls("setReadOnly")).isEqualTo(1);
+      assertThat(connection.isReadOnly()).isTrue();
+      assertThat(counting.getCalls("isReadOnly")).isZero();
+    }
+  }
+
+  @Test
+  void shouldRestoreTheIsolationAndReadOnlyModesOnReturn() throws Exception {
+    int isolation;
+    try (Connection connection = dataSource.getConnection()) {
+      isolation = connection.getTransactionIsolation();
+      connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+      connection.setReadOnly(true);
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      Connection real = PooledDataSource.unwrapConnection(connection);
+      assertThat(real.getTransactionIsolation()).isEqualTo(isolation);
+      assertThat(real.isReadOnly()).isFalse();
+      assertThat(connection.getTransactionIsolation()).isEqualTo(isolation);
+    }
+  }
+
+  @Test
+  void shouldNotRestoreModesThatDidNotChange() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.createStatement().close();
+    }
+    counting.resetCalls();
+    try (Connection connection = dataSource.getConnection()) {
+      connection.createStatement().close();
+    }
+    assertThat(counting.getStateCalls()).isZero();
+  }
+
+  @Test
+  void shouldRestoreTheIsolationOfASessionOnReturn() throws Exception {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(true);
+    int isolation;
+    try (Connection connection = dataSource.getConnection()) {
+      isolation = connection.getTransactionIsolation();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(TransactionIsolationLevel.SERIALIZABLE)) {
+      assertThat(sqlSession.getConnection().getTransactionIsolation()).isEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+      sqlSession.getMapper(Mapper.class).getUserName(1);
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(PooledDataSource.unwrapConnection(connection).getTransactionIsolation()).isEqualTo(isolation);
+    }
+  }
+
+  private SqlSessionFactory newSqlSessionFactory(boolean skipSetAutoCommitOnClose) {
+    JdbcTransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Properties properties = new Properties();
+    properties.setProperty("skipSetAutoCommitOnClose", String.valueOf(skipSetAutoCommitOnClose));
+    transactionFactory.setProperties(properties);
+    Configuration configuration = new Configuration(new Environment("test", transactionFactory, dataSource));
+    configuration.addMapper(Mapper.class);
+    return new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  private static void runTransaction(SqlSessionFactory sqlSessionFactory) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserName(1)).isEqualTo("User1");
+      assertThat(mapper.updateUserName(2, "User2")).isEqualTo(1);
+      sqlSession.commit();
+    }
+  }
+
+}
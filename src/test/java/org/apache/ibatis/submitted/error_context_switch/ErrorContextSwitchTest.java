@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.error_context_switch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ErrorContextSwitchTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.error_context_switch.Mapper.";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/error_context_switch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/error_context_switch/CreateDB.sql");
+  }
+
+  @AfterEach
+  void enableErrorContext() {
+    ErrorContext.setEnabled(true);
+  }
+
+  @Test
+  void shouldDescribeErrorsWithTheContextByDefault() {
+    assertThat(ErrorContext.isEnabled()).isTrue();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThatThrownBy(() -> sqlSession.selectOne(NAMESPACE + "getUserNameFromMissingTable", 1))
+          .isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("### The error may exist in org/apache/ibatis/submitted/error_context_switch/Mapper.xml")
+          .hasMessageContaining("### SQL: select name from missing_users where id = ?")
+          .hasMessageContaining("### Cause: ");
+    }
+  }
+
+  @Test
+  void shouldOnlyReportTheMessageAndCauseWhenDisabled() {
+    ErrorContext.setEnabled(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThatThrownBy(() -> sqlSession.selectOne(NAMESPACE + "getUserNameFromMissingTable", 1))
+          .isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("### Error querying database.")
+          .hasMessageContaining("### Cause: ")
+          .hasMessageNotContaining("### The error may exist in")
+          .hasMessageNotContaining("### SQL:");
+      assertThat(sqlSession.<String>selectOne(NAMESPACE + "getUserName", 1)).isEqualTo("User1");
+    }
+  }
+
+  @Test
+  void shouldNotKeepTheContextOfAThreadOnceReset() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectOne(NAMESPACE + "getUserName", 1);
+    }
+    ErrorContext context = ErrorContext.instance();
+    assertThat(context.toString()).isEmpty();
+    context.reset();
+    assertThat(ErrorContext.instance()).isNotSameAs(context);
+  }
+
+  @Test
+  void shouldHandOverAConnectionToAWaitingThread() throws Exception {
+    PooledDataSource dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:error_context_switch", "sa", "");
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolTimeToWait(10000);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      Future<Boolean> waiting;
+      try (Connection connection = dataSource.getConnection()) {
+        waiting = executor.submit(() -> {
+          started.countDown();
+          try (Connection other = dataSource.getConnection()) {
+            return other.isValid(1);
+          }
+        });
+        started.await();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataSource.getPoolState().getHadToWaitCount() == 0 && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+        assertThat(dataSource.getPoolState().getHadToWaitCount()).isEqualTo(1);
+      }
+      assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdownNow();
+      dataSource.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldServeManyConcurrentSessionsFromASmallPool() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(32);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 500; i++) {
+        int id = i % 2 + 1;
+        results.add(executor.submit(() -> {
+          try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.selectOne(NAMESPACE + "getUserName", id);
+          }
+        }));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertThat(results.get(i).get(30, TimeUnit.SECONDS)).isEqualTo("User" + (i % 2 + 1));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    assertThat(dataSource.getPoolState().getActiveConnectionCount()).isZero();
+  }
+
+}
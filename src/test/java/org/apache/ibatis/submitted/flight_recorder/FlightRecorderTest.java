@@ -0,0 +1,154 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.flight_recorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jfr.JfrEvents;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FlightRecorderTest {
+
+  private static final String STATEMENT = "org.apache.ibatis.submitted.flight_recorder.Mapper.getUserNames";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/flight_recorder/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/flight_recorder/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clearCache() {
+    sqlSessionFactory.getConfiguration().getCache("org.apache.ibatis.submitted.flight_recorder.Mapper").clear();
+  }
+
+  @Test
+  void shouldNotEmitEventsWithoutRecording() {
+    assertThat(JfrEvents.isQueryEnabled()).isFalse();
+    assertThat(JfrEvents.isCacheAccessEnabled()).isFalse();
+    assertThat(JfrEvents.beginQuery()).isNull();
+    assertThat(JfrEvents.beginCheckout()).isNull();
+  }
+
+  @Test
+  void shouldRecordQueries() throws Exception {
+    List<RecordedEvent> events = record("org.apache.ibatis.Query", this::selectTwice);
+
+    assertThat(events).hasSize(1);
+    RecordedEvent event = events.get(0);
+    assertThat(event.getString("statementId")).isEqualTo(STATEMENT);
+    assertThat(event.getInt("sqlHash")).isEqualTo(sqlOf(STATEMENT).hashCode());
+    assertThat(event.getLong("rows")).isEqualTo(2);
+    assertThat(event.getLong("executeTime")).isPositive();
+    assertThat(event.getBoolean("failed")).isFalse();
+  }
+
+  @Test
+  void shouldRecordFailedQueries() throws Exception {
+    List<RecordedEvent> events = record("org.apache.ibatis.Query", () -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        assertThatThrownBy(() -> sqlSession.selectList("org.apache.ibatis.submitted.flight_recorder.Mapper.getUserIdsDividedBy", 0))
+            .isInstanceOf(PersistenceException.class);
+      }
+    });
+
+    assertThat(events).hasSize(1);
+    RecordedEvent event = events.get(0);
+    assertThat(event.getString("statementId")).isEqualTo("org.apache.ibatis.submitted.flight_recorder.Mapper.getUserIdsDividedBy");
+    assertThat(event.getLong("rows")).isEqualTo(-1);
+    assertThat(event.getBoolean("failed")).isTrue();
+  }
+
+  @Test
+  void shouldRecordCacheAccesses() throws Exception {
+    List<RecordedEvent> events = record("org.apache.ibatis.CacheAccess", this::selectTwice);
+
+    assertThat(events).hasSize(2);
+    assertThat(events).allSatisfy(event -> {
+      assertThat(event.getString("cacheId")).isEqualTo("org.apache.ibatis.submitted.flight_recorder.Mapper");
+      assertThat(event.getString("statementId")).isEqualTo(STATEMENT);
+    });
+    assertThat(events.stream().map(event -> event.getBoolean("hit")).collect(Collectors.toList()))
+        .containsExactly(false, true);
+  }
+
+  @Test
+  void shouldRecordConnectionCheckouts() throws Exception {
+    List<RecordedEvent> events = record("org.apache.ibatis.ConnectionCheckout", this::selectTwice);
+
+    assertThat(events).hasSize(1);
+    RecordedEvent event = events.get(0);
+    assertThat(event.getString("url")).isEqualTo("jdbc:hsqldb:mem:flight_recorder");
+    assertThat(event.getBoolean("hadToWait")).isFalse();
+    assertThat(event.getInt("badConnections")).isZero();
+  }
+
+  private void selectTwice() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.<String>selectList(STATEMENT)).containsExactly("User1", "User2");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.<String>selectList(STATEMENT)).containsExactly("User1", "User2");
+    }
+  }
+
+  private static String sqlOf(String statement) {
+    return sqlSessionFactory.getConfiguration().getMappedStatement(statement).getBoundSql(null).getSql();
+  }
+
+  private static List<RecordedEvent> record(String eventName, Runnable work) throws Exception {
+    Path file = Files.createTempFile("flight_recorder", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable(eventName).withoutThreshold().withoutStackTrace();
+        recording.start();
+        work.run();
+        recording.stop();
+        recording.dump(file);
+      }
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals(eventName))
+          .collect(Collectors.toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.foreach_array;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ForEachArrayTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/foreach_array/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/foreach_array/CreateDB.sql");
+  }
+
+  @Test
+  void shouldBindTheCollectionAsOneArray() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNames(Arrays.asList(1, 3, 4))).containsExactly("User1", "User3", "User4");
+      assertThat(mapper.getUserNames(Collections.singletonList(2))).containsExactly("User2");
+    }
+  }
+
+  @Test
+  void shouldAcceptTheItemAsBody() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUserNamesWithItem(Arrays.asList(2, 3)))
+          .containsExactly("User2", "User3");
+    }
+  }
+
+  @Test
+  void shouldWriteOnePlaceholderWhateverTheSize() {
+    SqlSource sqlSource = createSqlSource(
+        "<script>select name from users where id in <foreach collection='list' mode='array' open='(unnest(' close='))'/></script>");
+    BoundSql two = sqlSource.getBoundSql(list(1, 2));
+    BoundSql three = sqlSource.getBoundSql(list(1, 2, 3));
+    assertThat(two.getSql()).isEqualTo(three.getSql());
+    assertThat(two.getParameterMappings()).hasSize(1);
+  }
+
+  @Test
+  void shouldRejectBodyReadingPropertiesOfTheItem() {
+    assertThatThrownBy(() -> createSqlSource(
+        "<script>select * from users where id in <foreach collection='list' item='user' mode='array' open='(unnest(' close='))'>#{user.id}</foreach></script>"))
+        .isInstanceOf(BuilderException.class)
+        .hasMessageContaining("#{user.id}")
+        .hasMessageContaining("leave only #{user}");
+  }
+
+  @Test
+  void shouldRejectBodyUsingAnotherVariable() {
+    assertThatThrownBy(() -> createSqlSource(
+        "<script>select * from users where id in <foreach collection='list' index='i' item='id' mode='array' open='(unnest(' close='))'>#{i}</foreach></script>"))
+        .isInstanceOf(BuilderException.class);
+  }
+
+  @Test
+  void shouldRejectBodyWithoutItem() {
+    assertThatThrownBy(() -> createSqlSource(
+        "<script>select * from users where id in <foreach collection='list' mode='array' open='(unnest(' close='))'>#{id}</foreach></script>"))
+        .isInstanceOf(BuilderException.class)
+        .hasMessageContaining("leave only #{item}");
+  }
+
+  @Test
+  void shouldRejectNestedElements() {
+    assertThatThrownBy(() -> createSqlSource(
+        "<script>select * from users where id in <foreach collection='list' item='id' mode='array' open='(unnest(' close='))'><if test='id != null'>#{id}</if></foreach></script>"))
+        .isInstanceOf(BuilderException.class)
+        .hasMessageContaining("<if>");
+  }
+
+  @Test
+  void shouldKeepBodiesOfItemsMode() {
+    SqlSource sqlSource = createSqlSource(
+        "<script>select * from users where id in <foreach collection='list' item='id' open='(' separator=',' close=')'>#{id} + 0</foreach></script>");
+    assertThat(sqlSource.getBoundSql(list(1, 2)).getParameterMappings()).hasSize(2);
+  }
+
+  private static Map<String, Object> list(Integer... ids) {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("list", Arrays.asList(ids));
+    return parameter;
+  }
+
+  private SqlSource createSqlSource(String script) {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    return new XMLLanguageDriver().createSqlSource(configuration, script, Object.class);
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.foreach_padding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ForEachPaddingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/foreach_padding/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/foreach_padding/CreateDB.sql");
+  }
+
+  @Test
+  void shouldPadToTheNextPowerOfTwo() {
+    SqlSource sqlSource = createSqlSource("pow2");
+    assertThat(placeholders(sqlSource, 1)).isEqualTo(1);
+    assertThat(placeholders(sqlSource, 2)).isEqualTo(2);
+    assertThat(placeholders(sqlSource, 3)).isEqualTo(4);
+    assertThat(placeholders(sqlSource, 5)).isEqualTo(8);
+    assertThat(placeholders(sqlSource, 8)).isEqualTo(8);
+  }
+
+  @Test
+  void shouldPadToTheSmallestBucket() {
+    SqlSource sqlSource = createSqlSource("50, 10");
+    assertThat(placeholders(sqlSource, 3)).isEqualTo(10);
+    assertThat(placeholders(sqlSource, 10)).isEqualTo(10);
+    assertThat(placeholders(sqlSource, 11)).isEqualTo(50);
+    assertThat(placeholders(sqlSource, 60)).isEqualTo(60);
+  }
+
+  @Test
+  void shouldShareTheSqlOfCollectionsInTheSameBucket() {
+    SqlSource sqlSource = createSqlSource("pow2");
+    BoundSql three = sqlSource.getBoundSql(list(3));
+    BoundSql four = sqlSource.getBoundSql(list(4));
+    assertThat(three.getSql()).isEqualTo(four.getSql());
+    assertThat(sqlSource.getBoundSql(list(5)).getSql()).isNotEqualTo(four.getSql());
+  }
+
+  @Test
+  void shouldRepeatTheLastElement() {
+    SqlSource sqlSource = createSqlSource("pow2");
+    BoundSql boundSql = sqlSource.getBoundSql(list(3));
+    List<Object> values = new ArrayList<>();
+    boundSql.getParameterMappings().forEach(mapping -> values.add(boundSql.getAdditionalParameter(mapping.getProperty())));
+    assertThat(values).containsExactly(1, 2, 3, 3);
+  }
+
+  @Test
+  void shouldNotWriteAnythingForAnEmptyCollection() {
+    SqlSource sqlSource = createSqlSource("pow2");
+    assertThat(placeholders(sqlSource, 0)).isZero();
+  }
+
+  @Test
+  void shouldReturnTheSameRowsAsWithoutPadding() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNames(Arrays.asList(1, 2, 5))).containsExactly("User1", "User2", "User5");
+      assertThat(mapper.getUserNames(Arrays.asList(4))).containsExactly("User4");
+    }
+  }
+
+  @Test
+  void shouldPadMapEntries() {
+    Map<String, Integer> ids = new LinkedHashMap<>();
+    ids.put("first", 1);
+    ids.put("third", 3);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUserNamesByMap(ids)).containsExactly("User1", "User3");
+    }
+  }
+
+  @Test
+  void shouldRejectInvalidPadding() {
+    assertThatThrownBy(() -> createSqlSource("ten"))
+        .isInstanceOf(BuilderException.class)
+        .hasMessageContaining("Invalid foreach padding 'ten'");
+  }
+
+  private static int placeholders(SqlSource sqlSource, int size) {
+    return sqlSource.getBoundSql(list(size)).getParameterMappings().size();
+  }
+
+  private static Map<String, Object> list(int size) {
+    List<Integer> ids = new ArrayList<>();
+    for (int id = 1; id <= size; id++) {
+      ids.add(id);
+    }
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("list", ids);
+    return parameter;
+  }
+
+  private static SqlSource createSqlSource(String padding) {
+    return new XMLLanguageDriver().createSqlSource(sqlSessionFactory.getConfiguration(),
+        "<script>select * from users where id in <foreach collection='list' item='id' open='(' separator=',' close=')' padding='"
+            + padding + "'>#{id}</foreach></script>", Object.class);
+  }
+
+}
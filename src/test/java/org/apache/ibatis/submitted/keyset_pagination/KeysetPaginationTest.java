@@ -0,0 +1,140 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.PageToken;
+import org.apache.ibatis.session.SeekBounds;
+import org.apache.ibatis.session.SeekKey;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class KeysetPaginationTest {
+
+  private static final String STATEMENT = "org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsersByPrefix";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/keyset_pagination/CreateDB.sql");
+  }
+
+  @Test
+  void shouldPageThroughTheRowsMatchingTheBoundParameter() {
+    List<List<Integer>> pages = readPages(new SeekBounds(2, SeekKey.asc("id")));
+    assertThat(pages).hasSize(3);
+    assertThat(pages.get(0)).containsExactly(1, 2);
+    assertThat(pages.get(1)).containsExactly(3, 4);
+    assertThat(pages.get(2)).containsExactly(5);
+  }
+
+  @Test
+  void shouldMixAscendingAndDescendingKeys() {
+    List<List<Integer>> pages = readPages(new SeekBounds(2, SeekKey.asc("city"), SeekKey.desc("id")));
+    assertThat(pages).hasSize(3);
+    assertThat(pages.get(0)).containsExactly(4, 2);
+    assertThat(pages.get(1)).containsExactly(5, 3);
+    assertThat(pages.get(2)).containsExactly(1);
+  }
+
+  @Test
+  void shouldResumeFromAnEncodedToken() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      SeekBounds bounds = new SeekBounds(2, SeekKey.asc("id"));
+      Page<User> first = sqlSession.selectPage(STATEMENT, Collections.singletonMap("prefix", "User"), bounds);
+      String token = first.getNextPageToken().encode();
+      Page<User> second = sqlSession.selectPage(STATEMENT, Collections.singletonMap("prefix", "User"),
+          bounds.after(PageToken.decode(token)));
+      assertThat(ids(second.getItems())).containsExactly(3, 4);
+    }
+  }
+
+  @Test
+  void shouldNotShareAdditionalParametersWithTheRewrittenBoundSql() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(STATEMENT);
+    BoundSql boundSql = ms.getBoundSql(Collections.singletonMap("prefix", "User"));
+    BoundSql rewritten = boundSql.withSql("select * from (" + boundSql.getSql() + ") seek_ where id > ?",
+        new ArrayList<>(boundSql.getParameterMappings()));
+
+    rewritten.setAdditionalParameter("__seek_0", 3);
+
+    assertThat(rewritten.getAdditionalParameter("pattern")).isEqualTo("User%");
+    assertThat(rewritten.hasAdditionalParameter("__seek_0")).isTrue();
+    assertThat(boundSql.hasAdditionalParameter("__seek_0")).isFalse();
+  }
+
+  @Test
+  void shouldRejectColumnsThatAreNotPlainIdentifiers() {
+    assertThatThrownBy(() -> SeekKey.asc("id; drop table users"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("not a plain identifier");
+    assertThatThrownBy(() -> SeekKey.desc("id desc, name"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> SeekKey.asc("1id"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(SeekKey.asc("user_id$1").getColumn()).isEqualTo("user_id$1");
+  }
+
+  @Test
+  void shouldRejectStatementsThatAreNotPrepared() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThatThrownBy(() -> sqlSession.selectPage("org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsersUnprepared",
+          null, new SeekBounds(2, SeekKey.asc("id"))))
+          .hasMessageContaining("can only be applied to a prepared statement");
+    }
+  }
+
+  private List<List<Integer>> readPages(SeekBounds bounds) {
+    List<List<Integer>> pages = new ArrayList<>();
+    Map<String, Object> parameter = Collections.singletonMap("prefix", "User");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Page<User> page = sqlSession.selectPage(STATEMENT, parameter, bounds);
+      pages.add(ids(page.getItems()));
+      while (page.hasNext()) {
+        page = sqlSession.selectPage(STATEMENT, parameter, bounds.after(page.getNextPageToken()));
+        pages.add(ids(page.getItems()));
+      }
+    }
+    return pages;
+  }
+
+  private static List<Integer> ids(List<User> users) {
+    return users.stream().map(User::getId).collect(Collectors.toList());
+  }
+
+}
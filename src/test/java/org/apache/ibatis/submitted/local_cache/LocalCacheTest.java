@@ -0,0 +1,134 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.local_cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.LocalCacheStatistics;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class LocalCacheTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/local_cache/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/local_cache/CreateDB.sql");
+  }
+
+  @AfterEach
+  void resetLimits() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setLocalCacheMaxEntries(null);
+    configuration.setLocalCacheMaxBytes(null);
+  }
+
+  @Test
+  void shouldCountHitsAndMisses() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUserName(1);
+      mapper.getUserName(1);
+      mapper.getUserName(2);
+      LocalCacheStatistics statistics = sqlSession.getLocalCacheStatistics();
+      assertThat(statistics.getSize()).isEqualTo(2);
+      assertThat(statistics.getHitCount()).isEqualTo(1);
+      assertThat(statistics.getMissCount()).isEqualTo(2);
+      assertThat(statistics.getEvictionCount()).isZero();
+      assertThat(statistics.getEstimatedBytes()).isZero();
+    }
+  }
+
+  @Test
+  void shouldEvictTheLeastRecentlyUsedEntryBeyondMaxEntries() {
+    sqlSessionFactory.getConfiguration().setLocalCacheMaxEntries(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUserName(1);
+      mapper.getUserName(2);
+      mapper.getUserName(1);
+      mapper.getUserName(3);
+      LocalCacheStatistics statistics = sqlSession.getLocalCacheStatistics();
+      assertThat(statistics.getSize()).isEqualTo(2);
+      assertThat(statistics.getEvictionCount()).isEqualTo(1);
+
+      mapper.getUserName(1);
+      assertThat(sqlSession.getLocalCacheStatistics().getHitCount()).isEqualTo(2);
+      mapper.getUserName(2);
+      assertThat(sqlSession.getLocalCacheStatistics().getMissCount()).isEqualTo(4);
+    }
+  }
+
+  @Test
+  void shouldStayWithinMaxBytes() {
+    sqlSessionFactory.getConfiguration().setLocalCacheMaxBytes(1L);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNames()).hasSize(3);
+      mapper.getUserName(1);
+      LocalCacheStatistics statistics = sqlSession.getLocalCacheStatistics();
+      assertThat(statistics.getSize()).isZero();
+      assertThat(statistics.getEstimatedBytes()).isZero();
+      assertThat(statistics.getEvictionCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void shouldEstimateTheSizeOfCachedResults() {
+    sqlSessionFactory.getConfiguration().setLocalCacheMaxBytes(1024L * 1024L);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUserName(1);
+      long oneRow = sqlSession.getLocalCacheStatistics().getEstimatedBytes();
+      mapper.getUserNames();
+      long allRows = sqlSession.getLocalCacheStatistics().getEstimatedBytes() - oneRow;
+      assertThat(oneRow).isPositive();
+      assertThat(allRows).isGreaterThan(oneRow);
+      sqlSession.clearCache();
+      assertThat(sqlSession.getLocalCacheStatistics().getEstimatedBytes()).isZero();
+    }
+  }
+
+  @Test
+  void shouldReportEmptyStatisticsForExecutorsWithoutLocalCache() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Transaction transaction = new JdbcTransaction(configuration.getEnvironment().getDataSource(), null, false);
+    Executor executor = new DelegatingExecutor(configuration.newExecutor(transaction));
+    try (SqlSession sqlSession = new DefaultSqlSession(configuration, executor)) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUserName(1)).isEqualTo("User1");
+      assertThat(sqlSession.getLocalCacheStatistics()).isSameAs(LocalCacheStatistics.EMPTY);
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_row_mapping;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+
+public class Event {
+
+  private Integer id;
+  private String name;
+  private String code;
+  private BigDecimal amount;
+  private String happenedAtText;
+  private LocalDateTime happenedAt;
+  private OffsetDateTime happenedAtOffset;
+  private LocalDate happenedOn;
+
+  public Integer getId() {
+    return id;
+  }
+
+  public void setId(Integer id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public BigDecimal getAmount() {
+    return amount;
+  }
+
+  public void setAmount(BigDecimal amount) {
+    this.amount = amount;
+  }
+
+  public String getHappenedAtText() {
+    return happenedAtText;
+  }
+
+  public void setHappenedAtText(String happenedAtText) {
+    this.happenedAtText = happenedAtText;
+  }
+
+  public LocalDateTime getHappenedAt() {
+    return happenedAt;
+  }
+
+  public void setHappenedAt(LocalDateTime happenedAt) {
+    this.happenedAt = happenedAt;
+  }
+
+  public OffsetDateTime getHappenedAtOffset() {
+    return happenedAtOffset;
+  }
+
+  public void setHappenedAtOffset(OffsetDateTime happenedAtOffset) {
+    this.happenedAtOffset = happenedAtOffset;
+  }
+
+  public LocalDate getHappenedOn() {
+    return happenedOn;
+  }
+
+  public void setHappenedOn(LocalDate happenedOn) {
+    this.happenedOn = happenedOn;
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_row_mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.UnorderedResultHandler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelRowMappingTest {
+
+  private static final int ROWS = 50;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_row_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    BaseDataTest.runScript(dataSource, "org/apache/ibatis/submitted/parallel_row_mapping/CreateDB.sql");
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement("insert into events values (?, ?, ?, ?, ?, ?)")) {
+      for (int id = 1; id <= ROWS; id++) {
+        LocalDateTime happenedAt = LocalDateTime.of(2019, 1, 1, 10, 0).plusMinutes(id).withNano(id * 1000);
+        statement.setInt(1, id);
+        statement.setString(2, id % 10 == 0 ? null : "event" + id);
+        if (id % 7 == 0) {
+          statement.setNull(3, Types.DECIMAL);
+        } else {
+          statement.setBigDecimal(3, BigDecimal.valueOf(id * 150L, 2));
+        }
+        statement.setTimestamp(4, Timestamp.valueOf(happenedAt));
+        statement.setObject(5, OffsetDateTime.of(happenedAt, ZoneOffset.ofHours(2)));
+        statement.setDate(6, java.sql.Date.valueOf(happenedAt.toLocalDate().plusDays(id)));
+        statement.executeUpdate();
+      }
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+  }
+
+  @Test
+  void shouldMapLikeSequentialMapping() {
+    List<Event> sequential = sequentially(Mapper::getEvents);
+    List<Event> parallel = select(Mapper::getEvents);
+
+    assertThat(parallel).hasSize(ROWS);
+    assertThat(parallel).usingFieldByFieldElementComparator().containsExactlyElementsOf(sequential);
+  }
+
+  @Test
+  void shouldReadColumnsWithTheDriverConversions() {
+    List<Event> events = select(Mapper::getEvents);
+
+    Event event = events.get(2);
+    assertThat(event.getHappenedAtOffset()).isEqualTo(
+        OffsetDateTime.of(LocalDateTime.of(2019, 1, 1, 10, 3, 0, 3000), ZoneOffset.ofHours(2)));
+    assertThat(event.getHappenedAtText()).isEqualTo(sequentially(Mapper::getEvents).get(2).getHappenedAtText());
+    assertThat(event.getCode()).isEqualTo("EVENT3");
+    assertThat(events.get(9).getCode()).isNull();
+    assertThat(events.get(6).getAmount()).isNull();
+  }
+
+  @Test
+  void shouldApplyRowBoundsAcrossBlocks() {
+    List<Event> events = select(mapper -> mapper.getEvents(new RowBounds(3, 20)));
+
+    assertThat(events).extracting(Event::getId).containsExactlyElementsOf(ids(4, 23));
+  }
+
+  @Test
+  void shouldMapASingleRow() {
+    List<Event> events = select(mapper -> mapper.getEvents(new RowBounds(ROWS - 1, 10)));
+
+    assertThat(events).extracting(Event::getId).containsExactly(ROWS);
+  }
+
+  @Test
+  void shouldStopWhenTheResultHandlerStops() {
+    List<Integer> ids = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getEvents(context -> {
+        ids.add(context.getResultObject().getId());
+        if (ids.size() == 10) {
+          context.stop();
+        }
+      });
+    }
+    assertThat(ids).containsExactlyElementsOf(ids(1, 10));
+  }
+
+  @Test
+  void shouldPassAllRowsToAnUnorderedResultHandler() {
+    List<Integer> ids = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      UnorderedResultHandler<Event> resultHandler = context -> ids.add(context.getResultObject().getId());
+      sqlSession.getMapper(Mapper.class).getEvents(resultHandler);
+    }
+    assertThat(ids).containsExactlyInAnyOrderElementsOf(ids(1, ROWS));
+  }
+
+  private static List<Integer> ids(int from, int to) {
+    List<Integer> ids = new ArrayList<>();
+    for (int id = from; id <= to; id++) {
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  private static List<Event> select(Function<Mapper, List<Event>> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+  private static List<Event> sequentially(Function<Mapper, List<Event>> query) {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    int parallelism = configuration.getRowMappingParallelism();
+    configuration.setRowMappingParallelism(0);
+    try {
+      return select(query);
+    } finally {
+      configuration.setRowMappingParallelism(parallelism);
+    }
+  }
+
+}
@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parameter_binder;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+
+public interface Mapper {
+
+  String getNameById(Integer id);
+
+  List<Integer> getIdsByName(User user);
+
+  List<Integer> getIdsByCity(User user);
+
+  List<Integer> getIdsByMap(Map<String, Object> parameter);
+
+  List<Integer> getIdsIn(@Param("ids") List<Integer> ids);
+
+  List<Integer> getIdsWithoutCity(@Param("city") String city);
+
+}
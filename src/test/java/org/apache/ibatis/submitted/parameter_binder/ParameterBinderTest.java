@@ -0,0 +1,145 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parameter_binder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.ParameterBinder;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParameterBinderTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parameter_binder/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parameter_binder/CreateDB.sql");
+  }
+
+  @Test
+  void shouldBindParameterWithTypeHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getNameById(2)).isEqualTo("User2");
+      assertThat(mapper.getNameById(9)).isNull();
+    }
+  }
+
+  @Test
+  void shouldBindBeanProperties() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setName("User3");
+      assertThat(mapper.getIdsByName(user)).containsExactly(3);
+      User.Address address = new User.Address();
+      address.setCity("Tokyo");
+      user.setAddress(address);
+      assertThat(mapper.getIdsByCity(user)).containsExactly(1, 3);
+    }
+  }
+
+  @Test
+  void shouldBindMapValues() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Map<String, Object> parameter = new HashMap<>();
+      parameter.put("city", "Tokyo");
+      parameter.put("minId", 1);
+      assertThat(mapper.getIdsByMap(parameter)).containsExactly(3);
+    }
+  }
+
+  @Test
+  void shouldBindNullWithTheJdbcTypeOfTheMapping() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getIdsWithoutCity(null)).containsExactly(4);
+      assertThat(mapper.getIdsWithoutCity("Paris")).containsExactly(2);
+    }
+  }
+
+  @Test
+  void shouldBindForeachItemsOfEachCall() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getIdsIn(Arrays.asList(1, 2))).containsExactly(1, 2);
+      // same shape, other values: neither the binder nor the local cache may return the previous rows
+      assertThat(mapper.getIdsIn(Arrays.asList(3, 4))).containsExactly(3, 4);
+      assertThat(mapper.getIdsIn(Arrays.asList(2, 3, 4))).containsExactly(2, 3, 4);
+    }
+  }
+
+  @Test
+  void shouldReuseBinderForDynamicMappingsOfTheSameShape() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(Mapper.class.getName() + ".getIdsIn");
+    BoundSql first = ms.getBoundSql(ids(1, 2));
+    BoundSql second = ms.getBoundSql(ids(3, 4));
+    BoundSql longer = ms.getBoundSql(ids(1, 2, 3));
+    assertThat(second.getParameterMappings()).isNotSameAs(first.getParameterMappings());
+
+    ParameterBinder binder = ms.getParameterBinder(HashMap.class, first.getParameterMappings());
+    assertThat(ms.getParameterBinder(HashMap.class, second.getParameterMappings())).isSameAs(binder);
+    ParameterBinder longerBinder = ms.getParameterBinder(HashMap.class, longer.getParameterMappings());
+    assertThat(longerBinder).isNotSameAs(binder);
+    assertThat(ms.getParameterBinder(HashMap.class, second.getParameterMappings())).isSameAs(binder);
+    assertThat(ms.getParameterBinder(HashMap.class, longer.getParameterMappings())).isSameAs(longerBinder);
+    // another parameter type never shares a binder
+    assertThat(ms.getParameterBinder(Map.class, first.getParameterMappings())).isNotSameAs(binder);
+  }
+
+  @Test
+  void shouldKeepOnlyTheLatestShapes() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(Mapper.class.getName() + ".getIdsIn");
+    ParameterBinder oldest = ms.getParameterBinder(HashMap.class, ms.getBoundSql(ids(1)).getParameterMappings());
+    ParameterBinder newest = null;
+    for (int size = 20; size < 40; size++) {
+      Integer[] values = new Integer[size];
+      Arrays.fill(values, 1);
+      newest = ms.getParameterBinder(HashMap.class, ms.getBoundSql(ids(values)).getParameterMappings());
+    }
+    Integer[] values = new Integer[39];
+    Arrays.fill(values, 2);
+    assertThat(ms.getParameterBinder(HashMap.class, ms.getBoundSql(ids(values)).getParameterMappings())).isSameAs(newest);
+    assertThat(ms.getParameterBinder(HashMap.class, ms.getBoundSql(ids(1)).getParameterMappings())).isNotSameAs(oldest);
+  }
+
+  private static Map<String, Object> ids(Integer... ids) {
+    Map<String, Object> parameter = new HashMap<>();
+    List<Integer> list = Arrays.asList(ids);
+    parameter.put("ids", list);
+    return parameter;
+  }
+
+}
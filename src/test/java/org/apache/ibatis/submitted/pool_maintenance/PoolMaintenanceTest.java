@@ -0,0 +1,144 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pool_maintenance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PoolMaintenanceTest {
+
+  private MaintainedDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new MaintainedDataSource("jdbc:hsqldb:mem:pool_maintenance");
+    dataSource.setPoolKeepAliveTime(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.setPoolMaintenanceInterval(0);
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldKeepValidIdleConnections() throws SQLException {
+    Connection real = checkoutAndReturn();
+
+    dataSource.runMaintenance();
+
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(1);
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isZero();
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(PooledDataSource.unwrapConnection(connection)).isSameAs(real);
+    }
+  }
+
+  @Test
+  void shouldDropIdleConnectionsThatAreNoLongerValid() throws SQLException {
+    Connection real = checkoutAndReturn();
+    real.close();
+
+    dataSource.runMaintenance();
+
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isZero();
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldValidateWithThePingQueryWhenEnabled() throws SQLException {
+    dataSource.setPoolPingEnabled(true);
+    dataSource.setPoolPingQuery("SELECT 1 FROM NO_SUCH_TABLE");
+    // the connection is not pinged when it is returned, only by the maintenance
+    dataSource.setPoolMaintenanceInterval(60000);
+    checkoutAndReturn();
+
+    dataSource.runMaintenance();
+
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isZero();
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotValidateConnectionsUsedRecently() throws SQLException {
+    dataSource.setPoolKeepAliveTime(60000);
+    Connection real = checkoutAndReturn();
+    real.close();
+
+    dataSource.runMaintenance();
+
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(1);
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isZero();
+  }
+
+  @Test
+  void shouldCloseConnectionsPastTheirMaximumLifetime() throws Exception {
+    dataSource.setPoolMaximumLifetime(1);
+    Connection real = checkoutAndReturn();
+    Thread.sleep(10);
+
+    dataSource.runMaintenance();
+
+    assertThat(real.isClosed()).isTrue();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isZero();
+  }
+
+  @Test
+  void shouldNotPingOnCheckoutWhileTheMaintenanceRuns() throws SQLException {
+    dataSource.setPoolPingEnabled(true);
+    dataSource.setPoolPingQuery("SELECT 1 FROM NO_SUCH_TABLE");
+    dataSource.setPoolPingConnectionsNotUsedFor(0);
+    dataSource.setPoolKeepAliveTime(60000);
+    dataSource.setPoolMaintenanceInterval(60000);
+    Connection real = checkoutAndReturn();
+
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(PooledDataSource.unwrapConnection(connection)).isSameAs(real);
+    }
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isZero();
+  }
+
+  @Test
+  void shouldValidateIdleConnectionsInTheBackground() throws Exception {
+    Connection real = checkoutAndReturn();
+    real.close();
+
+    dataSource.setPoolMaintenanceInterval(10);
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (dataSource.getPoolState().getBadConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isEqualTo(1);
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isZero();
+  }
+
+  private Connection checkoutAndReturn() throws SQLException {
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("VALUES 1");
+      return PooledDataSource.unwrapConnection(connection);
+    }
+  }
+
+}
@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pool_metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.datasource.pooled.PoolListener;
+import org.apache.ibatis.datasource.pooled.PoolMetrics;
+import org.apache.ibatis.metrics.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PoolMetricsTest {
+
+  private MaintainedDataSource dataSource;
+  private RecordingListener listener;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new MaintainedDataSource("jdbc:hsqldb:mem:pool_metrics");
+    listener = new RecordingListener();
+    dataSource.addPoolListener(listener);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.setPoolMBeanName(null);
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldRecordCheckoutsAndReturns() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(dataSource.getPoolMetrics().getActiveConnectionCount()).isEqualTo(1);
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      // reuses the idle connection
+    }
+
+    PoolMetrics metrics = dataSource.getPoolMetrics();
+    assertThat(metrics.getRequestCount()).isEqualTo(2);
+    assertThat(metrics.getCreatedConnectionCount()).isEqualTo(1);
+    assertThat(metrics.getWaitTime().getCount()).isEqualTo(2);
+    assertThat(metrics.getHoldTime().getCount()).isEqualTo(2);
+    assertThat(metrics.getCreationTime().getCount()).isEqualTo(1);
+    assertThat(metrics.getActiveConnectionCount()).isZero();
+    assertThat(metrics.getIdleConnectionCount()).isEqualTo(1);
+    assertThat(listener.events).containsExactly("created", "checkedOut", "returned", "checkedOut", "returned");
+  }
+
+  @Test
+  void shouldKeepCheckingOutWhenAListenerFails() throws Exception {
+    dataSource.addPoolListener(new PoolListener() {
+      @Override
+      public void connectionCheckedOut(long waitTime) {
+        throw new IllegalStateException("listener failure");
+      }
+    });
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(connection.isClosed()).isFalse();
+    }
+    assertThat(listener.events).containsExactly("created", "checkedOut", "returned");
+  }
+
+  @Test
+  void shouldStopNotifyingARemovedListener() throws Exception {
+    dataSource.removePoolListener(listener);
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(connection.isClosed()).isFalse();
+    }
+    assertThat(listener.events).isEmpty();
+    assertThat(dataSource.getPoolMetrics().getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReportALeakWhenAConnectionIsReturnedLate() throws Exception {
+    dataSource.setPoolLeakDetectionThreshold(1);
+    try (Connection connection = dataSource.getConnection()) {
+      Thread.sleep(10);
+    }
+
+    assertThat(dataSource.getPoolMetrics().getLeakSuspectedCount()).isEqualTo(1);
+    assertThat(listener.leakTraces).hasSize(1);
+    assertThat(Arrays.toString(listener.leakTraces.get(0).getStackTrace()))
+        .contains("shouldReportALeakWhenAConnectionIsReturnedLate");
+  }
+
+  @Test
+  void shouldReportALeakOnceWhileTheConnectionIsStillCheckedOut() throws Exception {
+    dataSource.setPoolLeakDetectionThreshold(1);
+    try (Connection connection = dataSource.getConnection()) {
+      Thread.sleep(10);
+      dataSource.runMaintenance();
+      assertThat(dataSource.getPoolMetrics().getLeakSuspectedCount()).isEqualTo(1);
+      dataSource.runMaintenance();
+    }
+
+    assertThat(dataSource.getPoolMetrics().getLeakSuspectedCount()).isEqualTo(1);
+    assertThat(listener.events).containsOnlyOnce("leakSuspected");
+  }
+
+  @Test
+  void shouldNotReportConnectionsReturnedInTime() throws Exception {
+    dataSource.setPoolLeakDetectionThreshold(60000);
+    try (Connection connection = dataSource.getConnection()) {
+      dataSource.runMaintenance();
+    }
+    assertThat(dataSource.getPoolMetrics().getLeakSuspectedCount()).isZero();
+  }
+
+  @Test
+  void shouldRegisterTheMetricsAsAnMBean() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("org.apache.ibatis:type=PooledDataSource,name=" + ObjectName.quote("pool_metrics"));
+    dataSource.setPoolMBeanName("pool_metrics");
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(server.getAttribute(name, "ActiveConnectionCount")).isEqualTo(1);
+    }
+    assertThat(server.getAttribute(name, "RequestCount")).isEqualTo(1L);
+
+    dataSource.setPoolMBeanName(null);
+    assertThat(server.isRegistered(name)).isFalse();
+  }
+
+  @Test
+  void shouldApproximatePercentilesByTheirBucket() {
+    Histogram histogram = new Histogram();
+    for (long time : new long[] { 1, 2, 3, 100 }) {
+      histogram.record(time);
+    }
+    assertThat(histogram.getCount()).isEqualTo(4);
+    assertThat(histogram.getMean()).isEqualTo(26);
+    assertThat(histogram.getMax()).isEqualTo(100);
+    assertThat(histogram.getPercentile(0)).isEqualTo(1);
+    assertThat(histogram.getPercentile(50)).isEqualTo(3);
+    assertThat(histogram.getPercentile(99)).isEqualTo(100);
+    assertThat(new Histogram().getPercentile(99)).isZero();
+  }
+
+}
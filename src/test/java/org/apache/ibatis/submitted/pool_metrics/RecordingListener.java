@@ -0,0 +1,49 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pool_metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.ibatis.datasource.pooled.PoolListener;
+
+public class RecordingListener implements PoolListener {
+
+  final List<String> events = new CopyOnWriteArrayList<>();
+  final List<Throwable> leakTraces = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void connectionCreated(long creationTime) {
+    events.add("created");
+  }
+
+  @Override
+  public void connectionCheckedOut(long waitTime) {
+    events.add("checkedOut");
+  }
+
+  @Override
+  public void connectionReturned(long holdTime) {
+    events.add("returned");
+  }
+
+  @Override
+  public void leakSuspected(long holdTime, Throwable checkoutTrace) {
+    events.add("leakSuspected");
+    leakTraces.add(checkoutTrace);
+  }
+
+}
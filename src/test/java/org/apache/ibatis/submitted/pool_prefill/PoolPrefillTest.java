@@ -0,0 +1,160 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pool_prefill;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.IntSupplier;
+
+import org.apache.ibatis.datasource.pooled.PoolState;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PoolPrefillTest {
+
+  private MaintainedDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new MaintainedDataSource("jdbc:hsqldb:mem:pool_prefill");
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.setPoolMinimumIdle(0);
+    dataSource.setPoolMaintenanceInterval(0);
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldCreateTheMinimumOfIdleConnections() throws Exception {
+    dataSource.setPoolMinimumIdle(3);
+    dataSource.prefill();
+
+    awaitCount(3, () -> dataSource.getPoolState().getIdleConnectionCount());
+    assertThat(dataSource.getPoolState().getPendingConnectionCount()).isZero();
+  }
+
+  @Test
+  void shouldNotPrefillMoreThanTheMaximumOfIdleConnections() throws Exception {
+    dataSource.setPoolMaximumIdleConnections(2);
+    dataSource.setPoolMinimumIdle(5);
+    dataSource.prefill();
+
+    awaitCount(0, () -> dataSource.getPoolState().getPendingConnectionCount());
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldNotPrefillMoreThanTheMaximumOfActiveConnections() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(2);
+    dataSource.setPoolMinimumIdle(2);
+    try (Connection connection = dataSource.getConnection()) {
+      awaitCount(0, () -> dataSource.getPoolState().getPendingConnectionCount());
+      PoolState state = dataSource.getPoolState();
+      assertThat(state.getActiveConnectionCount()).isEqualTo(1);
+      assertThat(state.getIdleConnectionCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldRefillAfterACheckout() throws Exception {
+    dataSource.setPoolMinimumIdle(2);
+    try (Connection connection = dataSource.getConnection()) {
+      awaitCount(2, () -> dataSource.getPoolState().getIdleConnectionCount());
+      assertThat(dataSource.getPoolState().getActiveConnectionCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldPrefillOnceTheFactoryHasSetEveryProperty() throws Exception {
+    PooledDataSourceFactory factory = new PooledDataSourceFactory();
+    Properties properties = new Properties();
+    properties.setProperty("driver", "org.hsqldb.jdbcDriver");
+    properties.setProperty("url", "jdbc:hsqldb:mem:pool_prefill");
+    properties.setProperty("username", "sa");
+    properties.setProperty("poolMinimumIdle", "2");
+    factory.setProperties(properties);
+    PooledDataSource pooled = (PooledDataSource) factory.getDataSource();
+    try {
+      awaitCount(2, () -> pooled.getPoolState().getIdleConnectionCount());
+    } finally {
+      pooled.setPoolMinimumIdle(0);
+      pooled.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldShrinkAQuarterOfTheSurplusPerMaintenance() throws Exception {
+    dataSource.setPoolIdleTimeout(1);
+    returnAll(checkout(5));
+    dataSource.setPoolMinimumIdle(1);
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(5);
+    Thread.sleep(10);
+
+    dataSource.runMaintenance();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(4);
+    dataSource.runMaintenance();
+    dataSource.runMaintenance();
+    dataSource.runMaintenance();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(1);
+    dataSource.runMaintenance();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldHandOutTheMostRecentlyUsedConnectionWhileTheMaintenanceRuns() throws SQLException {
+    dataSource.setPoolMaintenanceInterval(60000);
+    List<Connection> connections = checkout(2);
+    Connection last = PooledDataSource.unwrapConnection(connections.get(1));
+    returnAll(connections);
+
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(PooledDataSource.unwrapConnection(connection)).isSameAs(last);
+    }
+  }
+
+  private List<Connection> checkout(int count) throws SQLException {
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      connections.add(dataSource.getConnection());
+    }
+    return connections;
+  }
+
+  private static void returnAll(List<Connection> connections) throws SQLException {
+    for (Connection connection : connections) {
+      connection.close();
+    }
+  }
+
+  private static void awaitCount(int expected, IntSupplier count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (count.getAsInt() != expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(count.getAsInt()).isEqualTo(expected);
+  }
+
+}
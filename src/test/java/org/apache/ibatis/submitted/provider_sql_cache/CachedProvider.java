@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.provider_sql_cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.builder.annotation.ProviderCacheKeyResolver;
+
+public class CachedProvider implements ProviderCacheKeyResolver {
+
+  static final AtomicInteger invocations = new AtomicInteger();
+
+  public static String selectByIds(@Param("ids") List<Integer> ids) {
+    invocations.incrementAndGet();
+    StringBuilder sql = new StringBuilder("select name from users where id in (");
+    for (int i = 0; i < ids.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append("#{ids[").append(i).append("]}");
+    }
+    return sql.append(") order by id").toString();
+  }
+
+  public static String selectByCity(@Param("city") String city) {
+    invocations.incrementAndGet();
+    return "select name from users where city " + (city == null ? "is null" : "= #{city}") + " order by id";
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.provider_sql_cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.builder.annotation.ProviderCacheKeyResolver;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+public class OrderedProvider implements ProviderCacheKeyResolver {
+
+  static final AtomicInteger invocations = new AtomicInteger();
+
+  public static String selectOrdered(@Param("column") String column) {
+    invocations.incrementAndGet();
+    return "select name from users order by " + column + " desc, id";
+  }
+
+  @Override
+  public Object resolveCacheKey(ProviderContext context, Object[] arguments) {
+    // the column is embedded in the SQL, only the known ones are cached
+    String column = (String) arguments[0];
+    return "id".equals(column) || "name".equals(column) ? column : null;
+  }
+
+}
@@ -0,0 +1,113 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.provider_sql_cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProviderSqlCacheTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/provider_sql_cache/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/provider_sql_cache/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetInvocations() {
+    CachedProvider.invocations.set(0);
+    OrderedProvider.invocations.set(0);
+    UncachedProvider.invocations.set(0);
+  }
+
+  @Test
+  void shouldReuseTheSqlOfArgumentsOfTheSameShape() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNamesByIds(Arrays.asList(1, 2))).containsExactly("User1", "User2");
+      assertThat(mapper.getUserNamesByIds(Arrays.asList(2, 3))).containsExactly("User2", "User3");
+      assertThat(mapper.getUserNamesByIds(Arrays.asList(3, 1))).containsExactly("User1", "User3");
+    }
+    assertThat(CachedProvider.invocations).hasValue(1);
+  }
+
+  @Test
+  void shouldBuildTheSqlAgainForAnotherCollectionSize() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNamesByIds(Collections.singletonList(2))).containsExactly("User2");
+      assertThat(mapper.getUserNamesByIds(Arrays.asList(1, 2, 3))).containsExactly("User1", "User2", "User3");
+      assertThat(mapper.getUserNamesByIds(Collections.singletonList(3))).containsExactly("User3");
+    }
+    assertThat(CachedProvider.invocations).hasValue(2);
+  }
+
+  @Test
+  void shouldTellNullArgumentsApart() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNamesByCity("Paris")).containsExactly("User1", "User2");
+      assertThat(mapper.getUserNamesByCity(null)).containsExactly("User3");
+      assertThat(mapper.getUserNamesByCity("London")).isEmpty();
+      assertThat(mapper.getUserNamesByCity(null)).containsExactly("User3");
+    }
+    assertThat(CachedProvider.invocations).hasValue(2);
+  }
+
+  @Test
+  void shouldUseTheKeyResolvedByTheProvider() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNamesOrderedBy("id")).containsExactly("User3", "User2", "User1");
+      assertThat(mapper.getUserNamesOrderedBy("name")).containsExactly("User3", "User2", "User1");
+      assertThat(mapper.getUserNamesOrderedBy("id")).containsExactly("User3", "User2", "User1");
+      assertThat(OrderedProvider.invocations).hasValue(2);
+
+      // a null key is never cached
+      assertThat(mapper.getUserNamesOrderedBy("city")).containsExactly("User3", "User1", "User2");
+      assertThat(mapper.getUserNamesOrderedBy("city")).containsExactly("User3", "User1", "User2");
+      assertThat(OrderedProvider.invocations).hasValue(4);
+    }
+  }
+
+  @Test
+  void shouldInvokeProvidersWithoutKeyResolverEveryTime() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserName(1)).isEqualTo("User1");
+      assertThat(mapper.getUserName(2)).isEqualTo("User2");
+    }
+    assertThat(UncachedProvider.invocations).hasValue(2);
+  }
+
+}
@@ -0,0 +1,170 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.query_coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryCoalescingTest {
+
+  private static final int SESSIONS = 4;
+  private static final int DELAY = 500;
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService executorService;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/query_coalescing/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/query_coalescing/CreateDB.sql");
+    executorService = Executors.newFixedThreadPool(SESSIONS);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @BeforeEach
+  void resetExecutions() {
+    DbFunctions.executions.set(0);
+  }
+
+  @Test
+  void shouldShareOneExecutionBetweenConcurrentIdenticalSelects() throws Exception {
+    List<List<User>> results = runConcurrently(mapper -> mapper.getUsers(2, DELAY));
+
+    assertThat(DbFunctions.executions.get()).isEqualTo(1);
+    assertThat(sqlSessionFactory.getConfiguration().getQueryCoalescer().getInFlightCount()).isZero();
+    for (List<User> users : results) {
+      assertThat(users).extracting(User::getName).containsExactly("User1", "User2");
+    }
+  }
+
+  @Test
+  void shouldNotShareResultObjectsBetweenSessions() throws Exception {
+    List<List<User>> results = runConcurrently(mapper -> mapper.getUsers(3, DELAY));
+
+    assertThat(DbFunctions.executions.get()).isEqualTo(1);
+    for (int i = 0; i < results.size(); i++) {
+      for (int j = i + 1; j < results.size(); j++) {
+        assertThat(results.get(i)).isNotSameAs(results.get(j));
+        for (int k = 0; k < 3; k++) {
+          assertThat(results.get(i).get(k)).isNotSameAs(results.get(j).get(k));
+        }
+      }
+    }
+    results.get(0).get(0).setName("changed");
+    for (List<User> users : results.subList(1, results.size())) {
+      assertThat(users.get(0).getName()).isEqualTo("User1");
+    }
+  }
+
+  @Test
+  void shouldQueryEachSessionWhenResultsAreNotSerializable() throws Exception {
+    List<List<PlainUser>> results = runConcurrently(mapper -> mapper.getPlainUsers(2, DELAY));
+
+    assertThat(DbFunctions.executions.get()).isEqualTo(SESSIONS);
+    for (List<PlainUser> users : results) {
+      assertThat(users).extracting(PlainUser::getName).containsExactly("User1", "User2");
+    }
+  }
+
+  @Test
+  void shouldNotCoalesceSelectsWithOtherParameters() throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    Future<List<User>> one = executorService.submit(select(barrier, mapper -> mapper.getUsers(1, DELAY)));
+    Future<List<User>> two = executorService.submit(select(barrier, mapper -> mapper.getUsers(2, DELAY)));
+
+    assertThat(one.get()).hasSize(1);
+    assertThat(two.get()).hasSize(2);
+    assertThat(DbFunctions.executions.get()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldNotCoalesceSelectsInTransactions() throws Exception {
+    List<List<User>> results = runConcurrently(mapper -> mapper.getUsers(2, DELAY), false);
+
+    assertThat(DbFunctions.executions.get()).isEqualTo(SESSIONS);
+    for (List<User> users : results) {
+      assertThat(users).extracting(User::getName).containsExactly("User1", "User2");
+    }
+  }
+
+  @Test
+  void shouldNotCoalesceSelectsOfTheSameSessionInSequence() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUsers(1, 0);
+      sqlSession.clearCache();
+      mapper.getUsers(1, 0);
+    }
+    assertThat(DbFunctions.executions.get()).isEqualTo(2);
+  }
+
+  private <T> List<List<T>> runConcurrently(Function<Mapper, List<T>> query) throws Exception {
+    return runConcurrently(query, true);
+  }
+
+  private <T> List<List<T>> runConcurrently(Function<Mapper, List<T>> query, boolean autoCommit) throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(SESSIONS);
+    List<Future<List<T>>> futures = new ArrayList<>();
+    for (int i = 0; i < SESSIONS; i++) {
+      futures.add(executorService.submit(select(barrier, query, autoCommit)));
+    }
+    List<List<T>> results = new ArrayList<>();
+    for (Future<List<T>> future : futures) {
+      results.add(future.get());
+    }
+    return results;
+  }
+
+  private <T> Callable<List<T>> select(CyclicBarrier barrier, Function<Mapper, List<T>> query) {
+    return select(barrier, query, true);
+  }
+
+  private <T> Callable<List<T>> select(CyclicBarrier barrier, Function<Mapper, List<T>> query, boolean autoCommit) {
+    return () -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession(autoCommit)) {
+        barrier.await();
+        return query.apply(sqlSession.getMapper(Mapper.class));
+      }
+    };
+  }
+
+}
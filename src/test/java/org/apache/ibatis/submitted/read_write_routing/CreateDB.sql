@@ -0,0 +1,34 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop function slow if exists;
+drop table source if exists;
+drop table users if exists;
+
+create table source (
+  name varchar(20)
+);
+
+create table users (
+  id int,
+  name varchar(20)
+);
+
+create function slow(delay int) returns int
+  language java deterministic no sql
+  external name 'CLASSPATH:org.apache.ibatis.submitted.read_write_routing.DbFunctions.slow';
+
+insert into source (name) values('primary');
@@ -0,0 +1,143 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.read_write_routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.routing.ReadWriteDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ReadWriteRoutingTest {
+
+  private static final int DELAY = 500;
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService executorService;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/read_write_routing/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    ReadWriteDataSource dataSource = (ReadWriteDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    BaseDataTest.runScript(dataSource.getPrimary(), "org/apache/ibatis/submitted/read_write_routing/CreateDB.sql");
+    DataSource replica = dataSource.getReplicas().get(0);
+    BaseDataTest.runScript(replica, "org/apache/ibatis/submitted/read_write_routing/CreateDB.sql");
+    try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+      statement.executeUpdate("update source set name = 'replica'");
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+    executorService = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void shouldReadFromReplicaInAutoCommitSession() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      assertThat(sqlSession.getMapper(Mapper.class).getSource()).isEqualTo("replica");
+    }
+  }
+
+  @Test
+  void shouldReadFromPrimaryInsideTransaction() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getSource()).isEqualTo("primary");
+    }
+  }
+
+  @Test
+  void shouldReadFromPrimaryAfterWriteUntilCommit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(1, "User1");
+      assertThat(mapper.getSource()).isEqualTo("primary");
+      sqlSession.commit();
+      assertThat(mapper.getSource()).isEqualTo("replica");
+    }
+  }
+
+  @Test
+  void shouldReadFromReplicaAgainAfterRollback() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(2, "User2");
+      assertThat(mapper.getSource()).isEqualTo("primary");
+      sqlSession.rollback();
+      assertThat(mapper.getSource()).isEqualTo("replica");
+    }
+  }
+
+  @Test
+  void shouldReadFromReplicaInsideTransactionWhenStatementOptsIn() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(3, "User3");
+      assertThat(mapper.getSourceFromReplica()).isEqualTo("replica");
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void shouldReadFromPrimaryWhenStatementRequiresIt() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      assertThat(sqlSession.getMapper(Mapper.class).getSourceFromPrimary()).isEqualTo("primary");
+    }
+  }
+
+  @Test
+  void shouldNotShareExecutionBetweenPrimaryAndReplicaReads() throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    Future<String> replicaRead = executorService.submit(() -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+        barrier.await();
+        return sqlSession.getMapper(Mapper.class).getSourceSlowly(DELAY);
+      }
+    });
+    Future<String> primaryRead = executorService.submit(() -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        barrier.await();
+        return sqlSession.getMapper(Mapper.class).getSourceSlowly(DELAY);
+      }
+    });
+
+    assertThat(replicaRead.get()).isEqualTo("replica");
+    assertThat(primaryRead.get()).isEqualTo("primary");
+  }
+
+}
@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.row_bounds_pushdown;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.dialect.OffsetFetchDialect;
+import org.apache.ibatis.dialect.OracleDialect;
+import org.apache.ibatis.dialect.SqlServerDialect;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class RowBoundsPushdownTest {
+
+  private static final String STATEMENT = "org.apache.ibatis.submitted.row_bounds_pushdown.Mapper.getUsers";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/row_bounds_pushdown/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/row_bounds_pushdown/CreateDB.sql");
+  }
+
+  @AfterEach
+  void resolveDialectAgain() {
+    sqlSessionFactory.getConfiguration().setDialect(null);
+  }
+
+  @Test
+  void shouldResolveTheDialectWhenTheEnvironmentIsSet() {
+    CountingDataSource dataSource = new CountingDataSource("jdbc:hsqldb:mem:row_bounds_pushdown");
+    Configuration configuration = new Configuration();
+    configuration.setEnvironment(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    assertThat(dataSource.connections.get()).isEqualTo(1);
+
+    assertThat(configuration.getDialect()).isInstanceOf(LimitOffsetDialect.class);
+    assertThat(configuration.getDialect()).isSameAs(configuration.getDialect());
+    assertThat(dataSource.connections.get()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldKeepAnExplicitDialectWhenTheEnvironmentChanges() {
+    CountingDataSource dataSource = new CountingDataSource("jdbc:hsqldb:mem:row_bounds_pushdown");
+    Configuration configuration = new Configuration();
+    Dialect dialect = new OffsetFetchDialect();
+    configuration.setDialect(dialect);
+    configuration.setEnvironment(new Environment("test", new JdbcTransactionFactory(), dataSource));
+
+    assertThat(configuration.getDialect()).isSameAs(dialect);
+    assertThat(dataSource.connections.get()).isZero();
+
+    configuration.setDialect(null);
+    assertThat(configuration.getDialect()).isInstanceOf(LimitOffsetDialect.class);
+    assertThat(dataSource.connections.get()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldUseALimitOffsetDialectWithoutEnvironment() {
+    assertThat(new Configuration().getDialect()).isInstanceOf(LimitOffsetDialect.class);
+  }
+
+  @Test
+  void shouldPageInTheDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.selectList(STATEMENT, null, new RowBounds(1, 2));
+      assertThat(ids(users)).containsExactly(2, 3);
+    }
+  }
+
+  @Test
+  void shouldOnlySelectTheColumnsOfTheStatementWithRownum() {
+    sqlSessionFactory.getConfiguration().setDialect(new OracleDialect());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.selectList(STATEMENT, null, new RowBounds(1, 2));
+      assertThat(ids(users)).containsExactly(2, 3);
+      assertThat(users).allSatisfy(user -> assertThat(user).containsOnlyKeys("ID", "NAME"));
+
+      users = sqlSession.selectList(STATEMENT, null, new RowBounds(3, RowBounds.NO_ROW_LIMIT));
+      assertThat(ids(users)).containsExactly(4, 5);
+
+      users = sqlSession.selectList(STATEMENT, null, new RowBounds(0, 2));
+      assertThat(ids(users)).containsExactly(1, 2);
+    }
+  }
+
+  @Test
+  void shouldLimitRownumSqlToTheRowsUpToTheLastOne() {
+    OracleDialect dialect = new OracleDialect();
+    assertThat(dialect.supportsOffset()).isFalse();
+    List<Object> parameters = new ArrayList<>();
+    assertThat(dialect.getLimitSql("select id from users", 0, 5, parameters))
+        .isEqualTo("SELECT * FROM (select id from users) WHERE ROWNUM <= ?");
+    assertThat(parameters).containsExactly(5L);
+    assertThat(new LimitOffsetDialect().supportsOffset()).isTrue();
+  }
+
+  @Test
+  void shouldBindTheOffsetAndTheLimitSoThatEveryPageHasTheSameSql() {
+    Dialect dialect = new LimitOffsetDialect();
+    List<Object> secondPage = new ArrayList<>();
+    List<Object> thirdPage = new ArrayList<>();
+    String sql = dialect.getLimitSql("select id from users order by id", 10, 10, secondPage);
+    assertThat(sql).isEqualTo("select id from users order by id LIMIT ? OFFSET ?");
+    assertThat(dialect.getLimitSql("select id from users order by id", 20, 10, thirdPage)).isEqualTo(sql);
+    assertThat(secondPage).containsExactly(10, 10L);
+    assertThat(thirdPage).containsExactly(10, 20L);
+
+    List<Object> parameters = new ArrayList<>();
+    assertThat(new SqlServerDialect().getLimitSql("select id from users;", 20, 10, parameters))
+        .isEqualTo("select id from users ORDER BY (SELECT NULL) OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+    assertThat(parameters).containsExactly(20L, 10);
+  }
+
+  @Test
+  void shouldNotLimitSqlThatCannotBeAppendedTo() {
+    Dialect dialect = new OffsetFetchDialect();
+    List<Object> parameters = new ArrayList<>();
+    assertThat(dialect.getLimitSql("select id from users for update", 0, 5, parameters)).isNull();
+    assertThat(dialect.getLimitSql("select id from users limit 10", 0, 5, parameters)).isNull();
+    assertThat(dialect.getLimitSql("select id from users; delete from users", 0, 5, parameters)).isNull();
+    assertThat(dialect.getLimitSql("select id from users -- all of them", 0, 5, parameters)).isNull();
+    assertThat(new OracleDialect().getLimitSql("select id from users for update", 0, 5, parameters)).isNull();
+    assertThat(parameters).isEmpty();
+
+    assertThat(dialect.getLimitSql("select id, 'for update' from (select id from users fetch first 9 rows only) u", 0, 5, parameters))
+        .isEqualTo("select id, 'for update' from (select id from users fetch first 9 rows only) u OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+  }
+
+  @Test
+  void shouldPageInMemoryWhenTheSqlCannotBeLimited() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.selectList("org.apache.ibatis.submitted.row_bounds_pushdown.Mapper.getFirstUsers",
+          null, new RowBounds(1, 2));
+      assertThat(ids(users)).containsExactly(2, 3);
+
+      users = sqlSession.selectList("org.apache.ibatis.submitted.row_bounds_pushdown.Mapper.getUsersForUpdate",
+          null, new RowBounds(1, 2));
+      assertThat(ids(users)).containsExactly(2, 3);
+    }
+  }
+
+  @Test
+  void shouldPageTerminatedSqlInTheDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.selectList("org.apache.ibatis.submitted.row_bounds_pushdown.Mapper.getUsersTerminated",
+          null, new RowBounds(3, 5));
+      assertThat(ids(users)).containsExactly(4, 5);
+    }
+  }
+
+  private static List<Integer> ids(List<Map<String, Object>> users) {
+    return users.stream().map(user -> (Integer) user.get("ID")).collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,207 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.select_all;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SelectRequest;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SelectAllTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.select_all.Mapper";
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService parallelQueryExecutor;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/select_all/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/select_all/CreateDB.sql");
+    // the default pool runs the selects on the calling thread when its threads are busy
+    parallelQueryExecutor = Executors.newFixedThreadPool(2);
+    sqlSessionFactory.getConfiguration().setParallelQueryExecutor(parallelQueryExecutor);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    parallelQueryExecutor.shutdownNow();
+  }
+
+  @BeforeEach
+  void resetThreads() {
+    DbFunctions.threads.clear();
+  }
+
+  @Test
+  void shouldReturnTheResultsKeyedInTheOrderOfTheRequests() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, List<?>> results = sqlSession.selectAll(requests());
+
+      assertThat(results.keySet()).containsExactly("three", "one", "count", "paged");
+      assertThat(results).containsEntry("three", Arrays.asList("User1", "User2", "User3"));
+      assertThat(results).containsEntry("one", Arrays.asList("User1"));
+      assertThat(results).containsEntry("count", Arrays.asList(3));
+      assertThat(results).containsEntry("paged", Arrays.asList("User2"));
+    }
+  }
+
+  @Test
+  void shouldRunTheSelectsOnOtherThreads() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectAll(requests());
+    }
+    assertThat(DbFunctions.threads).isNotEmpty().doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  void shouldRunTheSelectsOnTheSessionWhenItHasUncommittedChanges() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> user = new HashMap<>();
+      user.put("id", 4);
+      user.put("name", "User4");
+      sqlSession.insert(NAMESPACE + ".insertUser", user);
+
+      Map<String, List<?>> results = sqlSession.selectAll(requests());
+
+      assertThat(results).containsEntry("count", Arrays.asList(4));
+      assertThat(DbFunctions.threads).containsExactly(Thread.currentThread());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void shouldRunTheSelectsOneAfterTheOtherWithoutParallelism() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    int parallelism = configuration.getSelectAllParallelism();
+    configuration.setSelectAllParallelism(1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, List<?>> results = sqlSession.selectAll(requests());
+
+      assertThat(results.keySet()).containsExactly("three", "one", "count", "paged");
+      assertThat(results).containsEntry("paged", Arrays.asList("User2"));
+      assertThat(DbFunctions.threads).containsExactly(Thread.currentThread());
+    } finally {
+      configuration.setSelectAllParallelism(parallelism);
+    }
+  }
+
+  @Test
+  void shouldKeepTheErrorContextOfTheCallerWhenItRunsTheSelects() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setParallelQueryExecutor(new CallerRunsExecutor());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, SelectRequest> requests = requests();
+      requests.put("missing", new SelectRequest(NAMESPACE + ".getMissing"));
+      ErrorContext.instance().activity("selecting all");
+
+      assertThatThrownBy(() -> sqlSession.selectAll(requests))
+          .isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("The error occurred while selecting all");
+      assertThat(DbFunctions.threads).containsExactly(Thread.currentThread());
+    } finally {
+      configuration.setParallelQueryExecutor(parallelQueryExecutor);
+    }
+  }
+
+  @Test
+  void shouldSelectAllThroughSqlSessionManager() {
+    SqlSessionManager sqlSessionManager = SqlSessionManager.newInstance(sqlSessionFactory);
+    Map<String, List<?>> results = sqlSessionManager.selectAll(requests());
+
+    assertThat(results).containsEntry("three", Arrays.asList("User1", "User2", "User3"));
+    assertThat(results).containsEntry("count", Arrays.asList(3));
+  }
+
+  @Test
+  void shouldReturnNoResultsForNoRequests() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.selectAll(Collections.<String, SelectRequest>emptyMap())).isEmpty();
+    }
+  }
+
+  private static Map<String, SelectRequest> requests() {
+    Map<String, SelectRequest> requests = new LinkedHashMap<>();
+    requests.put("three", new SelectRequest(NAMESPACE + ".getNames", 3));
+    requests.put("one", new SelectRequest(NAMESPACE + ".getNames", 1));
+    requests.put("count", new SelectRequest(NAMESPACE + ".countUsers"));
+    requests.put("paged", new SelectRequest(NAMESPACE + ".getNames", 3, new RowBounds(1, 1)));
+    return requests;
+  }
+
+  private static class CallerRunsExecutor extends AbstractExecutorService {
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+
+  }
+
+}
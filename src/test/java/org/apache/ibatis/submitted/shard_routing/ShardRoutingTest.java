@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.shard_routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.sharding.ShardedDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardRoutingTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.shard_routing.Mapper";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/shard_routing/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    ShardedDataSource dataSource = (ShardedDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    for (int shard = 0; shard < dataSource.getShardCount(); shard++) {
+      BaseDataTest.runScript(dataSource.getShard(shard), "org/apache/ibatis/submitted/shard_routing/CreateDB.sql");
+    }
+    // the countries of each shard have the same ids but other names
+    insert(dataSource, 0, "insert into countries (id, name) values (1, 'Shard0Land')",
+        "insert into users (id, name, country_id) values (2, 'User2', 1)");
+    insert(dataSource, 1, "insert into countries (id, name) values (1, 'Shard1Land')",
+        "insert into users (id, name, country_id) values (1, 'User1', 1)",
+        "insert into users (id, name, country_id) values (3, 'User3', 1)");
+  }
+
+  private static void insert(ShardedDataSource dataSource, int shard, String... sqls) throws SQLException {
+    try (Connection connection = dataSource.getShard(shard).getConnection(); Statement statement = connection.createStatement()) {
+      for (String sql : sqls) {
+        statement.executeUpdate(sql);
+      }
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+  }
+
+  @BeforeEach
+  void clearSecondLevelCache() {
+    sqlSessionFactory.getConfiguration().getCache(NAMESPACE).clear();
+  }
+
+  @Test
+  void shouldNotShareLocallyCachedNestedResultsBetweenShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(1).getCountry().getName()).isEqualTo("Shard1Land");
+      assertThat(mapper.getUser(2).getCountry().getName()).isEqualTo("Shard0Land");
+    }
+  }
+
+  @Test
+  void shouldNotShareSecondLevelCachedNestedResultsBetweenShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUser(1).getCountry().getName()).isEqualTo("Shard1Land");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUser(2).getCountry().getName()).isEqualTo("Shard0Land");
+    }
+  }
+
+  @Test
+  void shouldResolveNestedSelectsOnTheShardOfEachRow() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users).extracting(User::getName).containsExactly("User1", "User2", "User3");
+      assertThat(users).extracting(user -> user.getCountry().getName())
+          .containsExactly("Shard1Land", "Shard0Land", "Shard1Land");
+    }
+  }
+
+  @Test
+  void shouldAddUpCountsOfAllShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.selectCount(NAMESPACE + ".getUsers", null)).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void shouldCountOnTheShardOfTheKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.selectCount(NAMESPACE + ".getUser", 3)).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldMarkOnlyGeneratedCountStatements() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    MappedStatement ms = configuration.getMappedStatement(NAMESPACE + ".getUsers");
+    assertThat(ms.isCount()).isFalse();
+    assertThat(ms.getCountStatement().isCount()).isTrue();
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.slow_query_log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.metrics.SlowQuery;
+import org.apache.ibatis.metrics.SlowQueryLog;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlowQueryLogTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.slow_query_log.Mapper.";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/slow_query_log/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/slow_query_log/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clearLog() {
+    sqlSessionFactory.getConfiguration().getSlowQueryLog().clear();
+  }
+
+  @Test
+  void shouldCaptureTheSqlParametersAndRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.<String>selectList(NAMESPACE + "getUserNamesFrom", 2)).containsExactly("User2", "User3");
+    }
+    List<SlowQuery> queries = sqlSessionFactory.getConfiguration().getSlowQueryLog().getSlowQueries();
+    assertThat(queries).hasSize(1);
+    SlowQuery query = queries.get(0);
+    assertThat(query.getStatementId()).isEqualTo(NAMESPACE + "getUserNamesFrom");
+    assertThat(query.getSql()).contains("where id >= ?");
+    assertThat(query.getParameters()).containsExactly("2");
+    assertThat(query.getRows()).isEqualTo(2);
+    assertThat(query.getThread()).isEqualTo(Thread.currentThread().getName());
+    assertThat(query.isFailed()).isFalse();
+  }
+
+  @Test
+  void shouldCaptureFailedExecutions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThatThrownBy(() -> sqlSession.selectList(NAMESPACE + "getUserIdsDividedBy", 0))
+          .isInstanceOf(PersistenceException.class);
+    }
+    List<SlowQuery> queries = sqlSessionFactory.getConfiguration().getSlowQueryLog().getSlowQueries();
+    assertThat(queries).hasSize(1);
+    SlowQuery query = queries.get(0);
+    assertThat(query.getStatementId()).isEqualTo(NAMESPACE + "getUserIdsDividedBy");
+    assertThat(query.getParameters()).containsExactly("0");
+    assertThat(query.getRows()).isEqualTo(-1);
+    assertThat(query.isFailed()).isTrue();
+    assertThat(query.toString()).contains(" failed after ");
+  }
+
+  @Test
+  void shouldKeepTheLastExecutionsMostRecentFirst() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      for (int id = 1; id <= 3; id++) {
+        sqlSession.selectList(NAMESPACE + "getUserNamesFrom", id);
+      }
+    }
+    List<SlowQuery> queries = sqlSessionFactory.getConfiguration().getSlowQueryLog().getSlowQueries();
+    assertThat(queries).hasSize(2);
+    assertThat(queries.get(0).getParameters()).containsExactly("3");
+    assertThat(queries.get(1).getParameters()).containsExactly("2");
+  }
+
+  @Test
+  void shouldTruncateLongParameters() {
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      name.append('x');
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.<Integer>selectList(NAMESPACE + "getUserIdsNamed", name.toString())).isEmpty();
+    }
+    String parameter = sqlSessionFactory.getConfiguration().getSlowQueryLog().getSlowQueries().get(0).getParameters().get(0);
+    assertThat(parameter).hasSize(203).endsWith("...");
+  }
+
+  @Test
+  void shouldOnlyCaptureExecutionsOverTheThreshold() {
+    SlowQueryLog log = new SlowQueryLog(10, 1, 5);
+    assertThat(log.isSlow(9999999)).isFalse();
+    assertThat(log.isSlow(10000000)).isTrue();
+  }
+
+  @Test
+  void shouldCaptureNothingWithASamplingRateOfZero() {
+    SlowQueryLog log = new SlowQueryLog(0, 0, 5);
+    for (int i = 0; i < 100; i++) {
+      assertThat(log.isSlow(1000000000L)).isFalse();
+    }
+  }
+
+  @Test
+  void shouldWrapAroundTheRingBuffer() {
+    SlowQueryLog log = new SlowQueryLog(0, 1, 2);
+    for (int i = 1; i <= 5; i++) {
+      log.add(new SlowQuery(i, "statement" + i, "sql", Collections.emptyList(), 0, 0, "main", false));
+    }
+    assertThat(log.getSlowQueries()).extracting(SlowQuery::getStatementId).containsExactly("statement5", "statement4");
+  }
+
+  @Test
+  void shouldRecreateTheLogWhenItsSettingsChange() {
+    Configuration configuration = new Configuration();
+    assertThat(configuration.getSlowQueryLog()).isNull();
+
+    configuration.setSlowQueryThreshold(100L);
+    SlowQueryLog log = configuration.getSlowQueryLog();
+    assertThat(log).isNotNull().isSameAs(configuration.getSlowQueryLog());
+
+    configuration.setSlowQueryLogSize(10);
+    assertThat(configuration.getSlowQueryLog()).isNotNull().isNotSameAs(log);
+
+    configuration.setSlowQueryThreshold(null);
+    assertThat(configuration.getSlowQueryLog()).isNull();
+  }
+
+}
@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.statement_chunking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementChunkingTest {
+
+  private static final List<Integer> IDS = Arrays.asList(5, 1, 4, 2, 3);
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/statement_chunking/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void resetDatabase() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/statement_chunking/CreateDB.sql");
+    ExecutionCounter.executions.set(0);
+  }
+
+  @Test
+  void shouldExecuteOncePerChunkAndConcatenateInChunkOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNames(IDS);
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+      assertThat(ExecutionCounter.executions).hasValue(3);
+    }
+  }
+
+  @Test
+  void shouldNotSplitCollectionsWithinTheChunkSize() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUserNames(Arrays.asList(2, 1))).containsExactly("User1", "User2");
+      assertThat(ExecutionCounter.executions).hasValue(1);
+    }
+  }
+
+  @Test
+  void shouldSplitTheCollectionUnderEveryName() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // a list is passed as both "collection" and "list"
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNamesOfCollection(IDS);
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+    }
+  }
+
+  @Test
+  void shouldSplitSets() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNamesOfCollection(new LinkedHashSet<>(IDS));
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+      assertThat(ExecutionCounter.executions).hasValue(3);
+    }
+  }
+
+  @Test
+  void shouldSplitArrays() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNamesOfArray(new int[] {5, 1, 4, 2, 3});
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+      assertThat(ExecutionCounter.executions).hasValue(3);
+    }
+  }
+
+  @Test
+  void shouldSplitParamAliases() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNamesOfAlias(IDS);
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+    }
+  }
+
+  @Test
+  void shouldSplitEveryPropertyHoldingTheCollection() {
+    UserIds ids = new UserIds();
+    ids.setIds(IDS);
+    ids.setSameIds(IDS);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNamesOfBean(ids);
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+    }
+    assertThat(ids.getIds()).isSameAs(IDS);
+  }
+
+  @Test
+  void shouldExecuteChunksInParallel() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = sqlSession.getMapper(Mapper.class).getUserNamesInParallel(IDS);
+      assertThat(names).containsExactly("User1", "User5", "User2", "User4", "User3");
+    }
+  }
+
+  @Test
+  void shouldSumTheUpdateCountsOfTheChunks() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.renameUsers(IDS, "Renamed")).isEqualTo(5);
+      assertThat(ExecutionCounter.executions).hasValue(3);
+      assertThat(mapper.getUserNames(IDS)).containsOnly("Renamed");
+    }
+  }
+
+  @Test
+  void shouldReportBatchedChunksOnFlush() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.renameUsers(IDS, "Renamed")).isEqualTo(BatchExecutor.BATCH_UPDATE_RETURN_VALUE);
+      List<BatchResult> results = sqlSession.flushStatements();
+      int updateCount = 0;
+      for (BatchResult result : results) {
+        for (int count : result.getUpdateCounts()) {
+          updateCount += count;
+        }
+      }
+      assertThat(updateCount).isEqualTo(5);
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUserNames(IDS)).containsOnly("Renamed");
+    }
+  }
+
+}
@@ -0,0 +1,148 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.statement_metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.metrics.DefaultMetricsRegistry;
+import org.apache.ibatis.metrics.StatementMetrics;
+import org.apache.ibatis.metrics.StatementMetricsSnapshot;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementMetricsTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.statement_metrics.Mapper.";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/statement_metrics/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/statement_metrics/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetMetrics() {
+    registry().reset();
+    sqlSessionFactory.getConfiguration().getCache(NAMESPACE.substring(0, NAMESPACE.length() - 1)).clear();
+  }
+
+  @Test
+  void shouldRecordTheRowsReturnedByASelect() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.<String>selectList(NAMESPACE + "getUserNamesUncached")).hasSize(3);
+    }
+    StatementMetrics metrics = metrics("getUserNamesUncached");
+    assertThat(metrics.getExecutionTime().getCount()).isEqualTo(1);
+    assertThat(metrics.getFetchTime().getCount()).isEqualTo(1);
+    assertThat(metrics.getRows().getMax()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldRecordTheRowsUpdated() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.update(NAMESPACE + "touchUsers", 3)).isEqualTo(2);
+      sqlSession.rollback(true);
+    }
+    StatementMetrics metrics = metrics("touchUsers");
+    assertThat(metrics.getExecutionTime().getCount()).isEqualTo(1);
+    assertThat(metrics.getRows().getMax()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCountLocalCacheHitsAndMisses() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectList(NAMESPACE + "getUserNamesUncached");
+      sqlSession.selectList(NAMESPACE + "getUserNamesUncached");
+    }
+    StatementMetrics metrics = metrics("getUserNamesUncached");
+    assertThat(metrics.getLocalCacheMisses()).isEqualTo(1);
+    assertThat(metrics.getLocalCacheHits()).isEqualTo(1);
+    assertThat(metrics.getExecutionTime().getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCountSecondLevelCacheHitsAndMisses() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectList(NAMESPACE + "getUserNames");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectList(NAMESPACE + "getUserNames");
+    }
+    StatementMetrics metrics = metrics("getUserNames");
+    assertThat(metrics.getSecondLevelCacheMisses()).isEqualTo(1);
+    assertThat(metrics.getSecondLevelCacheHits()).isEqualTo(1);
+    assertThat(metrics.getExecutionTime().getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldSnapshotTheMetrics() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectList(NAMESPACE + "getUserNamesUncached");
+    }
+    StatementMetricsSnapshot snapshot = metrics("getUserNamesUncached").snapshot();
+    assertThat(snapshot.getId()).isEqualTo(NAMESPACE + "getUserNamesUncached");
+    assertThat(snapshot.getExecutionCount()).isEqualTo(1);
+    assertThat(snapshot.getRowsMax()).isEqualTo(3);
+    assertThat(snapshot.getLocalCacheMisses()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldExposeTheMetricsThroughJmx() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectList(NAMESPACE + "getUserNamesUncached");
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("org.apache.ibatis:type=Metrics,name=" + ObjectName.quote("statement_metrics"));
+
+    assertThat((String[]) server.getAttribute(name, "StatementIds")).containsExactly(NAMESPACE + "getUserNamesUncached");
+    CompositeData snapshot = (CompositeData) server.invoke(name, "getStatementMetrics",
+        new Object[] { NAMESPACE + "getUserNamesUncached" }, new String[] { String.class.getName() });
+    assertThat(snapshot.get("executionCount")).isEqualTo(1L);
+    assertThat(snapshot.get("rowsMax")).isEqualTo(3L);
+
+    server.invoke(name, "reset", new Object[0], new String[0]);
+    assertThat((String[]) server.getAttribute(name, "StatementIds")).isEmpty();
+  }
+
+  private static StatementMetrics metrics(String statement) {
+    StatementMetrics metrics = registry().getStatementMetrics(NAMESPACE + statement);
+    assertThat(metrics).isNotNull();
+    return metrics;
+  }
+
+  private static DefaultMetricsRegistry registry() {
+    return (DefaultMetricsRegistry) sqlSessionFactory.getConfiguration().getMetricsRegistry();
+  }
+
+}
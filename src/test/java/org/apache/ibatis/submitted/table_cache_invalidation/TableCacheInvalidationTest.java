@@ -0,0 +1,173 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.table_cache_invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.decorators.KeyTrackingCache;
+import org.apache.ibatis.cache.decorators.TableIndexedCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableCacheInvalidationTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/table_cache_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void resetDatabaseAndCaches() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/table_cache_invalidation/CreateDB.sql");
+    sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName()).clear();
+    sqlSessionFactory.getConfiguration().getCache(BlockingMapper.class.getName()).clear();
+  }
+
+  @Test
+  void shouldOnlyEvictEntriesOfUpdatedTables() throws Exception {
+    assertOnlyEntriesOfUpdatedTablesAreEvicted(Mapper.class);
+  }
+
+  @Test
+  void shouldOnlyEvictEntriesOfUpdatedTablesFromBlockingCache() throws Exception {
+    assertOnlyEntriesOfUpdatedTablesAreEvicted(BlockingMapper.class);
+  }
+
+  @Test
+  void shouldUseDeclaredTables() throws Exception {
+    cacheUserAndOrder(Mapper.class);
+    updateBehindMyBatis("update users set name = 'Changed' where id = 1", "update orders set amount = 999 where id = 1");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).updateOrderAmount(2, 300);
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserName(1)).isEqualTo("User1");
+      assertThat(mapper.getOrderAmount(1)).isEqualTo(999);
+    }
+  }
+
+  @Test
+  void shouldEvictEverythingWhenTablesAreUnknown() throws Exception {
+    cacheUserAndOrder(Mapper.class);
+    updateBehindMyBatis("update users set name = 'Changed' where id = 1", "update orders set amount = 999 where id = 1");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).touch("orders");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserName(1)).isEqualTo("Changed");
+      assertThat(mapper.getOrderAmount(1)).isEqualTo(999);
+    }
+  }
+
+  @Test
+  void shouldHideEvictedEntriesFromTheWritingTransaction() throws Exception {
+    cacheUserAndOrder(Mapper.class);
+    updateBehindMyBatis("update orders set amount = 999 where id = 1");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.updateUserName(1, "Changed");
+      assertThat(mapper.getUserName(1)).isEqualTo("Changed");
+      assertThat(mapper.getOrderAmount(1)).isEqualTo(100);
+    }
+  }
+
+  @Test
+  void shouldForgetKeysEvictedByTheCache() throws Exception {
+    for (int id = 1; id <= 6; id++) {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        sqlSession.getMapper(Mapper.class).getUserName(id);
+      }
+    }
+    TableIndexedCache tableIndex = KeyTrackingCache.find(
+        sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName()), TableIndexedCache.class);
+    assertThat(tableIndex.getTrackedSize()).isEqualTo(3);
+
+    // the entries still cached survive a write to another table
+    updateBehindMyBatis("update users set name = 'Changed'");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).updateOrderAmount(1, 300);
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserName(6)).isEqualTo("User6");
+      assertThat(mapper.getUserName(1)).isEqualTo("Changed");
+    }
+  }
+
+  @Test
+  void shouldForgetKeysWhenTheCacheIsCleared() throws Exception {
+    cacheUserAndOrder(Mapper.class);
+    TableIndexedCache tableIndex = KeyTrackingCache.find(
+        sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName()), TableIndexedCache.class);
+    assertThat(tableIndex.getTrackedSize()).isEqualTo(2);
+    tableIndex.getDelegate().clear();
+    assertThat(tableIndex.getTrackedSize()).isZero();
+  }
+
+  private void assertOnlyEntriesOfUpdatedTablesAreEvicted(Class<? extends Mapper> type) throws Exception {
+    cacheUserAndOrder(type);
+    updateBehindMyBatis("update users set name = 'Changed' where id = 1", "update orders set amount = 999 where id = 1");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(type).updateUserName(2, "Other");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(type);
+      assertThat(mapper.getUserName(1)).isEqualTo("Changed");
+      assertThat(mapper.getOrderAmount(1)).isEqualTo(100);
+    }
+  }
+
+  private void cacheUserAndOrder(Class<? extends Mapper> type) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(type);
+      assertThat(mapper.getUserName(1)).isEqualTo("User1");
+      assertThat(mapper.getOrderAmount(1)).isEqualTo(100);
+    }
+  }
+
+  private void updateBehindMyBatis(String... sqls) throws Exception {
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      for (String sql : sqls) {
+        statement.executeUpdate(sql);
+      }
+    }
+  }
+
+}
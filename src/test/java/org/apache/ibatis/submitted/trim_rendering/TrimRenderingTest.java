@@ -0,0 +1,112 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.trim_rendering;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class TrimRenderingTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldRemoveTheFirstAndOfWhere() {
+    String script = "<script>select * from users <where>"
+        + "<if test='id != null'> AND id = #{id}</if>"
+        + "<if test='name != null'> and name = #{name}</if>"
+        + "</where></script>";
+    assertThat(render(script, "id", 1, "name", "a")).isEqualTo("select * from users WHERE id = ? and name = ?");
+    assertThat(render(script, "name", "a")).isEqualTo("select * from users WHERE name = ?");
+    assertThat(render(script)).isEqualTo("select * from users");
+  }
+
+  @Test
+  void shouldMatchOverridesIgnoringCaseAndWhitespace() {
+    String script = "<script>select * from users <where>\n\t or\tid = 1</where></script>";
+    assertThat(render(script)).isEqualTo("select * from users WHERE id = 1");
+    script = "<script>select * from users <where>Andid = 1</where></script>";
+    assertThat(render(script)).isEqualTo("select * from users WHERE Andid = 1");
+  }
+
+  @Test
+  void shouldRemoveTheLastCommaOfSet() {
+    String script = "<script>update users <set>"
+        + "<if test='name != null'>name = #{name},</if>"
+        + "<if test='city != null'>city = #{city},</if>"
+        + "</set> where id = 1</script>";
+    assertThat(render(script, "name", "a", "city", "b")).isEqualTo("update users SET name = ?,city = ? where id = 1");
+    assertThat(render(script, "name", "a")).isEqualTo("update users SET name = ? where id = 1");
+  }
+
+  @Test
+  void shouldApplyPrefixAndSuffixOverrides() {
+    String script = "<script>select * from users where "
+        + "<trim prefix='(' prefixOverrides='AND |OR ' suffix=')' suffixOverrides='AND|OR'>"
+        + " OR id = 1 AND name = 'a' OR </trim></script>";
+    assertThat(render(script)).isEqualTo("select * from users where ( id = 1 AND name = 'a' )");
+  }
+
+  @Test
+  void shouldRemoveTheTrailingSeparatorAfterTrimming() {
+    String script = "<script>insert into users (<trim suffixOverrides=','>id, name, </trim>) values (1, 'a')</script>";
+    assertThat(render(script)).isEqualTo("insert into users ( id, name ) values (1, 'a')");
+  }
+
+  @Test
+  void shouldRenderNestedTrimNodesLikeSeparateOnes() {
+    String script = "<script>select * from users where id in "
+        + "<trim prefix='(' suffix=')'>"
+        + "<where><if test='id != null'>AND id = #{id}</if></where>"
+        + "</trim></script>";
+    assertThat(render(script, "id", 1)).isEqualTo("select * from users where id in ( WHERE id = ? )");
+    assertThat(render(script)).isEqualTo("select * from users where id in");
+  }
+
+  @Test
+  void shouldRenderTrimNodesInsideForeach() {
+    String script = "<script>select * from users <where>"
+        + "<foreach collection='names' item='name' separator=' OR '>"
+        + "<trim prefix='(' suffix=')' prefixOverrides='AND '>AND name = #{name}</trim>"
+        + "</foreach></where></script>";
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("names", new String[] {"a", "b"});
+    assertThat(normalize(new XMLLanguageDriver().createSqlSource(configuration, script, Map.class)
+        .getBoundSql(parameter).getSql()))
+        .isEqualTo("select * from users WHERE ( name = ? ) OR ( name = ? )");
+  }
+
+  private String render(String script, Object... keysAndValues) {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", null);
+    parameter.put("name", null);
+    parameter.put("city", null);
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      parameter.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return normalize(new XMLLanguageDriver().createSqlSource(configuration, script, Map.class).getBoundSql(parameter).getSql());
+  }
+
+  private static String normalize(String sql) {
+    return sql.replaceAll("\\s+", " ").trim();
+  }
+
+}